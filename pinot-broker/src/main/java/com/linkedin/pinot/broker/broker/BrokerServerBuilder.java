@@ -17,6 +17,7 @@ package com.linkedin.pinot.broker.broker;
 
 import com.linkedin.pinot.broker.broker.helix.LiveInstancesChangeListenerImpl;
 import com.linkedin.pinot.broker.requesthandler.BrokerRequestHandler;
+import com.linkedin.pinot.broker.requesthandler.BrokerSegmentPruner;
 import com.linkedin.pinot.broker.servlet.PinotBrokerHealthCheckServlet;
 import com.linkedin.pinot.broker.servlet.PinotBrokerRoutingTableDebugServlet;
 import com.linkedin.pinot.broker.servlet.PinotBrokerServletContextChangeListener;
@@ -37,6 +38,7 @@ import com.linkedin.pinot.transport.conf.TransportClientConf;
 import com.linkedin.pinot.transport.conf.TransportClientConf.RoutingMode;
 import com.linkedin.pinot.transport.config.ConnectionPoolConfig;
 import com.linkedin.pinot.transport.metrics.NettyClientMetrics;
+import com.linkedin.pinot.transport.netty.MultiplexedConnectionPool;
 import com.linkedin.pinot.transport.netty.NettyClientConnection;
 import com.linkedin.pinot.transport.netty.PooledNettyClientResourceManager;
 import com.linkedin.pinot.transport.pool.KeyedPool;
@@ -53,6 +55,8 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicReference;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
+import org.apache.helix.ZNRecord;
+import org.apache.helix.store.zk.ZkHelixPropertyStore;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.webapp.WebAppContext;
 import org.slf4j.Logger;
@@ -62,6 +66,7 @@ public class BrokerServerBuilder {
   private static final String TRANSPORT_CONFIG_PREFIX = "pinot.broker.transport";
   private static final String CLIENT_CONFIG_PREFIX = "pinot.broker.client";
   private static final String METRICS_CONFIG_PREFIX = "pinot.broker.metrics";
+  private static final String SEGMENT_PRUNING_CONFIG_PREFIX = "pinot.broker.segmentPruning";
   private static final long DEFAULT_BROKER_DELAY_SHUTDOWN_TIME_MS = 10 * 1000L;
   private static final String BROKER_DELAY_SHUTDOWN_TIME_CONFIG = "pinot.broker.delayShutdownTimeMs";
 
@@ -74,6 +79,7 @@ public class BrokerServerBuilder {
   // Netty Specific
   private EventLoopGroup _eventLoopGroup;
   private PooledNettyClientResourceManager _resourceManager;
+  private MultiplexedConnectionPool _multiplexedConnPool;
 
   private TimeBoundaryService _timeBoundaryService;
 
@@ -86,6 +92,7 @@ public class BrokerServerBuilder {
 
   // Broker Request Handler
   private BrokerRequestHandler _requestHandler;
+  private BrokerSegmentPruner _segmentPruner;
 
   private long delayedShutdownTimeMs = DEFAULT_BROKER_DELAY_SHUTDOWN_TIME_MS;
 
@@ -136,7 +143,8 @@ public class BrokerServerBuilder {
     final NettyClientMetrics clientMetrics = new NettyClientMetrics(_registry, "client_");
 
     // Setup Netty Connection Pool
-    _resourceManager = new PooledNettyClientResourceManager(_eventLoopGroup, new HashedWheelTimer(), clientMetrics);
+    HashedWheelTimer timer = new HashedWheelTimer();
+    _resourceManager = new PooledNettyClientResourceManager(_eventLoopGroup, timer, clientMetrics);
     _poolTimeoutExecutor = new ScheduledThreadPoolExecutor(50);
     // _requestSenderPool = MoreExecutors.sameThreadExecutor();
 
@@ -159,19 +167,46 @@ public class BrokerServerBuilder {
       // Helix based routing is already initialized.
     }
 
+    // Setup multiplexed connections, on which many requests can be in flight at the same time
+    if (conf.isMultiplexedEnabled()) {
+      LOGGER.info("Using {} multiplexed connections per server", conf.getMultiplexedConnectionsPerServer());
+      _multiplexedConnPool = new MultiplexedConnectionPool(_eventLoopGroup, timer, clientMetrics,
+          conf.getMultiplexedConnectionsPerServer());
+    }
+
     // Setup ScatterGather
-    _scatterGather = new ScatterGatherImpl(_connPool, _requestSenderPool);
+    _scatterGather =
+        new ScatterGatherImpl(_connPool, _multiplexedConnPool, _requestSenderPool, _poolTimeoutExecutor);
 
     // Setup Broker Request Handler
 
 
     ReduceServiceRegistry reduceServiceRegistry = buildReduceServiceRegistry();
+    _segmentPruner = buildSegmentPruner();
     _requestHandler = new BrokerRequestHandler(_routingTable, _timeBoundaryService, _scatterGather,
-        reduceServiceRegistry, _brokerMetrics, _config);
+        reduceServiceRegistry, _brokerMetrics, _config, _segmentPruner);
 
     LOGGER.info("Network initialized !!");
   }
 
+  /**
+   * Build the broker segment pruner, which needs the segment ZK metadata so is only available with Helix based
+   * routing.
+   *
+   * @return broker segment pruner, or null if not available or not enabled.
+   */
+  private BrokerSegmentPruner buildSegmentPruner() {
+    if (!(_routingTable instanceof HelixExternalViewBasedRouting)) {
+      return null;
+    }
+    ZkHelixPropertyStore<ZNRecord> propertyStore = ((HelixExternalViewBasedRouting) _routingTable).getPropertyStore();
+    if (propertyStore == null) {
+      return null;
+    }
+    return BrokerSegmentPruner.fromConfig(_config.subset(SEGMENT_PRUNING_CONFIG_PREFIX), propertyStore,
+        _brokerMetrics);
+  }
+
   /**
    * Build the reduce service registry for each broker response.
    */
@@ -240,8 +275,14 @@ public class BrokerServerBuilder {
     }
     _state.set(State.SHUTTING_DOWN);
     _connPool.shutdown();
+    if (_multiplexedConnPool != null) {
+      _multiplexedConnPool.shutdown();
+    }
     _eventLoopGroup.shutdownGracefully();
     _routingTable.shutdown();
+    if (_segmentPruner != null) {
+      _segmentPruner.shutDown();
+    }
     _poolTimeoutExecutor.shutdown();
     _requestSenderPool.shutdown();
     _state.set(State.SHUTDOWN);
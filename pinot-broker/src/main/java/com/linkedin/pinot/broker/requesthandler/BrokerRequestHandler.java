@@ -35,7 +35,10 @@ import com.linkedin.pinot.common.response.ProcessingException;
 import com.linkedin.pinot.common.response.ServerInstance;
 import com.linkedin.pinot.common.utils.DataTable;
 import com.linkedin.pinot.core.common.datatable.DataTableFactory;
+import com.linkedin.pinot.core.query.reduce.BrokerReduceService;
+import com.linkedin.pinot.core.query.reduce.StreamingBrokerReducer;
 import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import com.linkedin.pinot.routing.HelixExternalViewBasedRouting;
 import com.linkedin.pinot.routing.RoutingTable;
 import com.linkedin.pinot.routing.RoutingTableLookupRequest;
 import com.linkedin.pinot.routing.TimeBoundaryService;
@@ -43,6 +46,7 @@ import com.linkedin.pinot.routing.TimeBoundaryService.TimeBoundaryInfo;
 import com.linkedin.pinot.serde.SerDe;
 import com.linkedin.pinot.transport.common.BucketingSelection;
 import com.linkedin.pinot.transport.common.CompositeFuture;
+import com.linkedin.pinot.transport.common.AdaptiveReplicaSelection;
 import com.linkedin.pinot.transport.common.ReplicaSelection;
 import com.linkedin.pinot.transport.common.ReplicaSelectionGranularity;
 import com.linkedin.pinot.transport.common.RoundRobinReplicaSelection;
@@ -59,6 +63,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nonnull;
@@ -84,6 +90,21 @@ public class BrokerRequestHandler {
   private static final String BROKER_QUERY_RESPONSE_LIMIT_CONFIG = "pinot.broker.query.response.limit";
   public static final long DEFAULT_BROKER_TIME_OUT_MS = 10 * 1000L;
   private static final String BROKER_TIME_OUT_CONFIG = "pinot.broker.timeoutMs";
+  private static final boolean DEFAULT_ENABLE_STREAMING_REDUCE = true;
+  private static final String ENABLE_STREAMING_REDUCE_CONFIG = "pinot.broker.reduce.streaming";
+  private static final String RESULT_CACHE_CONFIG_PREFIX = "pinot.broker.resultCache";
+  // Replica selection: "roundRobin" (default) or "adaptive" (latency-aware)
+  private static final String REPLICA_SELECTION_CONFIG = "pinot.broker.replicaSelection";
+  private static final String ADAPTIVE_REPLICA_SELECTION = "adaptive";
+  private static final String REPLICA_SELECTION_LATENCY_HALF_LIFE_MS_CONFIG =
+      "pinot.broker.replicaSelection.latencyHalfLifeMs";
+  // Hedged requests (only with adaptive replica selection)
+  private static final String ENABLE_HEDGED_REQUESTS_CONFIG = "pinot.broker.hedgedRequests.enabled";
+  private static final String HEDGED_REQUESTS_LATENCY_PERCENTILE_CONFIG =
+      "pinot.broker.hedgedRequests.latencyPercentile";
+  private static final double DEFAULT_HEDGED_REQUESTS_LATENCY_PERCENTILE = 95;
+  private static final String HEDGED_REQUESTS_MIN_DELAY_MS_CONFIG = "pinot.broker.hedgedRequests.minDelayMs";
+  private static final long DEFAULT_HEDGED_REQUESTS_MIN_DELAY_MS = 10L;
   private static final String DEFAULT_BROKER_ID;
   public static final String BROKER_ID_CONFIG_KEY = "pinot.broker.id";
   private static final ResponseType DEFAULT_BROKER_RESPONSE_TYPE = ResponseType.BROKER_RESPONSE_TYPE_NATIVE;
@@ -108,26 +129,65 @@ public class BrokerRequestHandler {
   private final int _queryResponseLimit;
   private final AtomicLong _requestIdGenerator;
   private final String _brokerId;
-  // TODO: Currently only using RoundRobin selection. But, this can be allowed to be configured.
-  private RoundRobinReplicaSelection _replicaSelection;
+  private final boolean _enableStreamingReduce;
+  private final BrokerResultCache _resultCache;
+  private final BrokerSegmentPruner _segmentPruner;
+  private final ReplicaSelection _replicaSelection;
+  private final boolean _enableHedgedRequests;
 
   public BrokerRequestHandler(RoutingTable table, TimeBoundaryService timeBoundaryService,
       ScatterGather scatterGatherer, ReduceServiceRegistry reduceServiceRegistry, BrokerMetrics brokerMetrics,
       Configuration config) {
+    this(table, timeBoundaryService, scatterGatherer, reduceServiceRegistry, brokerMetrics, config, null);
+  }
+
+  public BrokerRequestHandler(RoutingTable table, TimeBoundaryService timeBoundaryService,
+      ScatterGather scatterGatherer, ReduceServiceRegistry reduceServiceRegistry, BrokerMetrics brokerMetrics,
+      Configuration config, @Nullable BrokerSegmentPruner segmentPruner) {
     _routingTable = table;
     _timeBoundaryService = timeBoundaryService;
     _reduceServiceRegistry = reduceServiceRegistry;
     _scatterGatherer = scatterGatherer;
-    _replicaSelection = new RoundRobinReplicaSelection();
+    if (ADAPTIVE_REPLICA_SELECTION.equalsIgnoreCase(config.getString(REPLICA_SELECTION_CONFIG, null))) {
+      _replicaSelection = new AdaptiveReplicaSelection(
+          config.getDouble(HEDGED_REQUESTS_LATENCY_PERCENTILE_CONFIG, DEFAULT_HEDGED_REQUESTS_LATENCY_PERCENTILE),
+          config.getLong(HEDGED_REQUESTS_MIN_DELAY_MS_CONFIG, DEFAULT_HEDGED_REQUESTS_MIN_DELAY_MS),
+          config.getLong(REPLICA_SELECTION_LATENCY_HALF_LIFE_MS_CONFIG,
+              AdaptiveReplicaSelection.DEFAULT_LATENCY_HALF_LIFE_MS));
+      _enableHedgedRequests = config.getBoolean(ENABLE_HEDGED_REQUESTS_CONFIG, false);
+    } else {
+      _replicaSelection = new RoundRobinReplicaSelection();
+      _enableHedgedRequests = false;
+    }
     _brokerMetrics = brokerMetrics;
     _optimizer = new BrokerRequestOptimizer();
     _requestIdGenerator = new AtomicLong(0);
     _queryResponseLimit = config.getInt(BROKER_QUERY_RESPONSE_LIMIT_CONFIG, DEFAULT_BROKER_QUERY_RESPONSE_LIMIT);
     _brokerTimeOutMs = config.getLong(BROKER_TIME_OUT_CONFIG, DEFAULT_BROKER_TIME_OUT_MS);
     _brokerId = config.getString(BROKER_ID_CONFIG_KEY, DEFAULT_BROKER_ID);
+    _enableStreamingReduce = config.getBoolean(ENABLE_STREAMING_REDUCE_CONFIG, DEFAULT_ENABLE_STREAMING_REDUCE);
     LOGGER.info("Broker response limit is: " + _queryResponseLimit);
     LOGGER.info("Broker timeout is - " + _brokerTimeOutMs + " ms");
     LOGGER.info("Broker id: " + _brokerId);
+    LOGGER.info("Streaming reduce enabled: " + _enableStreamingReduce);
+    LOGGER.info("Replica selection: " + _replicaSelection.getClass().getSimpleName() + ", hedged requests enabled: "
+        + _enableHedgedRequests);
+    _resultCache = BrokerResultCache.fromConfig(config.subset(RESULT_CACHE_CONFIG_PREFIX), brokerMetrics);
+    if (_resultCache != null) {
+      // Invalidate the cached results when the routing table or the segment ZK metadata changes.
+      _routingTable.addRoutingTableChangeListener(_resultCache);
+      if (_routingTable instanceof HelixExternalViewBasedRouting) {
+        ((HelixExternalViewBasedRouting) _routingTable).addSegmentZKMetadataChangeListener(_resultCache);
+      }
+    }
+    _segmentPruner = segmentPruner;
+    if (_segmentPruner != null) {
+      // Reload the segment pruning info when the routing table or the segment ZK metadata changes.
+      _routingTable.addRoutingTableChangeListener(_segmentPruner);
+      if (_routingTable instanceof HelixExternalViewBasedRouting) {
+        ((HelixExternalViewBasedRouting) _routingTable).addSegmentZKMetadataChangeListener(_segmentPruner);
+      }
+    }
   }
 
   /**
@@ -296,10 +356,28 @@ public class BrokerRequestHandler {
         realtimeBrokerRequest = _optimizer.optimize(brokerRequest);
       }
 
+      // Serve queries on OFFLINE only tables from the result cache if possible.
+      BrokerResultCache.CacheKey cacheKey = null;
+      if (_resultCache != null && realtimeBrokerRequest == null
+          && responseType == ResponseType.BROKER_RESPONSE_TYPE_NATIVE) {
+        cacheKey = _resultCache.getCacheKey(offlineBrokerRequest);
+        if (cacheKey != null) {
+          BrokerResponse cachedBrokerResponse = _resultCache.get(cacheKey);
+          if (cachedBrokerResponse != null) {
+            return cachedBrokerResponse;
+          }
+        }
+      }
+
       ReduceService reduceService = _reduceServiceRegistry.get(responseType);
       // TODO: wire up the customized BucketingSelection.
-      return processOptimizedBrokerRequests(brokerRequest, offlineBrokerRequest, realtimeBrokerRequest, reduceService,
-          scatterGatherStats, null, requestId);
+      BrokerResponse brokerResponse =
+          processOptimizedBrokerRequests(brokerRequest, offlineBrokerRequest, realtimeBrokerRequest, reduceService,
+              scatterGatherStats, null, requestId);
+      if (cacheKey != null) {
+        _resultCache.put(cacheKey, brokerResponse);
+      }
+      return brokerResponse;
     }
   }
 
@@ -436,6 +514,13 @@ public class BrokerRequestHandler {
       return BrokerResponseFactory.getStaticEmptyBrokerResponse(serverResponseType);
     }
 
+    // For aggregation queries, gather, deserialize and reduce the server responses as they arrive.
+    if (_enableStreamingReduce && reduceService instanceof BrokerReduceService
+        && StreamingBrokerReducer.isSupported(originalBrokerRequest)) {
+      return streamingGatherAndReduce(originalBrokerRequest, offlineCompositeFuture, offlineTableName,
+          realtimeCompositeFuture, realtimeTableName, scatterGatherStats, phaseTimes);
+    }
+
     // Step 3: gather response from the servers.
     int numServersQueried = 0;
     long gatherStartTime = System.nanoTime();
@@ -481,6 +566,114 @@ public class BrokerRequestHandler {
         reduceService.reduceOnDataTable(originalBrokerRequest, dataTableMap, _brokerMetrics);
     phaseTimes.addToReduceTime(System.nanoTime() - reduceStartTime);
 
+    return finishBrokerResponse(brokerResponse, originalTableName, processingExceptions, numServersQueried,
+        numServersResponded, phaseTimes);
+  }
+
+  /**
+   * Gather, deserialize and reduce the server responses one at a time as soon as they arrive, so that the reduce
+   * overlaps with waiting for the slower servers. Only used for queries supported by {@link StreamingBrokerReducer}.
+   *
+   * @param originalBrokerRequest original broker request.
+   * @param offlineCompositeFuture composite future for OFFLINE table.
+   * @param offlineTableName OFFLINE table name.
+   * @param realtimeCompositeFuture composite future for REALTIME table.
+   * @param realtimeTableName REALTIME table name.
+   * @param scatterGatherStats scatter-gather statistics.
+   * @param phaseTimes phase times.
+   * @return broker response.
+   * @throws InterruptedException
+   */
+  @Nonnull
+  private BrokerResponse streamingGatherAndReduce(@Nonnull BrokerRequest originalBrokerRequest,
+      @Nullable CompositeFuture<ServerInstance, ByteBuf> offlineCompositeFuture, @Nullable String offlineTableName,
+      @Nullable CompositeFuture<ServerInstance, ByteBuf> realtimeCompositeFuture, @Nullable String realtimeTableName,
+      @Nonnull ScatterGatherStats scatterGatherStats, @Nonnull PhaseTimes phaseTimes)
+      throws InterruptedException {
+    String originalTableName = originalBrokerRequest.getQuerySource().getTableName();
+    long gatherStartTime = System.nanoTime();
+
+    // Responses are put into the queue by the transport threads, and consumed by the current thread. Each composite
+    // future puts a completion marker into the queue once done.
+    BlockingQueue<ServerResponse> responseQueue = new LinkedBlockingQueue<>();
+    int numCompositeFutures = 0;
+    int numServersQueried = 0;
+    if (offlineCompositeFuture != null) {
+      numCompositeFutures++;
+      numServersQueried += offlineCompositeFuture.getNumFutures();
+      addServerResponseListener(offlineCompositeFuture, true, offlineTableName, responseQueue);
+    }
+    if (realtimeCompositeFuture != null) {
+      numCompositeFutures++;
+      numServersQueried += realtimeCompositeFuture.getNumFutures();
+      addServerResponseListener(realtimeCompositeFuture, false, realtimeTableName, responseQueue);
+    }
+
+    StreamingBrokerReducer streamingBrokerReducer = new StreamingBrokerReducer(originalBrokerRequest, _brokerMetrics);
+    List<ProcessingException> processingExceptions = new ArrayList<>();
+    long deserializationTime = 0L;
+    long reduceTime = 0L;
+    int numCompositeFuturesCompleted = 0;
+    while (numCompositeFuturesCompleted < numCompositeFutures) {
+      ServerResponse serverResponse = responseQueue.take();
+      if (serverResponse._response == null) {
+        numCompositeFuturesCompleted++;
+        continue;
+      }
+
+      long deserializationStartTime = System.nanoTime();
+      DataTable dataTable =
+          deserializeServerResponse(serverResponse._serverInstance, serverResponse._response, serverResponse._tableName,
+              processingExceptions);
+      long reduceStartTime = System.nanoTime();
+      deserializationTime += reduceStartTime - deserializationStartTime;
+      if (dataTable != null) {
+        streamingBrokerReducer.reduce(serverResponse._serverInstance, dataTable);
+        reduceTime += System.nanoTime() - reduceStartTime;
+      }
+    }
+
+    // All composite futures are done, get the response times and number of servers responded.
+    int numServersResponded = 0;
+    if (offlineCompositeFuture != null) {
+      Map<ServerInstance, ByteBuf> offlineServerResponseMap =
+          gatherServerResponses(offlineCompositeFuture, scatterGatherStats, true, offlineTableName,
+              processingExceptions);
+      if (offlineServerResponseMap != null) {
+        numServersResponded += offlineServerResponseMap.size();
+      }
+    }
+    if (realtimeCompositeFuture != null) {
+      Map<ServerInstance, ByteBuf> realtimeServerResponseMap =
+          gatherServerResponses(realtimeCompositeFuture, scatterGatherStats, false, realtimeTableName,
+              processingExceptions);
+      if (realtimeServerResponseMap != null) {
+        numServersResponded += realtimeServerResponseMap.size();
+      }
+    }
+
+    // The final step only extracts and trims the already merged results.
+    long reduceStartTime = System.nanoTime();
+    phaseTimes.addToGatherTime(reduceStartTime - gatherStartTime - deserializationTime - reduceTime);
+    BrokerResponse brokerResponse = streamingBrokerReducer.getBrokerResponse();
+    reduceTime += System.nanoTime() - reduceStartTime;
+    phaseTimes.addToDeserializationTime(deserializationTime);
+    phaseTimes.addToReduceTime(reduceTime);
+
+    return finishBrokerResponse(brokerResponse, originalTableName, processingExceptions, numServersQueried,
+        numServersResponded, phaseTimes);
+  }
+
+  /**
+   * Set processing exceptions and number of servers queried/responded into the broker response, and update broker
+   * metrics.
+   *
+   * @return broker response passed in.
+   */
+  @Nonnull
+  private BrokerResponse finishBrokerResponse(@Nonnull BrokerResponse brokerResponse,
+      @Nonnull String originalTableName, @Nonnull List<ProcessingException> processingExceptions,
+      int numServersQueried, int numServersResponded, @Nonnull PhaseTimes phaseTimes) {
     // Set processing exceptions and number of servers queried/responded.
     brokerResponse.setExceptions(processingExceptions);
     brokerResponse.setNumServersQueried(numServersQueried);
@@ -510,10 +703,14 @@ public class BrokerRequestHandler {
       @Nonnull PhaseTimes phaseTimes, @Nonnull ScatterGatherStats scatterGatherStats, boolean isOfflineTable,
       @Nullable BucketingSelection bucketingSelection, long requestId)
       throws InterruptedException {
-    // Step 1: find the candidate servers to be queried for each set of segments from the routing table.
+    // Step 1: find the candidate servers to be queried for each set of segments from the routing table, and prune the
+    // segments that cannot match the query.
     // TODO: add checks for whether all segments are covered.
     long routingStartTime = System.nanoTime();
     Map<ServerInstance, SegmentIdSet> segmentServices = findCandidateServers(brokerRequest);
+    if (_segmentPruner != null && isOfflineTable && segmentServices != null && !segmentServices.isEmpty()) {
+      segmentServices = _segmentPruner.prune(brokerRequest, segmentServices);
+    }
     phaseTimes.addToRoutingTime(System.nanoTime() - routingStartTime);
     if (segmentServices == null || segmentServices.isEmpty()) {
       String tableName = brokerRequest.getQuerySource().getTableName();
@@ -523,11 +720,16 @@ public class BrokerRequestHandler {
     }
 
     // Step 2: select servers for each segment set and scatter request to the servers.
+    // Adaptive replica selection can move each segment set to another server hosting all its segments.
     long scatterStartTime = System.nanoTime();
+    Map<String, List<ServerInstance>> segmentReplicasMap = null;
+    if (_replicaSelection instanceof AdaptiveReplicaSelection && bucketingSelection == null) {
+      segmentReplicasMap = _routingTable.getSegmentReplicas(brokerRequest.getQuerySource().getTableName());
+    }
     ScatterGatherRequestImpl scatterRequest =
-        new ScatterGatherRequestImpl(brokerRequest, segmentServices, _replicaSelection,
-            ReplicaSelectionGranularity.SEGMENT_ID_SET, brokerRequest.getBucketHashKey(), 0, bucketingSelection,
-            requestId, _brokerTimeOutMs, _brokerId);
+        new ScatterGatherRequestImpl(brokerRequest, segmentServices, segmentReplicasMap, _replicaSelection,
+            ReplicaSelectionGranularity.SEGMENT_ID_SET, brokerRequest.getBucketHashKey(),
+            _enableHedgedRequests ? 1 : 0, bucketingSelection, requestId, _brokerTimeOutMs, _brokerId);
     CompositeFuture<ServerInstance, ByteBuf> compositeFuture =
         _scatterGatherer.scatterGather(scatterRequest, scatterGatherStats, isOfflineTable, _brokerMetrics);
     phaseTimes.addToScatterTime(System.nanoTime() - scatterStartTime);
@@ -602,17 +804,72 @@ public class BrokerRequestHandler {
       if (!isOfflineTable) {
         serverInstance = new ServerInstance(serverInstance.getHostname(), serverInstance.getPort(), 1);
       }
-      ByteBuf byteBuf = entry.getValue();
-      try {
-        byte[] byteArray = new byte[byteBuf.readableBytes()];
-        byteBuf.readBytes(byteArray);
-        dataTableMap.put(serverInstance, DataTableFactory.getDataTable(byteArray));
-      } catch (Exception e) {
-        LOGGER.error("Caught exceptions while deserializing response for table: {} from server: {}", tableName,
-            serverInstance, e);
-        _brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.DATA_TABLE_DESERIALIZATION_EXCEPTIONS, 1);
-        processingExceptions.add(QueryException.getException(QueryException.DATA_TABLE_DESERIALIZATION_ERROR, e));
+      DataTable dataTable =
+          deserializeServerResponse(serverInstance, entry.getValue(), tableName, processingExceptions);
+      if (dataTable != null) {
+        dataTableMap.put(serverInstance, dataTable);
+      }
+    }
+  }
+
+  /**
+   * Deserialize one server response, append processing exception to the processing exception list passed in on
+   * failure.
+   *
+   * @return de-serialized data table, or null if failed to deserialize.
+   */
+  @Nullable
+  private DataTable deserializeServerResponse(@Nonnull ServerInstance serverInstance, @Nonnull ByteBuf byteBuf,
+      @Nonnull String tableName, @Nonnull List<ProcessingException> processingExceptions) {
+    try {
+      // Data table is de-serialized from a view of the readable bytes without copying them.
+      return DataTableFactory.getDataTable(byteBuf.nioBuffer());
+    } catch (Exception e) {
+      LOGGER.error("Caught exceptions while deserializing response for table: {} from server: {}", tableName,
+          serverInstance, e);
+      _brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.DATA_TABLE_DESERIALIZATION_EXCEPTIONS, 1);
+      processingExceptions.add(QueryException.getException(QueryException.DATA_TABLE_DESERIALIZATION_ERROR, e));
+      return null;
+    }
+  }
+
+  /**
+   * Put each server response into the response queue as soon as it arrives, and put a completion marker (response
+   * with <code>null</code> content) into the queue once the composite future is done.
+   * <p>For hybrid use case, use response sequence to distinguish REALTIME responses from OFFLINE responses.
+   */
+  private static void addServerResponseListener(@Nonnull CompositeFuture<ServerInstance, ByteBuf> compositeFuture,
+      final boolean isOfflineTable, @Nonnull final String tableName,
+      @Nonnull final BlockingQueue<ServerResponse> responseQueue) {
+    compositeFuture.addResponseListener(new CompositeFuture.ResponseListener<ServerInstance, ByteBuf>() {
+      @Override
+      public void onResponse(ServerInstance serverInstance, ByteBuf response) {
+        if (!isOfflineTable) {
+          serverInstance = new ServerInstance(serverInstance.getHostname(), serverInstance.getPort(), 1);
+        }
+        responseQueue.offer(new ServerResponse(serverInstance, response, tableName));
+      }
+    });
+    compositeFuture.addListener(new Runnable() {
+      @Override
+      public void run() {
+        responseQueue.offer(new ServerResponse(null, null, tableName));
       }
+    }, null);
+  }
+
+  /**
+   * Server response (or completion marker) passed from the transport threads to the request thread.
+   */
+  private static class ServerResponse {
+    private final ServerInstance _serverInstance;
+    private final ByteBuf _response;
+    private final String _tableName;
+
+    private ServerResponse(ServerInstance serverInstance, ByteBuf response, String tableName) {
+      _serverInstance = serverInstance;
+      _response = response;
+      _tableName = tableName;
     }
   }
 
@@ -657,6 +914,7 @@ public class BrokerRequestHandler {
   private static class ScatterGatherRequestImpl implements ScatterGatherRequest {
     private final BrokerRequest _brokerRequest;
     private final Map<ServerInstance, SegmentIdSet> _segmentServices;
+    private final Map<String, List<ServerInstance>> _segmentReplicasMap;
     private final ReplicaSelection _replicaSelection;
     private final ReplicaSelectionGranularity _replicaSelectionGranularity;
     private final Object _hashKey;
@@ -667,11 +925,13 @@ public class BrokerRequestHandler {
     private final String _brokerId;
 
     public ScatterGatherRequestImpl(BrokerRequest request, Map<ServerInstance, SegmentIdSet> segmentServices,
-        ReplicaSelection replicaSelection, ReplicaSelectionGranularity replicaSelectionGranularity, Object hashKey,
+        Map<String, List<ServerInstance>> segmentReplicasMap, ReplicaSelection replicaSelection,
+        ReplicaSelectionGranularity replicaSelectionGranularity, Object hashKey,
         int numSpeculativeRequests, BucketingSelection bucketingSelection, long requestId, long requestTimeoutMs,
         String brokerId) {
       _brokerRequest = request;
       _segmentServices = segmentServices;
+      _segmentReplicasMap = segmentReplicasMap;
       _replicaSelection = replicaSelection;
       _replicaSelectionGranularity = replicaSelectionGranularity;
       _hashKey = hashKey;
@@ -687,6 +947,11 @@ public class BrokerRequestHandler {
       return _segmentServices;
     }
 
+    @Override
+    public Map<String, List<ServerInstance>> getSegmentReplicasMap() {
+      return _segmentReplicasMap;
+    }
+
     @Override
     public byte[] getRequestForService(ServerInstance service, SegmentIdSet querySegments) {
       InstanceRequest r = new InstanceRequest();
@@ -0,0 +1,252 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.requesthandler;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.linkedin.pinot.common.metrics.BrokerMeter;
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.BrokerResponse;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.routing.RoutingTableChangeListener;
+import com.linkedin.pinot.routing.SegmentZKMetadataChangeListener;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.commons.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>BrokerResultCache</code> class caches broker responses for queries on OFFLINE tables.
+ * <ul>
+ *   <li>Cache key is the optimized broker request plus the routing version of the table. The routing version is bumped
+ *   each time the routing table of the table changes (driven by the external view changes) and each time the ZK
+ *   metadata of one of its segments changes (e.g. after a segment refresh), so that responses computed on an old set of
+ *   segments or on old segment data are never served.</li>
+ *   <li>Responses are stored as JSON strings, memory is bounded by the total size of the strings with LRU eviction.</li>
+ *   <li>Entries expire after a configurable time, to bound the staleness if a segment metadata change is missed.</li>
+ *   <li>A query can bypass the cache with debug option <code>skipResultCache=true</code>.</li>
+ * </ul>
+ */
+@ThreadSafe
+public class BrokerResultCache implements RoutingTableChangeListener, SegmentZKMetadataChangeListener {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BrokerResultCache.class);
+
+  public static final String ENABLE_CONFIG_KEY = "enabled";
+  public static final String MAX_SIZE_IN_BYTES_CONFIG_KEY = "maxSizeInBytes";
+  public static final String EXPIRE_AFTER_WRITE_MS_CONFIG_KEY = "expireAfterWriteMs";
+  public static final String SKIP_RESULT_CACHE_DEBUG_OPTION = "skipResultCache";
+
+  public static final boolean DEFAULT_ENABLE = false;
+  public static final long DEFAULT_MAX_SIZE_IN_BYTES = 64 * 1024 * 1024L;
+  public static final long DEFAULT_EXPIRE_AFTER_WRITE_MS = 5 * 60 * 1000L;
+
+  // Rough estimate of the memory used by the key and the cache entry.
+  private static final int ENTRY_OVERHEAD_IN_BYTES = 1024;
+
+  private final Cache<CacheKey, String> _cache;
+  private final ConcurrentMap<String, AtomicLong> _routingVersions = new ConcurrentHashMap<>();
+  private final BrokerMetrics _brokerMetrics;
+
+  /**
+   * Create the broker result cache from the result cache config.
+   *
+   * @return broker result cache, or null if result cache is not enabled.
+   */
+  @Nullable
+  public static BrokerResultCache fromConfig(@Nonnull Configuration resultCacheConfig,
+      @Nonnull BrokerMetrics brokerMetrics) {
+    if (!resultCacheConfig.getBoolean(ENABLE_CONFIG_KEY, DEFAULT_ENABLE)) {
+      return null;
+    }
+    long maxSizeInBytes = resultCacheConfig.getLong(MAX_SIZE_IN_BYTES_CONFIG_KEY, DEFAULT_MAX_SIZE_IN_BYTES);
+    long expireAfterWriteMs =
+        resultCacheConfig.getLong(EXPIRE_AFTER_WRITE_MS_CONFIG_KEY, DEFAULT_EXPIRE_AFTER_WRITE_MS);
+    LOGGER.info("Broker result cache enabled with max size: {} bytes, expire after write: {} ms", maxSizeInBytes,
+        expireAfterWriteMs);
+    return new BrokerResultCache(maxSizeInBytes, expireAfterWriteMs, brokerMetrics);
+  }
+
+  public BrokerResultCache(long maxSizeInBytes, long expireAfterWriteMs, @Nonnull BrokerMetrics brokerMetrics) {
+    Preconditions.checkArgument(maxSizeInBytes > 0 && expireAfterWriteMs > 0);
+    _cache = CacheBuilder.newBuilder()
+        .maximumWeight(maxSizeInBytes)
+        .weigher(new Weigher<CacheKey, String>() {
+          @Override
+          public int weigh(@Nonnull CacheKey key, @Nonnull String value) {
+            return 2 * value.length() + ENTRY_OVERHEAD_IN_BYTES;
+          }
+        })
+        .expireAfterWrite(expireAfterWriteMs, TimeUnit.MILLISECONDS)
+        .build();
+    _brokerMetrics = brokerMetrics;
+  }
+
+  /**
+   * Get the cache key for an optimized broker request on a single table.
+   *
+   * @param brokerRequest optimized broker request.
+   * @return cache key, or null if the broker request should not be cached.
+   */
+  @Nullable
+  public CacheKey getCacheKey(@Nonnull BrokerRequest brokerRequest) {
+    if (brokerRequest.isEnableTrace()) {
+      return null;
+    }
+    Map<String, String> debugOptions = brokerRequest.getDebugOptions();
+    if (debugOptions != null && Boolean.parseBoolean(debugOptions.get(SKIP_RESULT_CACHE_DEBUG_OPTION))) {
+      return null;
+    }
+    String tableName = brokerRequest.getQuerySource().getTableName();
+    // Make a copy of the broker request so that the key is not affected by further changes to the request.
+    return new CacheKey(tableName, getRoutingVersion(tableName).get(), new BrokerRequest(brokerRequest));
+  }
+
+  /**
+   * Get the cached broker response for the given key.
+   *
+   * @return cached broker response, or null if not cached.
+   */
+  @Nullable
+  public BrokerResponseNative get(@Nonnull CacheKey cacheKey) {
+    String cachedResponse = _cache.getIfPresent(cacheKey);
+    if (cachedResponse != null) {
+      try {
+        BrokerResponseNative brokerResponse = BrokerResponseNative.fromJsonString(cachedResponse);
+        _brokerMetrics.addMeteredTableValue(cacheKey._tableName, BrokerMeter.RESULT_CACHE_HITS, 1);
+        return brokerResponse;
+      } catch (Exception e) {
+        LOGGER.error("Caught exception while deserializing cached response for table: {}", cacheKey._tableName, e);
+        _cache.invalidate(cacheKey);
+      }
+    }
+    _brokerMetrics.addMeteredTableValue(cacheKey._tableName, BrokerMeter.RESULT_CACHE_MISSES, 1);
+    return null;
+  }
+
+  /**
+   * Put the broker response into the cache. Responses with exceptions or partial server responses are not cached, and
+   * the response is dropped if the routing table changed since the key was created.
+   */
+  public void put(@Nonnull CacheKey cacheKey, @Nonnull BrokerResponse brokerResponse) {
+    if (!(brokerResponse instanceof BrokerResponseNative)) {
+      return;
+    }
+    BrokerResponseNative brokerResponseNative = (BrokerResponseNative) brokerResponse;
+    if (brokerResponseNative.getExceptionsSize() > 0
+        || brokerResponseNative.getNumServersResponded() < brokerResponseNative.getNumServersQueried()) {
+      return;
+    }
+    if (getRoutingVersion(cacheKey._tableName).get() != cacheKey._routingVersion) {
+      return;
+    }
+    try {
+      _cache.put(cacheKey, brokerResponseNative.toJsonString());
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while serializing response for table: {}", cacheKey._tableName, e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>Bump the routing version for the table so that no new entry is cached with the old routing table, and remove
+   * the entries for the table.
+   */
+  @Override
+  public void onRoutingTableChange(String tableName) {
+    invalidateTable(tableName);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>The segment data may have changed (e.g. segment refresh), so invalidate the table the same way as for a routing
+   * table change.
+   */
+  @Override
+  public void onSegmentZKMetadataChange(String tableName, String segmentName) {
+    invalidateTable(tableName);
+  }
+
+  private void invalidateTable(String tableName) {
+    getRoutingVersion(tableName).incrementAndGet();
+    Iterator<CacheKey> iterator = _cache.asMap().keySet().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next()._tableName.equals(tableName)) {
+        iterator.remove();
+      }
+    }
+  }
+
+  public long size() {
+    return _cache.size();
+  }
+
+  private AtomicLong getRoutingVersion(String tableName) {
+    AtomicLong routingVersion = _routingVersions.get(tableName);
+    if (routingVersion == null) {
+      AtomicLong newRoutingVersion = new AtomicLong();
+      routingVersion = _routingVersions.putIfAbsent(tableName, newRoutingVersion);
+      if (routingVersion == null) {
+        routingVersion = newRoutingVersion;
+      }
+    }
+    return routingVersion;
+  }
+
+  public static class CacheKey {
+    private final String _tableName;
+    private final long _routingVersion;
+    private final BrokerRequest _brokerRequest;
+
+    private CacheKey(String tableName, long routingVersion, BrokerRequest brokerRequest) {
+      _tableName = tableName;
+      _routingVersion = routingVersion;
+      _brokerRequest = brokerRequest;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      CacheKey cacheKey = (CacheKey) o;
+      return _routingVersion == cacheKey._routingVersion && _tableName.equals(cacheKey._tableName)
+          && _brokerRequest.equals(cacheKey._brokerRequest);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = _tableName.hashCode();
+      result = 31 * result + (int) (_routingVersion ^ (_routingVersion >>> 32));
+      result = 31 * result + _brokerRequest.hashCode();
+      return result;
+    }
+  }
+}
@@ -0,0 +1,489 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.requesthandler;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.linkedin.pinot.common.config.AbstractTableConfig;
+import com.linkedin.pinot.common.config.SegmentsValidationAndRetentionConfig;
+import com.linkedin.pinot.common.config.TableNameBuilder;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.metadata.ZKMetadataProvider;
+import com.linkedin.pinot.common.metadata.segment.ColumnPartitionMetadata;
+import com.linkedin.pinot.common.metadata.segment.OfflineSegmentZKMetadata;
+import com.linkedin.pinot.common.metadata.segment.SegmentPartitionMetadata;
+import com.linkedin.pinot.common.metrics.BrokerMeter;
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.utils.CommonConstants.Helix.TableType;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.common.predicate.RangePredicate;
+import com.linkedin.pinot.core.data.partition.PartitionFunction;
+import com.linkedin.pinot.core.data.partition.PartitionFunctionFactory;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.util.TypedValueUtils;
+import com.linkedin.pinot.routing.HelixExternalViewBasedTimeBoundaryService;
+import com.linkedin.pinot.routing.RoutingTableChangeListener;
+import com.linkedin.pinot.routing.SegmentZKMetadataChangeListener;
+import com.linkedin.pinot.transport.common.SegmentId;
+import com.linkedin.pinot.transport.common.SegmentIdSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.commons.configuration.Configuration;
+import org.apache.helix.ZNRecord;
+import org.apache.helix.store.zk.ZkHelixPropertyStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>BrokerSegmentPruner</code> class prunes the segments of OFFLINE tables on the broker side before the
+ * request is scattered, so that servers do not receive requests for segments that cannot match the query, and servers
+ * left with no segment are not queried at all.
+ * <ul>
+ *   <li>Pruning is based on the segment ZK metadata: the time range of the segment against the predicates on the time
+ *   column, and the column partition metadata against the EQ/IN predicates on the partitioned columns.</li>
+ *   <li>The pruning info of a table is reloaded from ZK each time the routing table of the table changes, and the
+ *   pruning info of a segment is reloaded each time its ZK metadata changes (e.g. after a segment refresh). Reloading
+ *   is done on a single background thread so that the routing callback thread is not blocked. Segments without pruning
+ *   info (e.g. added after the last reload) are never pruned.</li>
+ *   <li>If all segments are pruned, one segment is kept so that the response has the same shape as before.</li>
+ * </ul>
+ */
+@ThreadSafe
+public class BrokerSegmentPruner implements RoutingTableChangeListener, SegmentZKMetadataChangeListener {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BrokerSegmentPruner.class);
+
+  public static final String ENABLE_CONFIG_KEY = "enabled";
+  public static final boolean DEFAULT_ENABLE = true;
+
+  // Unbounded side of a RANGE predicate.
+  private static final String UNBOUNDED = "*";
+
+  private final ZkHelixPropertyStore<ZNRecord> _propertyStore;
+  private final BrokerMetrics _brokerMetrics;
+  private final ConcurrentMap<String, TablePruningInfo> _tablePruningInfoMap = new ConcurrentHashMap<>();
+  private final ExecutorService _executorService = Executors.newSingleThreadExecutor(
+      new ThreadFactoryBuilder().setNameFormat("broker-segment-pruner").setDaemon(true).build());
+  // Tables with a pending reload, so that bursts of routing table changes are coalesced.
+  private final ConcurrentMap<String, Boolean> _pendingTables = new ConcurrentHashMap<>();
+
+  /**
+   * Create the broker segment pruner from the segment pruning config.
+   *
+   * @return broker segment pruner, or null if segment pruning is not enabled.
+   */
+  @Nullable
+  public static BrokerSegmentPruner fromConfig(@Nonnull Configuration segmentPruningConfig,
+      @Nonnull ZkHelixPropertyStore<ZNRecord> propertyStore, @Nonnull BrokerMetrics brokerMetrics) {
+    if (!segmentPruningConfig.getBoolean(ENABLE_CONFIG_KEY, DEFAULT_ENABLE)) {
+      return null;
+    }
+    LOGGER.info("Broker segment pruning enabled");
+    return new BrokerSegmentPruner(propertyStore, brokerMetrics);
+  }
+
+  public BrokerSegmentPruner(@Nonnull ZkHelixPropertyStore<ZNRecord> propertyStore,
+      @Nonnull BrokerMetrics brokerMetrics) {
+    _propertyStore = propertyStore;
+    _brokerMetrics = brokerMetrics;
+  }
+
+  @Override
+  public void onRoutingTableChange(final String tableName) {
+    if (TableNameBuilder.getTableTypeFromTableName(tableName) != TableType.OFFLINE) {
+      return;
+    }
+    if (_pendingTables.putIfAbsent(tableName, Boolean.TRUE) != null) {
+      return;
+    }
+    _executorService.execute(new Runnable() {
+      @Override
+      public void run() {
+        _pendingTables.remove(tableName);
+        try {
+          loadTablePruningInfo(tableName);
+        } catch (Exception e) {
+          LOGGER.error("Caught exception while loading segment pruning info for table: {}, disabling pruning for it.",
+              tableName, e);
+          _tablePruningInfoMap.remove(tableName);
+        }
+      }
+    });
+  }
+
+  @Override
+  public void onSegmentZKMetadataChange(final String tableName, final String segmentName) {
+    if (TableNameBuilder.getTableTypeFromTableName(tableName) != TableType.OFFLINE) {
+      return;
+    }
+    // Reload on the same thread as the table reloads so that an older table reload does not overwrite the update.
+    _executorService.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          OfflineSegmentZKMetadata segmentZKMetadata =
+              ZKMetadataProvider.getOfflineSegmentZKMetadata(_propertyStore, tableName, segmentName);
+          if (segmentZKMetadata == null) {
+            removeSegmentPruningInfo(tableName, segmentName);
+          } else {
+            updateSegmentPruningInfo(tableName, segmentZKMetadata);
+          }
+        } catch (Exception e) {
+          LOGGER.error("Caught exception while loading pruning info for segment: {} of table: {}, disabling pruning "
+              + "for it.", segmentName, tableName, e);
+          removeSegmentPruningInfo(tableName, segmentName);
+        }
+      }
+    });
+  }
+
+  public void shutDown() {
+    _executorService.shutdownNow();
+  }
+
+  /**
+   * Prune the segments that cannot match the broker request, and the servers left with no segment.
+   *
+   * @param brokerRequest broker request on a single table.
+   * @param segmentServices map from server to set of segments from the routing table.
+   * @return map from server to set of segments after pruning.
+   */
+  @Nonnull
+  public Map<ServerInstance, SegmentIdSet> prune(@Nonnull BrokerRequest brokerRequest,
+      @Nonnull Map<ServerInstance, SegmentIdSet> segmentServices) {
+    String tableName = brokerRequest.getQuerySource().getTableName();
+    TablePruningInfo tablePruningInfo = _tablePruningInfoMap.get(tableName);
+    if (tablePruningInfo == null || tablePruningInfo._segmentPruningInfoMap.isEmpty()) {
+      return segmentServices;
+    }
+    FilterQueryTree filterQueryTree = RequestUtils.generateFilterQueryTree(brokerRequest);
+    if (filterQueryTree == null) {
+      return segmentServices;
+    }
+
+    Map<ServerInstance, SegmentIdSet> prunedSegmentServices = new HashMap<>();
+    ServerInstance lastPrunedServer = null;
+    SegmentId lastPrunedSegment = null;
+    int numSegmentsPruned = 0;
+    for (Map.Entry<ServerInstance, SegmentIdSet> entry : segmentServices.entrySet()) {
+      SegmentIdSet prunedSegmentIdSet = new SegmentIdSet();
+      for (SegmentId segmentId : entry.getValue().getSegments()) {
+        SegmentPruningInfo segmentPruningInfo = tablePruningInfo._segmentPruningInfoMap.get(segmentId.getSegmentId());
+        if (segmentPruningInfo == null || mightMatch(tablePruningInfo, segmentPruningInfo, filterQueryTree)) {
+          prunedSegmentIdSet.addSegment(segmentId);
+        } else {
+          lastPrunedServer = entry.getKey();
+          lastPrunedSegment = segmentId;
+          numSegmentsPruned++;
+        }
+      }
+      if (!prunedSegmentIdSet.getSegments().isEmpty()) {
+        prunedSegmentServices.put(entry.getKey(), prunedSegmentIdSet);
+      }
+    }
+    if (numSegmentsPruned == 0) {
+      return segmentServices;
+    }
+
+    if (prunedSegmentServices.isEmpty()) {
+      // Keep one segment so that the server still returns a response with the expected data schema.
+      SegmentIdSet segmentIdSet = new SegmentIdSet();
+      segmentIdSet.addSegment(lastPrunedSegment);
+      prunedSegmentServices.put(lastPrunedServer, segmentIdSet);
+      numSegmentsPruned--;
+    }
+    _brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.SEGMENTS_PRUNED_BY_BROKER, numSegmentsPruned);
+    return prunedSegmentServices;
+  }
+
+  /**
+   * Returns false if the filter definitely matches no document in the segment, true otherwise.
+   */
+  private static boolean mightMatch(TablePruningInfo tablePruningInfo, SegmentPruningInfo segmentPruningInfo,
+      FilterQueryTree filterQueryTree) {
+    List<FilterQueryTree> children = filterQueryTree.getChildren();
+    String column = filterQueryTree.getColumn();
+    switch (filterQueryTree.getOperator()) {
+      case AND:
+        for (FilterQueryTree child : children) {
+          if (!mightMatch(tablePruningInfo, segmentPruningInfo, child)) {
+            return false;
+          }
+        }
+        return true;
+      case OR:
+        for (FilterQueryTree child : children) {
+          if (mightMatch(tablePruningInfo, segmentPruningInfo, child)) {
+            return true;
+          }
+        }
+        return false;
+      case EQUALITY:
+      case IN:
+        boolean isTimeColumn = column.equals(tablePruningInfo._timeColumn) && segmentPruningInfo.hasTimeRange();
+        ColumnPartitionInfo columnPartitionInfo = segmentPruningInfo._columnPartitionInfoMap.get(column);
+        if (!isTimeColumn && columnPartitionInfo == null) {
+          return true;
+        }
+        for (String value : filterQueryTree.getValue()) {
+          for (String inValue : value.split(V1Constants.QUERY_RHS_DELIMITER)) {
+            if ((!isTimeColumn || segmentPruningInfo.mightContainTime(inValue)) && (columnPartitionInfo == null
+                || columnPartitionInfo.mightContain(inValue))) {
+              return true;
+            }
+          }
+        }
+        return false;
+      case RANGE:
+        if (!column.equals(tablePruningInfo._timeColumn) || !segmentPruningInfo.hasTimeRange()) {
+          return true;
+        }
+        return segmentPruningInfo.mightOverlapTime(new RangePredicate(column, filterQueryTree.getValue()));
+      default:
+        return true;
+    }
+  }
+
+  /**
+   * Load the pruning info of all segments of an OFFLINE table from the table config and the segment ZK metadata.
+   */
+  private void loadTablePruningInfo(String tableName) {
+    AbstractTableConfig tableConfig = ZKMetadataProvider.getOfflineTableConfig(_propertyStore, tableName);
+    if (tableConfig == null) {
+      _tablePruningInfoMap.remove(tableName);
+      return;
+    }
+    SegmentsValidationAndRetentionConfig validationConfig = tableConfig.getValidationConfig();
+    String timeColumn = validationConfig.getTimeColumnName();
+    TimeUnit tableTimeUnit = null;
+    if (timeColumn != null) {
+      try {
+        tableTimeUnit = HelixExternalViewBasedTimeBoundaryService.getTimeUnitFromString(validationConfig.getTimeType());
+      } catch (Exception e) {
+        LOGGER.warn("Unsupported time type: {} for table: {}, disabling time based pruning for it.",
+            validationConfig.getTimeType(), tableName);
+      }
+    }
+
+    // Bulk reading all segment zk-metadata at once is more efficient than reading one at a time.
+    List<OfflineSegmentZKMetadata> segmentZKMetadataList =
+        ZKMetadataProvider.getOfflineSegmentZKMetadataListForTable(_propertyStore, tableName);
+    updateTablePruningInfo(tableName, timeColumn, tableTimeUnit, segmentZKMetadataList);
+  }
+
+  /**
+   * Update the pruning info of an OFFLINE table from the segment ZK metadata.
+   *
+   * @param tableName OFFLINE table name.
+   * @param timeColumn time column of the table, or null if not available.
+   * @param tableTimeUnit time unit of the time column values, or null if not available.
+   * @param segmentZKMetadataList segment ZK metadata of all segments of the table.
+   */
+  void updateTablePruningInfo(@Nonnull String tableName, @Nullable String timeColumn, @Nullable TimeUnit tableTimeUnit,
+      @Nonnull List<OfflineSegmentZKMetadata> segmentZKMetadataList) {
+    if (tableTimeUnit == null) {
+      timeColumn = null;
+    }
+    Map<String, SegmentPruningInfo> segmentPruningInfoMap = new HashMap<>(segmentZKMetadataList.size());
+    for (OfflineSegmentZKMetadata segmentZKMetadata : segmentZKMetadataList) {
+      SegmentPruningInfo segmentPruningInfo = buildSegmentPruningInfo(segmentZKMetadata, tableTimeUnit);
+      if (segmentPruningInfo != null) {
+        segmentPruningInfoMap.put(segmentZKMetadata.getSegmentName(), segmentPruningInfo);
+      }
+    }
+    LOGGER.info("Loaded segment pruning info for {} segments of table: {}", segmentPruningInfoMap.size(), tableName);
+    // Keep the table pruning info even if no segment has pruning info, so that segments updated later can be added.
+    _tablePruningInfoMap.put(tableName, new TablePruningInfo(timeColumn, tableTimeUnit, segmentPruningInfoMap));
+  }
+
+  /**
+   * Update the pruning info of a segment of an OFFLINE table from its segment ZK metadata. The segment map is copied
+   * on write so that concurrent pruning always sees a consistent map.
+   *
+   * @param tableName OFFLINE table name.
+   * @param segmentZKMetadata new segment ZK metadata of the segment.
+   */
+  void updateSegmentPruningInfo(@Nonnull String tableName, @Nonnull OfflineSegmentZKMetadata segmentZKMetadata) {
+    TablePruningInfo tablePruningInfo = _tablePruningInfoMap.get(tableName);
+    if (tablePruningInfo == null) {
+      // Table pruning info not loaded yet, the segment will be picked up by the table reload.
+      return;
+    }
+    String segmentName = segmentZKMetadata.getSegmentName();
+    Map<String, SegmentPruningInfo> segmentPruningInfoMap = new HashMap<>(tablePruningInfo._segmentPruningInfoMap);
+    SegmentPruningInfo segmentPruningInfo = buildSegmentPruningInfo(segmentZKMetadata, tablePruningInfo._timeUnit);
+    if (segmentPruningInfo == null) {
+      segmentPruningInfoMap.remove(segmentName);
+    } else {
+      segmentPruningInfoMap.put(segmentName, segmentPruningInfo);
+    }
+    LOGGER.info("Reloaded pruning info for segment: {} of table: {}", segmentName, tableName);
+    _tablePruningInfoMap.put(tableName,
+        new TablePruningInfo(tablePruningInfo._timeColumn, tablePruningInfo._timeUnit, segmentPruningInfoMap));
+  }
+
+  private void removeSegmentPruningInfo(String tableName, String segmentName) {
+    TablePruningInfo tablePruningInfo = _tablePruningInfoMap.get(tableName);
+    if (tablePruningInfo == null || !tablePruningInfo._segmentPruningInfoMap.containsKey(segmentName)) {
+      return;
+    }
+    Map<String, SegmentPruningInfo> segmentPruningInfoMap = new HashMap<>(tablePruningInfo._segmentPruningInfoMap);
+    segmentPruningInfoMap.remove(segmentName);
+    _tablePruningInfoMap.put(tableName,
+        new TablePruningInfo(tablePruningInfo._timeColumn, tablePruningInfo._timeUnit, segmentPruningInfoMap));
+  }
+
+  /**
+   * Build the pruning info of a segment from its segment ZK metadata.
+   *
+   * @return segment pruning info, or null if the segment has neither time range nor partition info.
+   */
+  @Nullable
+  private static SegmentPruningInfo buildSegmentPruningInfo(OfflineSegmentZKMetadata segmentZKMetadata,
+      @Nullable TimeUnit tableTimeUnit) {
+    long startTime = -1;
+    long endTime = -1;
+    TimeUnit segmentTimeUnit = segmentZKMetadata.getTimeUnit();
+    if (tableTimeUnit != null && segmentTimeUnit != null && segmentZKMetadata.getStartTime() >= 0
+        && segmentZKMetadata.getEndTime() >= segmentZKMetadata.getStartTime()) {
+      // Convert the segment times to the table time unit, which is the unit of the time column values. The end time
+      // covers its whole segment time unit, so convert the last nanosecond of it: converting the end time itself would
+      // round it down to the start of it when the table time unit is finer (e.g. end day 10 to the first hour of day
+      // 10), and prune segments holding the later values.
+      startTime = tableTimeUnit.convert(segmentZKMetadata.getStartTime(), segmentTimeUnit);
+      endTime = tableTimeUnit.convert(segmentTimeUnit.toNanos(segmentZKMetadata.getEndTime() + 1) - 1,
+          TimeUnit.NANOSECONDS);
+    }
+    Map<String, ColumnPartitionInfo> columnPartitionInfoMap = new HashMap<>();
+    SegmentPartitionMetadata partitionMetadata = segmentZKMetadata.getPartitionMetadata();
+    if (partitionMetadata != null) {
+      for (Map.Entry<String, ColumnPartitionMetadata> entry : partitionMetadata.getColumnPartitionMap().entrySet()) {
+        ColumnPartitionMetadata columnPartitionMetadata = entry.getValue();
+        if (columnPartitionMetadata.getDataType() == null || columnPartitionMetadata.getPartitions() == null) {
+          continue;
+        }
+        try {
+          PartitionFunction partitionFunction =
+              PartitionFunctionFactory.getPartitionFunction(columnPartitionMetadata.getFunctionName(),
+                  columnPartitionMetadata.getNumPartitions());
+          columnPartitionInfoMap.put(entry.getKey(),
+              new ColumnPartitionInfo(partitionFunction, columnPartitionMetadata.getDataType(),
+                  columnPartitionMetadata.getPartitions()));
+        } catch (Exception e) {
+          LOGGER.warn("Invalid partition metadata for column: {} in segment: {}, ignoring it.", entry.getKey(),
+              segmentZKMetadata.getSegmentName(), e);
+        }
+      }
+    }
+    if (startTime < 0 && columnPartitionInfoMap.isEmpty()) {
+      return null;
+    }
+    return new SegmentPruningInfo(startTime, endTime, columnPartitionInfoMap);
+  }
+
+  private static class TablePruningInfo {
+    private final String _timeColumn;
+    private final TimeUnit _timeUnit;
+    private final Map<String, SegmentPruningInfo> _segmentPruningInfoMap;
+
+    private TablePruningInfo(@Nullable String timeColumn, @Nullable TimeUnit timeUnit,
+        Map<String, SegmentPruningInfo> segmentPruningInfoMap) {
+      _timeColumn = timeColumn;
+      _timeUnit = timeUnit;
+      _segmentPruningInfoMap = segmentPruningInfoMap;
+    }
+  }
+
+  private static class SegmentPruningInfo {
+    // Start and end time in the table time unit, -1 if not available.
+    private final long _startTime;
+    private final long _endTime;
+    private final Map<String, ColumnPartitionInfo> _columnPartitionInfoMap;
+
+    private SegmentPruningInfo(long startTime, long endTime, Map<String, ColumnPartitionInfo> columnPartitionInfoMap) {
+      _startTime = startTime;
+      _endTime = endTime;
+      _columnPartitionInfoMap = columnPartitionInfoMap;
+    }
+
+    private boolean hasTimeRange() {
+      return _startTime >= 0;
+    }
+
+    private boolean mightContainTime(String value) {
+      try {
+        long time = Long.parseLong(value);
+        return time >= _startTime && time <= _endTime;
+      } catch (NumberFormatException e) {
+        return true;
+      }
+    }
+
+    private boolean mightOverlapTime(RangePredicate rangePredicate) {
+      try {
+        String lowerBoundary = rangePredicate.getLowerBoundary();
+        if (!lowerBoundary.equals(UNBOUNDED)) {
+          long lower = Long.parseLong(lowerBoundary);
+          if (lower > _endTime || (lower == _endTime && !rangePredicate.includeLowerBoundary())) {
+            return false;
+          }
+        }
+        String upperBoundary = rangePredicate.getUpperBoundary();
+        if (!upperBoundary.equals(UNBOUNDED)) {
+          long upper = Long.parseLong(upperBoundary);
+          if (upper < _startTime || (upper == _startTime && !rangePredicate.includeUpperBoundary())) {
+            return false;
+          }
+        }
+      } catch (NumberFormatException e) {
+        return true;
+      }
+      return true;
+    }
+  }
+
+  private static class ColumnPartitionInfo {
+    private final PartitionFunction _partitionFunction;
+    private final DataType _dataType;
+    private final Set<Integer> _partitions;
+
+    private ColumnPartitionInfo(PartitionFunction partitionFunction, DataType dataType, Set<Integer> partitions) {
+      _partitionFunction = partitionFunction;
+      _dataType = dataType;
+      _partitions = partitions;
+    }
+
+    private boolean mightContain(String value) {
+      try {
+        return _partitions.contains(_partitionFunction.getPartition(TypedValueUtils.parse(_dataType, value)));
+      } catch (NumberFormatException e) {
+        return true;
+      }
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.requesthandler;
+
+import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import com.yammer.metrics.core.MetricsRegistry;
+import java.util.Collections;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class BrokerResultCacheTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final String TABLE_NAME = "myTable_OFFLINE";
+
+  @Test
+  public void testGetAndPut() {
+    BrokerResultCache resultCache = createResultCache();
+    BrokerResultCache.CacheKey cacheKey = resultCache.getCacheKey(getBrokerRequest("SELECT COUNT(*) FROM myTable"));
+    Assert.assertNotNull(cacheKey);
+    Assert.assertNull(resultCache.get(cacheKey));
+
+    resultCache.put(cacheKey, getBrokerResponse(100L));
+    BrokerResponseNative cachedBrokerResponse = resultCache.get(cacheKey);
+    Assert.assertNotNull(cachedBrokerResponse);
+    Assert.assertEquals(cachedBrokerResponse.getNumDocsScanned(), 100L);
+
+    // Same query compiled again should hit the cache.
+    BrokerResultCache.CacheKey sameCacheKey =
+        resultCache.getCacheKey(getBrokerRequest("SELECT COUNT(*) FROM myTable"));
+    Assert.assertEquals(sameCacheKey, cacheKey);
+    Assert.assertNotNull(resultCache.get(sameCacheKey));
+
+    // Different query should not hit the cache.
+    BrokerResultCache.CacheKey otherCacheKey =
+        resultCache.getCacheKey(getBrokerRequest("SELECT SUM(met) FROM myTable"));
+    Assert.assertNull(resultCache.get(otherCacheKey));
+  }
+
+  @Test
+  public void testRoutingTableChange() {
+    BrokerResultCache resultCache = createResultCache();
+    BrokerResultCache.CacheKey cacheKey = resultCache.getCacheKey(getBrokerRequest("SELECT COUNT(*) FROM myTable"));
+    resultCache.put(cacheKey, getBrokerResponse(100L));
+    Assert.assertEquals(resultCache.size(), 1L);
+
+    // Routing table change for another table should not affect the cache.
+    resultCache.onRoutingTableChange("otherTable_OFFLINE");
+    Assert.assertNotNull(resultCache.get(cacheKey));
+
+    resultCache.onRoutingTableChange(TABLE_NAME);
+    Assert.assertEquals(resultCache.size(), 0L);
+    Assert.assertNull(resultCache.get(cacheKey));
+
+    // Response computed with the old routing table should not be cached.
+    resultCache.put(cacheKey, getBrokerResponse(100L));
+    Assert.assertEquals(resultCache.size(), 0L);
+    BrokerResultCache.CacheKey newCacheKey =
+        resultCache.getCacheKey(getBrokerRequest("SELECT COUNT(*) FROM myTable"));
+    Assert.assertNull(resultCache.get(newCacheKey));
+  }
+
+  @Test
+  public void testSegmentZKMetadataChange() {
+    BrokerResultCache resultCache = createResultCache();
+    BrokerResultCache.CacheKey cacheKey = resultCache.getCacheKey(getBrokerRequest("SELECT COUNT(*) FROM myTable"));
+    resultCache.put(cacheKey, getBrokerResponse(100L));
+    Assert.assertEquals(resultCache.size(), 1L);
+
+    // Segment refresh for another table should not affect the cache.
+    resultCache.onSegmentZKMetadataChange("otherTable_OFFLINE", "segment0");
+    Assert.assertNotNull(resultCache.get(cacheKey));
+
+    resultCache.onSegmentZKMetadataChange(TABLE_NAME, "segment0");
+    Assert.assertEquals(resultCache.size(), 0L);
+    Assert.assertNull(resultCache.get(cacheKey));
+
+    // Response computed before the segment refresh should not be cached.
+    resultCache.put(cacheKey, getBrokerResponse(100L));
+    Assert.assertEquals(resultCache.size(), 0L);
+  }
+
+  @Test
+  public void testNotCached() {
+    BrokerResultCache resultCache = createResultCache();
+
+    // Bypass with debug option.
+    BrokerRequest brokerRequest = getBrokerRequest("SELECT COUNT(*) FROM myTable");
+    brokerRequest.setDebugOptions(Collections.singletonMap(BrokerResultCache.SKIP_RESULT_CACHE_DEBUG_OPTION, "true"));
+    Assert.assertNull(resultCache.getCacheKey(brokerRequest));
+
+    // Trace enabled.
+    brokerRequest = getBrokerRequest("SELECT COUNT(*) FROM myTable");
+    brokerRequest.setEnableTrace(true);
+    Assert.assertNull(resultCache.getCacheKey(brokerRequest));
+
+    // Responses with exceptions or partial server responses.
+    BrokerResultCache.CacheKey cacheKey = resultCache.getCacheKey(getBrokerRequest("SELECT COUNT(*) FROM myTable"));
+    BrokerResponseNative brokerResponse = getBrokerResponse(100L);
+    brokerResponse.setExceptions(Collections.singletonList(QueryException.BROKER_TIMEOUT_ERROR));
+    resultCache.put(cacheKey, brokerResponse);
+    brokerResponse = getBrokerResponse(100L);
+    brokerResponse.setNumServersResponded(1);
+    resultCache.put(cacheKey, brokerResponse);
+    Assert.assertEquals(resultCache.size(), 0L);
+  }
+
+  private static BrokerResultCache createResultCache() {
+    return new BrokerResultCache(1024 * 1024L, 60 * 1000L, new BrokerMetrics(new MetricsRegistry()));
+  }
+
+  private static BrokerRequest getBrokerRequest(String pql) {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(pql);
+    brokerRequest.getQuerySource().setTableName(TABLE_NAME);
+    return brokerRequest;
+  }
+
+  private static BrokerResponseNative getBrokerResponse(long numDocsScanned) {
+    BrokerResponseNative brokerResponse = new BrokerResponseNative();
+    brokerResponse.setNumDocsScanned(numDocsScanned);
+    brokerResponse.setNumServersQueried(2);
+    brokerResponse.setNumServersResponded(2);
+    return brokerResponse;
+  }
+}
@@ -0,0 +1,232 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.requesthandler;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.metadata.segment.ColumnPartitionMetadata;
+import com.linkedin.pinot.common.metadata.segment.OfflineSegmentZKMetadata;
+import com.linkedin.pinot.common.metadata.segment.SegmentPartitionMetadata;
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.core.data.partition.ModuloPartitionFunction;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import com.linkedin.pinot.transport.common.SegmentId;
+import com.linkedin.pinot.transport.common.SegmentIdSet;
+import com.yammer.metrics.core.MetricsRegistry;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.helix.store.zk.ZkHelixPropertyStore;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+public class BrokerSegmentPrunerTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final String TABLE_NAME = "myTable_OFFLINE";
+  private static final ServerInstance SERVER_1 = new ServerInstance("server1", 8098);
+  private static final ServerInstance SERVER_2 = new ServerInstance("server2", 8098);
+
+  private BrokerSegmentPruner _segmentPruner;
+  private Map<ServerInstance, SegmentIdSet> _segmentServices;
+
+  @BeforeClass
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    _segmentPruner = new BrokerSegmentPruner(Mockito.mock(ZkHelixPropertyStore.class),
+        new BrokerMetrics(new MetricsRegistry()));
+    // Segment 0 covers days [100, 109] and memberId partitions {0}, segment 1 covers days [110, 119] and memberId
+    // partitions {1}, segment 2 has no pruning info.
+    _segmentPruner.updateTablePruningInfo(TABLE_NAME, "daysSinceEpoch", TimeUnit.DAYS,
+        Arrays.asList(getSegmentZKMetadata("segment0", 100L, 109L, 0),
+            getSegmentZKMetadata("segment1", 110L, 119L, 1)));
+
+    _segmentServices = new HashMap<>();
+    _segmentServices.put(SERVER_1, getSegmentIdSet("segment0"));
+    _segmentServices.put(SERVER_2, getSegmentIdSet("segment1", "segment2"));
+  }
+
+  @Test
+  public void testNoPruning() {
+    Assert.assertSame(prune("SELECT COUNT(*) FROM myTable"), _segmentServices);
+    Assert.assertSame(prune("SELECT COUNT(*) FROM myTable WHERE foo = 'bar'"), _segmentServices);
+    Assert.assertSame(prune("SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch > 105"), _segmentServices);
+    Assert.assertSame(prune("SELECT COUNT(*) FROM otherTable WHERE daysSinceEpoch = 105"),
+        _segmentServices);
+  }
+
+  @Test
+  public void testTimePruning() {
+    // Server 1 is left with no segment.
+    Map<ServerInstance, SegmentIdSet> prunedSegmentServices =
+        prune("SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch = 115");
+    Assert.assertEquals(prunedSegmentServices.size(), 1);
+    Assert.assertEquals(getSegmentNames(prunedSegmentServices.get(SERVER_2)),
+        new HashSet<>(Arrays.asList("segment1", "segment2")));
+
+    prunedSegmentServices = prune("SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch BETWEEN 90 AND 105");
+    Assert.assertEquals(getSegmentNames(prunedSegmentServices.get(SERVER_1)), Collections.singleton("segment0"));
+    Assert.assertEquals(getSegmentNames(prunedSegmentServices.get(SERVER_2)), Collections.singleton("segment2"));
+
+    prunedSegmentServices = prune("SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch < 110");
+    Assert.assertEquals(getSegmentNames(prunedSegmentServices.get(SERVER_2)), Collections.singleton("segment2"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testMixedTimeUnits() {
+    BrokerSegmentPruner segmentPruner = new BrokerSegmentPruner(Mockito.mock(ZkHelixPropertyStore.class),
+        new BrokerMetrics(new MetricsRegistry()));
+    // Table time unit is hours. Segment 0 covers days [100, 109], i.e. hours [2400, 2639], segment 1 covers
+    // milliseconds from the start of day 110 to 5.5 hours later, i.e. hours [2640, 2645].
+    long startMillis = TimeUnit.DAYS.toMillis(110L);
+    segmentPruner.updateTablePruningInfo(TABLE_NAME, "hoursSinceEpoch", TimeUnit.HOURS,
+        Arrays.asList(getSegmentZKMetadata("segment0", 100L, 109L, TimeUnit.DAYS, 0),
+            getSegmentZKMetadata("segment1", startMillis, startMillis + TimeUnit.MINUTES.toMillis(330L),
+                TimeUnit.MILLISECONDS, 1)));
+
+    // The last hour of the end day of segment 0.
+    Map<ServerInstance, SegmentIdSet> prunedSegmentServices =
+        segmentPruner.prune(getBrokerRequest("SELECT COUNT(*) FROM myTable WHERE hoursSinceEpoch = 2639"),
+            _segmentServices);
+    Assert.assertEquals(getSegmentNames(prunedSegmentServices.get(SERVER_1)), Collections.singleton("segment0"));
+    Assert.assertEquals(getSegmentNames(prunedSegmentServices.get(SERVER_2)), Collections.singleton("segment2"));
+
+    prunedSegmentServices = segmentPruner.prune(
+        getBrokerRequest("SELECT COUNT(*) FROM myTable WHERE hoursSinceEpoch BETWEEN 2400 AND 2400"), _segmentServices);
+    Assert.assertEquals(getSegmentNames(prunedSegmentServices.get(SERVER_1)), Collections.singleton("segment0"));
+
+    // The hour holding the end time of segment 1.
+    prunedSegmentServices =
+        segmentPruner.prune(getBrokerRequest("SELECT COUNT(*) FROM myTable WHERE hoursSinceEpoch = 2645"),
+            _segmentServices);
+    Assert.assertFalse(prunedSegmentServices.containsKey(SERVER_1));
+    Assert.assertEquals(getSegmentNames(prunedSegmentServices.get(SERVER_2)),
+        new HashSet<>(Arrays.asList("segment1", "segment2")));
+
+    prunedSegmentServices =
+        segmentPruner.prune(getBrokerRequest("SELECT COUNT(*) FROM myTable WHERE hoursSinceEpoch > 2645"),
+            _segmentServices);
+    Assert.assertFalse(prunedSegmentServices.containsKey(SERVER_1));
+    Assert.assertEquals(getSegmentNames(prunedSegmentServices.get(SERVER_2)), Collections.singleton("segment2"));
+    segmentPruner.shutDown();
+  }
+
+  @Test
+  public void testPartitionPruning() {
+    Map<ServerInstance, SegmentIdSet> prunedSegmentServices = prune("SELECT COUNT(*) FROM myTable WHERE memberId = 5");
+    Assert.assertFalse(prunedSegmentServices.containsKey(SERVER_1));
+    Assert.assertEquals(getSegmentNames(prunedSegmentServices.get(SERVER_2)),
+        new HashSet<>(Arrays.asList("segment1", "segment2")));
+
+    prunedSegmentServices = prune("SELECT COUNT(*) FROM myTable WHERE memberId IN (4, 5) AND daysSinceEpoch = 105");
+    Assert.assertEquals(getSegmentNames(prunedSegmentServices.get(SERVER_1)), Collections.singleton("segment0"));
+    Assert.assertEquals(getSegmentNames(prunedSegmentServices.get(SERVER_2)), Collections.singleton("segment2"));
+  }
+
+  @Test
+  public void testKeepOneSegment() {
+    Map<ServerInstance, SegmentIdSet> segmentServices = new HashMap<>();
+    segmentServices.put(SERVER_1, getSegmentIdSet("segment0"));
+    segmentServices.put(SERVER_2, getSegmentIdSet("segment1"));
+    Map<ServerInstance, SegmentIdSet> prunedSegmentServices =
+        _segmentPruner.prune(getBrokerRequest("SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch = 200"),
+            segmentServices);
+    Assert.assertEquals(prunedSegmentServices.size(), 1);
+    Assert.assertEquals(prunedSegmentServices.values().iterator().next().getSegments().size(), 1);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testSegmentZKMetadataChange() {
+    BrokerSegmentPruner segmentPruner = new BrokerSegmentPruner(Mockito.mock(ZkHelixPropertyStore.class),
+        new BrokerMetrics(new MetricsRegistry()));
+    segmentPruner.updateTablePruningInfo(TABLE_NAME, "daysSinceEpoch", TimeUnit.DAYS,
+        Arrays.asList(getSegmentZKMetadata("segment0", 100L, 109L, 0),
+            getSegmentZKMetadata("segment1", 110L, 119L, 1)));
+    BrokerRequest brokerRequest = getBrokerRequest("SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch = 205");
+    Map<ServerInstance, SegmentIdSet> prunedSegmentServices = segmentPruner.prune(brokerRequest, _segmentServices);
+    Assert.assertFalse(prunedSegmentServices.containsKey(SERVER_1));
+
+    // Segment 0 is refreshed with days [200, 209], and is no longer pruned for day 205.
+    segmentPruner.updateSegmentPruningInfo(TABLE_NAME, getSegmentZKMetadata("segment0", 200L, 209L, 0));
+    prunedSegmentServices = segmentPruner.prune(brokerRequest, _segmentServices);
+    Assert.assertEquals(getSegmentNames(prunedSegmentServices.get(SERVER_1)), Collections.singleton("segment0"));
+    Assert.assertEquals(getSegmentNames(prunedSegmentServices.get(SERVER_2)), Collections.singleton("segment2"));
+    prunedSegmentServices =
+        segmentPruner.prune(getBrokerRequest("SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch = 105"),
+            _segmentServices);
+    Assert.assertFalse(prunedSegmentServices.containsKey(SERVER_1));
+
+    // Segment 2 gets pruning info after a metadata change.
+    segmentPruner.updateSegmentPruningInfo(TABLE_NAME, getSegmentZKMetadata("segment2", 300L, 309L, 2));
+    prunedSegmentServices = segmentPruner.prune(brokerRequest, _segmentServices);
+    Assert.assertEquals(prunedSegmentServices.size(), 1);
+    Assert.assertEquals(getSegmentNames(prunedSegmentServices.get(SERVER_1)), Collections.singleton("segment0"));
+    segmentPruner.shutDown();
+  }
+
+  private Map<ServerInstance, SegmentIdSet> prune(String query) {
+    return _segmentPruner.prune(getBrokerRequest(query), _segmentServices);
+  }
+
+  private static BrokerRequest getBrokerRequest(String query) {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(query);
+    String tableName = brokerRequest.getQuerySource().getTableName();
+    brokerRequest.getQuerySource().setTableName(tableName + "_OFFLINE");
+    return brokerRequest;
+  }
+
+  private static OfflineSegmentZKMetadata getSegmentZKMetadata(String segmentName, long startTime, long endTime,
+      int partition) {
+    return getSegmentZKMetadata(segmentName, startTime, endTime, TimeUnit.DAYS, partition);
+  }
+
+  private static OfflineSegmentZKMetadata getSegmentZKMetadata(String segmentName, long startTime, long endTime,
+      TimeUnit timeUnit, int partition) {
+    OfflineSegmentZKMetadata segmentZKMetadata = new OfflineSegmentZKMetadata();
+    segmentZKMetadata.setSegmentName(segmentName);
+    segmentZKMetadata.setTableName(TABLE_NAME);
+    segmentZKMetadata.setStartTime(startTime);
+    segmentZKMetadata.setEndTime(endTime);
+    segmentZKMetadata.setTimeUnit(timeUnit);
+    SegmentPartitionMetadata partitionMetadata = new SegmentPartitionMetadata();
+    partitionMetadata.getColumnPartitionMap().put("memberId",
+        new ColumnPartitionMetadata(ModuloPartitionFunction.NAME, 4, FieldSpec.DataType.INT,
+            Collections.singleton(partition)));
+    segmentZKMetadata.setPartitionMetadata(partitionMetadata);
+    return segmentZKMetadata;
+  }
+
+  private static SegmentIdSet getSegmentIdSet(String... segmentNames) {
+    SegmentIdSet segmentIdSet = new SegmentIdSet();
+    for (String segmentName : segmentNames) {
+      segmentIdSet.addSegment(new SegmentId(segmentName));
+    }
+    return segmentIdSet;
+  }
+
+  private static Set<String> getSegmentNames(SegmentIdSet segmentIdSet) {
+    return new HashSet<>(segmentIdSet.getSegmentsNameList());
+  }
+}
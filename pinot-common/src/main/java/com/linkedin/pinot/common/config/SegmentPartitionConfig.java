@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.config;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
+
+
+/**
+ * Class representing the partitioning of the segments of a table, as a map from the partitioned column names to their
+ * {@link ColumnPartitionConfig}. The partition ids of each partitioned column are recorded in the segment metadata and
+ * used to prune segments for queries with EQ/IN predicates on these columns.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SegmentPartitionConfig {
+  private Map<String, ColumnPartitionConfig> columnPartitionMap = new HashMap<String, ColumnPartitionConfig>();
+
+  public Map<String, ColumnPartitionConfig> getColumnPartitionMap() {
+    return columnPartitionMap;
+  }
+
+  public void setColumnPartitionMap(Map<String, ColumnPartitionConfig> columnPartitionMap) {
+    this.columnPartitionMap = columnPartitionMap;
+  }
+
+  @Override
+  public String toString() {
+    return "SegmentPartitionConfig{columnPartitionMap=" + columnPartitionMap + "}";
+  }
+}
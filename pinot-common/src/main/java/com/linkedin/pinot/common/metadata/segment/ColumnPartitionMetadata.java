@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.metadata.segment;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import java.util.HashSet;
+import java.util.Set;
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
+
+import static com.linkedin.pinot.common.utils.EqualityUtils.hashCodeOf;
+import static com.linkedin.pinot.common.utils.EqualityUtils.isEqual;
+import static com.linkedin.pinot.common.utils.EqualityUtils.isNullOrNotSameClass;
+import static com.linkedin.pinot.common.utils.EqualityUtils.isSameReference;
+
+
+/**
+ * Partition metadata of a column inside a segment: the partition function, the number of partitions, the data type of
+ * the column (needed to convert the query values before applying the partition function) and the ids of the
+ * partitions the values of the column fall into.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ColumnPartitionMetadata {
+  private String _functionName;
+  private int _numPartitions;
+  private DataType _dataType;
+  private Set<Integer> _partitions = new HashSet<>();
+
+  public ColumnPartitionMetadata() {
+  }
+
+  public ColumnPartitionMetadata(String functionName, int numPartitions, DataType dataType, Set<Integer> partitions) {
+    _functionName = functionName;
+    _numPartitions = numPartitions;
+    _dataType = dataType;
+    _partitions = partitions;
+  }
+
+  public String getFunctionName() {
+    return _functionName;
+  }
+
+  public void setFunctionName(String functionName) {
+    _functionName = functionName;
+  }
+
+  public int getNumPartitions() {
+    return _numPartitions;
+  }
+
+  public void setNumPartitions(int numPartitions) {
+    _numPartitions = numPartitions;
+  }
+
+  public DataType getDataType() {
+    return _dataType;
+  }
+
+  public void setDataType(DataType dataType) {
+    _dataType = dataType;
+  }
+
+  public Set<Integer> getPartitions() {
+    return _partitions;
+  }
+
+  public void setPartitions(Set<Integer> partitions) {
+    _partitions = partitions;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (isSameReference(this, o)) {
+      return true;
+    }
+    if (isNullOrNotSameClass(this, o)) {
+      return false;
+    }
+    ColumnPartitionMetadata that = (ColumnPartitionMetadata) o;
+    return isEqual(_functionName, that._functionName) && isEqual(_numPartitions, that._numPartitions) && isEqual(
+        _dataType, that._dataType) && isEqual(_partitions, that._partitions);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = hashCodeOf(_functionName);
+    result = hashCodeOf(result, _numPartitions);
+    result = hashCodeOf(result, _dataType);
+    result = hashCodeOf(result, _partitions);
+    return result;
+  }
+}
@@ -31,11 +31,17 @@ import org.apache.commons.configuration.Configuration;
 public class IndexLoadingConfigMetadata {
 
   public static final String KEY_OF_LOADING_INVERTED_INDEX = "metadata.loading.inverted.index.columns";
+  public static final String KEY_OF_LOADING_BLOOM_FILTER = "metadata.loading.bloom.filter.columns";
+  public static final String KEY_OF_LOADING_RANGE_INDEX = "metadata.loading.range.index.columns";
+  public static final String KEY_OF_LOADING_VAR_LENGTH_DICTIONARY = "metadata.loading.var.length.dictionary.columns";
   public static final String KEY_OF_SEGMENT_FORMAT_VERSION = "segment.format.version";
   public static final String KEY_OF_ENABLE_DEFAULT_COLUMNS = "enable.default.columns";
   public static final String KEY_OF_STAR_TREE_FORMAT_VERSION = "startree.format.version";
 
   private final Set<String> _loadingInvertedIndexColumnSet = new HashSet<String>();
+  private final Set<String> _loadingBloomFilterColumnSet = new HashSet<String>();
+  private final Set<String> _loadingRangeIndexColumnSet = new HashSet<String>();
+  private final Set<String> _loadingVarLengthDictionaryColumnSet = new HashSet<String>();
   private final String DEFAULT_SEGMENT_FORMAT = "v1";
   private String segmentVersionToLoad;
   private boolean enableDefaultColumns;
@@ -46,6 +52,19 @@ public class IndexLoadingConfigMetadata {
     if ((valueOfLoadingInvertedIndexConfig != null) && (!valueOfLoadingInvertedIndexConfig.isEmpty())) {
       initLoadingInvertedIndexColumnSet(valueOfLoadingInvertedIndexConfig.toArray(new String[0]));
     }
+    List<String> valueOfLoadingBloomFilterConfig = tableDataManagerConfig.getList(KEY_OF_LOADING_BLOOM_FILTER, null);
+    if ((valueOfLoadingBloomFilterConfig != null) && (!valueOfLoadingBloomFilterConfig.isEmpty())) {
+      initLoadingBloomFilterColumnSet(valueOfLoadingBloomFilterConfig.toArray(new String[0]));
+    }
+    List<String> valueOfLoadingRangeIndexConfig = tableDataManagerConfig.getList(KEY_OF_LOADING_RANGE_INDEX, null);
+    if ((valueOfLoadingRangeIndexConfig != null) && (!valueOfLoadingRangeIndexConfig.isEmpty())) {
+      initLoadingRangeIndexColumnSet(valueOfLoadingRangeIndexConfig.toArray(new String[0]));
+    }
+    List<String> valueOfLoadingVarLengthDictionaryConfig =
+        tableDataManagerConfig.getList(KEY_OF_LOADING_VAR_LENGTH_DICTIONARY, null);
+    if ((valueOfLoadingVarLengthDictionaryConfig != null) && (!valueOfLoadingVarLengthDictionaryConfig.isEmpty())) {
+      initLoadingVarLengthDictionaryColumnSet(valueOfLoadingVarLengthDictionaryConfig.toArray(new String[0]));
+    }
 
     segmentVersionToLoad = tableDataManagerConfig.getString(KEY_OF_SEGMENT_FORMAT_VERSION, DEFAULT_SEGMENT_FORMAT);
     enableDefaultColumns = tableDataManagerConfig.getBoolean(KEY_OF_ENABLE_DEFAULT_COLUMNS, false);
@@ -65,6 +84,30 @@ public class IndexLoadingConfigMetadata {
     return _loadingInvertedIndexColumnSet.contains(columnName);
   }
 
+  public void initLoadingBloomFilterColumnSet(String[] columnCollections) {
+    _loadingBloomFilterColumnSet.addAll(Arrays.asList(columnCollections));
+  }
+
+  public Set<String> getLoadingBloomFilterColumns() {
+    return _loadingBloomFilterColumnSet;
+  }
+
+  public void initLoadingRangeIndexColumnSet(String[] columnCollections) {
+    _loadingRangeIndexColumnSet.addAll(Arrays.asList(columnCollections));
+  }
+
+  public Set<String> getLoadingRangeIndexColumns() {
+    return _loadingRangeIndexColumnSet;
+  }
+
+  public void initLoadingVarLengthDictionaryColumnSet(String[] columnCollections) {
+    _loadingVarLengthDictionaryColumnSet.addAll(Arrays.asList(columnCollections));
+  }
+
+  public Set<String> getLoadingVarLengthDictionaryColumns() {
+    return _loadingVarLengthDictionaryColumnSet;
+  }
+
   public String segmentVersionToLoad() {
     return segmentVersionToLoad;
   }
@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.metadata.segment;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import static com.linkedin.pinot.common.utils.EqualityUtils.hashCodeOf;
+import static com.linkedin.pinot.common.utils.EqualityUtils.isEqual;
+import static com.linkedin.pinot.common.utils.EqualityUtils.isNullOrNotSameClass;
+import static com.linkedin.pinot.common.utils.EqualityUtils.isSameReference;
+
+
+/**
+ * Partition metadata of a segment, as a map from the partitioned column names to their
+ * {@link ColumnPartitionMetadata}. Stored in the segment ZK metadata as a JSON string, so that the broker can prune
+ * segments without loading them.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SegmentPartitionMetadata {
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private Map<String, ColumnPartitionMetadata> _columnPartitionMap = new HashMap<>();
+
+  public Map<String, ColumnPartitionMetadata> getColumnPartitionMap() {
+    return _columnPartitionMap;
+  }
+
+  public void setColumnPartitionMap(Map<String, ColumnPartitionMetadata> columnPartitionMap) {
+    _columnPartitionMap = columnPartitionMap;
+  }
+
+  public static SegmentPartitionMetadata fromJsonString(String jsonString)
+      throws IOException {
+    return OBJECT_MAPPER.readValue(jsonString, SegmentPartitionMetadata.class);
+  }
+
+  public String toJsonString()
+      throws IOException {
+    return OBJECT_MAPPER.writeValueAsString(this);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (isSameReference(this, o)) {
+      return true;
+    }
+    if (isNullOrNotSameClass(this, o)) {
+      return false;
+    }
+    return isEqual(_columnPartitionMap, ((SegmentPartitionMetadata) o)._columnPartitionMap);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCodeOf(_columnPartitionMap);
+  }
+}
@@ -75,6 +75,13 @@ public enum BrokerMeter implements AbstractMetrics.Meter {
   LLC_QUERY_COUNT("queries", false),
   HLC_QUERY_COUNT("queries", false),
 
+  // Number of queries served from/missed in the broker result cache, hit rate is hits / (hits + misses).
+  RESULT_CACHE_HITS("queries", false),
+  RESULT_CACHE_MISSES("queries", false),
+
+  // Number of segments pruned by the broker based on the segment ZK metadata, before scattering the request.
+  SEGMENTS_PRUNED_BY_BROKER("segments", false),
+
   ROUTING_TABLE_REBUILD_FAILURES("failures", false);
 
   private final String brokerMeterName;
@@ -110,6 +110,12 @@ public class CommonConstants {
          */
         public static final String REALTIME_SEGMENT_FLUSH_SIZE = "realtime.segment.flush.threshold.size";
 
+        /**
+         * Set to true to back the forward indexes of consuming low level segments with memory-mapped files in a
+         * directory of the table data directory, instead of direct memory. Defaults to false.
+         */
+        public static final String REALTIME_SEGMENT_MMAP = "realtime.segment.mmap";
+
         public static enum StreamType {
           kafka
         }
@@ -128,6 +134,8 @@ public class CommonConstants {
           public static final String KAFKA_CONSUMER_PROPS_PREFIX = "kafka.consumer.prop";
           public static final String KAFKA_CONNECTION_TIMEOUT_MILLIS = "kafka.connection.timeout.ms";
           public static final String KAFKA_FETCH_TIMEOUT_MILLIS = "kafka.fetch.timeout.ms";
+          // Number of threads decoding messages for a low level consumer partition, 0 to decode on the consumer thread
+          public static final String KAFKA_DECODER_THREADS = "kafka.decoder.threads";
           public static final String ZK_BROKER_URL = "kafka.zk.broker.url";
           public static final String KAFKA_BROKER_LIST = "kafka.broker.list";
 
@@ -264,6 +272,7 @@ public class CommonConstants {
     public static final String CRC = "segment.crc";
     public static final String CREATION_TIME = "segment.creation.time";
     public static final String FLUSH_THRESHOLD_SIZE = "segment.flush.threshold.size";
+    public static final String PARTITION_METADATA = "segment.partition.metadata";
 
     public static enum SegmentType {
       OFFLINE,
@@ -35,6 +35,7 @@ public class IndexingConfigTest {
     json.put("invertedIndexColumns", Arrays.asList("a", "b", "c"));
     json.put("sortedColumn", Arrays.asList("d", "e", "f"));
     json.put("loadMode", "MMAP");
+    json.put("noDictionaryColumns", Arrays.asList("g", "h"));
     json.put("keyThatIsUnknown", "randomValue");
     
     ObjectMapper mapper = new ObjectMapper();
@@ -54,6 +55,8 @@ public class IndexingConfigTest {
     Assert.assertEquals("e", sortedIndexColumns.get(1));
     Assert.assertEquals("f", sortedIndexColumns.get(2));
 
+    Assert.assertEquals(indexingConfig.getNoDictionaryColumns(), Arrays.asList("g", "h"));
+
 
   }
 
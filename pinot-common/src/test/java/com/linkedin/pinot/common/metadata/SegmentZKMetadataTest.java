@@ -15,14 +15,19 @@
  */
 package com.linkedin.pinot.common.metadata;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.helix.ZNRecord;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.metadata.segment.ColumnPartitionMetadata;
 import com.linkedin.pinot.common.metadata.segment.OfflineSegmentZKMetadata;
 import com.linkedin.pinot.common.metadata.segment.RealtimeSegmentZKMetadata;
+import com.linkedin.pinot.common.metadata.segment.SegmentPartitionMetadata;
 import com.linkedin.pinot.common.utils.CommonConstants;
 import com.linkedin.pinot.common.utils.CommonConstants.Segment.Realtime.Status;
 import com.linkedin.pinot.common.utils.CommonConstants.Segment.SegmentType;
@@ -63,6 +68,24 @@ public class SegmentZKMetadataTest {
     Assert.assertTrue(offlineSegmentMetadata.equals(new OfflineSegmentZKMetadata(offlineSegmentMetadata.toZNRecord())));
   }
 
+  @Test
+  public void partitionMetadataConvertionTest() {
+    OfflineSegmentZKMetadata offlineSegmentMetadata = getTestOfflineSegmentMetadata();
+    SegmentPartitionMetadata partitionMetadata = new SegmentPartitionMetadata();
+    partitionMetadata.getColumnPartitionMap().put("memberId",
+        new ColumnPartitionMetadata("Modulo", 8, FieldSpec.DataType.LONG, new HashSet<>(Arrays.asList(1, 5))));
+    offlineSegmentMetadata.setPartitionMetadata(partitionMetadata);
+
+    ZNRecord offlineZNRecord = offlineSegmentMetadata.toZNRecord();
+    Assert.assertNotNull(offlineZNRecord.getSimpleField(CommonConstants.Segment.PARTITION_METADATA));
+    OfflineSegmentZKMetadata readSegmentMetadata = new OfflineSegmentZKMetadata(offlineZNRecord);
+    Assert.assertEquals(readSegmentMetadata.getPartitionMetadata(), partitionMetadata);
+    Assert.assertTrue(offlineSegmentMetadata.equals(readSegmentMetadata));
+
+    // Segments without partition metadata.
+    Assert.assertNull(new OfflineSegmentZKMetadata(getTestOfflineSegmentZNRecord()).getPartitionMetadata());
+  }
+
   private ZNRecord getTestDoneRealtimeSegmentZNRecord() {
     String segmentName = "testTable_R_1000_2000_groupId0_part0";
     ZNRecord record = new ZNRecord(segmentName);
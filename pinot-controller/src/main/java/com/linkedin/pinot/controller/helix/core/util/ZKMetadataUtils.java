@@ -15,13 +15,19 @@
  */
 package com.linkedin.pinot.controller.helix.core.util;
 
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.joda.time.Duration;
 
+import com.linkedin.pinot.common.metadata.segment.ColumnPartitionMetadata;
 import com.linkedin.pinot.common.metadata.segment.OfflineSegmentZKMetadata;
+import com.linkedin.pinot.common.metadata.segment.SegmentPartitionMetadata;
 import com.linkedin.pinot.common.segment.SegmentMetadata;
 import com.linkedin.pinot.common.utils.CommonConstants.Segment.SegmentType;
+import com.linkedin.pinot.core.data.partition.PartitionFunction;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
 
 
 public class ZKMetadataUtils {
@@ -45,9 +51,34 @@ public class ZKMetadataUtils {
     offlineSegmentZKMetadata.setTotalRawDocs(segmentMetadata.getTotalRawDocs());
     offlineSegmentZKMetadata.setCreationTime(segmentMetadata.getIndexCreationTime());
     offlineSegmentZKMetadata.setCrc(Long.parseLong(segmentMetadata.getCrc()));
+    offlineSegmentZKMetadata.setPartitionMetadata(extractPartitionMetadata(segmentMetadata));
     return offlineSegmentZKMetadata;
   }
 
+  /**
+   * Extract the partition metadata of the partitioned columns from the segment metadata, so that the broker can prune
+   * segments based on it.
+   *
+   * @return partition metadata, or null if the segment has no partitioned column.
+   */
+  private static SegmentPartitionMetadata extractPartitionMetadata(SegmentMetadata segmentMetadata) {
+    if (!(segmentMetadata instanceof SegmentMetadataImpl)) {
+      return null;
+    }
+    SegmentPartitionMetadata partitionMetadata = new SegmentPartitionMetadata();
+    for (Map.Entry<String, ColumnMetadata> entry : ((SegmentMetadataImpl) segmentMetadata).getColumnMetadataMap()
+        .entrySet()) {
+      ColumnMetadata columnMetadata = entry.getValue();
+      PartitionFunction partitionFunction = columnMetadata.getPartitionFunction();
+      if (partitionFunction != null && columnMetadata.getPartitions() != null) {
+        partitionMetadata.getColumnPartitionMap()
+            .put(entry.getKey(), new ColumnPartitionMetadata(partitionFunction.toString(),
+                partitionFunction.getNumPartitions(), columnMetadata.getDataType(), columnMetadata.getPartitions()));
+      }
+    }
+    return partitionMetadata.getColumnPartitionMap().isEmpty() ? null : partitionMetadata;
+  }
+
   private static TimeUnit extractTimeUnitFromDuration(Duration timeGranularity) {
     if (timeGranularity == null) {
       return null;
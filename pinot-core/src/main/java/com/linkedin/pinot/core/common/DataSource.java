@@ -18,6 +18,7 @@ package com.linkedin.pinot.core.common;
 import com.linkedin.pinot.core.operator.BaseOperator;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.segment.index.readers.RangeIndexReader;
 
 public abstract class DataSource extends BaseOperator {
 
@@ -28,4 +29,11 @@ public abstract class DataSource extends BaseOperator {
   public abstract InvertedIndexReader getInvertedIndex();
 
   public abstract Dictionary getDictionary();
+
+  /**
+   * Returns the range index of the column, or null if the column has no range index.
+   */
+  public RangeIndexReader getRangeIndex() {
+    return null;
+  }
 }
@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.common.datatable;
 
+import com.google.common.base.Preconditions;
 import com.linkedin.pinot.common.utils.DataSchema;
 import com.linkedin.pinot.common.utils.DataTable;
 import java.io.ByteArrayOutputStream;
@@ -72,7 +73,14 @@ import javax.annotation.Nonnull;
 // TODO:   2. Use one dictionary for all columns (save space).
 // TODO:   3. Given a data schema, write all values one by one instead of using rowId and colId to position (save time).
 public class DataTableBuilder {
+  public static final int VERSION_2 = 2;
+  public static final int VERSION_3 = 3;
+
+  // Version of the data tables built by default, can be switched to VERSION_3 (columnar) once all brokers support it.
+  private static volatile int _currentVersion = VERSION_2;
+
   private final DataSchema _dataSchema;
+  private final int _version;
   private final int[] _columnOffsets;
   private final int _rowSizeInBytes;
   private final Map<String, Map<String, Integer>> _dictionaryMap = new HashMap<>();
@@ -86,7 +94,14 @@ public class DataTableBuilder {
   private ByteBuffer _currentRowDataByteBuffer;
 
   public DataTableBuilder(@Nonnull DataSchema dataSchema) {
+    this(dataSchema, _currentVersion);
+  }
+
+  public DataTableBuilder(@Nonnull DataSchema dataSchema, int version) {
+    Preconditions.checkArgument(version == VERSION_2 || version == VERSION_3, "Unsupported data table version: %s",
+        version);
     _dataSchema = dataSchema;
+    _version = version;
     _columnOffsets = new int[dataSchema.size()];
     _rowSizeInBytes = DataTableUtils.computeColumnOffsets(dataSchema, _columnOffsets);
   }
@@ -269,7 +284,73 @@ public class DataTableBuilder {
   }
 
   public DataTable build() {
+    if (_version == VERSION_3) {
+      return new DataTableImplV3(_numRows, _dataSchema, _reverseDictionaryMap,
+          toColumnarFixedSizeData(_fixedSizeDataByteArrayOutputStream.toByteArray()),
+          _variableSizeDataByteArrayOutputStream.toByteArray());
+    }
     return new DataTableImplV2(_numRows, _dataSchema, _reverseDictionaryMap,
         _fixedSizeDataByteArrayOutputStream.toByteArray(), _variableSizeDataByteArrayOutputStream.toByteArray());
   }
+
+  /**
+   * Helper method to convert the row-major fixed size data into the columnar format used by {@link DataTableImplV3}.
+   */
+  private byte[] toColumnarFixedSizeData(byte[] rowMajorBytes) {
+    int numColumns = _columnOffsets.length;
+    int[] columnSizes = new int[numColumns];
+    int rowSizeInBytes = DataTableUtils.computeColumnSizes(_dataSchema, columnSizes);
+    ByteBuffer rowMajorData = ByteBuffer.wrap(rowMajorBytes);
+    byte[] columnarBytes = new byte[_numRows * rowSizeInBytes];
+    ByteBuffer columnarData = ByteBuffer.wrap(columnarBytes);
+
+    for (int colId = 0; colId < numColumns; colId++) {
+      int position = _columnOffsets[colId];
+      switch (columnSizes[colId]) {
+        case 1:
+          for (int rowId = 0; rowId < _numRows; rowId++) {
+            columnarData.put(rowMajorData.get(position));
+            position += _rowSizeInBytes;
+          }
+          break;
+        case 2:
+          for (int rowId = 0; rowId < _numRows; rowId++) {
+            columnarData.putShort(rowMajorData.getShort(position));
+            position += _rowSizeInBytes;
+          }
+          break;
+        case 4:
+          for (int rowId = 0; rowId < _numRows; rowId++) {
+            columnarData.putInt(rowMajorData.getInt(position));
+            position += _rowSizeInBytes;
+          }
+          break;
+        case 8:
+          for (int rowId = 0; rowId < _numRows; rowId++) {
+            columnarData.putLong(rowMajorData.getLong(position));
+            position += _rowSizeInBytes;
+          }
+          break;
+        default:
+          throw new IllegalStateException("Unsupported column size: " + columnSizes[colId]);
+      }
+    }
+
+    return columnarBytes;
+  }
+
+  /**
+   * Set the version of the data tables built by {@link #DataTableBuilder(DataSchema)}.
+   *
+   * @param version data table version.
+   */
+  public static void setCurrentDataTableVersion(int version) {
+    Preconditions.checkArgument(version == VERSION_2 || version == VERSION_3, "Unsupported data table version: %s",
+        version);
+    _currentVersion = version;
+  }
+
+  public static int getCurrentDataTableVersion() {
+    return _currentVersion;
+  }
 }
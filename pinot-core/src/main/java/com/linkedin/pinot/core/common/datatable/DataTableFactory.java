@@ -26,11 +26,23 @@ public class DataTableFactory {
 
   public static DataTable getDataTable(byte[] bytes)
       throws IOException {
-    ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+    return getDataTable(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Get data table from the remaining bytes of the byte buffer.
+   * <p>Data table of version 3 keeps views of the byte buffer without copying, so the byte buffer should not be
+   * modified or released while the data table is in use.
+   */
+  public static DataTable getDataTable(ByteBuffer buffer)
+      throws IOException {
+    ByteBuffer byteBuffer = buffer.slice();
     int version = byteBuffer.getInt();
     switch (version) {
       case 2:
         return new DataTableImplV2(byteBuffer);
+      case 3:
+        return new DataTableImplV3(byteBuffer);
       default:
         throw new UnsupportedOperationException("Unsupported data table version: " + version);
     }
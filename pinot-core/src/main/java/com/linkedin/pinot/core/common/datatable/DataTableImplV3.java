@@ -0,0 +1,656 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.common.datatable;
+
+import com.linkedin.pinot.common.response.ProcessingException;
+import com.linkedin.pinot.common.utils.DataSchema;
+import com.linkedin.pinot.common.utils.DataTable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * Columnar data table.
+ *
+ * <ul>
+ *   <li>Fixed size data is laid out by column: all values of a column are stored contiguously, so values of a column
+ *   can be read sequentially.</li>
+ *   <li>String dictionaries are stored as one offset array plus one UTF-8 byte blob per column, instead of a map from
+ *   dictionary id to value. Dictionary values are only decoded when they are read.</li>
+ *   <li>When de-serializing, all sections are views of the passed in byte buffer, no data is copied.</li>
+ *   <li>All reads use absolute positions, so the data table can be read from multiple threads.</li>
+ * </ul>
+ */
+public class DataTableImplV3 implements DataTable {
+  private static final int VERSION = 3;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  // VERSION
+  // NUM_ROWS
+  // NUM_COLUMNS
+  // DICTIONARY_MAP (START|SIZE)
+  // METADATA (START|SIZE)
+  // DATA_SCHEMA (START|SIZE)
+  // FIXED_SIZE_DATA (START|SIZE)
+  // VARIABLE_SIZE_DATA (START|SIZE)
+  private static final int HEADER_SIZE = (Integer.SIZE / Byte.SIZE) * 13;
+
+  private final int _numRows;
+  private final int _numColumns;
+  private final DataSchema _dataSchema;
+  private final int[] _columnOffsets;
+  private final int[] _columnSizes;
+  private final ByteBuffer _dictionaryMapData;
+  private final Map<String, StringDictionary> _dictionaryMap;
+  private final ByteBuffer _fixedSizeData;
+  private final ByteBuffer _variableSizeData;
+  private final Map<String, String> _metadata;
+
+  /**
+   * Construct data table with results. (Server side)
+   *
+   * @param numRows number of rows.
+   * @param dataSchema data schema.
+   * @param dictionaryMap map from column name to dictionary (dictionary ids must be from 0 to size - 1).
+   * @param fixedSizeDataBytes fixed size data in columnar format.
+   * @param variableSizeDataBytes variable size data.
+   */
+  public DataTableImplV3(int numRows, @Nonnull DataSchema dataSchema,
+      @Nonnull Map<String, Map<Integer, String>> dictionaryMap, @Nonnull byte[] fixedSizeDataBytes,
+      @Nonnull byte[] variableSizeDataBytes) {
+    _numRows = numRows;
+    _numColumns = dataSchema.size();
+    _dataSchema = dataSchema;
+    _columnSizes = new int[_numColumns];
+    _columnOffsets = computeColumnOffsets(dataSchema, numRows, _columnSizes);
+    _dictionaryMapData = ByteBuffer.wrap(serializeDictionaryMap(dictionaryMap));
+    _dictionaryMap = readDictionaryMap(_dictionaryMapData);
+    _fixedSizeData = ByteBuffer.wrap(fixedSizeDataBytes);
+    _variableSizeData = ByteBuffer.wrap(variableSizeDataBytes);
+    _metadata = new HashMap<>();
+  }
+
+  /**
+   * Construct empty data table. (Server side)
+   */
+  public DataTableImplV3() {
+    _numRows = 0;
+    _numColumns = 0;
+    _dataSchema = null;
+    _columnOffsets = null;
+    _columnSizes = null;
+    _dictionaryMapData = null;
+    _dictionaryMap = null;
+    _fixedSizeData = null;
+    _variableSizeData = null;
+    _metadata = new HashMap<>();
+  }
+
+  /**
+   * Construct data table from byte buffer, the byte buffer should start with the version. (Broker side)
+   * <p>The data table keeps views of the byte buffer, so the byte buffer should not be modified or released while the
+   * data table is in use.
+   */
+  public DataTableImplV3(@Nonnull ByteBuffer byteBuffer)
+      throws IOException {
+    // Read header.
+    _numRows = byteBuffer.getInt();
+    _numColumns = byteBuffer.getInt();
+    int dictionaryMapStart = byteBuffer.getInt();
+    int dictionaryMapLength = byteBuffer.getInt();
+    int metadataStart = byteBuffer.getInt();
+    int metadataLength = byteBuffer.getInt();
+    int dataSchemaStart = byteBuffer.getInt();
+    int dataSchemaLength = byteBuffer.getInt();
+    int fixedSizeDataStart = byteBuffer.getInt();
+    int fixedSizeDataLength = byteBuffer.getInt();
+    int variableSizeDataStart = byteBuffer.getInt();
+    int variableSizeDataLength = byteBuffer.getInt();
+
+    // Read dictionary.
+    if (dictionaryMapLength != 0) {
+      _dictionaryMapData = slice(byteBuffer, dictionaryMapStart, dictionaryMapLength);
+      _dictionaryMap = readDictionaryMap(_dictionaryMapData);
+    } else {
+      _dictionaryMapData = null;
+      _dictionaryMap = null;
+    }
+
+    // Read metadata.
+    _metadata = deserializeMetadata(slice(byteBuffer, metadataStart, metadataLength));
+
+    // Read data schema.
+    if (dataSchemaLength != 0) {
+      byte[] schemaBytes = new byte[dataSchemaLength];
+      slice(byteBuffer, dataSchemaStart, dataSchemaLength).get(schemaBytes);
+      _dataSchema = DataSchema.fromBytes(schemaBytes);
+      _columnSizes = new int[_dataSchema.size()];
+      _columnOffsets = computeColumnOffsets(_dataSchema, _numRows, _columnSizes);
+    } else {
+      _dataSchema = null;
+      _columnOffsets = null;
+      _columnSizes = null;
+    }
+
+    // Read fixed size data.
+    if (fixedSizeDataLength != 0) {
+      _fixedSizeData = slice(byteBuffer, fixedSizeDataStart, fixedSizeDataLength);
+    } else {
+      _fixedSizeData = null;
+    }
+
+    // Read variable size data.
+    if (variableSizeDataLength != 0) {
+      _variableSizeData = slice(byteBuffer, variableSizeDataStart, variableSizeDataLength);
+    } else {
+      _variableSizeData = null;
+    }
+  }
+
+  /**
+   * Helper method to compute the start offset of each column in the fixed size data.
+   */
+  private static int[] computeColumnOffsets(DataSchema dataSchema, int numRows, int[] columnSizes) {
+    DataTableUtils.computeColumnSizes(dataSchema, columnSizes);
+    int numColumns = columnSizes.length;
+    int[] columnOffsets = new int[numColumns];
+    int columnOffset = 0;
+    for (int i = 0; i < numColumns; i++) {
+      columnOffsets[i] = columnOffset;
+      columnOffset += numRows * columnSizes[i];
+    }
+    return columnOffsets;
+  }
+
+  /**
+   * Helper method to get a view of a section of the byte buffer, without modifying the byte buffer.
+   */
+  private static ByteBuffer slice(ByteBuffer byteBuffer, int start, int length) {
+    ByteBuffer duplicate = byteBuffer.duplicate();
+    duplicate.position(start);
+    duplicate.limit(start + length);
+    return duplicate.slice();
+  }
+
+  /**
+   * Serialize dictionary map into the following format:
+   * <ul>
+   *   <li>NUM_DICTIONARIES</li>
+   *   <li>For each dictionary: COLUMN_NAME_LENGTH, COLUMN_NAME, DICTIONARY_LENGTH, NUM_VALUES,
+   *   VALUE_OFFSETS (NUM_VALUES + 1), VALUE_BYTES</li>
+   * </ul>
+   */
+  private static byte[] serializeDictionaryMap(Map<String, Map<Integer, String>> dictionaryMap) {
+    int numDictionaries = dictionaryMap.size();
+    byte[][] columnNameBytesArray = new byte[numDictionaries][];
+    byte[][][] valueBytesArray = new byte[numDictionaries][][];
+    int[] valueBytesLengths = new int[numDictionaries];
+
+    int totalLength = Integer.SIZE / Byte.SIZE;
+    int index = 0;
+    for (Entry<String, Map<Integer, String>> entry : dictionaryMap.entrySet()) {
+      columnNameBytesArray[index] = entry.getKey().getBytes(UTF_8);
+      Map<Integer, String> dictionary = entry.getValue();
+      int numValues = dictionary.size();
+      byte[][] valueBytes = new byte[numValues][];
+      int valueBytesLength = 0;
+      for (int dictId = 0; dictId < numValues; dictId++) {
+        valueBytes[dictId] = dictionary.get(dictId).getBytes(UTF_8);
+        valueBytesLength += valueBytes[dictId].length;
+      }
+      valueBytesArray[index] = valueBytes;
+      valueBytesLengths[index] = valueBytesLength;
+      totalLength += 3 * (Integer.SIZE / Byte.SIZE) + columnNameBytesArray[index].length
+          + (numValues + 1) * (Integer.SIZE / Byte.SIZE) + valueBytesLength;
+      index++;
+    }
+
+    byte[] bytes = new byte[totalLength];
+    ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+    byteBuffer.putInt(numDictionaries);
+    for (int i = 0; i < numDictionaries; i++) {
+      byteBuffer.putInt(columnNameBytesArray[i].length);
+      byteBuffer.put(columnNameBytesArray[i]);
+      byte[][] valueBytes = valueBytesArray[i];
+      int numValues = valueBytes.length;
+      byteBuffer.putInt((numValues + 2) * (Integer.SIZE / Byte.SIZE) + valueBytesLengths[i]);
+      byteBuffer.putInt(numValues);
+      int valueOffset = 0;
+      for (byte[] value : valueBytes) {
+        byteBuffer.putInt(valueOffset);
+        valueOffset += value.length;
+      }
+      byteBuffer.putInt(valueOffset);
+      for (byte[] value : valueBytes) {
+        byteBuffer.put(value);
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Read the column names and the position of each dictionary, values are decoded lazily.
+   */
+  private static Map<String, StringDictionary> readDictionaryMap(ByteBuffer dictionaryMapData) {
+    int position = 0;
+    int numDictionaries = dictionaryMapData.getInt(position);
+    position += Integer.SIZE / Byte.SIZE;
+    Map<String, StringDictionary> dictionaryMap = new HashMap<>(numDictionaries);
+    for (int i = 0; i < numDictionaries; i++) {
+      int columnNameLength = dictionaryMapData.getInt(position);
+      position += Integer.SIZE / Byte.SIZE;
+      byte[] columnNameBytes = new byte[columnNameLength];
+      slice(dictionaryMapData, position, columnNameLength).get(columnNameBytes);
+      position += columnNameLength;
+      int dictionaryLength = dictionaryMapData.getInt(position);
+      position += Integer.SIZE / Byte.SIZE;
+      dictionaryMap.put(new String(columnNameBytes, UTF_8),
+          new StringDictionary(slice(dictionaryMapData, position, dictionaryLength)));
+      position += dictionaryLength;
+    }
+    return dictionaryMap;
+  }
+
+  private static byte[] serializeMetadata(Map<String, String> metadata) {
+    int numEntries = metadata.size();
+    byte[][] keyBytesArray = new byte[numEntries][];
+    byte[][] valueBytesArray = new byte[numEntries][];
+    int totalLength = Integer.SIZE / Byte.SIZE;
+    int index = 0;
+    for (Entry<String, String> entry : metadata.entrySet()) {
+      keyBytesArray[index] = entry.getKey().getBytes(UTF_8);
+      valueBytesArray[index] = entry.getValue().getBytes(UTF_8);
+      totalLength += 2 * (Integer.SIZE / Byte.SIZE) + keyBytesArray[index].length + valueBytesArray[index].length;
+      index++;
+    }
+
+    byte[] bytes = new byte[totalLength];
+    ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+    byteBuffer.putInt(numEntries);
+    for (int i = 0; i < numEntries; i++) {
+      byteBuffer.putInt(keyBytesArray[i].length);
+      byteBuffer.put(keyBytesArray[i]);
+      byteBuffer.putInt(valueBytesArray[i].length);
+      byteBuffer.put(valueBytesArray[i]);
+    }
+    return bytes;
+  }
+
+  private static Map<String, String> deserializeMetadata(ByteBuffer byteBuffer) {
+    int numEntries = byteBuffer.getInt();
+    Map<String, String> metadata = new HashMap<>(numEntries);
+    for (int i = 0; i < numEntries; i++) {
+      byte[] keyBytes = new byte[byteBuffer.getInt()];
+      byteBuffer.get(keyBytes);
+      byte[] valueBytes = new byte[byteBuffer.getInt()];
+      byteBuffer.get(valueBytes);
+      metadata.put(new String(keyBytes, UTF_8), new String(valueBytes, UTF_8));
+    }
+    return metadata;
+  }
+
+  @Override
+  public void addException(@Nonnull ProcessingException processingException) {
+    _metadata.put(EXCEPTION_METADATA_KEY + processingException.getErrorCode(), processingException.getMessage());
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>The size of each section is computed up front, so the data is written directly into one byte array of the
+   * exact size.
+   */
+  @Nonnull
+  @Override
+  public byte[] toBytes()
+      throws IOException {
+    byte[] metadataBytes = serializeMetadata(_metadata);
+    byte[] dataSchemaBytes = null;
+    if (_dataSchema != null) {
+      dataSchemaBytes = _dataSchema.toBytes();
+    }
+
+    int dictionaryMapLength = getLength(_dictionaryMapData);
+    int dataSchemaLength = (dataSchemaBytes != null) ? dataSchemaBytes.length : 0;
+    int fixedSizeDataLength = getLength(_fixedSizeData);
+    int variableSizeDataLength = getLength(_variableSizeData);
+    byte[] bytes = new byte[HEADER_SIZE + dictionaryMapLength + metadataBytes.length + dataSchemaLength
+        + fixedSizeDataLength + variableSizeDataLength];
+    ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+
+    // Write header.
+    byteBuffer.putInt(VERSION);
+    byteBuffer.putInt(_numRows);
+    byteBuffer.putInt(_numColumns);
+    int dataOffset = HEADER_SIZE;
+    byteBuffer.putInt(dataOffset);
+    byteBuffer.putInt(dictionaryMapLength);
+    dataOffset += dictionaryMapLength;
+    byteBuffer.putInt(dataOffset);
+    byteBuffer.putInt(metadataBytes.length);
+    dataOffset += metadataBytes.length;
+    byteBuffer.putInt(dataOffset);
+    byteBuffer.putInt(dataSchemaLength);
+    dataOffset += dataSchemaLength;
+    byteBuffer.putInt(dataOffset);
+    byteBuffer.putInt(fixedSizeDataLength);
+    dataOffset += fixedSizeDataLength;
+    byteBuffer.putInt(dataOffset);
+    byteBuffer.putInt(variableSizeDataLength);
+
+    // Write actual data.
+    writeData(byteBuffer, _dictionaryMapData);
+    byteBuffer.put(metadataBytes);
+    if (dataSchemaBytes != null) {
+      byteBuffer.put(dataSchemaBytes);
+    }
+    writeData(byteBuffer, _fixedSizeData);
+    writeData(byteBuffer, _variableSizeData);
+
+    return bytes;
+  }
+
+  private static int getLength(@Nullable ByteBuffer data) {
+    if (data != null) {
+      return data.capacity();
+    } else {
+      return 0;
+    }
+  }
+
+  private static void writeData(ByteBuffer byteBuffer, @Nullable ByteBuffer data) {
+    if (data != null) {
+      ByteBuffer duplicate = data.duplicate();
+      duplicate.clear();
+      byteBuffer.put(duplicate);
+    }
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, String> getMetadata() {
+    return _metadata;
+  }
+
+  @Nullable
+  @Override
+  public DataSchema getDataSchema() {
+    return _dataSchema;
+  }
+
+  @Override
+  public int getNumberOfRows() {
+    return _numRows;
+  }
+
+  private int getFixedSizeDataPosition(int rowId, int colId) {
+    return _columnOffsets[colId] + rowId * _columnSizes[colId];
+  }
+
+  @Override
+  public boolean getBoolean(int rowId, int colId) {
+    return _fixedSizeData.get(getFixedSizeDataPosition(rowId, colId)) == 1;
+  }
+
+  @Override
+  public char getChar(int rowId, int colId) {
+    return _fixedSizeData.getChar(getFixedSizeDataPosition(rowId, colId));
+  }
+
+  @Override
+  public byte getByte(int rowId, int colId) {
+    return _fixedSizeData.get(getFixedSizeDataPosition(rowId, colId));
+  }
+
+  @Override
+  public short getShort(int rowId, int colId) {
+    return _fixedSizeData.getShort(getFixedSizeDataPosition(rowId, colId));
+  }
+
+  @Override
+  public int getInt(int rowId, int colId) {
+    return _fixedSizeData.getInt(getFixedSizeDataPosition(rowId, colId));
+  }
+
+  @Override
+  public long getLong(int rowId, int colId) {
+    return _fixedSizeData.getLong(getFixedSizeDataPosition(rowId, colId));
+  }
+
+  @Override
+  public float getFloat(int rowId, int colId) {
+    return _fixedSizeData.getFloat(getFixedSizeDataPosition(rowId, colId));
+  }
+
+  @Override
+  public double getDouble(int rowId, int colId) {
+    return _fixedSizeData.getDouble(getFixedSizeDataPosition(rowId, colId));
+  }
+
+  @Nonnull
+  @Override
+  public String getString(int rowId, int colId) {
+    int dictId = _fixedSizeData.getInt(getFixedSizeDataPosition(rowId, colId));
+    return _dictionaryMap.get(_dataSchema.getColumnName(colId)).get(dictId);
+  }
+
+  @Nonnull
+  @Override
+  public <T> T getObject(int rowId, int colId) {
+    int position = getFixedSizeDataPosition(rowId, colId);
+    int offset = _fixedSizeData.getInt(position);
+    int size = _fixedSizeData.getInt(position + 4);
+    ObjectType objectType = ObjectType.getObjectType(_variableSizeData.getInt(offset));
+    byte[] bytes = new byte[size];
+    slice(_variableSizeData, offset + 4, size).get(bytes);
+    try {
+      return ObjectCustomSerDe.deserialize(bytes, objectType);
+    } catch (IOException e) {
+      throw new RuntimeException("Caught exception while de-serializing object.", e);
+    }
+  }
+
+  @Nonnull
+  @Override
+  public byte[] getByteArray(int rowId, int colId) {
+    int position = getFixedSizeDataPosition(rowId, colId);
+    int length = _fixedSizeData.getInt(position + 4);
+    byte[] bytes = new byte[length];
+    slice(_variableSizeData, _fixedSizeData.getInt(position), length).get(bytes);
+    return bytes;
+  }
+
+  @Nonnull
+  @Override
+  public char[] getCharArray(int rowId, int colId) {
+    int position = getFixedSizeDataPosition(rowId, colId);
+    int offset = _fixedSizeData.getInt(position);
+    int length = _fixedSizeData.getInt(position + 4);
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = _variableSizeData.getChar(offset + 2 * i);
+    }
+    return chars;
+  }
+
+  @Nonnull
+  @Override
+  public short[] getShortArray(int rowId, int colId) {
+    int position = getFixedSizeDataPosition(rowId, colId);
+    int offset = _fixedSizeData.getInt(position);
+    int length = _fixedSizeData.getInt(position + 4);
+    short[] shorts = new short[length];
+    for (int i = 0; i < length; i++) {
+      shorts[i] = _variableSizeData.getShort(offset + 2 * i);
+    }
+    return shorts;
+  }
+
+  @Nonnull
+  @Override
+  public int[] getIntArray(int rowId, int colId) {
+    int position = getFixedSizeDataPosition(rowId, colId);
+    int offset = _fixedSizeData.getInt(position);
+    int length = _fixedSizeData.getInt(position + 4);
+    int[] ints = new int[length];
+    for (int i = 0; i < length; i++) {
+      ints[i] = _variableSizeData.getInt(offset + 4 * i);
+    }
+    return ints;
+  }
+
+  @Nonnull
+  @Override
+  public long[] getLongArray(int rowId, int colId) {
+    int position = getFixedSizeDataPosition(rowId, colId);
+    int offset = _fixedSizeData.getInt(position);
+    int length = _fixedSizeData.getInt(position + 4);
+    long[] longs = new long[length];
+    for (int i = 0; i < length; i++) {
+      longs[i] = _variableSizeData.getLong(offset + 8 * i);
+    }
+    return longs;
+  }
+
+  @Nonnull
+  @Override
+  public float[] getFloatArray(int rowId, int colId) {
+    int position = getFixedSizeDataPosition(rowId, colId);
+    int offset = _fixedSizeData.getInt(position);
+    int length = _fixedSizeData.getInt(position + 4);
+    float[] floats = new float[length];
+    for (int i = 0; i < length; i++) {
+      floats[i] = _variableSizeData.getFloat(offset + 4 * i);
+    }
+    return floats;
+  }
+
+  @Nonnull
+  @Override
+  public double[] getDoubleArray(int rowId, int colId) {
+    int position = getFixedSizeDataPosition(rowId, colId);
+    int offset = _fixedSizeData.getInt(position);
+    int length = _fixedSizeData.getInt(position + 4);
+    double[] doubles = new double[length];
+    for (int i = 0; i < length; i++) {
+      doubles[i] = _variableSizeData.getDouble(offset + 8 * i);
+    }
+    return doubles;
+  }
+
+  @Nonnull
+  @Override
+  public String[] getStringArray(int rowId, int colId) {
+    int position = getFixedSizeDataPosition(rowId, colId);
+    int offset = _fixedSizeData.getInt(position);
+    int length = _fixedSizeData.getInt(position + 4);
+    String[] strings = new String[length];
+    StringDictionary dictionary = _dictionaryMap.get(_dataSchema.getColumnName(colId));
+    for (int i = 0; i < length; i++) {
+      strings[i] = dictionary.get(_variableSizeData.getInt(offset + 4 * i));
+    }
+    return strings;
+  }
+
+  @Override
+  public String toString() {
+    if (_dataSchema == null) {
+      return _metadata.toString();
+    }
+
+    StringBuilder stringBuilder = new StringBuilder();
+    stringBuilder.append(_dataSchema.toString()).append('\n');
+    stringBuilder.append("numRows: ").append(_numRows).append('\n');
+
+    for (int rowId = 0; rowId < _numRows; rowId++) {
+      for (int colId = 0; colId < _numColumns; colId++) {
+        int position = getFixedSizeDataPosition(rowId, colId);
+        switch (_dataSchema.getColumnType(colId)) {
+          case BOOLEAN:
+            stringBuilder.append(_fixedSizeData.get(position));
+            break;
+          case BYTE:
+            stringBuilder.append(_fixedSizeData.get(position));
+            break;
+          case CHAR:
+            stringBuilder.append(_fixedSizeData.getChar(position));
+            break;
+          case SHORT:
+            stringBuilder.append(_fixedSizeData.getShort(position));
+            break;
+          case INT:
+            stringBuilder.append(_fixedSizeData.getInt(position));
+            break;
+          case LONG:
+            stringBuilder.append(_fixedSizeData.getLong(position));
+            break;
+          case FLOAT:
+            stringBuilder.append(_fixedSizeData.getFloat(position));
+            break;
+          case DOUBLE:
+            stringBuilder.append(_fixedSizeData.getDouble(position));
+            break;
+          case STRING:
+            stringBuilder.append(_fixedSizeData.getInt(position));
+            break;
+          // Object and array.
+          default:
+            stringBuilder.append(
+                String.format("(%s:%s)", _fixedSizeData.getInt(position), _fixedSizeData.getInt(position + 4)));
+            break;
+        }
+        stringBuilder.append("\t");
+      }
+      stringBuilder.append("\n");
+    }
+    return stringBuilder.toString();
+  }
+
+  /**
+   * String dictionary backed by the serialized bytes, values are decoded on first access and cached.
+   */
+  private static class StringDictionary {
+    private final ByteBuffer _data;
+    private final int _valueBytesStart;
+    private final String[] _values;
+
+    StringDictionary(ByteBuffer data) {
+      _data = data;
+      int numValues = data.getInt(0);
+      _valueBytesStart = (numValues + 2) * (Integer.SIZE / Byte.SIZE);
+      _values = new String[numValues];
+    }
+
+    String get(int dictId) {
+      String value = _values[dictId];
+      if (value == null) {
+        int offsetPosition = (dictId + 1) * (Integer.SIZE / Byte.SIZE);
+        int start = _data.getInt(offsetPosition);
+        int end = _data.getInt(offsetPosition + (Integer.SIZE / Byte.SIZE));
+        byte[] bytes = new byte[end - start];
+        slice(_data, _valueBytesStart + start, end - start).get(bytes);
+        value = new String(bytes, UTF_8);
+        _values[dictId] = value;
+      }
+      return value;
+    }
+  }
+}
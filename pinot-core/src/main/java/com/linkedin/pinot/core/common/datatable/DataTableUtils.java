@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.common.datatable;
 
+import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.utils.DataSchema;
 import javax.annotation.Nonnull;
 
@@ -80,4 +81,33 @@ public class DataTableUtils {
 
     return rowSizeInBytes;
   }
+
+  /**
+   * Given a {@link DataSchema}, compute each column's value size for the columnar data table (version 3) and fill them
+   * into the passed in array, then return the total size in bytes of one value for each column.
+   * <p>Same as {@link #computeColumnOffsets(DataSchema, int[])} except that float takes 4 bytes.
+   *
+   * @param dataSchema data schema.
+   * @param columnSizes array of column value sizes.
+   * @return total size in bytes of one value for each column.
+   */
+  public static int computeColumnSizes(@Nonnull DataSchema dataSchema, @Nonnull int[] columnSizes) {
+    int numColumns = columnSizes.length;
+    assert numColumns == dataSchema.size();
+
+    int[] columnOffsets = new int[numColumns];
+    int rowSizeInBytes = computeColumnOffsets(dataSchema, columnOffsets);
+    int totalSizeInBytes = 0;
+    for (int i = 0; i < numColumns; i++) {
+      int nextColumnOffset = (i == numColumns - 1) ? rowSizeInBytes : columnOffsets[i + 1];
+      if (dataSchema.getColumnType(i) == FieldSpec.DataType.FLOAT) {
+        columnSizes[i] = 4;
+      } else {
+        columnSizes[i] = nextColumnOffset - columnOffsets[i];
+      }
+      totalSizeInBytes += columnSizes[i];
+    }
+
+    return totalSizeInBytes;
+  }
 }
@@ -89,6 +89,20 @@ public class PlainFieldExtractor implements FieldExtractor {
     _totalNullCols = 0;
   }
 
+  /**
+   * Adds the counters of another extractor for the same schema, e.g. one used by another thread, to this one.
+   */
+  public void addCounters(PlainFieldExtractor other) {
+    _totalErrors += other._totalErrors;
+    _totalNulls += other._totalNulls;
+    _totalConversions += other._totalConversions;
+    _totalNullCols += other._totalNullCols;
+    for (Map.Entry<String, Integer> entry : other._errorCount.entrySet()) {
+      Integer count = _errorCount.get(entry.getKey());
+      _errorCount.put(entry.getKey(), (count == null) ? entry.getValue() : count + entry.getValue());
+    }
+  }
+
   private void initErrorCount() {
     for (String column : _schema.getColumnNames()) {
       _errorCount.put(column, 0);
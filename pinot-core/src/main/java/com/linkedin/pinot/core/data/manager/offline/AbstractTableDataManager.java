@@ -17,6 +17,7 @@ package com.linkedin.pinot.core.data.manager.offline;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +37,7 @@ import com.linkedin.pinot.common.segment.ReadMode;
 import com.linkedin.pinot.common.utils.NamedThreadFactory;
 import com.linkedin.pinot.core.data.manager.config.TableDataManagerConfig;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.query.cache.SegmentKeyedCache;
 import javax.annotation.Nonnull;
 
 
@@ -60,6 +62,7 @@ public abstract  class AbstractTableDataManager implements TableDataManager {
   protected IndexLoadingConfigMetadata _indexLoadingConfigMetadata;
   protected ServerMetrics _serverMetrics;
   protected String _serverInstance;
+  protected volatile List<SegmentKeyedCache<?>> _segmentCaches = Collections.emptyList();
 
 
   protected AbstractTableDataManager() {
@@ -100,6 +103,11 @@ public abstract  class AbstractTableDataManager implements TableDataManager {
 
   protected abstract void doInit();
 
+  @Override
+  public void setSegmentCaches(@Nonnull List<SegmentKeyedCache<?>> segmentCaches) {
+    _segmentCaches = segmentCaches;
+  }
+
   @Override
   public void start() {
     LOGGER.info("Trying to start table : " + _tableName);
@@ -159,6 +167,7 @@ public abstract  class AbstractTableDataManager implements TableDataManager {
       LOGGER.info("Added new segment {} for table {}", segmentName, _tableName);
     } else {
       LOGGER.info("Replaced segment {}(refCnt {}) with new segment for table {}", segmentName, refCnt, _tableName);
+      invalidateSegmentCaches(segmentName);
     }
     if (refCnt == 0) {  // oldSegmentManager must be non-null.
       closeSegment(oldSegmentManager);
@@ -191,11 +200,23 @@ public abstract  class AbstractTableDataManager implements TableDataManager {
     } finally {
       _rwLock.writeLock().unlock();
     }
+    if (segmentDataManager != null) {
+      invalidateSegmentCaches(segmentName);
+    }
     if (refCnt == 0) {  // segmentDataManager must be non-null.
       closeSegment(segmentDataManager);
     }
   }
 
+  /**
+   * Drop the cached segment level results and filter bitmaps for a replaced or removed segment.
+   */
+  protected void invalidateSegmentCaches(String segmentName) {
+    for (SegmentKeyedCache<?> segmentCache : _segmentCaches) {
+      segmentCache.invalidate(_tableName, segmentName);
+    }
+  }
+
   protected void closeSegment(SegmentDataManager segmentDataManager) {
     final String segmentName = segmentDataManager.getSegmentName();
     LOGGER.info("Closing segment {} for table {}", segmentName, _tableName);
@@ -24,10 +24,14 @@ import com.linkedin.pinot.common.segment.SegmentMetadata;
 import com.linkedin.pinot.common.segment.SegmentMetadataLoader;
 import com.linkedin.pinot.core.data.manager.config.FileBasedInstanceDataManagerConfig;
 import com.linkedin.pinot.core.data.manager.config.TableDataManagerConfig;
+import com.linkedin.pinot.core.query.cache.SegmentKeyedCache;
 import java.io.File;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.annotation.Nonnull;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.helix.ZNRecord;
@@ -49,6 +53,8 @@ public class FileBasedInstanceDataManager implements InstanceDataManager {
   private Map<String, TableDataManager> _tableDataManagerMap = new HashMap<String, TableDataManager>();
   private boolean _isStarted = false;
   private SegmentMetadataLoader _segmentMetadataLoader;
+  // Shared with all the table data managers, which invalidate the entries of replaced or removed segments.
+  private final List<SegmentKeyedCache<?>> _segmentCaches = new CopyOnWriteArrayList<>();
 
   public FileBasedInstanceDataManager() {
     //LOGGER.info("InstanceDataManager is a Singleton");
@@ -65,7 +71,7 @@ public class FileBasedInstanceDataManager implements InstanceDataManager {
       TableDataManagerConfig tableDataManagerConfig =
           _instanceDataManagerConfig.getTableDataManagerConfig(tableName);
       TableDataManager tableDataManager = TableDataManagerProvider.getTableDataManager(tableDataManagerConfig, null);
-      _tableDataManagerMap.put(tableName, tableDataManager);
+      addTableDataManager(tableName, tableDataManager);
     }
     _segmentMetadataLoader = getSegmentMetadataLoader(_instanceDataManagerConfig.getSegmentMetadataLoaderClass());
   }
@@ -83,7 +89,7 @@ public class FileBasedInstanceDataManager implements InstanceDataManager {
       TableDataManagerConfig tableDataManagerConfig =
           _instanceDataManagerConfig.getTableDataManagerConfig(tableName);
       TableDataManager tableDataManager = TableDataManagerProvider.getTableDataManager(tableDataManagerConfig, null);
-      _tableDataManagerMap.put(tableName, tableDataManager);
+      addTableDataManager(tableName, tableDataManager);
     }
     try {
       _segmentMetadataLoader = getSegmentMetadataLoader(_instanceDataManagerConfig.getSegmentMetadataLoaderClass());
@@ -105,7 +111,7 @@ public class FileBasedInstanceDataManager implements InstanceDataManager {
 
   public void addTable(TableDataManagerConfig tableConfig) {
     TableDataManager tableDataManager = TableDataManagerProvider.getTableDataManager(tableConfig, null);
-    _tableDataManagerMap.put(tableConfig.getTableName(), tableDataManager);
+    addTableDataManager(tableConfig.getTableName(), tableDataManager);
   }
 
   @Override
@@ -148,9 +154,15 @@ public class FileBasedInstanceDataManager implements InstanceDataManager {
   }
 
   public synchronized void addTableDataManager(String tableName, TableDataManager tableDataManager) {
+    tableDataManager.setSegmentCaches(_segmentCaches);
     _tableDataManagerMap.put(tableName, tableDataManager);
   }
 
+  @Override
+  public void registerSegmentCache(@Nonnull SegmentKeyedCache<?> segmentCache) {
+    _segmentCaches.add(segmentCache);
+  }
+
   @Override
   public Collection<TableDataManager> getTableDataManagers() {
     return _tableDataManagerMap.values();
@@ -19,6 +19,7 @@ import com.linkedin.pinot.common.config.AbstractTableConfig;
 import com.linkedin.pinot.common.data.DataManager;
 import com.linkedin.pinot.common.metadata.instance.InstanceZKMetadata;
 import com.linkedin.pinot.common.metadata.segment.SegmentZKMetadata;
+import com.linkedin.pinot.core.query.cache.SegmentKeyedCache;
 import java.util.Collection;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -39,4 +40,10 @@ public interface InstanceDataManager extends DataManager {
   void addSegment(ZkHelixPropertyStore<ZNRecord> propertyStore, AbstractTableConfig tableConfig,
       InstanceZKMetadata instanceZKMetadata, SegmentZKMetadata segmentZKMetadata, String serverInstance) throws Exception;
 
+  /**
+   * Register a cache of segment level entries, whose entries for a segment are invalidated by the table data managers
+   * when the segment is replaced or removed.
+   * @param segmentCache segment keyed cache
+   */
+  void registerSegmentCache(@Nonnull SegmentKeyedCache<?> segmentCache);
 }
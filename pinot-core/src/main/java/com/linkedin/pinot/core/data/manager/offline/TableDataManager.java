@@ -29,6 +29,7 @@ import com.linkedin.pinot.common.metrics.ServerMetrics;
 import com.linkedin.pinot.common.segment.SegmentMetadata;
 import com.linkedin.pinot.core.data.manager.config.TableDataManagerConfig;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.query.cache.SegmentKeyedCache;
 import javax.annotation.Nonnull;
 
 
@@ -47,6 +48,14 @@ public interface TableDataManager {
    */
   void init(TableDataManagerConfig tableDataManagerConfig, ServerMetrics serverMetrics, String serverInstance);
 
+  /**
+   * Set the caches of segment level entries to invalidate when a segment is replaced or removed. The list is owned by
+   * the instance data manager, so caches registered after the table is added are also invalidated.
+   *
+   * @param segmentCaches segment keyed caches
+   */
+  void setSegmentCaches(@Nonnull List<SegmentKeyedCache<?>> segmentCaches);
+
   void start();
 
   void shutDown();
@@ -19,6 +19,7 @@ package com.linkedin.pinot.core.data.manager.realtime;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -52,6 +53,9 @@ import com.linkedin.pinot.core.data.extractors.PlainFieldExtractor;
 import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
+import com.linkedin.pinot.core.io.readerwriter.RealtimeIndexOffHeapMemoryManager;
+import com.linkedin.pinot.core.io.readerwriter.impl.DirectMemoryManager;
+import com.linkedin.pinot.core.io.readerwriter.impl.MmapMemoryManager;
 import com.linkedin.pinot.core.realtime.converter.RealtimeSegmentConverter;
 import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
 import com.linkedin.pinot.core.realtime.impl.kafka.KafkaLowLevelStreamProviderConfig;
@@ -124,6 +128,8 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
   private static final long TIME_THRESHOLD_FOR_LOG_MINUTES = 1;
   private static final long TIME_EXTENSION_ON_EMPTY_SEGMENT_HOURS = 1;
   private static final int MSG_COUNT_THRESHOLD_FOR_LOG = 100000;
+  // Directory of the table data directory holding the memory-mapped indexes of consuming segments
+  private static final String CONSUMING_DIR_NAME = "_consuming";
   private final int MAX_CONSECUTIVE_ERROR_COUNT = 5;
 
   private final LLCRealtimeSegmentZKMetadata _segmentZKMetadata;
@@ -159,6 +165,8 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
   final String _clientId;
   private final LLCSegmentName _segmentName;
   private final PlainFieldExtractor _fieldExtractor;
+  // Decodes messages on worker threads when kafka decoder threads are configured, null otherwise
+  private final PipelinedRowDecoder _pipelinedRowDecoder;
   private SimpleConsumerWrapper _consumerWrapper = null;
   private final File _resourceTmpDir;
   private final String _tableName;
@@ -298,6 +306,10 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
   }
 
   private void processKafkaEvents(Iterable<MessageAndOffset> messagesAndOffsets, Long highWatermark) {
+    if (_pipelinedRowDecoder != null) {
+      processKafkaEventsPipelined(messagesAndOffsets, highWatermark);
+      return;
+    }
     Iterator<MessageAndOffset> msgIterator = messagesAndOffsets.iterator();
 
     int indexedMessageCount = 0;
@@ -359,6 +371,58 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
       _numRowsConsumed++;
       kafkaMessageCount++;
     }
+    finishProcessingKafkaEvents(indexedMessageCount, kafkaMessageCount);
+  }
+
+  /**
+   * Same as {@link #processKafkaEvents(Iterable, Long)}, with messages decoded and transformed by the worker threads
+   * of the pipelined row decoder. Rows are still indexed on this thread in offset order, and the current offset only
+   * moves past the messages that have been indexed: messages decoded ahead when we stop are fetched again.
+   */
+  private void processKafkaEventsPipelined(Iterable<MessageAndOffset> messagesAndOffsets, Long highWatermark) {
+    PipelinedRowDecoder.DecodedMessageIterator msgIterator =
+        _pipelinedRowDecoder.decode(messagesAndOffsets.iterator(), _fieldExtractor);
+
+    int indexedMessageCount = 0;
+    int kafkaMessageCount = 0;
+    boolean canTakeMore = true;
+    try {
+      while (!_shouldStop && !endCriteriaReached() && msgIterator.hasNext()) {
+        if (!canTakeMore) {
+          // See processKafkaEvents() for the conditions leading here
+          segmentLogger.error("Buffer full with {} rows consumed (row limit {})", _numRowsConsumed,
+              _segmentMaxRowCount);
+          throw new RuntimeException("Realtime segment full");
+        }
+        PipelinedRowDecoder.DecodedMessage decodedMessage = msgIterator.next();
+
+        // Update lag metric on the first message of each batch
+        if (kafkaMessageCount == 0) {
+          long offsetDifference = highWatermark - decodedMessage.getOffset();
+          _serverMetrics.setValueOfTableGauge(_metricKeyName, ServerGauge.KAFKA_PARTITION_OFFSET_LAG,
+              offsetDifference);
+        }
+
+        GenericRow transformedRow = decodedMessage.getRow();
+        if (transformedRow != null) {
+          _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.REALTIME_ROWS_CONSUMED, 1);
+          indexedMessageCount++;
+          canTakeMore = _realtimeSegment.index(transformedRow);
+        } else {
+          _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.INVALID_REALTIME_ROWS_DROPPED, 1);
+        }
+
+        _currentOffset = decodedMessage.getNextOffset();
+        _numRowsConsumed++;
+        kafkaMessageCount++;
+      }
+    } finally {
+      msgIterator.cancel();
+    }
+    finishProcessingKafkaEvents(indexedMessageCount, kafkaMessageCount);
+  }
+
+  private void finishProcessingKafkaEvents(int indexedMessageCount, int kafkaMessageCount) {
     updateCurrentDocumentCountMetrics();
     if (kafkaMessageCount != 0) {
       segmentLogger.debug("Indexed {} messages ({} messages read from Kafka) current offset {}", indexedMessageCount,
@@ -684,6 +748,9 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
     } catch (InterruptedException e) {
       segmentLogger.error("Could not stop consumer thread");
     }
+    if (_pipelinedRowDecoder != null) {
+      _pipelinedRowDecoder.shutdown();
+    }
     _realtimeSegment.destroy();
     try {
       _consumerWrapper.close();
@@ -788,8 +855,22 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
     _segmentMaxRowCount = segmentMaxRowCount;
 
     // Start new realtime segment
+    List<String> noDictionaryColumns = indexingConfig.getNoDictionaryColumns();
+    if (noDictionaryColumns == null) {
+      noDictionaryColumns = new ArrayList<String>();
+    }
+    RealtimeIndexOffHeapMemoryManager memoryManager;
+    if (Boolean.parseBoolean(indexingConfig.getStreamConfigs().get(
+        CommonConstants.Helix.DataSource.Realtime.REALTIME_SEGMENT_MMAP))) {
+      File consumingDir = new File(new File(resourceDataDir, CONSUMING_DIR_NAME), _segmentNameStr);
+      segmentLogger.info("Memory-mapping the indexes of the consuming segment in {}", consumingDir);
+      memoryManager = new MmapMemoryManager(consumingDir);
+    } else {
+      memoryManager = new DirectMemoryManager();
+    }
     _realtimeSegment = new RealtimeSegmentImpl(schema, _segmentMaxRowCount, tableConfig.getTableName(),
-        segmentZKMetadata.getSegmentName(), _kafkaTopic, _serverMetrics, invertedIndexColumns);
+        segmentZKMetadata.getSegmentName(), _kafkaTopic, _serverMetrics, invertedIndexColumns, noDictionaryColumns,
+        memoryManager);
     _realtimeSegment.setSegmentMetadata(segmentZKMetadata, schema);
 
     // Create message decoder
@@ -798,6 +879,14 @@ public class LLRealtimeSegmentDataManager extends SegmentDataManager {
 
     // Create field extractor
     _fieldExtractor = (PlainFieldExtractor) FieldExtractorFactory.getPlainFieldExtractor(schema);
+    int decoderThreads = _kafkaStreamMetadata.getKafkaDecoderThreads();
+    if (decoderThreads > 0) {
+      segmentLogger.info("Decoding messages on {} threads", decoderThreads);
+      _pipelinedRowDecoder =
+          new PipelinedRowDecoder(kafkaStreamProviderConfig, schema, decoderThreads, "decoder-" + _segmentNameStr);
+    } else {
+      _pipelinedRowDecoder = null;
+    }
     makeConsumerWrapper();
     _startOffset = _segmentZKMetadata.getStartOffset();
     _currentOffset = _startOffset;
@@ -0,0 +1,235 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.data.manager.realtime;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.utils.NamedThreadFactory;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.extractors.PlainFieldExtractor;
+import com.linkedin.pinot.core.realtime.impl.kafka.KafkaLowLevelStreamProviderConfig;
+import com.linkedin.pinot.core.realtime.impl.kafka.KafkaMessageDecoder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import kafka.message.MessageAndOffset;
+
+
+/**
+ * Decodes and transforms the kafka messages of a low level consumer on a small pool of worker threads, so that the
+ * consumer thread only has to index the rows, in offset order.
+ *
+ * <p>Messages are handed to the workers in chunks of {@link #CHUNK_SIZE}, and at most {@link #MAX_CHUNKS_PER_THREAD}
+ * chunks per worker are in flight, which bounds the number of decoded rows waiting to be indexed. Message decoders
+ * are not thread-safe, so each worker thread creates its own. Each chunk is transformed with its own field extractor,
+ * whose counters are added to the consumer's field extractor when the consumer takes the chunk.
+ */
+public class PipelinedRowDecoder {
+  static final int CHUNK_SIZE = 64;
+  private static final int MAX_CHUNKS_PER_THREAD = 2;
+
+  private final Schema _schema;
+  private final ExecutorService _executorService;
+  private final int _maxChunksInFlight;
+  private final ThreadLocal<KafkaMessageDecoder> _messageDecoders;
+
+  public PipelinedRowDecoder(final KafkaLowLevelStreamProviderConfig streamProviderConfig, Schema schema,
+      int numThreads, String threadNamePrefix) {
+    _schema = schema;
+    _executorService = Executors.newFixedThreadPool(numThreads, new NamedThreadFactory(threadNamePrefix));
+    _maxChunksInFlight = numThreads * MAX_CHUNKS_PER_THREAD;
+    _messageDecoders = new ThreadLocal<KafkaMessageDecoder>() {
+      @Override
+      protected KafkaMessageDecoder initialValue() {
+        try {
+          return streamProviderConfig.getDecoder();
+        } catch (Exception e) {
+          throw new RuntimeException("Caught exception while creating message decoder", e);
+        }
+      }
+    };
+  }
+
+  /**
+   * Returns an iterator over the decoded messages, in the order of the given messages. The given messages are read
+   * on the calling thread, ahead of the returned iterator. The field extractor is only accessed by the calling
+   * thread.
+   */
+  public DecodedMessageIterator decode(Iterator<MessageAndOffset> messages, PlainFieldExtractor fieldExtractor) {
+    return new DecodedMessageIterator(messages, fieldExtractor);
+  }
+
+  public void shutdown() {
+    _executorService.shutdownNow();
+  }
+
+  private Chunk decodeChunk(List<MessageAndOffset> messages) {
+    KafkaMessageDecoder messageDecoder = _messageDecoders.get();
+    PlainFieldExtractor fieldExtractor = new PlainFieldExtractor(_schema);
+    int numMessages = messages.size();
+    DecodedMessage[] decodedMessages = new DecodedMessage[numMessages];
+    for (int i = 0; i < numMessages; i++) {
+      MessageAndOffset messageAndOffset = messages.get(i);
+      byte[] array = messageAndOffset.message().payload().array();
+      int offset = messageAndOffset.message().payload().arrayOffset();
+      int length = messageAndOffset.message().payloadSize();
+      GenericRow decodedRow = messageDecoder.decode(array, offset, length, new GenericRow());
+      GenericRow transformedRow = null;
+      if (decodedRow != null) {
+        transformedRow = fieldExtractor.transform(decodedRow, new GenericRow());
+      }
+      decodedMessages[i] = new DecodedMessage(messageAndOffset.offset(), messageAndOffset.nextOffset(),
+          decodedRow != null, transformedRow);
+    }
+    return new Chunk(decodedMessages, fieldExtractor);
+  }
+
+  /**
+   * A message decoded and transformed by a worker thread.
+   */
+  public static class DecodedMessage {
+    private final long _offset;
+    private final long _nextOffset;
+    private final boolean _decoded;
+    private final GenericRow _row;
+
+    DecodedMessage(long offset, long nextOffset, boolean decoded, GenericRow row) {
+      _offset = offset;
+      _nextOffset = nextOffset;
+      _decoded = decoded;
+      _row = row;
+    }
+
+    public long getOffset() {
+      return _offset;
+    }
+
+    public long getNextOffset() {
+      return _nextOffset;
+    }
+
+    /**
+     * Returns false if the message decoder could not decode the message.
+     */
+    public boolean isDecoded() {
+      return _decoded;
+    }
+
+    /**
+     * Returns the transformed row, or null if the message could not be decoded or transformed.
+     */
+    public GenericRow getRow() {
+      return _row;
+    }
+  }
+
+  private static class Chunk {
+    private final DecodedMessage[] _messages;
+    private final PlainFieldExtractor _fieldExtractor;
+
+    Chunk(DecodedMessage[] messages, PlainFieldExtractor fieldExtractor) {
+      _messages = messages;
+      _fieldExtractor = fieldExtractor;
+    }
+  }
+
+  /**
+   * Iterator over the decoded messages. Must be cancelled if not fully consumed, to drop the chunks still in flight.
+   */
+  public class DecodedMessageIterator implements Iterator<DecodedMessage> {
+    private final Iterator<MessageAndOffset> _messages;
+    private final PlainFieldExtractor _fieldExtractor;
+    private final ArrayDeque<Future<Chunk>> _pendingChunks = new ArrayDeque<>();
+    private DecodedMessage[] _currentChunk = null;
+    private int _currentIndex = 0;
+
+    private DecodedMessageIterator(Iterator<MessageAndOffset> messages, PlainFieldExtractor fieldExtractor) {
+      _messages = messages;
+      _fieldExtractor = fieldExtractor;
+      submitChunks();
+    }
+
+    private void submitChunks() {
+      while (_pendingChunks.size() < _maxChunksInFlight && _messages.hasNext()) {
+        final List<MessageAndOffset> chunkMessages = new ArrayList<>(CHUNK_SIZE);
+        while (chunkMessages.size() < CHUNK_SIZE && _messages.hasNext()) {
+          chunkMessages.add(_messages.next());
+        }
+        _pendingChunks.add(_executorService.submit(new Callable<Chunk>() {
+          @Override
+          public Chunk call() {
+            return decodeChunk(chunkMessages);
+          }
+        }));
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (_currentChunk == null || _currentIndex == _currentChunk.length) {
+        Future<Chunk> future = _pendingChunks.poll();
+        if (future == null) {
+          return false;
+        }
+        Chunk chunk;
+        try {
+          chunk = Uninterruptibles.getUninterruptibly(future);
+        } catch (ExecutionException e) {
+          cancel();
+          throw Throwables.propagate(e.getCause());
+        }
+        _fieldExtractor.addCounters(chunk._fieldExtractor);
+        _currentChunk = chunk._messages;
+        _currentIndex = 0;
+        // Keep the workers busy while this chunk gets indexed
+        submitChunks();
+      }
+      return true;
+    }
+
+    @Override
+    public DecodedMessage next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return _currentChunk[_currentIndex++];
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Drops the chunks still in flight. Their messages are not indexed and will be fetched again.
+     */
+    public void cancel() {
+      for (Future<Chunk> future : _pendingChunks) {
+        future.cancel(false);
+      }
+      _pendingChunks.clear();
+      _currentChunk = null;
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.data.partition;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.utils.HashUtil;
+import java.nio.charset.Charset;
+
+
+/**
+ * Partition function for columns of any type, which maps a value to the 64-bit Murmur2 hash of the UTF-8 bytes of its
+ * string representation, modulo the number of partitions.
+ */
+public class MurmurPartitionFunction implements PartitionFunction {
+  public static final String NAME = "Murmur";
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final int _numPartitions;
+
+  public MurmurPartitionFunction(int numPartitions) {
+    Preconditions.checkArgument(numPartitions > 0, "Number of partitions must be positive: %s", numPartitions);
+    _numPartitions = numPartitions;
+  }
+
+  @Override
+  public int getPartition(Object value) {
+    byte[] bytes = value.toString().getBytes(UTF_8);
+    return (int) ((HashUtil.hash64(bytes, bytes.length) & Long.MAX_VALUE) % _numPartitions);
+  }
+
+  @Override
+  public int getNumPartitions() {
+    return _numPartitions;
+  }
+
+  @Override
+  public String toString() {
+    return NAME;
+  }
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.data.partition;
+
+/**
+ * Interface for the functions mapping the values of a partitioned column to partition ids in
+ * <code>[0, numPartitions)</code>.
+ * <p>The partition id of a value only depends on its typed value, so that the partition ids computed at segment
+ * creation can be matched against the values in the query predicates.
+ */
+public interface PartitionFunction {
+
+  /**
+   * Returns the partition id of the given value.
+   *
+   * @param value Typed value (Integer, Long, Float, Double or String).
+   * @return Partition id in <code>[0, numPartitions)</code>.
+   */
+  int getPartition(Object value);
+
+  /**
+   * Returns the number of partitions.
+   */
+  int getNumPartitions();
+
+  /**
+   * Returns the name of the partition function, as accepted by {@link PartitionFunctionFactory}.
+   */
+  String toString();
+}
@@ -45,13 +45,13 @@ import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitMultiValueReader;
 import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitSingleValueReader;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
 import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import com.linkedin.pinot.core.segment.index.readers.DoubleDictionary;
 import com.linkedin.pinot.core.segment.index.readers.FloatDictionary;
 import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
 import com.linkedin.pinot.core.segment.index.readers.IntDictionary;
 import com.linkedin.pinot.core.segment.index.readers.LongDictionary;
-import com.linkedin.pinot.core.segment.index.readers.StringDictionary;
 import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
 import com.linkedin.pinot.core.segment.store.ColumnIndexType;
 import com.linkedin.pinot.core.segment.store.SegmentDirectory;
@@ -137,7 +137,8 @@ public class PinotSegmentRecordReader extends BaseRecordReader {
 
       switch (dataType) {
         case BOOLEAN:
-          pinotDictionaryBufferMap.put(column, new StringDictionary(dictionaryBuffer, columnMetadataFor));
+          pinotDictionaryBufferMap.put(column,
+              ColumnIndexContainer.loadDictionary(columnMetadataFor, dictionaryBuffer));
           break;
         case DOUBLE:
           pinotDictionaryBufferMap.put(column, new DoubleDictionary(dictionaryBuffer, columnMetadataFor));
@@ -152,7 +153,8 @@ public class PinotSegmentRecordReader extends BaseRecordReader {
           pinotDictionaryBufferMap.put(column, new LongDictionary(dictionaryBuffer, columnMetadataFor));
           break;
         case STRING:
-          pinotDictionaryBufferMap.put(column, new StringDictionary(dictionaryBuffer, columnMetadataFor));
+          pinotDictionaryBufferMap.put(column,
+              ColumnIndexContainer.loadDictionary(columnMetadataFor, dictionaryBuffer));
           break;
         case INT_ARRAY:
         case BYTE:
@@ -16,6 +16,7 @@
 package com.linkedin.pinot.core.indexsegment.generator;
 
 import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.config.SegmentPartitionConfig;
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.FieldSpec.FieldType;
 import com.linkedin.pinot.common.data.Schema;
@@ -55,6 +56,9 @@ public class SegmentGeneratorConfig {
   private Map<String, String> _customProperties = new HashMap<>();
   private Set<String> _rawIndexCreationColumns = new HashSet<>();
   private List<String> _invertedIndexCreationColumns = new ArrayList<>();
+  private List<String> _bloomFilterCreationColumns = new ArrayList<>();
+  private List<String> _rangeIndexCreationColumns = new ArrayList<>();
+  private List<String> _varLengthDictionaryColumns = new ArrayList<>();
   private String _dataDir = null;
   private String _inputFilePath = null;
   private FileFormat _format = FileFormat.AVRO;
@@ -80,6 +84,9 @@ public class SegmentGeneratorConfig {
   private char _paddingCharacter = V1Constants.Str.DEFAULT_STRING_PAD_CHAR;
 
   private HllConfig _hllConfig = null;
+  private SegmentPartitionConfig _segmentPartitionConfig = null;
+  private int _numIndexCreationThreads = 1;
+  private long _starTreeSortMemoryBudgetBytes = 0;
 
   public SegmentGeneratorConfig() {
   }
@@ -89,6 +96,9 @@ public class SegmentGeneratorConfig {
     _customProperties.putAll(config._customProperties);
     _rawIndexCreationColumns.addAll(config._rawIndexCreationColumns);
     _invertedIndexCreationColumns.addAll(config._invertedIndexCreationColumns);
+    _bloomFilterCreationColumns.addAll(config._bloomFilterCreationColumns);
+    _rangeIndexCreationColumns.addAll(config._rangeIndexCreationColumns);
+    _varLengthDictionaryColumns.addAll(config._varLengthDictionaryColumns);
     _dataDir = config._dataDir;
     _inputFilePath = config._inputFilePath;
     _format = config._format;
@@ -113,7 +123,10 @@ public class SegmentGeneratorConfig {
     _creatorVersion = config._creatorVersion;
     _paddingCharacter = config._paddingCharacter;
     _hllConfig = config._hllConfig;
+    _segmentPartitionConfig = config._segmentPartitionConfig;
     _segmentVersion = config._segmentVersion;
+    _numIndexCreationThreads = config._numIndexCreationThreads;
+    _starTreeSortMemoryBudgetBytes = config._starTreeSortMemoryBudgetBytes;
   }
 
   public SegmentGeneratorConfig(Schema schema) {
@@ -142,6 +155,14 @@ public class SegmentGeneratorConfig {
     return _invertedIndexCreationColumns;
   }
 
+  public List<String> getBloomFilterCreationColumns() {
+    return _bloomFilterCreationColumns;
+  }
+
+  public List<String> getRangeIndexCreationColumns() {
+    return _rangeIndexCreationColumns;
+  }
+
   public void setRawIndexCreationColumns(List<String> rawIndexCreationColumns) {
     Preconditions.checkNotNull(rawIndexCreationColumns);
     _rawIndexCreationColumns.addAll(rawIndexCreationColumns);
@@ -152,6 +173,29 @@ public class SegmentGeneratorConfig {
     _invertedIndexCreationColumns.addAll(indexCreationColumns);
   }
 
+  public void setBloomFilterCreationColumns(List<String> bloomFilterCreationColumns) {
+    Preconditions.checkNotNull(bloomFilterCreationColumns);
+    _bloomFilterCreationColumns.addAll(bloomFilterCreationColumns);
+  }
+
+  public void setRangeIndexCreationColumns(List<String> rangeIndexCreationColumns) {
+    Preconditions.checkNotNull(rangeIndexCreationColumns);
+    _rangeIndexCreationColumns.addAll(rangeIndexCreationColumns);
+  }
+
+  /**
+   * String columns whose dictionary is written in the variable-length, front-coded format instead of padding every
+   * entry to the longest value.
+   */
+  public List<String> getVarLengthDictionaryColumns() {
+    return _varLengthDictionaryColumns;
+  }
+
+  public void setVarLengthDictionaryColumns(List<String> varLengthDictionaryColumns) {
+    Preconditions.checkNotNull(varLengthDictionaryColumns);
+    _varLengthDictionaryColumns.addAll(varLengthDictionaryColumns);
+  }
+
   public void createInvertedIndexForColumn(String column) {
     Preconditions.checkNotNull(column);
     if (_schema != null && _schema.getFieldSpecFor(column) == null) {
@@ -256,6 +300,32 @@ public class SegmentGeneratorConfig {
     _paddingCharacter = paddingCharacter;
   }
 
+  /**
+   * Number of threads building the column indexes. With more than one thread, the input is read once and spilled
+   * to disk column by column, then the dictionaries and indexes of the columns are built in parallel.
+   */
+  public int getNumIndexCreationThreads() {
+    return _numIndexCreationThreads;
+  }
+
+  public void setNumIndexCreationThreads(int numIndexCreationThreads) {
+    Preconditions.checkArgument(numIndexCreationThreads > 0, "Number of index creation threads must be positive");
+    _numIndexCreationThreads = numIndexCreationThreads;
+  }
+
+  /**
+   * Memory budget in bytes for sorting the raw records when building the star tree, 0 if unbounded. Above the budget,
+   * the records are sorted in runs which are then merged.
+   */
+  public long getStarTreeSortMemoryBudgetBytes() {
+    return _starTreeSortMemoryBudgetBytes;
+  }
+
+  public void setStarTreeSortMemoryBudgetBytes(long starTreeSortMemoryBudgetBytes) {
+    Preconditions.checkArgument(starTreeSortMemoryBudgetBytes >= 0, "Star tree sort memory budget must not be negative");
+    _starTreeSortMemoryBudgetBytes = starTreeSortMemoryBudgetBytes;
+  }
+
   public String getSegmentNamePostfix() {
     return _segmentNamePostfix;
   }
@@ -402,6 +472,14 @@ public class SegmentGeneratorConfig {
     _hllConfig = hllConfig;
   }
 
+  public SegmentPartitionConfig getSegmentPartitionConfig() {
+    return _segmentPartitionConfig;
+  }
+
+  public void setSegmentPartitionConfig(SegmentPartitionConfig segmentPartitionConfig) {
+    _segmentPartitionConfig = segmentPartitionConfig;
+  }
+
   @JsonIgnore
   public String getMetrics() {
     return getQualifyingDimensions(FieldType.METRIC);
@@ -0,0 +1,36 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.readerwriter;
+
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.Closeable;
+
+
+/**
+ * Allocates the off-heap buffers backing the indexes of a realtime segment, which are written while the segment
+ * consumes. Buffers are closed by their owners, the memory manager releases whatever else it holds on close.
+ */
+public interface RealtimeIndexOffHeapMemoryManager extends Closeable {
+
+  /**
+   * Allocates a zeroed buffer.
+   *
+   * @param size Size of the buffer in bytes
+   * @param context Name of what the buffer is used for, unique within the segment
+   * @return Buffer owned by the caller
+   */
+  PinotDataBuffer allocate(long size, String context);
+}
@@ -17,6 +17,7 @@ package com.linkedin.pinot.core.io.readerwriter.impl;
 
 import com.linkedin.pinot.core.io.reader.impl.FixedByteSingleValueMultiColReader;
 import com.linkedin.pinot.core.io.readerwriter.BaseSingleColumnSingleValueReaderWriter;
+import com.linkedin.pinot.core.io.readerwriter.RealtimeIndexOffHeapMemoryManager;
 import com.linkedin.pinot.core.io.writer.impl.FixedByteSingleValueMultiColWriter;
 import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
 import java.io.IOException;
@@ -34,12 +35,30 @@ public class FixedByteSingleColumnSingleValueReaderWriter extends BaseSingleColu
   public FixedByteSingleColumnSingleValueReaderWriter(int rows, int columnSizesInBytes) throws IOException {
     this(rows, new int[]{columnSizesInBytes});
   }
+
+  public FixedByteSingleColumnSingleValueReaderWriter(int rows, int columnSizesInBytes,
+      RealtimeIndexOffHeapMemoryManager memoryManager, String context) throws IOException {
+    this(rows, new int[]{columnSizesInBytes}, memoryManager, context);
+  }
+
   /**
    *
    * @param rows
    * @param columnSizesInBytes
    */
   public FixedByteSingleColumnSingleValueReaderWriter(int rows, int[] columnSizesInBytes) throws IOException {
+    this(rows, columnSizesInBytes, new DirectMemoryManager(), "direct allocation");
+  }
+
+  /**
+   *
+   * @param rows
+   * @param columnSizesInBytes
+   * @param memoryManager Memory manager allocating the buffer
+   * @param context Name of the buffer for the memory manager
+   */
+  public FixedByteSingleColumnSingleValueReaderWriter(int rows, int[] columnSizesInBytes,
+      RealtimeIndexOffHeapMemoryManager memoryManager, String context) throws IOException {
     this.cols = 1;
     colOffSets = new int[columnSizesInBytes.length];
     rowSize = 0;
@@ -48,7 +67,7 @@ public class FixedByteSingleColumnSingleValueReaderWriter extends BaseSingleColu
       rowSize += columnSizesInBytes[i];
     }
     final int totalSize = rowSize * rows;
-    _buffer = PinotDataBuffer.allocateDirect(totalSize);
+    _buffer = memoryManager.allocate(totalSize, context);
     //_buffer.order(ByteOrder.nativeOrder());
     reader = new FixedByteSingleValueMultiColReader(_buffer, rows, cols, columnSizesInBytes);
     writer = new FixedByteSingleValueMultiColWriter(_buffer, rows, cols, columnSizesInBytes);
@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.readerwriter.impl;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.io.readerwriter.RealtimeIndexOffHeapMemoryManager;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Allocates the realtime index buffers as memory-mapped files in a directory of their own, so that the memory of
+ * consuming segments is held by the page cache instead of the heap or direct memory. The directory is deleted when
+ * the memory manager is closed.
+ */
+public class MmapMemoryManager implements RealtimeIndexOffHeapMemoryManager {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MmapMemoryManager.class);
+
+  private final File _dir;
+  private int _numBuffers = 0;
+
+  public MmapMemoryManager(File dir) throws IOException {
+    _dir = dir;
+    // Left over by a previous run of the server, the segment consumes again from its start offset
+    if (_dir.exists()) {
+      LOGGER.info("Deleting stale directory {}", _dir);
+      FileUtils.deleteDirectory(_dir);
+    }
+    Preconditions.checkState(_dir.mkdirs(), "Failed to create directory: %s", _dir);
+  }
+
+  public File getDir() {
+    return _dir;
+  }
+
+  @Override
+  public synchronized PinotDataBuffer allocate(long size, String context) {
+    File file = new File(_dir, context + "." + _numBuffers++ + ".buf");
+    try {
+      return PinotDataBuffer.fromFile(file, 0, size, ReadMode.mmap, FileChannel.MapMode.READ_WRITE, context);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to map file " + file + " of size " + size, e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    FileUtils.deleteDirectory(_dir);
+  }
+}
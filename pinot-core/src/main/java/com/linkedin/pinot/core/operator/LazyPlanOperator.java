@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator;
+
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.plan.PlanNode;
+
+
+/**
+ * The <code>LazyPlanOperator</code> class wraps a segment level {@link PlanNode}, and only runs the plan node when the
+ * first block is requested. This way planning and execution of a segment happen in one pass on the same worker thread,
+ * instead of planning all segments up front.
+ * <p>Should only be used by the combine operators, which call {@link #nextBlock()} once per segment.
+ */
+public class LazyPlanOperator implements Operator {
+  private final PlanNode _planNode;
+  private Operator _operator;
+
+  public LazyPlanOperator(PlanNode planNode) {
+    _planNode = planNode;
+  }
+
+  /**
+   * {@inheritDoc}
+   * The underlying operator is opened when the plan node is run.
+   */
+  @Override
+  public boolean open() {
+    return true;
+  }
+
+  @Override
+  public Block nextBlock() {
+    if (_operator == null) {
+      _operator = _planNode.run();
+      _operator.open();
+    }
+    return _operator.nextBlock();
+  }
+
+  @Override
+  public Block nextBlock(BlockId blockId) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean close() {
+    if (_operator != null) {
+      return _operator.close();
+    }
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   * Returns null if the plan node has not been run.
+   */
+  @Override
+  public ExecutionStatistics getExecutionStatistics() {
+    if (_operator != null) {
+      return _operator.getExecutionStatistics();
+    }
+    return null;
+  }
+}
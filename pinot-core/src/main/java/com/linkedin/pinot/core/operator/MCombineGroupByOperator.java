@@ -19,6 +19,7 @@ import com.google.common.base.Preconditions;
 import com.linkedin.pinot.common.exception.QueryException;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.GroupBy;
 import com.linkedin.pinot.common.response.ProcessingException;
 import com.linkedin.pinot.core.common.Block;
 import com.linkedin.pinot.core.common.BlockId;
@@ -29,6 +30,7 @@ import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUti
 import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
 import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByTrimmingService;
 import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import com.linkedin.pinot.core.query.aggregation.groupby.StripedGroupByResultTable;
 import com.linkedin.pinot.core.util.trace.TraceRunnable;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -38,8 +40,11 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,6 +74,7 @@ public class MCombineGroupByOperator extends BaseOperator {
   private final ExecutorService _executorService;
   private final BrokerRequest _brokerRequest;
   private final long _timeOutMs;
+  private final boolean _enableDictIdBasedCombine;
 
   /**
    * Constructor for the class.
@@ -81,12 +87,28 @@ public class MCombineGroupByOperator extends BaseOperator {
    */
   public MCombineGroupByOperator(List<Operator> operators, ExecutorService executorService, long timeOutMs,
       BrokerRequest brokerRequest) {
+    this(operators, executorService, timeOutMs, brokerRequest, false);
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param operators List of operators, whose result needs to be combined.
+   * @param executorService Executor service to use for multi-threaded portions of combine.
+   * @param timeOutMs Timeout for combine.
+   * @param brokerRequest BrokerRequest corresponding to the query.
+   * @param enableDictIdBasedCombine Whether to merge dictionary based group keys into a primitive keyed table instead
+   *                                 of the string keyed map.
+   */
+  public MCombineGroupByOperator(List<Operator> operators, ExecutorService executorService, long timeOutMs,
+      BrokerRequest brokerRequest, boolean enableDictIdBasedCombine) {
     Preconditions.checkArgument(brokerRequest.isSetAggregationsInfo() && brokerRequest.isSetGroupBy());
 
     _operators = operators;
     _executorService = executorService;
     _brokerRequest = brokerRequest;
     _timeOutMs = timeOutMs;
+    _enableDictIdBasedCombine = enableDictIdBasedCombine;
   }
 
   /**
@@ -133,6 +155,11 @@ public class MCombineGroupByOperator extends BaseOperator {
    *     Objects (one for each aggregation function).
    *   - Synchronization is provided by locking the group-key that is to be modified.
    *
+   *   - If dictionary id based combine is enabled, results with dictionary based group keys
+   *     are instead merged into a {@link StripedGroupByResultTable}, which interns the group
+   *     keys into primitive long keys, and only builds the string keys once after all results
+   *     are merged. Results without dictionary based group keys still go into the concurrent map.
+   *
    * 2. The result of the concurrent map is then translated into what is expected by
    *    the broker (List<Map<String, Object>>).
    *
@@ -142,6 +169,9 @@ public class MCombineGroupByOperator extends BaseOperator {
    */
   private IntermediateResultsBlock combineBlocks()
       throws InterruptedException {
+    final long queryEndTime = System.currentTimeMillis() + _timeOutMs;
+    // Set on timeout, cancelling a ForkJoinTask does not interrupt it so the jobs check this flag before running.
+    final AtomicBoolean cancelled = new AtomicBoolean();
     int numOperators = _operators.size();
     final CountDownLatch operatorLatch = new CountDownLatch(numOperators);
     final Map<String, Object[]> resultsMap = new ConcurrentHashMap<>();
@@ -151,14 +181,31 @@ public class MCombineGroupByOperator extends BaseOperator {
     final AggregationFunctionContext[] aggregationFunctionContexts =
         AggregationFunctionUtils.getAggregationFunctionContexts(aggregationInfos, null);
     final int numAggregationFunctions = aggregationFunctionContexts.length;
+    final StripedGroupByResultTable resultTable;
+    if (_enableDictIdBasedCombine) {
+      // Group-by expressions take precedence over group-by columns (same as DefaultGroupByExecutor).
+      GroupBy groupBy = _brokerRequest.getGroupBy();
+      int numGroupByColumns =
+          (groupBy.getExpressionsSize() > 0) ? groupBy.getExpressionsSize() : groupBy.getColumnsSize();
+      resultTable = new StripedGroupByResultTable(aggregationFunctionContexts, numGroupByColumns);
+    } else {
+      resultTable = null;
+    }
 
+    // Create the jobs in the current thread, so that the threads running them are registered to the request.
+    List<Runnable> jobs = new ArrayList<>(numOperators);
     for (int i = 0; i < numOperators; i++) {
       final int index = i;
 
-      _executorService.execute(new TraceRunnable() {
+      jobs.add(new TraceRunnable() {
         @SuppressWarnings("unchecked")
         @Override
         public void runJob() {
+          if (cancelled.get() || System.currentTimeMillis() >= queryEndTime) {
+            // The combine has timed out, skip the segment.
+            operatorLatch.countDown();
+            return;
+          }
           AggregationGroupByResult aggregationGroupByResult;
 
           try {
@@ -173,31 +220,31 @@ public class MCombineGroupByOperator extends BaseOperator {
 
             // Merge aggregation group-by result.
             aggregationGroupByResult = intermediateResultsBlock.getAggregationGroupByResult();
-            if (aggregationGroupByResult != null) {
+            if (aggregationGroupByResult != null && resultTable != null
+                && aggregationGroupByResult.getGroupByDictionaries() != null) {
+              // Merge dictionary based group keys into the primitive keyed result table.
+              resultTable.merge(aggregationGroupByResult);
+            } else if (aggregationGroupByResult != null) {
               // Iterate over the group-by keys, for each key, update the group-by result in the resultsMap.
               Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
               while (groupKeyIterator.hasNext()) {
                 GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
-                String groupKeyString = groupKey.getStringKey();
-
-                // HashCode method might return negative value, make it non-negative
-                int lockIndex = (groupKeyString.hashCode() & Integer.MAX_VALUE) % NUM_LOCKS;
-                synchronized (LOCKS[lockIndex]) {
-                  Object[] results = resultsMap.get(groupKeyString);
-
-                  if (results == null) {
-                    results = new Object[numAggregationFunctions];
-                    for (int j = 0; j < numAggregationFunctions; j++) {
-                      results[j] = aggregationGroupByResult.getResultForKey(groupKey, j);
-                    }
-                    resultsMap.put(groupKeyString, results);
-                  } else {
-                    for (int j = 0; j < numAggregationFunctions; j++) {
-                      results[j] = aggregationFunctionContexts[j].getAggregationFunction()
-                          .merge(results[j], aggregationGroupByResult.getResultForKey(groupKey, j));
-                    }
-                  }
+                Object[] resultsToMerge = new Object[numAggregationFunctions];
+                for (int j = 0; j < numAggregationFunctions; j++) {
+                  resultsToMerge[j] = aggregationGroupByResult.getResultForKey(groupKey, j);
                 }
+                mergeIntoResultsMap(resultsMap, groupKey.getStringKey(), resultsToMerge, aggregationFunctionContexts);
+              }
+            } else if (intermediateResultsBlock.getCombinedAggregationGroupByResult() != null) {
+              // Merge group-by results with materialized group keys (e.g. from the segment result cache).
+              List<Map<String, Object>> groupByResultMaps =
+                  intermediateResultsBlock.getCombinedAggregationGroupByResult();
+              for (String groupKeyString : groupByResultMaps.get(0).keySet()) {
+                Object[] resultsToMerge = new Object[numAggregationFunctions];
+                for (int j = 0; j < numAggregationFunctions; j++) {
+                  resultsToMerge[j] = groupByResultMaps.get(j).get(groupKeyString);
+                }
+                mergeIntoResultsMap(resultsMap, groupKeyString, resultsToMerge, aggregationFunctionContexts);
               }
             }
           } catch (Exception e) {
@@ -211,17 +258,44 @@ public class MCombineGroupByOperator extends BaseOperator {
       });
     }
 
-    boolean opCompleted = operatorLatch.await(_timeOutMs, TimeUnit.MILLISECONDS);
+    if (_executorService instanceof ForkJoinPool) {
+      // Run the jobs in batches, idle worker threads can steal batches from busy ones.
+      ForkJoinPool forkJoinPool = (ForkJoinPool) _executorService;
+      int numSegmentsPerBatch = MCombineOperator.getNumSegmentsPerBatch(numOperators, forkJoinPool.getParallelism());
+      forkJoinPool.execute(new BatchAction(jobs, 0, numOperators, numSegmentsPerBatch));
+    } else {
+      for (Runnable job : jobs) {
+        _executorService.execute(job);
+      }
+    }
+
+    boolean opCompleted = false;
+    try {
+      opCompleted = operatorLatch.await(queryEndTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    } finally {
+      if (!opCompleted) {
+        cancelled.set(true);
+      }
+    }
     if (!opCompleted) {
       // If this happens, the broker side should already timed out, just log the error in server side.
       LOGGER.error("Timed out while combining group-by results, after {}ms.", _timeOutMs);
       return new IntermediateResultsBlock(new TimeoutException("CombineGroupBy timed out."));
     }
 
+    // Merge the results from the primitive keyed result table into the results map.
+    Map<String, Object[]> mergedResultsMap = resultsMap;
+    if (resultTable != null) {
+      mergedResultsMap = resultTable.toResultsMap();
+      for (Map.Entry<String, Object[]> entry : resultsMap.entrySet()) {
+        resultTable.mergeIntoResultsMap(mergedResultsMap, entry.getKey(), entry.getValue());
+      }
+    }
+
     // Trim the results map.
     AggregationGroupByTrimmingService aggregationGroupByTrimmingService =
         new AggregationGroupByTrimmingService(aggregationFunctionContexts, (int) _brokerRequest.getGroupBy().getTopN());
-    List<Map<String, Object>> trimmedResults = aggregationGroupByTrimmingService.trimIntermediateResultsMap(resultsMap);
+    List<Map<String, Object>> trimmedResults = aggregationGroupByTrimmingService.trimIntermediateResultsMap(mergedResultsMap);
     IntermediateResultsBlock mergedBlock =
         new IntermediateResultsBlock(aggregationFunctionContexts, trimmedResults, true);
 
@@ -246,6 +320,62 @@ public class MCombineGroupByOperator extends BaseOperator {
     return mergedBlock;
   }
 
+  /**
+   * Merge the results of one group into the results map, with the lock of the group key held.
+   *
+   * @param resultsMap results map to merge into.
+   * @param groupKeyString group key.
+   * @param resultsToMerge results of the group (one for each aggregation function), put into the map if the group is
+   *                       new.
+   * @param aggregationFunctionContexts aggregation function contexts.
+   */
+  private static void mergeIntoResultsMap(Map<String, Object[]> resultsMap, String groupKeyString,
+      Object[] resultsToMerge, AggregationFunctionContext[] aggregationFunctionContexts) {
+    // HashCode method might return negative value, make it non-negative
+    int lockIndex = (groupKeyString.hashCode() & Integer.MAX_VALUE) % NUM_LOCKS;
+    synchronized (LOCKS[lockIndex]) {
+      Object[] results = resultsMap.get(groupKeyString);
+      if (results == null) {
+        resultsMap.put(groupKeyString, resultsToMerge);
+      } else {
+        int numAggregationFunctions = aggregationFunctionContexts.length;
+        for (int i = 0; i < numAggregationFunctions; i++) {
+          results[i] = aggregationFunctionContexts[i].getAggregationFunction().merge(results[i], resultsToMerge[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Fork-join action to run a range of jobs, the range is split until it fits in one batch, then the jobs in the batch
+   * are run sequentially. Jobs skip their segment once the combine has timed out.
+   */
+  private static class BatchAction extends RecursiveAction {
+    private final List<Runnable> _jobs;
+    private final int _start;
+    private final int _end;
+    private final int _batchSize;
+
+    BatchAction(List<Runnable> jobs, int start, int end, int batchSize) {
+      _jobs = jobs;
+      _start = start;
+      _end = end;
+      _batchSize = batchSize;
+    }
+
+    @Override
+    protected void compute() {
+      if (_end - _start <= _batchSize) {
+        for (int i = _start; i < _end; i++) {
+          _jobs.get(i).run();
+        }
+      } else {
+        int mid = (_start + _end) >>> 1;
+        invokeAll(new BatchAction(_jobs, _start, mid, _batchSize), new BatchAction(_jobs, mid, _end, _batchSize));
+      }
+    }
+  }
+
   @Override
   public Block getNextBlock(BlockId blockId) {
     throw new UnsupportedOperationException();
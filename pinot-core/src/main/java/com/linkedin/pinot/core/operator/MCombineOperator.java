@@ -30,15 +30,26 @@ import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
 /**
  * The <code>MCombineOperator</code> class is the operator to combine selection results and aggregation only results.
+ *
+ * If the executor service is a {@link ForkJoinPool}, the segments are split into batches based on the parallelism of
+ * the pool, and the batches are merged with a divide-and-conquer {@link RecursiveTask}, so that idle worker threads can
+ * steal batches from busy ones. Otherwise the segments are split into a fixed number of groups, one job per group.
+ *
+ * Cancelling a {@link ForkJoinTask} does not interrupt it, so the jobs check the query deadline and a cancelled flag
+ * between segments, and skip the remaining segments once the combine has timed out.
  */
 public class MCombineOperator extends BaseOperator {
   private static final Logger LOGGER = LoggerFactory.getLogger(MCombineOperator.class);
@@ -53,6 +64,8 @@ public class MCombineOperator extends BaseOperator {
   private static int MIN_THREADS_PER_QUERY = 10;
   private static int MAX_THREADS_PER_QUERY = 10;
   private static int MIN_SEGMENTS_PER_THREAD = 10;
+  // For fork-join execution, number of batches per worker thread, so that faster workers can steal remaining batches.
+  private static final int NUM_BATCHES_PER_THREAD = 4;
 
   static {
     int numCores = Runtime.getRuntime().availableProcessors();
@@ -77,10 +90,179 @@ public class MCombineOperator extends BaseOperator {
     return true;
   }
 
+  /**
+   * Returns the number of segments to process sequentially in one fork-join batch, such that each worker thread gets
+   * about {@link #NUM_BATCHES_PER_THREAD} batches.
+   *
+   * @param numSegments number of segments to process.
+   * @param parallelism parallelism of the fork-join pool.
+   * @return number of segments per batch.
+   */
+  public static int getNumSegmentsPerBatch(int numSegments, int parallelism) {
+    int numBatches = Math.max(1, parallelism * NUM_BATCHES_PER_THREAD);
+    return Math.max(1, (numSegments + numBatches - 1) / numBatches);
+  }
+
   @Override
   public Block getNextBlock() {
+    long queryEndTime = System.currentTimeMillis() + _timeOutMs;
+    AtomicBoolean cancelled = new AtomicBoolean();
+    IntermediateResultsBlock mergedBlock;
+    if (_executorService instanceof ForkJoinPool) {
+      mergedBlock = combineWithForkJoin((ForkJoinPool) _executorService, queryEndTime, cancelled);
+    } else {
+      mergedBlock = combineWithThreadPool(queryEndTime, cancelled);
+    }
+
+    // Update execution statistics.
+    ExecutionStatistics executionStatistics = new ExecutionStatistics();
+    for (Operator operator : _operators) {
+      ExecutionStatistics executionStatisticsToMerge = operator.getExecutionStatistics();
+      if (executionStatisticsToMerge != null) {
+        executionStatistics.merge(executionStatisticsToMerge);
+      }
+    }
+    mergedBlock.setNumDocsScanned(executionStatistics.getNumDocsScanned());
+    mergedBlock.setNumEntriesScannedInFilter(executionStatistics.getNumEntriesScannedInFilter());
+    mergedBlock.setNumEntriesScannedPostFilter(executionStatistics.getNumEntriesScannedPostFilter());
+    mergedBlock.setNumTotalRawDocs(executionStatistics.getNumTotalRawDocs());
+
+    return mergedBlock;
+  }
+
+  /**
+   * Combine with fork-join pool: split the segments into batches, and merge the batches with a divide-and-conquer task.
+   */
+  private IntermediateResultsBlock combineWithForkJoin(ForkJoinPool forkJoinPool, final long queryEndTime,
+      final AtomicBoolean cancelled) {
+    int numOperators = _operators.size();
+    int numSegmentsPerBatch = getNumSegmentsPerBatch(numOperators, forkJoinPool.getParallelism());
+    int numBatches = (numOperators + numSegmentsPerBatch - 1) / numSegmentsPerBatch;
+
+    // Create the batch jobs in the current thread, so that the threads running them are registered to the request.
+    List<TraceCallable<IntermediateResultsBlock>> batchJobs = new ArrayList<>(numBatches);
+    for (int i = 0; i < numBatches; i++) {
+      final List<Operator> batch =
+          _operators.subList(i * numSegmentsPerBatch, Math.min((i + 1) * numSegmentsPerBatch, numOperators));
+      batchJobs.add(new TraceCallable<IntermediateResultsBlock>() {
+        @Override
+        public IntermediateResultsBlock callJob() {
+          return mergeOperators(batch, queryEndTime, cancelled);
+        }
+      });
+    }
+
+    ForkJoinTask<IntermediateResultsBlock> mergeTask = forkJoinPool.submit(new MergeTask(batchJobs, 0, numBatches));
+    try {
+      return mergeTask.get(queryEndTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      LOGGER.error("Caught InterruptedException.", e);
+      cancelled.set(true);
+      return new IntermediateResultsBlock(QueryException.getException(QueryException.FUTURE_CALL_ERROR, e));
+    } catch (ExecutionException e) {
+      LOGGER.error("Caught ExecutionException.", e);
+      return new IntermediateResultsBlock(QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
+    } catch (TimeoutException e) {
+      LOGGER.error("Caught TimeoutException", e);
+      // Cancelling does not interrupt the running batches, they stop at the next segment.
+      cancelled.set(true);
+      mergeTask.cancel(true);
+      return new IntermediateResultsBlock(QueryException.getException(QueryException.EXECUTION_TIMEOUT_ERROR, e));
+    }
+  }
+
+  /**
+   * Run the given operators sequentially and merge their result blocks. Stops before the next operator once the query
+   * deadline has passed or the combine has been cancelled.
+   */
+  private IntermediateResultsBlock mergeOperators(List<Operator> operators, long queryEndTime,
+      AtomicBoolean cancelled) {
+    IntermediateResultsBlock mergedBlock = null;
+    try {
+      for (Operator operator : operators) {
+        if (cancelled.get() || System.currentTimeMillis() >= queryEndTime) {
+          TimeoutException timeoutException = new TimeoutException("Timed out before processing all segments");
+          if (mergedBlock == null) {
+            mergedBlock = new IntermediateResultsBlock(QueryException.EXECUTION_TIMEOUT_ERROR, timeoutException);
+          } else {
+            mergedBlock.addToProcessingExceptions(
+                QueryException.getException(QueryException.EXECUTION_TIMEOUT_ERROR, timeoutException));
+          }
+          break;
+        }
+        IntermediateResultsBlock blockToMerge = (IntermediateResultsBlock) operator.nextBlock();
+        if (mergedBlock == null) {
+          mergedBlock = blockToMerge;
+        } else {
+          try {
+            CombineService.mergeTwoBlocks(_brokerRequest, mergedBlock, blockToMerge);
+          } catch (Exception e) {
+            LOGGER.error("Caught exception while merging two blocks (step 1).", e);
+            mergedBlock.addToProcessingExceptions(QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
+          }
+        }
+      }
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while executing query.", e);
+      mergedBlock = new IntermediateResultsBlock(e);
+    }
+    return mergedBlock;
+  }
+
+  /**
+   * Fork-join task to merge the results of a range of batch jobs.
+   */
+  private class MergeTask extends RecursiveTask<IntermediateResultsBlock> {
+    private final List<TraceCallable<IntermediateResultsBlock>> _batchJobs;
+    private final int _start;
+    private final int _end;
+
+    MergeTask(List<TraceCallable<IntermediateResultsBlock>> batchJobs, int start, int end) {
+      _batchJobs = batchJobs;
+      _start = start;
+      _end = end;
+    }
+
+    @Override
+    protected IntermediateResultsBlock compute() {
+      if (_start == _end) {
+        return null;
+      }
+      if (_end - _start == 1) {
+        try {
+          return _batchJobs.get(_start).call();
+        } catch (Exception e) {
+          LOGGER.error("Caught exception while executing query.", e);
+          return new IntermediateResultsBlock(e);
+        }
+      }
+
+      int mid = (_start + _end) >>> 1;
+      MergeTask leftTask = new MergeTask(_batchJobs, _start, mid);
+      leftTask.fork();
+      IntermediateResultsBlock rightBlock = new MergeTask(_batchJobs, mid, _end).compute();
+      IntermediateResultsBlock leftBlock = leftTask.join();
+      if (leftBlock == null) {
+        return rightBlock;
+      }
+      if (rightBlock != null) {
+        try {
+          CombineService.mergeTwoBlocks(_brokerRequest, leftBlock, rightBlock);
+        } catch (Exception e) {
+          LOGGER.error("Caught exception while merging two blocks (step 2).", e);
+          leftBlock.addToProcessingExceptions(QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
+        }
+      }
+      return leftBlock;
+    }
+  }
+
+  /**
+   * Combine with regular thread pool: split the segments into a fixed number of groups, one job per group, and merge
+   * the group results in a merger job.
+   */
+  private IntermediateResultsBlock combineWithThreadPool(final long queryEndTime, final AtomicBoolean cancelled) {
     final long startTime = System.currentTimeMillis();
-    final long queryEndTime = System.currentTimeMillis() + _timeOutMs;
     int numGroups = Math.max(MIN_THREADS_PER_QUERY,
         Math.min(MAX_THREADS_PER_QUERY, (_operators.size() + MIN_SEGMENTS_PER_THREAD - 1) / MIN_SEGMENTS_PER_THREAD));
     //ensure that the number of groups is not more than the number of segments
@@ -98,26 +280,7 @@ public class MCombineOperator extends BaseOperator {
       _executorService.submit(new TraceRunnable() {
         @Override
         public void runJob() {
-          IntermediateResultsBlock mergedBlock = null;
-          try {
-            for (Operator operator : operatorGroup) {
-              IntermediateResultsBlock blockToMerge = (IntermediateResultsBlock) operator.nextBlock();
-              if (mergedBlock == null) {
-                mergedBlock = blockToMerge;
-              } else {
-                try {
-                  CombineService.mergeTwoBlocks(_brokerRequest, mergedBlock, blockToMerge);
-                } catch (Exception e) {
-                  LOGGER.error("Caught exception while merging two blocks (step 1).", e);
-                  mergedBlock.addToProcessingExceptions(
-                      QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
-                }
-              }
-            }
-          } catch (Exception e) {
-            LOGGER.error("Caught exception while executing query.", e);
-            mergedBlock = new IntermediateResultsBlock(e);
-          }
+          IntermediateResultsBlock mergedBlock = mergeOperators(operatorGroup, queryEndTime, cancelled);
           blockingQueue.offer(mergedBlock);
         }
       });
@@ -170,29 +333,17 @@ public class MCombineOperator extends BaseOperator {
       mergedBlock = mergedBlockFuture.get(queryEndTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       LOGGER.error("Caught InterruptedException.", e);
+      cancelled.set(true);
       mergedBlock = new IntermediateResultsBlock(QueryException.getException(QueryException.FUTURE_CALL_ERROR, e));
     } catch (ExecutionException e) {
       LOGGER.error("Caught ExecutionException.", e);
       mergedBlock = new IntermediateResultsBlock(QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
     } catch (TimeoutException e) {
       LOGGER.error("Caught TimeoutException", e);
+      cancelled.set(true);
       mergedBlock =
           new IntermediateResultsBlock(QueryException.getException(QueryException.EXECUTION_TIMEOUT_ERROR, e));
     }
-
-    // Update execution statistics.
-    ExecutionStatistics executionStatistics = new ExecutionStatistics();
-    for (Operator operator : _operators) {
-      ExecutionStatistics executionStatisticsToMerge = operator.getExecutionStatistics();
-      if (executionStatisticsToMerge != null) {
-        executionStatistics.merge(executionStatisticsToMerge);
-      }
-    }
-    mergedBlock.setNumDocsScanned(executionStatistics.getNumDocsScanned());
-    mergedBlock.setNumEntriesScannedInFilter(executionStatistics.getNumEntriesScannedInFilter());
-    mergedBlock.setNumEntriesScannedPostFilter(executionStatistics.getNumEntriesScannedPostFilter());
-    mergedBlock.setNumTotalRawDocs(executionStatistics.getNumTotalRawDocs());
-
     return mergedBlock;
   }
 
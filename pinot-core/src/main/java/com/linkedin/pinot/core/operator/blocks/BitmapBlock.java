@@ -36,6 +36,8 @@ public class BitmapBlock extends BaseFilterBlock {
   private String datasourceName;
   private int startDocId;
   private int endDocId;
+  private int[] tailDocIds;
+  private int numTailDocIds;
 
   public BitmapBlock(String datasourceName, BlockMetadata blockMetadata, int startDocId, int endDocId, ImmutableRoaringBitmap[] bitmaps) {
     this(datasourceName, blockMetadata, startDocId, endDocId, bitmaps, false);
@@ -50,6 +52,16 @@ public class BitmapBlock extends BaseFilterBlock {
     this.exclusion = exclusion;
   }
 
+  /**
+   * Block matching the doc ids in the bitmaps, plus the given tail doc ids, see {@link BitmapDocIdSet}.
+   */
+  public BitmapBlock(String datasourceName, BlockMetadata blockMetadata, int startDocId, int endDocId,
+      ImmutableRoaringBitmap[] bitmaps, int[] tailDocIds, int numTailDocIds, boolean exclusion) {
+    this(datasourceName, blockMetadata, startDocId, endDocId, bitmaps, exclusion);
+    this.tailDocIds = tailDocIds;
+    this.numTailDocIds = numTailDocIds;
+  }
+
   @Override
   public BlockId getId() {
     return new BlockId(0);
@@ -62,7 +74,8 @@ public class BitmapBlock extends BaseFilterBlock {
 
   @Override
   public FilterBlockDocIdSet getFilteredBlockDocIdSet() {
-    bitmapDocIdSet = new BitmapDocIdSet(datasourceName, blockMetadata, startDocId, endDocId, bitmaps, exclusion);
+    bitmapDocIdSet = new BitmapDocIdSet(datasourceName, blockMetadata, startDocId, endDocId, bitmaps, tailDocIds,
+        numTailDocIds, exclusion);
     return bitmapDocIdSet;
   }
 
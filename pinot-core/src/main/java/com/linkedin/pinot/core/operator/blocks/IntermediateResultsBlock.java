@@ -148,6 +148,11 @@ public class IntermediateResultsBlock implements Block {
     return _aggregationGroupByResult;
   }
 
+  @Nullable
+  public List<Map<String, Object>> getCombinedAggregationGroupByResult() {
+    return _combinedAggregationGroupByResult;
+  }
+
   @Nullable
   public List<ProcessingException> getProcessingExceptions() {
     return _processingExceptions;
@@ -114,7 +114,7 @@ public class RealtimeSingleValueBlock implements Block {
 
       @Override
       public boolean hasDictionary() {
-        return true;
+        return dictionary != null;
       }
 
       @Override
@@ -16,6 +16,8 @@
 package com.linkedin.pinot.core.operator.docidsets;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 import org.roaringbitmap.IntIterator;
@@ -149,22 +151,19 @@ public final class AndBlockDocIdSet implements FilterBlockDocIdSet {
     List<ImmutableRoaringBitmap> childBitmaps = new ArrayList<ImmutableRoaringBitmap>();
     List<FilterBlockDocIdSet> scanBasedDocIdSets = new ArrayList<>();
     List<BlockDocIdIterator> remainingIterators = new ArrayList<>();
+    answer = null;
 
-    for (BlockDocIdSet docIdSet : blockDocIdSets) {
+    for (FilterBlockDocIdSet docIdSet : blockDocIdSets) {
       if (docIdSet instanceof SortedDocIdSet) {
         SortedDocIdSet sortedDocIdSet = (SortedDocIdSet) docIdSet;
         List<IntPair> pairs = sortedDocIdSet.getRaw();
         sortedRangeSets.add(pairs);
-      } else if (docIdSet instanceof BitmapDocIdSet) {
-        BitmapDocIdSet bitmapDocIdSet = (BitmapDocIdSet) docIdSet;
-        ImmutableRoaringBitmap childBitmap = bitmapDocIdSet.getRaw();
-        childBitmaps.add(childBitmap);
-      } else if (docIdSet instanceof ScanBasedSingleValueDocIdSet) {
-        scanBasedDocIdSets.add((ScanBasedSingleValueDocIdSet) docIdSet);
-      } else if (docIdSet instanceof ScanBasedMultiValueDocIdSet) {
-        scanBasedDocIdSets.add((ScanBasedMultiValueDocIdSet) docIdSet);
+      } else if (BitmapDocIdSetUtils.isScanBased(docIdSet)) {
+        scanBasedDocIdSets.add(docIdSet);
+      } else if (BitmapDocIdSetUtils.isBitmapBased(docIdSet)) {
+        // Bitmap based predicates, and child OR/AND which can be evaluated as bitmaps
+        childBitmaps.add(BitmapDocIdSetUtils.getBitmap(docIdSet));
       } else {
-        // TODO:handle child OR/AND as bitmap if possible
         remainingIterators.add(docIdSet.iterator());
       }
     }
@@ -178,35 +177,37 @@ public final class AndBlockDocIdSet implements FilterBlockDocIdSet {
       return new AndDocIdIterator(docIdIterators);
     } else {
       // handle sorted ranges
-      // TODO: will be nice to re-order sorted and bitmap index based on size
       if (sortedRangeSets.size() > 0) {
         List<IntPair> pairList;
         pairList = SortedRangeIntersection.intersectSortedRangeSets(sortedRangeSets);
-        answer = new MutableRoaringBitmap();
-        for (IntPair pair : pairList) {
-          // end is exclusive
-          answer.add(pair.getLeft(), pair.getRight() + 1);
-        }
+        answer = BitmapDocIdSetUtils.toBitmap(pairList);
       }
-      // handle bitmaps
+      // handle bitmaps, starting from the smallest one to keep the intermediate results small
       if (childBitmaps.size() > 0) {
+        Collections.sort(childBitmaps, new Comparator<ImmutableRoaringBitmap>() {
+          @Override
+          public int compare(ImmutableRoaringBitmap o1, ImmutableRoaringBitmap o2) {
+            return Integer.compare(o1.getCardinality(), o2.getCardinality());
+          }
+        });
+        int i = 0;
         if (answer == null) {
           answer = childBitmaps.get(0).toMutableRoaringBitmap();
-          for (int i = 1; i < childBitmaps.size(); i++) {
-            answer.and(childBitmaps.get(i));
-          }
-        } else {
-          for (int i = 0; i < childBitmaps.size(); i++) {
-            answer.and(childBitmaps.get(i));
-          }
+          i = 1;
+        }
+        for (; i < childBitmaps.size() && !answer.isEmpty(); i++) {
+          answer.and(childBitmaps.get(i));
         }
       }
 
       // At this point, we must have 'answer' to be non-null.
       assert (answer != null) : "sortedRangeSets=" + sortedRangeSets.size() + ",childBitmaps=" + childBitmaps.size();
 
-      // handle raw iterators
+      // handle raw iterators, only checking the docs matching the indexed predicates
       for (FilterBlockDocIdSet scanBasedDocIdSet : scanBasedDocIdSets) {
+        if (answer.isEmpty()) {
+          break;
+        }
         ScanBasedDocIdIterator iterator = (ScanBasedDocIdIterator) scanBasedDocIdSet.iterator();
         MutableRoaringBitmap scanAnswer = iterator.applyAnd(answer);
         answer.and(scanAnswer);
@@ -228,6 +229,32 @@ public final class AndBlockDocIdSet implements FilterBlockDocIdSet {
     }
   }
 
+  /**
+   * Returns true if the AND can be evaluated with bitmap operations, i.e. all the children are either bitmap based or
+   * scan based, and at least one of them is bitmap based so that the scans only check the docs matching it.
+   */
+  boolean isBitmapBased() {
+    boolean hasBitmapBasedChild = false;
+    for (FilterBlockDocIdSet docIdSet : blockDocIdSets) {
+      if (BitmapDocIdSetUtils.isScanBased(docIdSet)) {
+        continue;
+      }
+      if (!BitmapDocIdSetUtils.isBitmapBased(docIdSet)) {
+        return false;
+      }
+      hasBitmapBasedChild = true;
+    }
+    return hasBitmapBasedChild;
+  }
+
+  /**
+   * Returns the bitmap of the matching docs, only applicable if {@link #isBitmapBased()}.
+   */
+  ImmutableRoaringBitmap getBitmap() {
+    fastIterator();
+    return answer;
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public <T> T getRaw() {
@@ -19,6 +19,7 @@ import com.linkedin.pinot.core.common.BlockDocIdIterator;
 import com.linkedin.pinot.core.common.BlockMetadata;
 import com.linkedin.pinot.core.operator.dociditerators.BitmapDocIdIterator;
 import java.util.Arrays;
+import org.roaringbitmap.IntIterator;
 import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
@@ -35,10 +36,15 @@ public class BitmapDocIdSet implements FilterBlockDocIdSet {
 
   private ImmutableRoaringBitmap answer;
 
+  // Doc ids matching in addition to the answer, all greater than the doc ids in it
+  private int[] tailDocIds;
+
+  private int numTailDocIds;
+
   /**
    *
    * @param datasourceName
-   * @param blockMetadata
+   * @param blockMetadata null for bitmaps not read from an index (e.g. cached filter results)
    * @param startDocId inclusive
    * @param endDocId inclusive
    * @param bitmaps
@@ -59,6 +65,23 @@ public class BitmapDocIdSet implements FilterBlockDocIdSet {
    */
   public BitmapDocIdSet(String datasourceName, BlockMetadata blockMetadata, int startDocId, int endDocId,
       ImmutableRoaringBitmap[] bitmaps, boolean exclusion) {
+    this(datasourceName, blockMetadata, startDocId, endDocId, bitmaps, null, 0, exclusion);
+  }
+
+  /**
+   *
+   * @param datasourceName
+   * @param blockMetadata
+   * @param startDocId inclusive
+   * @param endDocId inclusive
+   * @param bitmaps
+   * @param tailDocIds doc ids matching in addition to the bitmaps (e.g. not yet in the bitmaps of a realtime inverted
+   *                   index), sorted and greater than the doc ids in the bitmaps if there is a single bitmap
+   * @param numTailDocIds number of valid entries in tailDocIds
+   * @param exclusion
+   */
+  public BitmapDocIdSet(String datasourceName, BlockMetadata blockMetadata, int startDocId, int endDocId,
+      ImmutableRoaringBitmap[] bitmaps, int[] tailDocIds, int numTailDocIds, boolean exclusion) {
     this.bitmaps = bitmaps;
     setStartDocId(startDocId);
     setEndDocId(endDocId);
@@ -66,13 +89,19 @@ public class BitmapDocIdSet implements FilterBlockDocIdSet {
     // We avoid that for simple '=' queries
     if (bitmaps.length > 1 || exclusion) {
       MutableRoaringBitmap orBitmap = MutableRoaringBitmap.or(bitmaps);
+      for (int i = 0; i < numTailDocIds; i++) {
+        orBitmap.add(tailDocIds[i]);
+      }
       if (exclusion) {
         orBitmap.flip(startDocId, endDocId + 1); // end is exclusive
       }
       answer = orBitmap;
 
     } else if (bitmaps.length == 1){
+      // Iterate the tail after the bitmap instead of copying the bitmap to add it
       answer = bitmaps[0];
+      this.tailDocIds = tailDocIds;
+      this.numTailDocIds = numTailDocIds;
     } else {
       answer = new MutableRoaringBitmap().toMutableRoaringBitmap();
     }
@@ -83,13 +112,13 @@ public class BitmapDocIdSet implements FilterBlockDocIdSet {
     //TODO:check the performance penalty of removing this at runtime v/s <br/>
     //changing the bitmap index creation (i.e create two separate bitmaps for raw docs and materialized docs)
     //this should be a no-op when we don't have star tree
-    if (blockMetadata.getStartDocId() != startDocId) {
+    if (blockMetadata != null && blockMetadata.getStartDocId() != startDocId) {
       int start = Math.min(startDocId, blockMetadata.getStartDocId());
       int end = Math.max(startDocId, blockMetadata.getStartDocId());
       // TODO/atumbde: Removed to address [PINOT-2806]
       //answer.remove(start, end + 1);//end is exclusive
     }
-    if (blockMetadata.getEndDocId() != endDocId) {
+    if (blockMetadata != null && blockMetadata.getEndDocId() != endDocId) {
       int start = Math.min(endDocId, blockMetadata.getEndDocId());
       int end = Math.max(endDocId, blockMetadata.getEndDocId());
       // TODO/atumbde: Removed to address [PINOT-2806]
@@ -133,7 +162,11 @@ public class BitmapDocIdSet implements FilterBlockDocIdSet {
 
   @Override
   public BlockDocIdIterator iterator() {
-    bitmapBasedBlockIdIterator = new BitmapDocIdIterator(answer.getIntIterator());
+    IntIterator intIterator = answer.getIntIterator();
+    if (numTailDocIds > 0) {
+      intIterator = new TailIntIterator(intIterator, tailDocIds, numTailDocIds);
+    }
+    bitmapBasedBlockIdIterator = new BitmapDocIdIterator(intIterator);
     bitmapBasedBlockIdIterator.setStartDocId(startDocId);
     bitmapBasedBlockIdIterator.setEndDocId(endDocId);
     return bitmapBasedBlockIdIterator;
@@ -142,6 +175,15 @@ public class BitmapDocIdSet implements FilterBlockDocIdSet {
   @SuppressWarnings("unchecked")
   @Override
   public <T extends Object> T getRaw() {
+    if (numTailDocIds > 0) {
+      MutableRoaringBitmap tailBitmap = new MutableRoaringBitmap();
+      for (int i = 0; i < numTailDocIds; i++) {
+        tailBitmap.add(tailDocIds[i]);
+      }
+      answer = ImmutableRoaringBitmap.or(answer, tailBitmap);
+      tailDocIds = null;
+      numTailDocIds = 0;
+    }
     return (T) answer;
   }
 
@@ -149,4 +191,40 @@ public class BitmapDocIdSet implements FilterBlockDocIdSet {
   public String toString() {
     return Arrays.toString(bitmaps);
   }
+
+  /**
+   * Iterates over the doc ids of a bitmap, then over the tail doc ids.
+   */
+  private static final class TailIntIterator implements IntIterator {
+    private final IntIterator bitmapIterator;
+    private final int[] tailDocIds;
+    private final int numTailDocIds;
+    private int tailIndex;
+
+    TailIntIterator(IntIterator bitmapIterator, int[] tailDocIds, int numTailDocIds) {
+      this.bitmapIterator = bitmapIterator;
+      this.tailDocIds = tailDocIds;
+      this.numTailDocIds = numTailDocIds;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return bitmapIterator.hasNext() || tailIndex < numTailDocIds;
+    }
+
+    @Override
+    public int next() {
+      if (bitmapIterator.hasNext()) {
+        return bitmapIterator.next();
+      }
+      return tailDocIds[tailIndex++];
+    }
+
+    @Override
+    public IntIterator clone() {
+      TailIntIterator clone = new TailIntIterator(bitmapIterator.clone(), tailDocIds, numTailDocIds);
+      clone.tailIndex = tailIndex;
+      return clone;
+    }
+  }
 }
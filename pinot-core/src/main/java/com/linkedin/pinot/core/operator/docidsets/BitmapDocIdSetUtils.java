@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.docidsets;
+
+import com.linkedin.pinot.common.utils.Pairs.IntPair;
+import java.util.List;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * Utility methods to evaluate filter doc id sets with bulk bitmap operations instead of iterating over the docs.
+ * <p>A doc id set is bitmap based if its result is available as a bitmap or as doc ranges without looking at the
+ * docs one by one: bitmap and sorted inverted index based predicates, predicates matching no doc, and AND/OR of
+ * those. An AND may additionally hold scan based predicates, which only get checked on the docs matching the others.
+ */
+final class BitmapDocIdSetUtils {
+  private BitmapDocIdSetUtils() {
+  }
+
+  static boolean isBitmapBased(FilterBlockDocIdSet docIdSet) {
+    if (docIdSet instanceof BitmapDocIdSet || docIdSet instanceof SortedDocIdSet
+        || docIdSet instanceof EmptyDocIdSet) {
+      return true;
+    }
+    if (docIdSet instanceof AndBlockDocIdSet) {
+      return ((AndBlockDocIdSet) docIdSet).isBitmapBased();
+    }
+    if (docIdSet instanceof OrBlockDocIdSet) {
+      return ((OrBlockDocIdSet) docIdSet).isBitmapBased();
+    }
+    return false;
+  }
+
+  static boolean isScanBased(FilterBlockDocIdSet docIdSet) {
+    return docIdSet instanceof ScanBasedSingleValueDocIdSet || docIdSet instanceof ScanBasedMultiValueDocIdSet;
+  }
+
+  /**
+   * Returns the bitmap of the matching docs of a bitmap based doc id set. The returned bitmap must not be modified.
+   */
+  static ImmutableRoaringBitmap getBitmap(FilterBlockDocIdSet docIdSet) {
+    if (docIdSet instanceof BitmapDocIdSet) {
+      return docIdSet.getRaw();
+    }
+    if (docIdSet instanceof SortedDocIdSet) {
+      List<IntPair> pairs = docIdSet.getRaw();
+      return toBitmap(pairs);
+    }
+    if (docIdSet instanceof EmptyDocIdSet) {
+      return docIdSet.getRaw();
+    }
+    if (docIdSet instanceof AndBlockDocIdSet) {
+      return ((AndBlockDocIdSet) docIdSet).getBitmap();
+    }
+    if (docIdSet instanceof OrBlockDocIdSet) {
+      return ((OrBlockDocIdSet) docIdSet).getBitmap();
+    }
+    throw new IllegalArgumentException("Doc id set is not bitmap based: " + docIdSet.getClass().getName());
+  }
+
+  static MutableRoaringBitmap toBitmap(List<IntPair> pairs) {
+    MutableRoaringBitmap bitmap = new MutableRoaringBitmap();
+    for (IntPair pair : pairs) {
+      bitmap.add(pair.getLeft(), pair.getRight() + 1); // add takes [start, end) i.e inclusive start, exclusive end.
+    }
+    return bitmap;
+  }
+}
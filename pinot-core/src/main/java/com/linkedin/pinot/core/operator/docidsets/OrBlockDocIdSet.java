@@ -15,9 +15,7 @@
  */
 package com.linkedin.pinot.core.operator.docidsets;
 
-import com.linkedin.pinot.common.utils.Pairs;
 import com.linkedin.pinot.core.common.BlockDocIdIterator;
-import com.linkedin.pinot.core.common.BlockDocIdSet;
 import com.linkedin.pinot.core.operator.dociditerators.BitmapDocIdIterator;
 import com.linkedin.pinot.core.operator.dociditerators.OrDocIdIterator;
 import java.util.ArrayList;
@@ -69,35 +67,22 @@ public final class OrBlockDocIdSet implements FilterBlockDocIdSet {
   public BlockDocIdIterator iterator() {
     List<BlockDocIdIterator> rawIterators = new ArrayList<>();
     boolean useBitmapOr = false;
-    for (BlockDocIdSet docIdSet : docIdSets) {
-      if (docIdSet instanceof BitmapDocIdSet) {
+    for (FilterBlockDocIdSet docIdSet : docIdSets) {
+      if (BitmapDocIdSetUtils.isBitmapBased(docIdSet)) {
         useBitmapOr = true;
       }
     }
     if (useBitmapOr) {
       List<ImmutableRoaringBitmap> allBitmaps = new ArrayList<ImmutableRoaringBitmap>();
-      for (BlockDocIdSet docIdSet : docIdSets) {
-        if (docIdSet instanceof SortedDocIdSet) {
-          MutableRoaringBitmap bitmap = new MutableRoaringBitmap();
-          SortedDocIdSet sortedDocIdSet = (SortedDocIdSet) docIdSet;
-          List<Pairs.IntPair> pairs = sortedDocIdSet.getRaw();
-          for (Pairs.IntPair pair : pairs) {
-            bitmap.add(pair.getLeft(), pair.getRight() + 1); //add takes [start, end) i.e inclusive start, exclusive end.
-          }
-          allBitmaps.add(bitmap);
-        } else if (docIdSet instanceof BitmapDocIdSet) {
-          BitmapDocIdSet bitmapDocIdSet = (BitmapDocIdSet) docIdSet;
-          ImmutableRoaringBitmap childBitmap = bitmapDocIdSet.getRaw();
-          allBitmaps.add(childBitmap);
+      for (FilterBlockDocIdSet docIdSet : docIdSets) {
+        if (BitmapDocIdSetUtils.isBitmapBased(docIdSet)) {
+          allBitmaps.add(BitmapDocIdSetUtils.getBitmap(docIdSet));
         } else {
           BlockDocIdIterator iterator = docIdSet.iterator();
           rawIterators.add(iterator);
         }
       }
-      MutableRoaringBitmap answer = allBitmaps.get(0).toMutableRoaringBitmap();
-      for (int i = 1; i < allBitmaps.size(); i++) {
-        answer.or(allBitmaps.get(i));
-      }
+      ImmutableRoaringBitmap answer = or(allBitmaps);
       intIterator = answer.getIntIterator();
       BitmapDocIdIterator singleBitmapBlockIdIterator = new BitmapDocIdIterator(intIterator);
       singleBitmapBlockIdIterator.setStartDocId(minDocId);
@@ -121,6 +106,36 @@ public final class OrBlockDocIdSet implements FilterBlockDocIdSet {
 //    }
   }
 
+  /**
+   * Returns true if the OR can be evaluated with bitmap operations, i.e. all the children are bitmap based.
+   */
+  boolean isBitmapBased() {
+    for (FilterBlockDocIdSet docIdSet : docIdSets) {
+      if (!BitmapDocIdSetUtils.isBitmapBased(docIdSet)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the bitmap of the matching docs, only applicable if {@link #isBitmapBased()}.
+   */
+  ImmutableRoaringBitmap getBitmap() {
+    List<ImmutableRoaringBitmap> allBitmaps = new ArrayList<ImmutableRoaringBitmap>();
+    for (FilterBlockDocIdSet docIdSet : docIdSets) {
+      allBitmaps.add(BitmapDocIdSetUtils.getBitmap(docIdSet));
+    }
+    return or(allBitmaps);
+  }
+
+  private static ImmutableRoaringBitmap or(List<ImmutableRoaringBitmap> bitmaps) {
+    if (bitmaps.size() == 1) {
+      return bitmaps.get(0);
+    }
+    return MutableRoaringBitmap.or(bitmaps.toArray(new ImmutableRoaringBitmap[bitmaps.size()]));
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public <T> T getRaw() {
@@ -70,6 +70,30 @@ public final class RealtimeSingleValueIterator extends BlockSingleValIterator {
     return ret;
   }
 
+  @Override
+  public long nextLongVal() {
+    if (!hasNext()) {
+      return Constants.EOF;
+    }
+    return reader.getLong(counter++);
+  }
+
+  @Override
+  public float nextFloatVal() {
+    if (!hasNext()) {
+      return Constants.EOF;
+    }
+    return reader.getFloat(counter++);
+  }
+
+  @Override
+  public double nextDoubleVal() {
+    if (!hasNext()) {
+      return Constants.EOF;
+    }
+    return reader.getDouble(counter++);
+  }
+
   @Override
   public boolean hasNext() {
     return (counter < max);
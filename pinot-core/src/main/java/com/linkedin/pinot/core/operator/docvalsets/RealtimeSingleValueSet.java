@@ -45,6 +45,112 @@ public final class RealtimeSingleValueSet extends BaseBlockValSet {
     return dataType;
   }
 
+  // The methods below read raw values, for columns without dictionary storing values in their forward index.
+
+  @Override
+  public void getIntValues(int[] inDocIds, int inStartPos, int inDocIdsSize, int[] outValues, int outStartPos) {
+    int inEndPos = inStartPos + inDocIdsSize;
+    for (int i = inStartPos; i < inEndPos; i++) {
+      outValues[outStartPos++] = reader.getInt(inDocIds[i]);
+    }
+  }
+
+  @Override
+  public void getLongValues(int[] inDocIds, int inStartPos, int inDocIdsSize, long[] outValues, int outStartPos) {
+    int inEndPos = inStartPos + inDocIdsSize;
+    switch (dataType) {
+      case INT:
+        for (int i = inStartPos; i < inEndPos; i++) {
+          outValues[outStartPos++] = reader.getInt(inDocIds[i]);
+        }
+        break;
+      case LONG:
+        for (int i = inStartPos; i < inEndPos; i++) {
+          outValues[outStartPos++] = reader.getLong(inDocIds[i]);
+        }
+        break;
+      default:
+        throw new UnsupportedOperationException("Cannot fetch long values for data type: " + dataType);
+    }
+  }
+
+  @Override
+  public void getFloatValues(int[] inDocIds, int inStartPos, int inDocIdsSize, float[] outValues, int outStartPos) {
+    int inEndPos = inStartPos + inDocIdsSize;
+    switch (dataType) {
+      case INT:
+        for (int i = inStartPos; i < inEndPos; i++) {
+          outValues[outStartPos++] = reader.getInt(inDocIds[i]);
+        }
+        break;
+      case LONG:
+        for (int i = inStartPos; i < inEndPos; i++) {
+          outValues[outStartPos++] = reader.getLong(inDocIds[i]);
+        }
+        break;
+      case FLOAT:
+        for (int i = inStartPos; i < inEndPos; i++) {
+          outValues[outStartPos++] = reader.getFloat(inDocIds[i]);
+        }
+        break;
+      default:
+        throw new UnsupportedOperationException("Cannot fetch float values for data type: " + dataType);
+    }
+  }
+
+  @Override
+  public void getDoubleValues(int[] inDocIds, int inStartPos, int inDocIdsSize, double[] outValues, int outStartPos) {
+    int inEndPos = inStartPos + inDocIdsSize;
+    switch (dataType) {
+      case INT:
+        for (int i = inStartPos; i < inEndPos; i++) {
+          outValues[outStartPos++] = reader.getInt(inDocIds[i]);
+        }
+        break;
+      case LONG:
+        for (int i = inStartPos; i < inEndPos; i++) {
+          outValues[outStartPos++] = reader.getLong(inDocIds[i]);
+        }
+        break;
+      case FLOAT:
+        for (int i = inStartPos; i < inEndPos; i++) {
+          outValues[outStartPos++] = reader.getFloat(inDocIds[i]);
+        }
+        break;
+      case DOUBLE:
+        for (int i = inStartPos; i < inEndPos; i++) {
+          outValues[outStartPos++] = reader.getDouble(inDocIds[i]);
+        }
+        break;
+      default:
+        throw new UnsupportedOperationException("Cannot fetch double values for data type: " + dataType);
+    }
+  }
+
+  @Override
+  public void getStringValues(int[] inDocIds, int inStartPos, int inDocIdsSize, String[] outValues, int outStartPos) {
+    int inEndPos = inStartPos + inDocIdsSize;
+    for (int i = inStartPos; i < inEndPos; i++) {
+      int docId = inDocIds[i];
+      switch (dataType) {
+        case INT:
+          outValues[outStartPos++] = Integer.toString(reader.getInt(docId));
+          break;
+        case LONG:
+          outValues[outStartPos++] = Long.toString(reader.getLong(docId));
+          break;
+        case FLOAT:
+          outValues[outStartPos++] = Float.toString(reader.getFloat(docId));
+          break;
+        case DOUBLE:
+          outValues[outStartPos++] = Double.toString(reader.getDouble(docId));
+          break;
+        default:
+          throw new UnsupportedOperationException("Cannot fetch string values for data type: " + dataType);
+      }
+    }
+  }
+
   @Override
   public void getDictionaryIds(int[] inDocIds, int inStartPos, int inDocIdsSize, int[] outDictionaryIds,
       int outStartPos) {
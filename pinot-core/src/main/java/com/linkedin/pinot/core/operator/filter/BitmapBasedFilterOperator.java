@@ -26,7 +26,8 @@ import com.linkedin.pinot.core.common.Predicate;
 import com.linkedin.pinot.core.operator.blocks.BaseFilterBlock;
 import com.linkedin.pinot.core.operator.blocks.BitmapBlock;
 import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
-import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluatorProvider;
+import com.linkedin.pinot.core.realtime.impl.invertedIndex.DocIdSnapshot;
+import com.linkedin.pinot.core.realtime.impl.invertedIndex.RealtimeInvertedIndex;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
@@ -65,7 +66,7 @@ public class BitmapBasedFilterOperator extends BaseFilterOperator {
     InvertedIndexReader invertedIndex = dataSource.getInvertedIndex();
     Block dataSourceBlock = dataSource.nextBlock();
     Dictionary dictionary = dataSource.getDictionary();
-    PredicateEvaluator evaluator = PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dictionary);
+    PredicateEvaluator evaluator = getPredicateEvaluator(dictionary);
     int[] dictionaryIds;
     boolean exclusion = false;
     switch (predicate.getType()) {
@@ -84,6 +85,11 @@ public class BitmapBasedFilterOperator extends BaseFilterOperator {
       default:
         throw new UnsupportedOperationException("Regex is not supported");
     }
+    if (invertedIndex instanceof RealtimeInvertedIndex) {
+      bitmapBlock = getRealtimeBitmapBlock((RealtimeInvertedIndex) invertedIndex, dataSourceBlock, dictionaryIds,
+          exclusion);
+      return bitmapBlock;
+    }
     ImmutableRoaringBitmap[] bitmaps = new ImmutableRoaringBitmap[dictionaryIds.length];
     for (int i = 0; i < dictionaryIds.length; i++) {
       bitmaps[i] = invertedIndex.getImmutable(dictionaryIds[i]);
@@ -92,6 +98,38 @@ public class BitmapBasedFilterOperator extends BaseFilterOperator {
     return bitmapBlock;
   }
 
+  /**
+   * Reads the published bitmaps of a realtime inverted index plus their tail doc ids up to the end doc id, so that the
+   * bitmaps are not copied while the segment is consuming.
+   */
+  private BitmapBlock getRealtimeBitmapBlock(RealtimeInvertedIndex invertedIndex, Block dataSourceBlock,
+      int[] dictionaryIds, boolean exclusion) {
+    ImmutableRoaringBitmap[] bitmaps = new ImmutableRoaringBitmap[dictionaryIds.length];
+    if (dictionaryIds.length == 1) {
+      DocIdSnapshot snapshot = invertedIndex.getDocIdSnapshot(dictionaryIds[0], endDocId);
+      bitmaps[0] = snapshot.getBitmap();
+      return new BitmapBlock(dataSource.getOperatorName(), dataSourceBlock.getMetadata(), startDocId, endDocId,
+          bitmaps, snapshot.getTailDocIds(), snapshot.getNumTailDocIds(), exclusion);
+    }
+
+    // The bitmaps get OR-ed, which adds the tail doc ids of all of them
+    DocIdSnapshot[] snapshots = new DocIdSnapshot[dictionaryIds.length];
+    int numTailDocIds = 0;
+    for (int i = 0; i < dictionaryIds.length; i++) {
+      snapshots[i] = invertedIndex.getDocIdSnapshot(dictionaryIds[i], endDocId);
+      bitmaps[i] = snapshots[i].getBitmap();
+      numTailDocIds += snapshots[i].getNumTailDocIds();
+    }
+    int[] tailDocIds = new int[numTailDocIds];
+    int index = 0;
+    for (DocIdSnapshot snapshot : snapshots) {
+      System.arraycopy(snapshot.getTailDocIds(), 0, tailDocIds, index, snapshot.getNumTailDocIds());
+      index += snapshot.getNumTailDocIds();
+    }
+    return new BitmapBlock(dataSource.getOperatorName(), dataSourceBlock.getMetadata(), startDocId, endDocId, bitmaps,
+        tailDocIds, numTailDocIds, exclusion);
+  }
+
   @Override
   public boolean close() {
     return true;
@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.filter;
+
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.operator.blocks.BaseFilterBlock;
+import com.linkedin.pinot.core.operator.docidsets.BitmapDocIdSet;
+import com.linkedin.pinot.core.operator.docidsets.FilterBlockDocIdSet;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+
+/**
+ * Filter operator returning the docs of a filter result taken from the
+ * {@link com.linkedin.pinot.core.query.cache.FilterBitmapCache}, so that no index gets read.
+ */
+public class CachedBitmapFilterOperator extends BaseFilterOperator {
+  private static final String OPERATOR_NAME = "CachedBitmapFilterOperator";
+
+  private final ImmutableRoaringBitmap _bitmap;
+  private final int _startDocId;
+  private final int _endDocId;
+
+  /**
+   *
+   * @param bitmap cached bitmap of the matching docs
+   * @param startDocId inclusive
+   * @param endDocId inclusive
+   */
+  public CachedBitmapFilterOperator(ImmutableRoaringBitmap bitmap, int startDocId, int endDocId) {
+    _bitmap = bitmap;
+    _startDocId = startDocId;
+    _endDocId = endDocId;
+  }
+
+  @Override
+  public boolean open() {
+    return true;
+  }
+
+  @Override
+  public BaseFilterBlock nextFilterBlock(BlockId blockId) {
+    return new BaseFilterBlock() {
+      @Override
+      public FilterBlockDocIdSet getFilteredBlockDocIdSet() {
+        return new BitmapDocIdSet(OPERATOR_NAME, null, _startDocId, _endDocId, _bitmap);
+      }
+
+      @Override
+      public BlockId getId() {
+        return new BlockId(0);
+      }
+    };
+  }
+
+  @Override
+  public boolean close() {
+    return true;
+  }
+
+  @Override
+  public String getOperatorName() {
+    return OPERATOR_NAME;
+  }
+}
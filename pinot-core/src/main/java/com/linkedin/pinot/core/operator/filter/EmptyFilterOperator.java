@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.filter;
+
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.operator.blocks.BaseFilterBlock;
+import com.linkedin.pinot.core.operator.docidsets.EmptyDocIdSet;
+import com.linkedin.pinot.core.operator.docidsets.FilterBlockDocIdSet;
+
+
+/**
+ * Filter operator matching no doc. The planner uses it in place of a filter that is known to match nothing, so that
+ * neither the indexes nor the forward indexes get read.
+ */
+public class EmptyFilterOperator extends BaseFilterOperator {
+  private static final String OPERATOR_NAME = "EmptyFilterOperator";
+
+  private final int _startDocId;
+  private final int _endDocId;
+
+  /**
+   *
+   * @param startDocId inclusive
+   * @param endDocId inclusive
+   */
+  public EmptyFilterOperator(int startDocId, int endDocId) {
+    _startDocId = startDocId;
+    _endDocId = endDocId;
+  }
+
+  @Override
+  public boolean open() {
+    return true;
+  }
+
+  @Override
+  public BaseFilterBlock nextFilterBlock(BlockId blockId) {
+    return new BaseFilterBlock() {
+      @Override
+      public FilterBlockDocIdSet getFilteredBlockDocIdSet() {
+        return new EmptyDocIdSet(_startDocId, _endDocId);
+      }
+
+      @Override
+      public BlockId getId() {
+        return new BlockId(0);
+      }
+    };
+  }
+
+  @Override
+  public boolean close() {
+    return true;
+  }
+
+  @Override
+  public String getOperatorName() {
+    return OPERATOR_NAME;
+  }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.filter;
+
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.blocks.BaseFilterBlock;
+import com.linkedin.pinot.core.operator.docidsets.BitmapDocIdSet;
+import com.linkedin.pinot.core.operator.docidsets.FilterBlockDocIdSet;
+import com.linkedin.pinot.core.query.cache.FilterBitmapCache;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * Filter operator evaluating the whole filter of another filter operator into a bitmap, which it puts into the
+ * {@link FilterBitmapCache} before returning the docs from it. The number of entries scanned by the wrapped operator
+ * is still reported in the execution statistics.
+ */
+public class FilterBitmapCachingOperator extends BaseFilterOperator {
+  private static final String OPERATOR_NAME = "FilterBitmapCachingOperator";
+
+  private final Operator _filterOperator;
+  private final FilterBitmapCache _filterBitmapCache;
+  private final String _tableName;
+  private final IndexSegment _indexSegment;
+  private final String _filterKey;
+  private final int _startDocId;
+  private final int _endDocId;
+
+  /**
+   *
+   * @param filterOperator filter operator to evaluate
+   * @param filterBitmapCache cache to put the matching docs into
+   * @param tableName table name
+   * @param indexSegment index segment
+   * @param filterKey normalized key of the filter
+   * @param startDocId inclusive
+   * @param endDocId inclusive
+   */
+  public FilterBitmapCachingOperator(Operator filterOperator, FilterBitmapCache filterBitmapCache, String tableName,
+      IndexSegment indexSegment, String filterKey, int startDocId, int endDocId) {
+    _filterOperator = filterOperator;
+    _filterBitmapCache = filterBitmapCache;
+    _tableName = tableName;
+    _indexSegment = indexSegment;
+    _filterKey = filterKey;
+    _startDocId = startDocId;
+    _endDocId = endDocId;
+  }
+
+  @Override
+  public boolean open() {
+    return _filterOperator.open();
+  }
+
+  @Override
+  public BaseFilterBlock nextFilterBlock(BlockId blockId) {
+    FilterBlockDocIdSet filterBlockDocIdSet = (FilterBlockDocIdSet) _filterOperator.nextBlock().getBlockDocIdSet();
+    MutableRoaringBitmap bitmap = new MutableRoaringBitmap();
+    BlockDocIdIterator iterator = filterBlockDocIdSet.iterator();
+    int docId;
+    while ((docId = iterator.next()) != Constants.EOF) {
+      bitmap.add(docId);
+    }
+    // Only serialize the bitmaps small enough to be cached.
+    bitmap.runOptimize();
+    if (bitmap.getSizeInBytes() <= _filterBitmapCache.getMaxEntrySizeInBytes()) {
+      _filterBitmapCache.put(_tableName, _indexSegment, _filterKey, bitmap);
+    }
+
+    final long numEntriesScannedInFilter = filterBlockDocIdSet.getNumEntriesScannedInFilter();
+    final BitmapDocIdSet bitmapDocIdSet = new BitmapDocIdSet(OPERATOR_NAME, null, _startDocId, _endDocId, bitmap) {
+      @Override
+      public long getNumEntriesScannedInFilter() {
+        return numEntriesScannedInFilter;
+      }
+    };
+    return new BaseFilterBlock() {
+      @Override
+      public FilterBlockDocIdSet getFilteredBlockDocIdSet() {
+        return bitmapDocIdSet;
+      }
+
+      @Override
+      public BlockId getId() {
+        return new BlockId(0);
+      }
+    };
+  }
+
+  @Override
+  public boolean close() {
+    return _filterOperator.close();
+  }
+
+  @Override
+  public String getOperatorName() {
+    return OPERATOR_NAME;
+  }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.filter;
+
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.BlockMultiValIterator;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.operator.blocks.BaseFilterBlock;
+import com.linkedin.pinot.core.operator.blocks.BitmapBlock;
+import com.linkedin.pinot.core.operator.filter.predicate.RangeOfflineDictionaryPredicateEvaluator;
+import com.linkedin.pinot.core.segment.index.readers.RangeIndexReader;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * Filter operator for range predicates on columns with a range index. The bitmaps of the buckets fully inside the
+ * range are OR-ed, and only the docs of the buckets on the edges of the range are checked against the forward index.
+ */
+public class RangeIndexBasedFilterOperator extends BaseFilterOperator {
+  private static final String OPERATOR_NAME = "RangeIndexBasedFilterOperator";
+
+  private final DataSource dataSource;
+  private final int startDocId;
+  private final int endDocId;
+
+  /**
+   *
+   * @param dataSource
+   * @param startDocId inclusive
+   * @param endDocId inclusive
+   */
+  public RangeIndexBasedFilterOperator(DataSource dataSource, int startDocId, int endDocId) {
+    this.dataSource = dataSource;
+    this.startDocId = startDocId;
+    this.endDocId = endDocId;
+  }
+
+  @Override
+  public boolean open() {
+    return true;
+  }
+
+  @Override
+  public BaseFilterBlock nextFilterBlock(BlockId blockId) {
+    RangeIndexReader rangeIndex = dataSource.getRangeIndex();
+    Block dataSourceBlock = dataSource.nextBlock();
+    RangeOfflineDictionaryPredicateEvaluator evaluator =
+        (RangeOfflineDictionaryPredicateEvaluator) getPredicateEvaluator(dataSource.getDictionary());
+
+    MutableRoaringBitmap matchingDocIds = new MutableRoaringBitmap();
+    if (!evaluator.alwaysFalse()) {
+      int rangeStart = evaluator.getRangeStartIndex();
+      int rangeEnd = evaluator.getRangeEndIndex();
+      int firstBucketId = rangeIndex.getBucketId(rangeStart);
+      int lastBucketId = rangeIndex.getBucketId(rangeEnd);
+      for (int bucketId = firstBucketId; bucketId <= lastBucketId; bucketId++) {
+        ImmutableRoaringBitmap bucketDocIds = rangeIndex.getBitmap(bucketId);
+        if (rangeIndex.getBucketStartDictId(bucketId) >= rangeStart
+            && rangeIndex.getBucketEndDictId(bucketId) <= rangeEnd) {
+          matchingDocIds.or(bucketDocIds);
+        } else {
+          addMatchingDocIds(dataSourceBlock, evaluator, bucketDocIds, matchingDocIds);
+        }
+      }
+    }
+
+    return new BitmapBlock(dataSource.getOperatorName(), dataSourceBlock.getMetadata(), startDocId, endDocId,
+        new ImmutableRoaringBitmap[]{matchingDocIds});
+  }
+
+  /**
+   * Adds the docs of an edge bucket whose value is in the range, reading the values from the forward index.
+   */
+  private void addMatchingDocIds(Block dataSourceBlock, RangeOfflineDictionaryPredicateEvaluator evaluator,
+      ImmutableRoaringBitmap bucketDocIds, MutableRoaringBitmap matchingDocIds) {
+    IntIterator docIdIterator = bucketDocIds.getIntIterator();
+    if (dataSource.getDataSourceMetadata().isSingleValue()) {
+      BlockSingleValIterator valueIterator = (BlockSingleValIterator) dataSourceBlock.getBlockValueSet().iterator();
+      while (docIdIterator.hasNext()) {
+        int docId = docIdIterator.next();
+        valueIterator.skipTo(docId);
+        if (evaluator.apply(valueIterator.nextIntVal())) {
+          matchingDocIds.add(docId);
+        }
+      }
+    } else {
+      BlockMultiValIterator valueIterator = (BlockMultiValIterator) dataSourceBlock.getBlockValueSet().iterator();
+      int[] dictIds = new int[dataSourceBlock.getMetadata().getMaxNumberOfMultiValues()];
+      while (docIdIterator.hasNext()) {
+        int docId = docIdIterator.next();
+        valueIterator.skipTo(docId);
+        int length = valueIterator.nextIntVal(dictIds);
+        if (evaluator.apply(dictIds, length)) {
+          matchingDocIds.add(docId);
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean close() {
+    return true;
+  }
+
+  @Override
+  public String getOperatorName() {
+    return OPERATOR_NAME;
+  }
+}
@@ -39,6 +39,8 @@ import org.slf4j.LoggerFactory;
 /**
  * This MSelectionOperator will take care of applying a selection query to one IndexSegment.
  * nextBlock() will return an IntermediateResultBlock for the given IndexSegment.
+ * The top docs of the segment are picked by reading only the ORDER BY columns, and the other selected columns are
+ * read only for those docs.
  *
  *
  */
@@ -97,6 +99,8 @@ public class MSelectionOrderByOperator extends BaseOperator {
       DocIdSetBlock docIdSetBlock = projectionBlock.getDocIdSetBlock();
       _selectionOperatorService.iterateOnBlocksWithOrdering(docIdSetBlock.getBlockDocIdSet().iterator(), _blocks);
     }
+    // Column blocks cover the whole segment, so the top rows can be fetched after the last projection block.
+    _selectionOperatorService.fetchRowsWithOrdering(_blocks);
 
     // Create execution statistics.
     numDocsScanned += _selectionOperatorService.getNumDocsScanned();
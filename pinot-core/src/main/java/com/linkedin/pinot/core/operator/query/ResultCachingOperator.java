@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.query;
+
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.BaseOperator;
+import com.linkedin.pinot.core.operator.ExecutionStatistics;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
+import javax.annotation.Nonnull;
+
+
+/**
+ * The <code>ResultCachingOperator</code> class wraps the segment level aggregation operator, and puts the results
+ * block into the {@link SegmentResultCache} after it is computed. The original results block is returned unchanged.
+ */
+public class ResultCachingOperator extends BaseOperator {
+  private static final String OPERATOR_NAME = "ResultCachingOperator";
+
+  private final Operator _operator;
+  private final SegmentResultCache _segmentResultCache;
+  private final String _tableName;
+  private final IndexSegment _indexSegment;
+  private final SegmentResultCache.QueryKey _queryKey;
+
+  public ResultCachingOperator(@Nonnull Operator operator, @Nonnull SegmentResultCache segmentResultCache,
+      @Nonnull String tableName, @Nonnull IndexSegment indexSegment, @Nonnull SegmentResultCache.QueryKey queryKey) {
+    _operator = operator;
+    _segmentResultCache = segmentResultCache;
+    _tableName = tableName;
+    _indexSegment = indexSegment;
+    _queryKey = queryKey;
+  }
+
+  @Override
+  public boolean open() {
+    return _operator.open();
+  }
+
+  @Override
+  public Block getNextBlock() {
+    IntermediateResultsBlock resultsBlock = (IntermediateResultsBlock) _operator.nextBlock();
+    ExecutionStatistics executionStatistics = _operator.getExecutionStatistics();
+    if (resultsBlock != null && executionStatistics != null) {
+      _segmentResultCache.put(_tableName, _indexSegment, _queryKey, resultsBlock, executionStatistics);
+    }
+    return resultsBlock;
+  }
+
+  @Override
+  public Block getNextBlock(BlockId blockId) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public String getOperatorName() {
+    return OPERATOR_NAME;
+  }
+
+  @Override
+  public boolean close() {
+    return _operator.close();
+  }
+
+  @Override
+  public ExecutionStatistics getExecutionStatistics() {
+    return _operator.getExecutionStatistics();
+  }
+}
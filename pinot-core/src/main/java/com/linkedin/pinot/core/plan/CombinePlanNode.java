@@ -17,12 +17,14 @@ package com.linkedin.pinot.core.plan;
 
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.operator.LazyPlanOperator;
 import com.linkedin.pinot.core.operator.MCombineGroupByOperator;
 import com.linkedin.pinot.core.operator.MCombineOperator;
 import com.linkedin.pinot.core.util.trace.TraceCallable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
@@ -42,6 +44,7 @@ public class CombinePlanNode implements PlanNode {
   private final BrokerRequest _brokerRequest;
   private final ExecutorService _executorService;
   private final long _timeOutMs;
+  private final boolean _enableDictIdBasedGroupByCombine;
 
   /**
    * Constructor.
@@ -53,10 +56,25 @@ public class CombinePlanNode implements PlanNode {
    */
   public CombinePlanNode(List<PlanNode> planNodes, BrokerRequest brokerRequest, ExecutorService executorService,
       long timeOutMs) {
+    this(planNodes, brokerRequest, executorService, timeOutMs, false);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param planNodes list of underlying plan nodes.
+   * @param brokerRequest broker request.
+   * @param executorService executor service.
+   * @param timeOutMs time out in milliseconds.
+   * @param enableDictIdBasedGroupByCombine whether to use dictionary id based combine for group-by queries.
+   */
+  public CombinePlanNode(List<PlanNode> planNodes, BrokerRequest brokerRequest, ExecutorService executorService,
+      long timeOutMs, boolean enableDictIdBasedGroupByCombine) {
     _planNodes = planNodes;
     _brokerRequest = brokerRequest;
     _executorService = executorService;
     _timeOutMs = timeOutMs;
+    _enableDictIdBasedGroupByCombine = enableDictIdBasedGroupByCombine;
   }
 
   @Override
@@ -66,7 +84,12 @@ public class CombinePlanNode implements PlanNode {
     int numPlanNodes = _planNodes.size();
     List<Operator> operators = new ArrayList<>(numPlanNodes);
 
-    if (numPlanNodes < NUM_PLAN_NODES_THRESHOLD_FOR_PARALLEL_RUN) {
+    if (_executorService instanceof ForkJoinPool) {
+      // Fork-join execution, run each plan node lazily on the worker thread executing the segment.
+      for (PlanNode planNode : _planNodes) {
+        operators.add(new LazyPlanOperator(planNode));
+      }
+    } else if (numPlanNodes < NUM_PLAN_NODES_THRESHOLD_FOR_PARALLEL_RUN) {
       // Small number of plan nodes, run them sequentially.
       for (PlanNode planNode : _planNodes) {
         operators.add(planNode.run());
@@ -115,7 +138,8 @@ public class CombinePlanNode implements PlanNode {
     // TODO: use the same combine operator for both aggregation and selection query.
     if (_brokerRequest.isSetAggregationsInfo() && _brokerRequest.getGroupBy() != null) {
       // Aggregation group-by query.
-      return new MCombineGroupByOperator(operators, _executorService, _timeOutMs, _brokerRequest);
+      return new MCombineGroupByOperator(operators, _executorService, _timeOutMs, _brokerRequest,
+          _enableDictIdBasedGroupByCombine);
     } else {
       // Selection or aggregation only query.
       return new MCombineOperator(operators, _executorService, _timeOutMs, _brokerRequest);
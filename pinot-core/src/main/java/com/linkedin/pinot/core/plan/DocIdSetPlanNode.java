@@ -19,6 +19,8 @@ import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.operator.BReusableFilteredDocIdSetOperator;
+import com.linkedin.pinot.core.query.cache.FilterBitmapCache;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,10 +49,21 @@ public class DocIdSetPlanNode implements PlanNode {
    * @param maxDocPerCall must be <= MAX_DOC_PER_CALL
    */
   public DocIdSetPlanNode(IndexSegment indexSegment, BrokerRequest query, int maxDocPerCall) {
+    this(indexSegment, query, maxDocPerCall, null);
+  }
+
+  /**
+   * @param indexSegment
+   * @param query
+   * @param maxDocPerCall must be <= MAX_DOC_PER_CALL
+   * @param filterBitmapCache filter bitmap cache passed to the filter plan node, or null if not enabled
+   */
+  public DocIdSetPlanNode(IndexSegment indexSegment, BrokerRequest query, int maxDocPerCall,
+      @Nullable FilterBitmapCache filterBitmapCache) {
     _maxDocPerCall = Math.min(maxDocPerCall, MAX_DOC_PER_CALL);
     _indexSegment = indexSegment;
     _brokerRequest = query;
-    _filterNode = new FilterPlanNode(_indexSegment, _brokerRequest);
+    _filterNode = new FilterPlanNode(_indexSegment, _brokerRequest, filterBitmapCache);
   }
 
   @Override
@@ -19,9 +19,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import javax.annotation.Nullable;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,24 +43,45 @@ import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.operator.filter.AndOperator;
 import com.linkedin.pinot.core.operator.filter.BaseFilterOperator;
 import com.linkedin.pinot.core.operator.filter.BitmapBasedFilterOperator;
+import com.linkedin.pinot.core.operator.filter.CachedBitmapFilterOperator;
+import com.linkedin.pinot.core.operator.filter.EmptyFilterOperator;
+import com.linkedin.pinot.core.operator.filter.FilterBitmapCachingOperator;
 import com.linkedin.pinot.core.operator.filter.MatchEntireSegmentOperator;
 import com.linkedin.pinot.core.operator.filter.OrOperator;
+import com.linkedin.pinot.core.operator.filter.RangeIndexBasedFilterOperator;
 import com.linkedin.pinot.core.operator.filter.ScanBasedFilterOperator;
 import com.linkedin.pinot.core.operator.filter.SortedInvertedIndexBasedFilterOperator;
 import com.linkedin.pinot.core.operator.filter.StarTreeIndexOperator;
+import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluatorProvider;
+import com.linkedin.pinot.core.query.cache.FilterBitmapCache;
 import com.linkedin.pinot.core.realtime.RealtimeSegment;
+import com.linkedin.pinot.core.util.trace.TraceContext;
 
 
 /**
  */
 public class FilterPlanNode implements PlanNode {
   private static final Logger LOGGER = LoggerFactory.getLogger(FilterPlanNode.class);
+  private static final String TRACE_KEY = "FilterPlan";
+
   private final BrokerRequest _brokerRequest;
   private final IndexSegment _segment;
+  // Cache for the bitmaps of filter predicates on OFFLINE segments, null if not enabled
+  private final FilterBitmapCache _filterBitmapCache;
+  // Estimated number of matching docs and children of the operators built for the filter
+  private final Map<Operator, FilterEstimate> _estimates = new IdentityHashMap<>();
+  private final Map<Operator, List<Operator>> _children = new IdentityHashMap<>();
 
   public FilterPlanNode(IndexSegment segment, BrokerRequest brokerRequest) {
+    this(segment, brokerRequest, null);
+  }
+
+  public FilterPlanNode(IndexSegment segment, BrokerRequest brokerRequest,
+      @Nullable FilterBitmapCache filterBitmapCache) {
     _segment = segment;
     _brokerRequest = brokerRequest;
+    _filterBitmapCache = filterBitmapCache;
   }
 
   @Override
@@ -67,18 +93,58 @@ public class FilterPlanNode implements PlanNode {
         && RequestUtils.isFitForStarTreeIndex(_segment.getSegmentMetadata(), filterQueryTree, _brokerRequest)) {
       operator = new StarTreeIndexOperator(_segment, _brokerRequest);
     } else {
-      operator = constructPhysicalOperator(filterQueryTree);
+      if (_filterBitmapCache != null && filterQueryTree != null && !(_segment instanceof RealtimeSegment)
+          && _brokerRequest.isSetQuerySource()) {
+        operator = constructCachedPhysicalOperator(filterQueryTree, _filterBitmapCache);
+      } else {
+        operator = constructPhysicalOperator(filterQueryTree);
+      }
+      if (TraceContext.isTraceEnabled()) {
+        TraceContext.logInfo(TRACE_KEY, describe(operator));
+      }
     }
     long end = System.currentTimeMillis();
     LOGGER.debug("FilterPlanNode.run took:{}", (end - start));
     return operator;
   }
 
+  /**
+   * Returns an operator on the matching docs cached for the filter, or else builds the operators for the filter and
+   * wraps them to cache their result. Only the whole filter gets cached: caching its sub-trees would evaluate them on
+   * all docs instead of only on the docs matching the other predicates.
+   */
+  private Operator constructCachedPhysicalOperator(FilterQueryTree filterQueryTree,
+      FilterBitmapCache filterBitmapCache) {
+    String tableName = _brokerRequest.getQuerySource().getTableName();
+    String filterKey = FilterBitmapCache.getFilterKey(filterQueryTree);
+    int numDocs = _segment.getSegmentMetadata().getTotalRawDocs();
+    Operator ret;
+    ImmutableRoaringBitmap cachedBitmap = filterBitmapCache.get(tableName, _segment, filterKey);
+    if (cachedBitmap != null) {
+      ret = new CachedBitmapFilterOperator(cachedBitmap, 0, numDocs - 1);
+      _estimates.put(ret, new FilterEstimate(cachedBitmap.getCardinality(), null));
+      return ret;
+    }
+    Operator operator = constructPhysicalOperator(filterQueryTree);
+    if (operator instanceof EmptyFilterOperator) {
+      // Nothing to evaluate.
+      return operator;
+    }
+    ret = new FilterBitmapCachingOperator(operator, filterBitmapCache, tableName, _segment, filterKey, 0,
+        numDocs - 1);
+    _estimates.put(ret, new FilterEstimate(getEstimatedNumMatchingDocs(operator), null));
+    _children.put(ret, Collections.singletonList(operator));
+    return ret;
+  }
+
   private Operator constructPhysicalOperator(FilterQueryTree filterQueryTree) {
     Operator ret = null;
+    int numDocs = _segment.getSegmentMetadata().getTotalRawDocs();
 
     if (null == filterQueryTree) {
-      return new MatchEntireSegmentOperator(_segment.getSegmentMetadata().getTotalRawDocs());
+      ret = new MatchEntireSegmentOperator(numDocs);
+      _estimates.put(ret, new FilterEstimate(numDocs, null));
+      return ret;
     }
 
     final List<FilterQueryTree> childFilters = filterQueryTree.getChildren();
@@ -91,12 +157,42 @@ public class FilterPlanNode implements PlanNode {
         operators.add(childOperator);
       }
       final FilterOperator filterType = filterQueryTree.getOperator();
+      long estimatedNumMatchingDocs;
       switch (filterType) {
         case AND:
+          estimatedNumMatchingDocs = numDocs;
+          for (Operator operator : operators) {
+            estimatedNumMatchingDocs = Math.min(estimatedNumMatchingDocs, getEstimatedNumMatchingDocs(operator));
+          }
+          if (estimatedNumMatchingDocs == 0) {
+            // One child matches no doc, so neither does the AND.
+            ret = new EmptyFilterOperator(0, numDocs - 1);
+            _estimates.put(ret, new FilterEstimate(0, filterType.toString()));
+            return ret;
+          }
           reorder(operators);
           ret = new AndOperator(operators);
           break;
         case OR:
+          estimatedNumMatchingDocs = 0;
+          Iterator<Operator> iterator = operators.iterator();
+          while (iterator.hasNext()) {
+            long childEstimate = getEstimatedNumMatchingDocs(iterator.next());
+            if (childEstimate == 0) {
+              // Children matching no doc do not contribute to the OR.
+              iterator.remove();
+            }
+            estimatedNumMatchingDocs += childEstimate;
+          }
+          if (operators.isEmpty()) {
+            ret = new EmptyFilterOperator(0, numDocs - 1);
+            _estimates.put(ret, new FilterEstimate(0, filterType.toString()));
+            return ret;
+          }
+          if (operators.size() == 1) {
+            return operators.get(0);
+          }
+          estimatedNumMatchingDocs = Math.min(estimatedNumMatchingDocs, numDocs);
           reorder(operators);
           ret = new OrOperator(operators);
           break;
@@ -104,6 +200,8 @@ public class FilterPlanNode implements PlanNode {
           throw new UnsupportedOperationException(
               "Not support filter type - " + filterType + " with children operators");
       }
+      _estimates.put(ret, new FilterEstimate(estimatedNumMatchingDocs, null));
+      _children.put(ret, operators);
     } else {
       final FilterOperator filterType = filterQueryTree.getOperator();
       final String column = filterQueryTree.getColumn();
@@ -114,8 +212,27 @@ public class FilterPlanNode implements PlanNode {
       DataSourceMetadata dataSourceMetadata = ds.getDataSourceMetadata();
       BaseFilterOperator baseFilterOperator;
       int startDocId = 0;
-      int endDocId = _segment.getSegmentMetadata().getTotalRawDocs() - 1; //end is inclusive
-      if (dataSourceMetadata.hasInvertedIndex()) {
+      int endDocId = numDocs - 1; //end is inclusive
+      String description = column + " " + filterType;
+      long estimatedNumMatchingDocs = numDocs;
+      PredicateEvaluator predicateEvaluator = null;
+      // Realtime segments keep consuming while the query runs and have mutable dictionaries, so do not estimate (and
+      // never rule out any doc) for them.
+      if (!(_segment instanceof RealtimeSegment) && FilterSelectivityEstimator.canEstimate(ds, predicate)) {
+        predicateEvaluator = PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, ds.getDictionary());
+        // Star-tree segments have aggregated docs after the raw docs.
+        boolean hasExactDocCounts = _segment.getSegmentMetadata().getTotalDocs() == numDocs;
+        estimatedNumMatchingDocs = FilterSelectivityEstimator.estimateNumMatchingDocs(ds, predicate, predicateEvaluator,
+            numDocs, hasExactDocCounts);
+      }
+      boolean matchesNoDoc = estimatedNumMatchingDocs == 0;
+      if (matchesNoDoc) {
+        baseFilterOperator = new EmptyFilterOperator(startDocId, endDocId);
+      } else if (filterType.equals(FilterOperator.RANGE) && ds.getRangeIndex() != null
+          && !(dataSourceMetadata.isSingleValue() && dataSourceMetadata.isSorted())) {
+        // Range indexes are not built for sorted columns, whose forward index is not in the fixed bit format.
+        baseFilterOperator = new RangeIndexBasedFilterOperator(ds, startDocId, endDocId);
+      } else if (dataSourceMetadata.hasInvertedIndex()) {
         // range evaluation based on inv index is inefficient, so do this only if is NOT range.
         if (!filterType.equals(FilterOperator.RANGE)) {
           if (dataSourceMetadata.isSingleValue() && dataSourceMetadata.isSorted()) {
@@ -131,14 +248,23 @@ public class FilterPlanNode implements PlanNode {
         baseFilterOperator = new ScanBasedFilterOperator(ds, startDocId, endDocId);
       }
       baseFilterOperator.setPredicate(predicate);
+      if (predicateEvaluator != null) {
+        // Reuse the predicate evaluator built for the estimate.
+        baseFilterOperator.setPredicateEvaluator(predicateEvaluator);
+      }
       ret = baseFilterOperator;
+      _estimates.put(ret, new FilterEstimate(matchesNoDoc ? 0 : Math.max(estimatedNumMatchingDocs, 1), description));
     }
     return ret;
   }
 
+  private long getEstimatedNumMatchingDocs(Operator operator) {
+    return _estimates.get(operator)._numMatchingDocs;
+  }
+
   /**
-   * Re orders operators, puts Sorted -> Inverted and then Raw scan. TODO: With Inverted, we can
-   * further optimize based on cardinality
+   * Re orders operators, puts Sorted -> Inverted and then Raw scan. Operators of the same kind are ordered by their
+   * estimated number of matching docs, so that the most selective ones get evaluated first.
    * @param operators
    */
   private void reorder(List<Operator> operators) {
@@ -150,7 +276,7 @@ public class FilterPlanNode implements PlanNode {
         priority = 0;
       } else if (operator instanceof AndOperator) {
         priority = 1;
-      } else if (operator instanceof BitmapBasedFilterOperator) {
+      } else if (operator instanceof BitmapBasedFilterOperator || operator instanceof RangeIndexBasedFilterOperator) {
         priority = 2;
       } else if (operator instanceof ScanBasedFilterOperator) {
         priority = 3;
@@ -163,12 +289,55 @@ public class FilterPlanNode implements PlanNode {
     Comparator<? super Operator> comparator = new Comparator<Operator>() {
       @Override
       public int compare(Operator o1, Operator o2) {
-        return Integer.compare(operatorPriorityMap.get(o1), operatorPriorityMap.get(o2));
+        int result = Integer.compare(operatorPriorityMap.get(o1), operatorPriorityMap.get(o2));
+        if (result != 0) {
+          return result;
+        }
+        return Long.compare(getEstimatedNumMatchingDocs(o1), getEstimatedNumMatchingDocs(o2));
       }
     };
     Collections.sort(operators, comparator);
   }
 
+  /**
+   * Describes the chosen operators in evaluation order, with their estimated number of matching docs.
+   */
+  private String describe(Operator operator) {
+    StringBuilder stringBuilder = new StringBuilder();
+    describe(operator, stringBuilder);
+    return stringBuilder.toString();
+  }
+
+  private void describe(Operator operator, StringBuilder stringBuilder) {
+    FilterEstimate estimate = _estimates.get(operator);
+    stringBuilder.append(operator.getOperatorName()).append('(');
+    if (estimate._description != null) {
+      stringBuilder.append(estimate._description).append(", ");
+    }
+    stringBuilder.append("estimatedDocs: ").append(estimate._numMatchingDocs).append(')');
+    List<Operator> children = _children.get(operator);
+    if (children != null) {
+      stringBuilder.append('[');
+      for (int i = 0; i < children.size(); i++) {
+        if (i > 0) {
+          stringBuilder.append(", ");
+        }
+        describe(children.get(i), stringBuilder);
+      }
+      stringBuilder.append(']');
+    }
+  }
+
+  private static class FilterEstimate {
+    private final long _numMatchingDocs;
+    private final String _description;
+
+    private FilterEstimate(long numMatchingDocs, String description) {
+      _numMatchingDocs = numMatchingDocs;
+      _description = description;
+    }
+  }
+
   @Override
   public void showTree(String prefix) {
     final String treeStructure = prefix + "Filter Plan Node\n" + prefix + "Operator: Filter\n" + prefix + "Argument 0: "
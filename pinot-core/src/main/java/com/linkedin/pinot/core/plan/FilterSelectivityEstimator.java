@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.plan;
+
+import com.linkedin.pinot.common.utils.Pairs.IntPair;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.common.DataSourceMetadata;
+import com.linkedin.pinot.core.common.Predicate;
+import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import com.linkedin.pinot.core.operator.filter.predicate.RangeOfflineDictionaryPredicateEvaluator;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.RangeIndexReader;
+
+
+/**
+ * Estimates the number of docs matching a predicate from the dictionary cardinality and, when available, the sorted
+ * doc ranges, the inverted index bitmap cardinalities or the range index bucket cardinalities.
+ * <p>An estimate of 0 is always exact: the predicate matches no doc. Any other estimate is approximate.
+ * <p>Estimation is not meant for realtime segments, whose dictionaries are mutable and keep growing.
+ */
+public class FilterSelectivityEstimator {
+  // Above this number of dictionary ids, the bitmap cardinalities are not inspected and the docs are assumed to be
+  // uniformly distributed over the dictionary
+  static final int MAX_NUM_BITMAPS_TO_INSPECT = 64;
+
+  private FilterSelectivityEstimator() {
+  }
+
+  /**
+   * Returns whether the number of docs matching the predicate can be estimated from the data source. If not, there is
+   * nothing to estimate from.
+   */
+  public static boolean canEstimate(DataSource dataSource, Predicate predicate) {
+    return dataSource.getDataSourceMetadata().hasDictionary() && dataSource.getDictionary() != null
+        && predicate.getType() != Predicate.Type.REGEX;
+  }
+
+  /**
+   * Returns the estimated number of docs among the given number of docs matching the predicate.
+   *
+   * @param dataSource data source of the predicate column, on which the estimate can be made.
+   * @param predicate predicate to estimate.
+   * @param evaluator predicate evaluator built on the dictionary of the data source.
+   * @param numDocs number of docs to filter.
+   * @param hasExactDocCounts whether the indexes hold exactly the docs to filter. Star-tree segments also index the
+   *                          aggregated docs, in which case the doc counts subtracted from the number of docs to filter
+   *                          are not exact.
+   */
+  public static long estimateNumMatchingDocs(DataSource dataSource, Predicate predicate, PredicateEvaluator evaluator,
+      int numDocs, boolean hasExactDocCounts) {
+    DataSourceMetadata dataSourceMetadata = dataSource.getDataSourceMetadata();
+    Dictionary dictionary = dataSource.getDictionary();
+    if (evaluator.alwaysFalse()) {
+      return 0;
+    }
+
+    int cardinality = dictionary.length();
+    boolean isSingleValue = dataSourceMetadata.isSingleValue();
+    InvertedIndexReader invertedIndex = dataSourceMetadata.hasInvertedIndex() ? dataSource.getInvertedIndex() : null;
+    RangeIndexReader rangeIndex = dataSource.getRangeIndex();
+
+    if (evaluator instanceof RangeOfflineDictionaryPredicateEvaluator) {
+      // Dictionary ids of a range are contiguous, so there is no need to materialize them.
+      RangeOfflineDictionaryPredicateEvaluator rangeEvaluator = (RangeOfflineDictionaryPredicateEvaluator) evaluator;
+      int rangeStart = rangeEvaluator.getRangeStartIndex();
+      int rangeEnd = rangeEvaluator.getRangeEndIndex();
+      if (isSortedColumn(dataSourceMetadata, invertedIndex)) {
+        return invertedIndex.getMinMaxRangeFor(rangeEnd).getRight() - invertedIndex.getMinMaxRangeFor(rangeStart)
+            .getLeft() + 1;
+      }
+      if (rangeIndex != null) {
+        // Upper bound: the edge buckets may hold docs outside of the range.
+        long numMatchingDocs = 0;
+        for (int bucketId = rangeIndex.getBucketId(rangeStart); bucketId <= rangeIndex.getBucketId(rangeEnd);
+            bucketId++) {
+          numMatchingDocs += rangeIndex.getBitmap(bucketId).getCardinality();
+        }
+        return Math.min(numMatchingDocs, numDocs);
+      }
+      return estimateUniformly(rangeEnd - rangeStart + 1, cardinality, numDocs);
+    }
+
+    switch (predicate.getType()) {
+      case EQ:
+      case IN:
+      case RANGE:
+        return Math.min(estimateNumDocs(evaluator.getMatchingDictionaryIds(), dataSourceMetadata, invertedIndex,
+            cardinality, numDocs), numDocs);
+      case NEQ:
+      case NOT_IN:
+        int[] nonMatchingDictIds = evaluator.getNonMatchingDictionaryIds();
+        long numMatchingDocs =
+            numDocs - estimateNumDocs(nonMatchingDictIds, dataSourceMetadata, invertedIndex, cardinality, numDocs);
+        if (numMatchingDocs > 0) {
+          return numMatchingDocs;
+        }
+        // Only exact for single-value columns with exact doc counts for the excluded values. Otherwise the excluded
+        // entries may overlap or include docs not to filter, so some docs may remain.
+        boolean isExact = hasExactDocCounts && isSingleValue && (isSortedColumn(dataSourceMetadata, invertedIndex)
+            || (invertedIndex != null && nonMatchingDictIds.length <= MAX_NUM_BITMAPS_TO_INSPECT));
+        return isExact ? 0 : 1;
+      default:
+        return numDocs;
+    }
+  }
+
+  /**
+   * Returns the estimated number of entries (docs for single-value columns) holding any of the given dictionary ids.
+   */
+  private static long estimateNumDocs(int[] dictIds, DataSourceMetadata dataSourceMetadata,
+      InvertedIndexReader invertedIndex, int cardinality, int numDocs) {
+    if (isSortedColumn(dataSourceMetadata, invertedIndex)) {
+      long numEntries = 0;
+      for (int dictId : dictIds) {
+        IntPair docIdRange = invertedIndex.getMinMaxRangeFor(dictId);
+        numEntries += docIdRange.getRight() - docIdRange.getLeft() + 1;
+      }
+      return numEntries;
+    }
+    if (invertedIndex != null && dictIds.length <= MAX_NUM_BITMAPS_TO_INSPECT) {
+      long numEntries = 0;
+      for (int dictId : dictIds) {
+        numEntries += invertedIndex.getImmutable(dictId).getCardinality();
+      }
+      return numEntries;
+    }
+    return estimateUniformly(dictIds.length, cardinality, numDocs);
+  }
+
+  private static long estimateUniformly(int numDictIds, int cardinality, int numDocs) {
+    if (numDictIds <= 0) {
+      return 0;
+    }
+    return Math.max((long) numDocs * numDictIds / Math.max(cardinality, 1), 1);
+  }
+
+  private static boolean isSortedColumn(DataSourceMetadata dataSourceMetadata, InvertedIndexReader invertedIndex) {
+    return invertedIndex != null && dataSourceMetadata.isSingleValue() && dataSourceMetadata.isSorted();
+  }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.plan;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.query.CachedResultsOperator;
+import com.linkedin.pinot.core.operator.query.ResultCachingOperator;
+import com.linkedin.pinot.core.plan.maker.PlanMaker;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
+import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>SegmentResultCachePlanNode</code> class wraps the execution plan for aggregation (group-by) query on a
+ * single immutable segment.
+ * <ul>
+ *   <li>If the segment level results are cached, the underlying plan node is not built at all, and the cached results
+ *   are returned.</li>
+ *   <li>Otherwise, the underlying plan node is built and run, and its results are put into the cache once
+ *   computed.</li>
+ * </ul>
+ */
+public class SegmentResultCachePlanNode implements PlanNode {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentResultCachePlanNode.class);
+
+  private final PlanMaker _planMaker;
+  private final SegmentResultCache _segmentResultCache;
+  private final String _tableName;
+  private final IndexSegment _indexSegment;
+  private final BrokerRequest _brokerRequest;
+  private final SegmentResultCache.QueryKey _queryKey;
+
+  /**
+   * @param planMaker plan maker to build the underlying plan node on cache miss.
+   * @param segmentResultCache segment result cache.
+   * @param indexSegment index segment.
+   * @param brokerRequest broker request.
+   * @param queryKey query key of the broker request.
+   */
+  public SegmentResultCachePlanNode(@Nonnull PlanMaker planMaker, @Nonnull SegmentResultCache segmentResultCache,
+      @Nonnull IndexSegment indexSegment, @Nonnull BrokerRequest brokerRequest,
+      @Nonnull SegmentResultCache.QueryKey queryKey) {
+    _planMaker = planMaker;
+    _segmentResultCache = segmentResultCache;
+    _tableName = brokerRequest.getQuerySource().getTableName();
+    _indexSegment = indexSegment;
+    _brokerRequest = brokerRequest;
+    _queryKey = queryKey;
+  }
+
+  @Override
+  public Operator run() {
+    SegmentResultCache.CachedResults cachedResults = _segmentResultCache.get(_tableName, _indexSegment, _queryKey,
+        AggregationFunctionUtils.getAggregationFunctionContexts(_brokerRequest.getAggregationsInfo(),
+            _indexSegment.getSegmentMetadata()));
+    if (cachedResults != null) {
+      return new CachedResultsOperator(cachedResults);
+    }
+    Operator operator = _planMaker.makeInnerSegmentPlan(_indexSegment, _brokerRequest).run();
+    return new ResultCachingOperator(operator, _segmentResultCache, _tableName, _indexSegment, _queryKey);
+  }
+
+  @Override
+  public void showTree(String prefix) {
+    LOGGER.debug(prefix + "Segment Level Inner-Segment Plan Node:");
+    LOGGER.debug(prefix + "Operator: CachedResultsOperator/ResultCachingOperator");
+    LOGGER.debug(prefix + "Argument 0: IndexSegment - " + _indexSegment.getSegmentName());
+    LOGGER.debug(prefix + "Argument 1: Underlying Plan Node (only built on cache miss) -");
+    _planMaker.makeInnerSegmentPlan(_indexSegment, _brokerRequest).showTree(prefix + "    ");
+  }
+}
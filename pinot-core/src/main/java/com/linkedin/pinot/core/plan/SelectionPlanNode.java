@@ -21,7 +21,9 @@ import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.operator.query.MSelectionOnlyOperator;
 import com.linkedin.pinot.core.operator.query.MSelectionOrderByOperator;
+import com.linkedin.pinot.core.query.cache.FilterBitmapCache;
 import com.linkedin.pinot.core.query.selection.SelectionOperatorUtils;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,6 +39,11 @@ public class SelectionPlanNode implements PlanNode {
   private final ProjectionPlanNode _projectionPlanNode;
 
   public SelectionPlanNode(IndexSegment indexSegment, BrokerRequest brokerRequest) {
+    this(indexSegment, brokerRequest, null);
+  }
+
+  public SelectionPlanNode(IndexSegment indexSegment, BrokerRequest brokerRequest,
+      @Nullable FilterBitmapCache filterBitmapCache) {
     _indexSegment = indexSegment;
     _selection = brokerRequest.getSelections();
     int maxDocPerNextCall = DocIdSetPlanNode.MAX_DOC_PER_CALL;
@@ -46,7 +53,8 @@ public class SelectionPlanNode implements PlanNode {
       maxDocPerNextCall = Math.min(_selection.getOffset() + _selection.getSize(), maxDocPerNextCall);
     }
 
-    DocIdSetPlanNode docIdSetPlanNode = new DocIdSetPlanNode(_indexSegment, brokerRequest, maxDocPerNextCall);
+    DocIdSetPlanNode docIdSetPlanNode =
+        new DocIdSetPlanNode(_indexSegment, brokerRequest, maxDocPerNextCall, filterBitmapCache);
     _projectionPlanNode = new ProjectionPlanNode(_indexSegment,
         SelectionOperatorUtils.extractSelectionRelatedColumns(_selection, indexSegment), docIdSetPlanNode);
   }
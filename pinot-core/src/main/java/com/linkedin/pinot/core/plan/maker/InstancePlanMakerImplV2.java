@@ -15,7 +15,9 @@
  */
 package com.linkedin.pinot.core.plan.maker;
 
+import com.linkedin.pinot.common.config.TableNameBuilder;
 import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.utils.CommonConstants;
 import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.plan.AggregationGroupByPlanNode;
@@ -25,11 +27,15 @@ import com.linkedin.pinot.core.plan.GlobalPlanImplV0;
 import com.linkedin.pinot.core.plan.InstanceResponsePlanNode;
 import com.linkedin.pinot.core.plan.Plan;
 import com.linkedin.pinot.core.plan.PlanNode;
+import com.linkedin.pinot.core.plan.SegmentResultCachePlanNode;
 import com.linkedin.pinot.core.plan.SelectionPlanNode;
+import com.linkedin.pinot.core.query.cache.FilterBitmapCache;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
 import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,25 +53,72 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
   // private static final int DEFAULT_NUM_AGGR_GROUPS_LIMIT = 100_000;
   private final int _numAggrGroupsLimit = Integer.MAX_VALUE;
 
+  // Whether to merge dictionary based group keys across segments into a primitive keyed table in the combine phase.
+  private static final String ENABLE_DICT_ID_BASED_GROUP_BY_COMBINE = "groupby.combine.dictIdBased";
+  private static final boolean DEFAULT_ENABLE_DICT_ID_BASED_GROUP_BY_COMBINE = false;
+  private final boolean _enableDictIdBasedGroupByCombine;
+
+  // Cache for segment level results of aggregation queries on OFFLINE segments, null if not enabled.
+  private final SegmentResultCache _segmentResultCache;
+
+  // Cache for the bitmaps of filter predicates on OFFLINE segments, null if not enabled.
+  private final FilterBitmapCache _filterBitmapCache;
+
   /**
    * Default constructor.
    */
   public InstancePlanMakerImplV2() {
 //    _numAggrGroupsLimit = DEFAULT_NUM_AGGR_GROUPS_LIMIT;
+    _enableDictIdBasedGroupByCombine = DEFAULT_ENABLE_DICT_ID_BASED_GROUP_BY_COMBINE;
+    _segmentResultCache = null;
+    _filterBitmapCache = null;
   }
 
   /**
    * Constructor for usage when client requires to pass {@link QueryExecutorConfig} to this class.
    * <ul>
    *   <li>Set limit on number of aggregation groups in query result.</li>
+   *   <li>Enable/disable dictionary id based group-by combine.</li>
    * </ul>
    *
    * @param queryExecutorConfig query executor configuration.
    */
   public InstancePlanMakerImplV2(QueryExecutorConfig queryExecutorConfig) {
+    this(queryExecutorConfig, null);
+  }
+
+  /**
+   * Constructor for usage when client requires to pass {@link QueryExecutorConfig} and {@link SegmentResultCache} to
+   * this class.
+   *
+   * @param queryExecutorConfig query executor configuration.
+   * @param segmentResultCache segment result cache, or null if not enabled.
+   */
+  public InstancePlanMakerImplV2(QueryExecutorConfig queryExecutorConfig,
+      @Nullable SegmentResultCache segmentResultCache) {
+    this(queryExecutorConfig, segmentResultCache, null);
+  }
+
+  /**
+   * Constructor for usage when client requires to pass {@link QueryExecutorConfig}, {@link SegmentResultCache} and
+   * {@link FilterBitmapCache} to this class.
+   *
+   * @param queryExecutorConfig query executor configuration.
+   * @param segmentResultCache segment result cache, or null if not enabled.
+   * @param filterBitmapCache filter bitmap cache, or null if not enabled.
+   */
+  public InstancePlanMakerImplV2(QueryExecutorConfig queryExecutorConfig,
+      @Nullable SegmentResultCache segmentResultCache, @Nullable FilterBitmapCache filterBitmapCache) {
     // TODO: Read the limit on number of aggregation groups in query result from config.
     // _numAggrGroupsLimit = queryExecutorConfig.getConfig().getInt(NUM_AGGR_GROUPS_LIMIT, DEFAULT_NUM_AGGR_GROUPS_LIMIT);
     // LOGGER.info("Maximum number of allowed groups for group-by query results: '{}'", _numAggrGroupsLimit);
+    _enableDictIdBasedGroupByCombine = queryExecutorConfig.getConfig()
+        .getBoolean(ENABLE_DICT_ID_BASED_GROUP_BY_COMBINE, DEFAULT_ENABLE_DICT_ID_BASED_GROUP_BY_COMBINE);
+    LOGGER.info("Dictionary id based group-by combine enabled: {}", _enableDictIdBasedGroupByCombine);
+    _segmentResultCache = segmentResultCache;
+    LOGGER.info("Segment result cache enabled: {}", _segmentResultCache != null);
+    _filterBitmapCache = filterBitmapCache;
+    LOGGER.info("Filter bitmap cache enabled: {}", _filterBitmapCache != null);
   }
 
   @Override
@@ -74,16 +127,16 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     if (brokerRequest.isSetAggregationsInfo()) {
       if (brokerRequest.isSetGroupBy()) {
         // Aggregation group-by query.
-        return new AggregationGroupByPlanNode(indexSegment, brokerRequest, _numAggrGroupsLimit);
+        return new AggregationGroupByPlanNode(indexSegment, brokerRequest, _numAggrGroupsLimit, _filterBitmapCache);
       } else {
         // Aggregation only query.
-        return new AggregationPlanNode(indexSegment, brokerRequest);
+        return new AggregationPlanNode(indexSegment, brokerRequest, _filterBitmapCache);
       }
     }
 
     // Selection query.
     if (brokerRequest.isSetSelections()) {
-      return new SelectionPlanNode(indexSegment, brokerRequest);
+      return new SelectionPlanNode(indexSegment, brokerRequest, _filterBitmapCache);
     }
 
     throw new UnsupportedOperationException("The query contains no aggregation or selection.");
@@ -99,11 +152,24 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     }
     BrokerRequestPreProcessor.preProcess(indexSegments, brokerRequest);
 
+    // Only cache segment level results for OFFLINE tables, whose segments are immutable.
+    SegmentResultCache.QueryKey queryKey = null;
+    if (_segmentResultCache != null && TableNameBuilder.getTableTypeFromTableName(
+        brokerRequest.getQuerySource().getTableName()) == CommonConstants.Helix.TableType.OFFLINE) {
+      queryKey = SegmentResultCache.getQueryKey(brokerRequest);
+    }
+
     List<PlanNode> planNodes = new ArrayList<>();
     for (IndexSegment indexSegment : indexSegments) {
-      planNodes.add(makeInnerSegmentPlan(indexSegment, brokerRequest));
+      if (queryKey != null) {
+        // The segment level plan is only built on cache miss.
+        planNodes.add(new SegmentResultCachePlanNode(this, _segmentResultCache, indexSegment, brokerRequest, queryKey));
+      } else {
+        planNodes.add(makeInnerSegmentPlan(indexSegment, brokerRequest));
+      }
     }
-    CombinePlanNode combinePlanNode = new CombinePlanNode(planNodes, brokerRequest, executorService, timeOutMs);
+    CombinePlanNode combinePlanNode = new CombinePlanNode(planNodes, brokerRequest, executorService, timeOutMs,
+        _enableDictIdBasedGroupByCombine);
 
     return new GlobalPlanImplV0(new InstanceResponsePlanNode(combinePlanNode));
   }
@@ -16,6 +16,7 @@
 package com.linkedin.pinot.core.query.aggregation.groupby;
 
 import com.linkedin.pinot.core.query.aggregation.function.AggregationFunction;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import java.util.Iterator;
 
 
@@ -44,6 +45,24 @@ public class AggregationGroupByResult {
     return _groupKeyGenerator.getUniqueGroupKeys();
   }
 
+  /**
+   * Returns the dictionaries of the group-by columns, or null if the group keys are not dictionary based.
+   * @return
+   */
+  public Dictionary[] getGroupByDictionaries() {
+    return _groupKeyGenerator.getDictionaries();
+  }
+
+  /**
+   * Returns an iterator for group-by keys, which stores the dictionary ids of each group-by key into the given buffer
+   * instead of building the string key.
+   * @param outDictIds
+   * @return
+   */
+  public Iterator<GroupKeyGenerator.GroupKey> getDictIdGroupKeyIterator(int[] outDictIds) {
+    return _groupKeyGenerator.getUniqueDictIdGroupKeys(outDictIds);
+  }
+
   /**
    *
    * Given a group-by key and an index into the result holder array, returns
@@ -64,4 +83,15 @@ public class AggregationGroupByResult {
   public Object getResultForKey(GroupKeyGenerator.GroupKey groupKey, int index) {
     return _aggregationFunctions[index].extractGroupByResult(_resultHolders[index], groupKey.getFirst());
   }
+
+  /**
+   * Same as {@link #getResultForKey(GroupKeyGenerator.GroupKey, int)}, but takes the integer group id.
+   *
+   * @param groupId
+   * @param index
+   * @return
+   */
+  public Object getResultForGroupId(int groupId, int index) {
+    return _aggregationFunctions[index].extractGroupByResult(_resultHolders[index], groupId);
+  }
 }
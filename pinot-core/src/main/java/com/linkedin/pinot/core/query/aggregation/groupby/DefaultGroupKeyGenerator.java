@@ -305,11 +305,36 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
   public Iterator<GroupKey> getUniqueGroupKeys() {
     switch (_storageType) {
       case ARRAY_BASED:
-        return new ArrayBasedGroupKeyIterator();
+        return new ArrayBasedGroupKeyIterator(null);
       case LONG_MAP_BASED:
-        return new LongMapBasedGroupKeyIterator();
+        return new LongMapBasedGroupKeyIterator(null);
       case ARRAY_MAP_BASED:
-        return new ArrayMapBasedGroupKeyIterator();
+        return new ArrayMapBasedGroupKeyIterator(null);
+      default:
+        throw new RuntimeException("Unsupported storage type for key generator " + _storageType);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Dictionary[] getDictionaries() {
+    return _dictionaries;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Iterator<GroupKey> getUniqueDictIdGroupKeys(int[] outDictIds) {
+    switch (_storageType) {
+      case ARRAY_BASED:
+        return new ArrayBasedGroupKeyIterator(outDictIds);
+      case LONG_MAP_BASED:
+        return new LongMapBasedGroupKeyIterator(outDictIds);
+      case ARRAY_MAP_BASED:
+        return new ArrayMapBasedGroupKeyIterator(outDictIds);
       default:
         throw new RuntimeException("Unsupported storage type for key generator " + _storageType);
     }
@@ -593,6 +618,12 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
     final int _length = _groupKeyFlags.length;
     int _index = 0;
     final GroupKey _groupKey = new GroupKey(INVALID_ID, null);
+    // If not null, decode the group key into dictionary ids instead of string key.
+    final int[] _outDictIds;
+
+    ArrayBasedGroupKeyIterator(int[] outDictIds) {
+      _outDictIds = outDictIds;
+    }
 
     @Override
     public boolean hasNext() {
@@ -610,9 +641,12 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
       if (!hasNext()) {
         throw new NoSuchElementException();
       }
-      String stringGroupKey = groupKeyToStringGroupKey(_index);
+      if (_outDictIds == null) {
+        _groupKey.setSecond(groupKeyToStringGroupKey(_index));
+      } else {
+        groupKeyToDictIds(_index, _outDictIds);
+      }
       _groupKey.setFirst(_index++);
-      _groupKey.setSecond(stringGroupKey);
       return _groupKey;
     }
 
@@ -628,6 +662,12 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
   private class LongMapBasedGroupKeyIterator implements Iterator<GroupKey> {
     final ObjectIterator<Long2IntMap.Entry> _iterator = _groupKeyToId.long2IntEntrySet().fastIterator();
     final GroupKey _groupKey = new GroupKey(INVALID_ID, null);
+    // If not null, decode the raw key into dictionary ids instead of string key.
+    final int[] _outDictIds;
+
+    LongMapBasedGroupKeyIterator(int[] outDictIds) {
+      _outDictIds = outDictIds;
+    }
 
     @Override
     public boolean hasNext() {
@@ -638,9 +678,12 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
     public GroupKey next() {
       Long2IntMap.Entry entry = _iterator.next();
 
-      String stringGroupKey = rawKeyToStringGroupKey(entry.getLongKey());
+      if (_outDictIds == null) {
+        _groupKey.setSecond(rawKeyToStringGroupKey(entry.getLongKey()));
+      } else {
+        rawKeyToDictIds(entry.getLongKey(), _outDictIds);
+      }
       _groupKey.setFirst(entry.getIntValue());
-      _groupKey.setSecond(stringGroupKey);
       return _groupKey;
     }
 
@@ -657,6 +700,12 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
     final ObjectIterator<Object2IntMap.Entry<IntArrayList>> _iterator =
         _arrayGroupKeyToId.object2IntEntrySet().fastIterator();
     final GroupKey _groupKey = new GroupKey(INVALID_ID, null);
+    // If not null, copy the raw key into dictionary ids instead of string key.
+    final int[] _outDictIds;
+
+    ArrayMapBasedGroupKeyIterator(int[] outDictIds) {
+      _outDictIds = outDictIds;
+    }
 
     @Override
     public boolean hasNext() {
@@ -667,9 +716,12 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
     public GroupKey next() {
       Object2IntMap.Entry<IntArrayList> entry = _iterator.next();
 
-      String stringGroupKey = rawKeyToStringGroupKey(entry.getKey());
+      if (_outDictIds == null) {
+        _groupKey.setSecond(rawKeyToStringGroupKey(entry.getKey()));
+      } else {
+        System.arraycopy(entry.getKey().elements(), 0, _outDictIds, 0, _numGroupByColumns);
+      }
       _groupKey.setFirst(entry.getIntValue());
-      _groupKey.setSecond(stringGroupKey);
       return _groupKey;
     }
 
@@ -706,6 +758,36 @@ public class DefaultGroupKeyGenerator implements GroupKeyGenerator {
     }
   }
 
+  /**
+   * With an integer group key, decode group key into dictionary ids of the group-by columns.
+   * (ARRAY_BASED storage type)
+   *
+   * @param groupKey integer group key.
+   * @param outDictIds buffer to return the dictionary ids.
+   */
+  private void groupKeyToDictIds(int groupKey, int[] outDictIds) {
+    for (int i = 0; i < _numGroupByColumns; i++) {
+      int cardinality = _cardinalities[i];
+      outDictIds[i] = groupKey % cardinality;
+      groupKey /= cardinality;
+    }
+  }
+
+  /**
+   * With a long raw key, decode raw key into dictionary ids of the group-by columns.
+   * (LONG_MAP_BASED storage type)
+   *
+   * @param rawKey long raw key.
+   * @param outDictIds buffer to return the dictionary ids.
+   */
+  private void rawKeyToDictIds(long rawKey, int[] outDictIds) {
+    for (int i = 0; i < _numGroupByColumns; i++) {
+      int cardinality = _cardinalities[i];
+      outDictIds[i] = (int) (rawKey % cardinality);
+      rawKey /= cardinality;
+    }
+  }
+
   /**
    * With a long raw key, convert raw key from dictId based to string based group key, using actually values
    * corresponding to dictionary id's.
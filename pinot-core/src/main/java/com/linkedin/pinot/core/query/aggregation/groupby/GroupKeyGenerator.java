@@ -17,6 +17,7 @@ package com.linkedin.pinot.core.query.aggregation.groupby;
 
 import com.linkedin.pinot.core.operator.blocks.TransformBlock;
 import com.linkedin.pinot.core.query.utils.Pair;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import java.util.Iterator;
 
 
@@ -70,6 +71,24 @@ public interface GroupKeyGenerator {
    */
   Iterator<GroupKey> getUniqueGroupKeys();
 
+  /**
+   * Get the dictionaries for the group-by columns, in the same order as the group-by columns.
+   *
+   * @return dictionaries for the group-by columns, or null if the group keys are not generated from dictionary ids.
+   */
+  Dictionary[] getDictionaries();
+
+  /**
+   * Returns an iterator of group keys without materializing the string group keys. For each group key returned, the
+   * dictionary ids of the group-by columns are stored into the passed in buffer (one entry per group-by column), and
+   * the string key of the returned group key is null.
+   * <p>Should only be called when {@link #getDictionaries()} does not return null.
+   *
+   * @param outDictIds buffer to return the dictionary ids of the current group key.
+   * @return iterator of group keys.
+   */
+  Iterator<GroupKey> getUniqueDictIdGroupKeys(int[] outDictIds);
+
   /**
    * Purge the given group keys.
    * @param keysToPurge Group keys to purge
@@ -0,0 +1,254 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+
+/**
+ * The <code>GroupKeyInterner</code> class maps group keys from multiple segments onto segment independent long keys.
+ *
+ * Each group-by column has a shared value interner which assigns a global integer id to each distinct value. Per
+ * segment, the mapping from dictionary id to global value id is cached, so that the value interner is only accessed
+ * once per distinct value per segment instead of once per group key.
+ *
+ * The global value ids of all group-by columns are then folded into one long key:
+ * <ul>
+ *   <li>1 group-by column: the global value id.</li>
+ *   <li>2 group-by columns: (value id 0 << 32) | value id 1.</li>
+ *   <li>More group-by columns: the value ids of all but the last column are folded pair by pair into a global prefix
+ *   id through a shared long to int interner, and the key is (prefix id << 32) | last value id.</li>
+ * </ul>
+ *
+ * The string group key is only built (once per unique long key) when the results are converted into the format
+ * expected by the broker.
+ *
+ * All the interners are striped to reduce the lock contention between the threads merging different segments.
+ */
+public class GroupKeyInterner {
+  // Must be a power of 2.
+  private static final int NUM_STRIPES = 64;
+  private static final int STRIPE_MASK = NUM_STRIPES - 1;
+  private static final int STRIPE_SHIFT = Integer.numberOfTrailingZeros(NUM_STRIPES);
+  private static final long LOWER_INT_MASK = 0xFFFFFFFFL;
+
+  private final int _numGroupByColumns;
+  private final ValueInterner[] _valueInterners;
+  // Only used when there are more than 2 group-by columns.
+  private final PairInterner _prefixInterner;
+
+  public GroupKeyInterner(int numGroupByColumns) {
+    Preconditions.checkArgument(numGroupByColumns > 0);
+    _numGroupByColumns = numGroupByColumns;
+    _valueInterners = new ValueInterner[numGroupByColumns];
+    for (int i = 0; i < numGroupByColumns; i++) {
+      _valueInterners[i] = new ValueInterner();
+    }
+    if (numGroupByColumns > 2) {
+      _prefixInterner = new PairInterner();
+    } else {
+      _prefixInterner = null;
+    }
+  }
+
+  /**
+   * Creates a key mapper for one segment. The returned mapper is not thread safe, and should only be used by one
+   * thread.
+   *
+   * @param dictionaries dictionaries of the group-by columns for the segment.
+   * @return segment key mapper.
+   */
+  public SegmentKeyMapper getSegmentKeyMapper(Dictionary[] dictionaries) {
+    Preconditions.checkArgument(dictionaries.length == _numGroupByColumns);
+    return new SegmentKeyMapper(dictionaries);
+  }
+
+  /**
+   * Converts a long key back into the string group key, where the values of the group-by columns are delimited by
+   * {@link AggregationGroupByTrimmingService#GROUP_KEY_DELIMITER}.
+   * <p>Should only be called after all keys are generated.
+   *
+   * @param key long key.
+   * @return string group key.
+   */
+  public String getStringKey(long key) {
+    if (_numGroupByColumns == 1) {
+      // Special case one group-by column for performance.
+      return _valueInterners[0].getValue((int) key).toString();
+    }
+
+    int[] valueIds = new int[_numGroupByColumns];
+    valueIds[_numGroupByColumns - 1] = (int) (key & LOWER_INT_MASK);
+    int prefixId = (int) (key >>> 32);
+    for (int i = _numGroupByColumns - 2; i > 0; i--) {
+      long pair = _prefixInterner.getPair(prefixId);
+      valueIds[i] = (int) (pair & LOWER_INT_MASK);
+      prefixId = (int) (pair >>> 32);
+    }
+    valueIds[0] = prefixId;
+
+    StringBuilder builder = new StringBuilder(_valueInterners[0].getValue(valueIds[0]).toString());
+    for (int i = 1; i < _numGroupByColumns; i++) {
+      builder.append(AggregationGroupByTrimmingService.GROUP_KEY_DELIMITER);
+      builder.append(_valueInterners[i].getValue(valueIds[i]).toString());
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Helper method to compute the stripe for the given hash code.
+   */
+  static int getStripe(int hashCode) {
+    // Spread the higher bits, as the lower bits of boxed number hash codes are not well distributed.
+    int h = hashCode * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & STRIPE_MASK;
+  }
+
+  /**
+   * Helper method to compute the stripe for the given long key.
+   */
+  static int getStripe(long key) {
+    return getStripe((int) (key ^ (key >>> 32)));
+  }
+
+  /**
+   * Maps the dictionary ids of the group-by columns from one segment into global long keys.
+   */
+  public class SegmentKeyMapper {
+    private final Dictionary[] _dictionaries;
+    private final Int2IntOpenHashMap[] _dictIdToValueIds;
+
+    private SegmentKeyMapper(Dictionary[] dictionaries) {
+      _dictionaries = dictionaries;
+      _dictIdToValueIds = new Int2IntOpenHashMap[_numGroupByColumns];
+      for (int i = 0; i < _numGroupByColumns; i++) {
+        _dictIdToValueIds[i] = new Int2IntOpenHashMap();
+        _dictIdToValueIds[i].defaultReturnValue(GroupKeyGenerator.INVALID_ID);
+      }
+    }
+
+    /**
+     * Returns the global long key for the given dictionary ids of the group-by columns.
+     *
+     * @param dictIds dictionary ids of the group-by columns.
+     * @return global long key.
+     */
+    public long getKey(int[] dictIds) {
+      if (_numGroupByColumns == 1) {
+        return getValueId(0, dictIds[0]);
+      }
+
+      long prefix = getValueId(0, dictIds[0]);
+      for (int i = 1; i < _numGroupByColumns - 1; i++) {
+        prefix = _prefixInterner.intern((prefix << 32) | getValueId(i, dictIds[i]));
+      }
+      return (prefix << 32) | getValueId(_numGroupByColumns - 1, dictIds[_numGroupByColumns - 1]);
+    }
+
+    private int getValueId(int index, int dictId) {
+      Int2IntOpenHashMap dictIdToValueId = _dictIdToValueIds[index];
+      int valueId = dictIdToValueId.get(dictId);
+      if (valueId == GroupKeyGenerator.INVALID_ID) {
+        valueId = _valueInterners[index].intern(_dictionaries[index].get(dictId));
+        dictIdToValueId.put(dictId, valueId);
+      }
+      return valueId;
+    }
+  }
+
+  /**
+   * Striped interner from value to non-negative integer id.
+   * <p>The id is (index inside the stripe << STRIPE_SHIFT) | stripe, so that ids can be allocated without any global
+   * lock.
+   */
+  private static class ValueInterner {
+    private final Object2IntOpenHashMap<Object>[] _valueToIds;
+    private final ObjectArrayList<Object>[] _values;
+
+    @SuppressWarnings("unchecked")
+    ValueInterner() {
+      _valueToIds = new Object2IntOpenHashMap[NUM_STRIPES];
+      _values = new ObjectArrayList[NUM_STRIPES];
+      for (int i = 0; i < NUM_STRIPES; i++) {
+        _valueToIds[i] = new Object2IntOpenHashMap<>();
+        _valueToIds[i].defaultReturnValue(GroupKeyGenerator.INVALID_ID);
+        _values[i] = new ObjectArrayList<>();
+      }
+    }
+
+    int intern(Object value) {
+      int stripe = getStripe(value.hashCode());
+      Object2IntOpenHashMap<Object> valueToId = _valueToIds[stripe];
+      synchronized (valueToId) {
+        int id = valueToId.getInt(value);
+        if (id == GroupKeyGenerator.INVALID_ID) {
+          ObjectArrayList<Object> values = _values[stripe];
+          id = (values.size() << STRIPE_SHIFT) | stripe;
+          values.add(value);
+          valueToId.put(value, id);
+        }
+        return id;
+      }
+    }
+
+    Object getValue(int id) {
+      return _values[id & STRIPE_MASK].get(id >>> STRIPE_SHIFT);
+    }
+  }
+
+  /**
+   * Striped interner from long pair to non-negative integer id, with the same id allocation as {@link ValueInterner}.
+   */
+  private static class PairInterner {
+    private final Long2IntOpenHashMap[] _pairToIds;
+    private final LongArrayList[] _pairs;
+
+    PairInterner() {
+      _pairToIds = new Long2IntOpenHashMap[NUM_STRIPES];
+      _pairs = new LongArrayList[NUM_STRIPES];
+      for (int i = 0; i < NUM_STRIPES; i++) {
+        _pairToIds[i] = new Long2IntOpenHashMap();
+        _pairToIds[i].defaultReturnValue(GroupKeyGenerator.INVALID_ID);
+        _pairs[i] = new LongArrayList();
+      }
+    }
+
+    int intern(long pair) {
+      int stripe = getStripe(pair);
+      Long2IntOpenHashMap pairToId = _pairToIds[stripe];
+      synchronized (pairToId) {
+        int id = pairToId.get(pair);
+        if (id == GroupKeyGenerator.INVALID_ID) {
+          LongArrayList pairs = _pairs[stripe];
+          id = (pairs.size() << STRIPE_SHIFT) | stripe;
+          pairs.add(pair);
+          pairToId.put(pair, id);
+        }
+        return id;
+      }
+    }
+
+    long getPair(int id) {
+      return _pairs[id & STRIPE_MASK].getLong(id >>> STRIPE_SHIFT);
+    }
+  }
+}
@@ -18,6 +18,7 @@ package com.linkedin.pinot.core.query.aggregation.groupby;
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.operator.blocks.TransformBlock;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -132,6 +133,16 @@ public class NoDictionaryGroupKeyGenerator implements GroupKeyGenerator {
     return new GroupKeyIterator(_groupKeyMap);
   }
 
+  @Override
+  public Dictionary[] getDictionaries() {
+    return null;
+  }
+
+  @Override
+  public Iterator<GroupKey> getUniqueDictIdGroupKeys(int[] outDictIds) {
+    throw new UnsupportedOperationException("Dictionary id based group keys not supported without dictionary.");
+  }
+
   @Override
   public void purgeKeys(int[] keysToPurge) {
     // TODO: Implement purging.
@@ -0,0 +1,199 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunction;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import javax.annotation.Nonnull;
+
+
+/**
+ * The <code>StripedGroupByResultTable</code> class merges aggregation group-by results from multiple segments, keyed
+ * by the global long keys generated by {@link GroupKeyInterner}.
+ *
+ * The table is split into stripes by key, each stripe is a primitive long to slot hash map plus the intermediate
+ * results for each slot. Segments are merged in batches: all group keys of a segment are first mapped to long keys and
+ * bucketed by stripe, then each stripe is locked only once per segment.
+ */
+public class StripedGroupByResultTable {
+  // Must be a power of 2.
+  private static final int NUM_STRIPES = 64;
+
+  private final AggregationFunction[] _aggregationFunctions;
+  private final int _numAggregationFunctions;
+  private final GroupKeyInterner _groupKeyInterner;
+  private final Stripe[] _stripes;
+
+  public StripedGroupByResultTable(@Nonnull AggregationFunctionContext[] aggregationFunctionContexts,
+      int numGroupByColumns) {
+    _numAggregationFunctions = aggregationFunctionContexts.length;
+    _aggregationFunctions = new AggregationFunction[_numAggregationFunctions];
+    for (int i = 0; i < _numAggregationFunctions; i++) {
+      _aggregationFunctions[i] = aggregationFunctionContexts[i].getAggregationFunction();
+    }
+    _groupKeyInterner = new GroupKeyInterner(numGroupByColumns);
+    _stripes = new Stripe[NUM_STRIPES];
+    for (int i = 0; i < NUM_STRIPES; i++) {
+      _stripes[i] = new Stripe();
+    }
+  }
+
+  /**
+   * Merges the aggregation group-by result of one segment into the table. This method is thread safe.
+   * <p>The group keys of the given result must be dictionary based.
+   *
+   * @param aggregationGroupByResult aggregation group-by result of one segment.
+   */
+  public void merge(@Nonnull AggregationGroupByResult aggregationGroupByResult) {
+    GroupKeyInterner.SegmentKeyMapper keyMapper =
+        _groupKeyInterner.getSegmentKeyMapper(aggregationGroupByResult.getGroupByDictionaries());
+
+    // Map all group keys of the segment onto long keys.
+    int[] dictIds = new int[aggregationGroupByResult.getGroupByDictionaries().length];
+    LongArrayList keys = new LongArrayList();
+    IntArrayList groupIds = new IntArrayList();
+    Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator =
+        aggregationGroupByResult.getDictIdGroupKeyIterator(dictIds);
+    while (groupKeyIterator.hasNext()) {
+      int groupId = groupKeyIterator.next().getFirst();
+      keys.add(keyMapper.getKey(dictIds));
+      groupIds.add(groupId);
+    }
+
+    // Bucket the keys by stripe (counting sort).
+    int numKeys = keys.size();
+    long[] keyArray = keys.elements();
+    int[] groupIdArray = groupIds.elements();
+    int[] stripeIds = new int[numKeys];
+    int[] stripeOffsets = new int[NUM_STRIPES + 1];
+    for (int i = 0; i < numKeys; i++) {
+      int stripeId = GroupKeyInterner.getStripe(keyArray[i]);
+      stripeIds[i] = stripeId;
+      stripeOffsets[stripeId + 1]++;
+    }
+    for (int i = 0; i < NUM_STRIPES; i++) {
+      stripeOffsets[i + 1] += stripeOffsets[i];
+    }
+    int[] sortedIndices = new int[numKeys];
+    int[] positions = new int[NUM_STRIPES];
+    System.arraycopy(stripeOffsets, 0, positions, 0, NUM_STRIPES);
+    for (int i = 0; i < numKeys; i++) {
+      sortedIndices[positions[stripeIds[i]]++] = i;
+    }
+
+    // Merge each stripe with one lock.
+    for (int stripeId = 0; stripeId < NUM_STRIPES; stripeId++) {
+      int start = stripeOffsets[stripeId];
+      int end = stripeOffsets[stripeId + 1];
+      if (start == end) {
+        continue;
+      }
+      Stripe stripe = _stripes[stripeId];
+      synchronized (stripe) {
+        for (int i = start; i < end; i++) {
+          int index = sortedIndices[i];
+          stripe.merge(keyArray[index], aggregationGroupByResult, groupIdArray[index]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Converts the table into a map from string group key to intermediate results for each aggregation function, which
+   * is the format expected by {@link AggregationGroupByTrimmingService#trimIntermediateResultsMap(Map)}.
+   * <p>Should only be called after all segments are merged.
+   *
+   * @return map from string group key to intermediate results.
+   */
+  @Nonnull
+  public Map<String, Object[]> toResultsMap() {
+    int numGroups = 0;
+    for (Stripe stripe : _stripes) {
+      numGroups += stripe._keys.size();
+    }
+
+    Map<String, Object[]> resultsMap = new HashMap<>(Math.max(16, (int) (numGroups / 0.75f) + 1));
+    for (Stripe stripe : _stripes) {
+      int numKeysInStripe = stripe._keys.size();
+      for (int i = 0; i < numKeysInStripe; i++) {
+        String stringKey = _groupKeyInterner.getStringKey(stripe._keys.getLong(i));
+        mergeIntoResultsMap(resultsMap, stringKey, stripe._results.get(i));
+      }
+    }
+    return resultsMap;
+  }
+
+  /**
+   * Merges the given intermediate results into the results map.
+   * <p>Values with different types but the same string representation are mapped to the same string key, so merge is
+   * needed instead of put.
+   *
+   * @param resultsMap map from string group key to intermediate results.
+   * @param stringKey string group key.
+   * @param results intermediate results for each aggregation function.
+   */
+  @SuppressWarnings("unchecked")
+  public void mergeIntoResultsMap(@Nonnull Map<String, Object[]> resultsMap, @Nonnull String stringKey,
+      @Nonnull Object[] results) {
+    Object[] existingResults = resultsMap.put(stringKey, results);
+    if (existingResults != null) {
+      for (int i = 0; i < _numAggregationFunctions; i++) {
+        results[i] = _aggregationFunctions[i].merge(existingResults[i], results[i]);
+      }
+    }
+  }
+
+  /**
+   * One stripe of the table, should only be accessed when holding the lock on it.
+   */
+  private class Stripe {
+    final Long2IntOpenHashMap _keyToSlot;
+    final LongArrayList _keys = new LongArrayList();
+    final ObjectArrayList<Object[]> _results = new ObjectArrayList<>();
+
+    Stripe() {
+      _keyToSlot = new Long2IntOpenHashMap();
+      _keyToSlot.defaultReturnValue(GroupKeyGenerator.INVALID_ID);
+    }
+
+    @SuppressWarnings("unchecked")
+    void merge(long key, AggregationGroupByResult aggregationGroupByResult, int groupId) {
+      int slot = _keyToSlot.get(key);
+      if (slot == GroupKeyGenerator.INVALID_ID) {
+        Object[] results = new Object[_numAggregationFunctions];
+        for (int i = 0; i < _numAggregationFunctions; i++) {
+          results[i] = aggregationGroupByResult.getResultForGroupId(groupId, i);
+        }
+        _keyToSlot.put(key, _keys.size());
+        _keys.add(key);
+        _results.add(results);
+      } else {
+        Object[] results = _results.get(slot);
+        for (int i = 0; i < _numAggregationFunctions; i++) {
+          results[i] =
+              _aggregationFunctions[i].merge(results[i], aggregationGroupByResult.getResultForGroupId(groupId, i));
+        }
+      }
+    }
+  }
+}
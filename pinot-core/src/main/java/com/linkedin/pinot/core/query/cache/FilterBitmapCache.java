@@ -0,0 +1,179 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.request.FilterOperator;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>FilterBitmapCache</code> class caches the docs matching a filter on immutable segments, so that queries
+ * sharing the same filter (e.g. different aggregations on the same WHERE clause) do not evaluate it again.
+ * <ul>
+ *   <li>The query part of the cache key is the normalized filter query tree (order of AND/OR children and IN/NOT IN
+ *   values does not matter).</li>
+ *   <li>Matching docs are serialized as roaring bitmaps, so that the cached bitmaps are read without
+ *   de-serialization.</li>
+ * </ul>
+ * <p>The filter plan nodes get the cache from the plan maker, and the table data managers invalidate the entries of
+ * replaced or removed segments through the caches registered with the instance data manager.
+ */
+@ThreadSafe
+public class FilterBitmapCache extends SegmentKeyedCache<String> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(FilterBitmapCache.class);
+
+  private final ServerMetrics _serverMetrics;
+
+  public FilterBitmapCache(long maxSizeInBytes, int maxEntrySizeInBytes, @Nullable ServerMetrics serverMetrics) {
+    super(maxSizeInBytes, maxEntrySizeInBytes);
+    _serverMetrics = serverMetrics;
+  }
+
+  /**
+   * Get the normalized key for the filter query tree. Children of AND/OR and values of IN/NOT IN are sorted, so that
+   * equivalent filters share the same key.
+   *
+   * @param filterQueryTree filter query tree.
+   * @return filter key.
+   */
+  @Nonnull
+  public static String getFilterKey(@Nonnull FilterQueryTree filterQueryTree) {
+    StringBuilder stringBuilder = new StringBuilder();
+    appendFilterKey(filterQueryTree, stringBuilder);
+    return stringBuilder.toString();
+  }
+
+  /**
+   * Get the cached matching docs of the filter for the segment.
+   *
+   * @param tableName table name.
+   * @param indexSegment index segment.
+   * @param filterKey filter key.
+   * @return cached bitmap of the matching docs, or null if not cached.
+   */
+  @Nullable
+  public ImmutableRoaringBitmap get(@Nonnull String tableName, @Nonnull IndexSegment indexSegment,
+      @Nonnull String filterKey) {
+    ByteBuffer cachedBuffer = getBuffer(tableName, indexSegment, filterKey);
+    if (cachedBuffer == null) {
+      if (_serverMetrics != null) {
+        _serverMetrics.addMeteredGlobalValue(ServerMeter.FILTER_BITMAP_CACHE_MISSES, 1L);
+      }
+      return null;
+    }
+    if (_serverMetrics != null) {
+      _serverMetrics.addMeteredGlobalValue(ServerMeter.FILTER_BITMAP_CACHE_HITS, 1L);
+    }
+    // The duplicate keeps the buffer alive even if the entry gets evicted while the bitmap is in use.
+    return new ImmutableRoaringBitmap(cachedBuffer.duplicate());
+  }
+
+  /**
+   * Put the matching docs of the filter for the segment into the cache. Bitmaps larger than the max entry size are not
+   * cached. Callers should run-optimize the bitmap and check its size against {@link #getMaxEntrySizeInBytes()}
+   * first.
+   *
+   * @param tableName table name.
+   * @param indexSegment index segment.
+   * @param filterKey filter key.
+   * @param bitmap bitmap of the matching docs.
+   */
+  public void put(@Nonnull String tableName, @Nonnull IndexSegment indexSegment, @Nonnull String filterKey,
+      @Nonnull MutableRoaringBitmap bitmap) {
+    int sizeInBytes = bitmap.serializedSizeInBytes();
+    if (sizeInBytes > getMaxEntrySizeInBytes()) {
+      return;
+    }
+    try {
+      final ByteBuffer cachedBuffer = ByteBuffer.allocateDirect(sizeInBytes);
+      bitmap.serialize(new DataOutputStream(new OutputStream() {
+        @Override
+        public void write(int b) {
+          cachedBuffer.put((byte) b);
+        }
+
+        @Override
+        public void write(@Nonnull byte[] b, int off, int len) {
+          cachedBuffer.put(b, off, len);
+        }
+      }));
+      cachedBuffer.flip();
+      putBuffer(tableName, indexSegment, filterKey, cachedBuffer);
+    } catch (IOException e) {
+      LOGGER.error("Caught exception while caching filter bitmap for segment: {} of table: {}",
+          indexSegment.getSegmentName(), tableName, e);
+    }
+  }
+
+  /**
+   * Helper method to append the normalized key of a filter query tree. Strings are prefixed with their length so that
+   * the key is unambiguous whatever characters the values contain.
+   */
+  private static void appendFilterKey(FilterQueryTree filterQueryTree, StringBuilder stringBuilder) {
+    FilterOperator filterOperator = filterQueryTree.getOperator();
+    stringBuilder.append(filterOperator).append('(');
+    List<FilterQueryTree> children = filterQueryTree.getChildren();
+    if (children != null && !children.isEmpty()) {
+      List<String> childKeys = new ArrayList<>(children.size());
+      for (FilterQueryTree child : children) {
+        childKeys.add(getFilterKey(child));
+      }
+      Collections.sort(childKeys);
+      for (String childKey : childKeys) {
+        stringBuilder.append(childKey);
+      }
+    } else {
+      appendString(filterQueryTree.getColumn(), stringBuilder);
+      List<String> values = new ArrayList<>();
+      for (String value : filterQueryTree.getValue()) {
+        if (filterOperator == FilterOperator.IN || filterOperator == FilterOperator.NOT_IN) {
+          // Multiple values are joined with the tab separator in one string
+          Collections.addAll(values, value.split("\t\t"));
+        } else {
+          values.add(value);
+        }
+      }
+      if (filterOperator == FilterOperator.IN || filterOperator == FilterOperator.NOT_IN) {
+        Collections.sort(values);
+      }
+      for (String value : values) {
+        appendString(value, stringBuilder);
+      }
+    }
+    stringBuilder.append(')');
+  }
+
+  private static void appendString(String value, StringBuilder stringBuilder) {
+    stringBuilder.append(value.length()).append(':').append(value);
+  }
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+
+/**
+ * The <code>SegmentKeyedCache</code> class is the base class for the server side caches of per segment entries.
+ * <ul>
+ *   <li>Cache key is the table name, segment name and CRC, plus a query part defined by the sub-class.</li>
+ *   <li>Entries are serialized into direct byte buffers, so that they are kept off-heap. Memory is bounded by the
+ *   total size of the buffers with LRU eviction.</li>
+ *   <li>Entries are invalidated when a segment is replaced or removed. The keys are indexed by segment, so that
+ *   invalidation only touches the entries of the segment.</li>
+ * </ul>
+ *
+ * @param <K> type of the query part of the cache key.
+ */
+@ThreadSafe
+public abstract class SegmentKeyedCache<K> {
+  private final Cache<SegmentKey<K>, ByteBuffer> _cache;
+  private final int _maxEntrySizeInBytes;
+  // Keys of the cached entries for each segment.
+  private final ConcurrentMap<SegmentId, Set<SegmentKey<K>>> _segmentKeysMap = new ConcurrentHashMap<>();
+
+  protected SegmentKeyedCache(long maxSizeInBytes, int maxEntrySizeInBytes) {
+    Preconditions.checkArgument(maxSizeInBytes > 0 && maxEntrySizeInBytes > 0);
+    _cache =
+        CacheBuilder.newBuilder().maximumWeight(maxSizeInBytes).weigher(new Weigher<SegmentKey<K>, ByteBuffer>() {
+          @Override
+          public int weigh(@Nonnull SegmentKey<K> key, @Nonnull ByteBuffer value) {
+            return value.capacity();
+          }
+        }).removalListener(new RemovalListener<SegmentKey<K>, ByteBuffer>() {
+          @Override
+          public void onRemoval(@Nonnull RemovalNotification<SegmentKey<K>, ByteBuffer> notification) {
+            // Explicit removals and replacements update the index themselves.
+            if (notification.wasEvicted()) {
+              removeSegmentKey(notification.getKey());
+            }
+          }
+        }).build();
+    _maxEntrySizeInBytes = maxEntrySizeInBytes;
+  }
+
+  /**
+   * Entries larger than this size are not cached. Callers can check it before serializing an entry.
+   */
+  public int getMaxEntrySizeInBytes() {
+    return _maxEntrySizeInBytes;
+  }
+
+  /**
+   * Invalidate all the cached entries for the segment.
+   *
+   * @param tableName table name.
+   * @param segmentName segment name.
+   */
+  public void invalidate(@Nonnull String tableName, @Nonnull String segmentName) {
+    Set<SegmentKey<K>> segmentKeys = _segmentKeysMap.remove(new SegmentId(tableName, segmentName));
+    if (segmentKeys != null) {
+      _cache.invalidateAll(segmentKeys);
+    }
+  }
+
+  public long size() {
+    return _cache.size();
+  }
+
+  /**
+   * Get the cached buffer for the segment and query key. The returned buffer is shared, callers should only read it
+   * through a duplicate.
+   *
+   * @return cached buffer, or null if not cached.
+   */
+  @Nullable
+  protected ByteBuffer getBuffer(@Nonnull String tableName, @Nonnull IndexSegment indexSegment, @Nonnull K queryKey) {
+    return _cache.getIfPresent(new SegmentKey<>(tableName, indexSegment, queryKey));
+  }
+
+  /**
+   * Put the buffer (flipped for reading) for the segment and query key into the cache. Buffers larger than the max
+   * entry size are not cached.
+   */
+  protected void putBuffer(@Nonnull String tableName, @Nonnull IndexSegment indexSegment, @Nonnull K queryKey,
+      @Nonnull ByteBuffer buffer) {
+    if (buffer.capacity() <= _maxEntrySizeInBytes) {
+      SegmentKey<K> segmentKey = new SegmentKey<>(tableName, indexSegment, queryKey);
+      // Index the key first, so that an entry evicted right away does not stay in the index.
+      Set<SegmentKey<K>> segmentKeys = _segmentKeysMap.get(segmentKey._segmentId);
+      if (segmentKeys == null) {
+        Set<SegmentKey<K>> newSegmentKeys =
+            Collections.newSetFromMap(new ConcurrentHashMap<SegmentKey<K>, Boolean>());
+        segmentKeys = _segmentKeysMap.putIfAbsent(segmentKey._segmentId, newSegmentKeys);
+        if (segmentKeys == null) {
+          segmentKeys = newSegmentKeys;
+        }
+      }
+      segmentKeys.add(segmentKey);
+      _cache.put(segmentKey, buffer);
+    }
+  }
+
+  /**
+   * Remove the cached buffer for the segment and query key, e.g. when it cannot be read.
+   */
+  protected void removeBuffer(@Nonnull String tableName, @Nonnull IndexSegment indexSegment, @Nonnull K queryKey) {
+    SegmentKey<K> segmentKey = new SegmentKey<>(tableName, indexSegment, queryKey);
+    _cache.invalidate(segmentKey);
+    removeSegmentKey(segmentKey);
+  }
+
+  private void removeSegmentKey(SegmentKey<K> segmentKey) {
+    Set<SegmentKey<K>> segmentKeys = _segmentKeysMap.get(segmentKey._segmentId);
+    if (segmentKeys != null) {
+      segmentKeys.remove(segmentKey);
+    }
+  }
+
+  private static class SegmentId {
+    private final String _tableName;
+    private final String _segmentName;
+
+    private SegmentId(String tableName, String segmentName) {
+      _tableName = tableName;
+      _segmentName = segmentName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      SegmentId segmentId = (SegmentId) o;
+      return _tableName.equals(segmentId._tableName) && _segmentName.equals(segmentId._segmentName);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * _tableName.hashCode() + _segmentName.hashCode();
+    }
+  }
+
+  private static class SegmentKey<K> {
+    private final SegmentId _segmentId;
+    private final String _segmentCrc;
+    private final K _queryKey;
+
+    private SegmentKey(String tableName, IndexSegment indexSegment, K queryKey) {
+      _segmentId = new SegmentId(tableName, indexSegment.getSegmentName());
+      _segmentCrc = indexSegment.getSegmentMetadata().getCrc();
+      _queryKey = queryKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      SegmentKey<?> segmentKey = (SegmentKey<?>) o;
+      return _segmentId.equals(segmentKey._segmentId) && String.valueOf(_segmentCrc)
+          .equals(String.valueOf(segmentKey._segmentCrc)) && _queryKey.equals(segmentKey._queryKey);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = _segmentId.hashCode();
+      result = 31 * result + String.valueOf(_segmentCrc).hashCode();
+      result = 31 * result + _queryKey.hashCode();
+      return result;
+    }
+  }
+}
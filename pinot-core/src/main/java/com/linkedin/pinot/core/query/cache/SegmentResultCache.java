@@ -0,0 +1,298 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.GroupBy;
+import com.linkedin.pinot.common.utils.DataSchema;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.common.datatable.DataTableFactory;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.ExecutionStatistics;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>SegmentResultCache</code> class caches the segment level intermediate results of aggregation and
+ * aggregation group-by queries on immutable segments.
+ * <ul>
+ *   <li>The query part of the cache key contains the query parts that affect the segment level results (filter,
+ *   aggregations and group-by columns).</li>
+ *   <li>Results are serialized as data tables, with the execution statistics in the metadata.</li>
+ * </ul>
+ * <p>The cache is created by the server query executor, which passes it to the plan maker and registers it with the
+ * instance data manager for invalidation.
+ */
+@ThreadSafe
+public class SegmentResultCache extends SegmentKeyedCache<SegmentResultCache.QueryKey> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentResultCache.class);
+
+  // Lower bound of the serialized size of a group in a group-by result map, excluding the key bytes: key length,
+  // value length and at least 4 bytes of value.
+  private static final int MIN_SERIALIZED_GROUP_SIZE = 12;
+
+  public SegmentResultCache(long maxSizeInBytes, int maxEntrySizeInBytes) {
+    super(maxSizeInBytes, maxEntrySizeInBytes);
+  }
+
+  /**
+   * Get the query key for the broker request, which only contains the query parts that affect the segment level
+   * results.
+   *
+   * @param brokerRequest pre-processed broker request.
+   * @return query key, or null if the results of the query can not be cached.
+   */
+  @Nullable
+  public static QueryKey getQueryKey(@Nonnull BrokerRequest brokerRequest) {
+    if (!brokerRequest.isSetAggregationsInfo() || brokerRequest.isSetSelections()) {
+      return null;
+    }
+    BrokerRequest normalizedBrokerRequest = new BrokerRequest();
+    normalizedBrokerRequest.setFilterQuery(brokerRequest.getFilterQuery());
+    normalizedBrokerRequest.setFilterSubQueryMap(brokerRequest.getFilterSubQueryMap());
+    normalizedBrokerRequest.setAggregationsInfo(brokerRequest.getAggregationsInfo());
+    if (brokerRequest.isSetGroupBy()) {
+      // TOP N is applied after the segment level results are combined.
+      GroupBy groupBy = new GroupBy(brokerRequest.getGroupBy());
+      groupBy.unsetTopN();
+      normalizedBrokerRequest.setGroupBy(groupBy);
+    }
+    // Make a deep copy so that the key is not affected by further changes to the broker request.
+    return new QueryKey(new BrokerRequest(normalizedBrokerRequest));
+  }
+
+  /**
+   * Get the cached results for the segment.
+   *
+   * @param tableName table name.
+   * @param indexSegment index segment.
+   * @param queryKey query key.
+   * @param aggregationFunctionContexts aggregation function contexts for the segment.
+   * @return cached results, or null if not cached.
+   */
+  @Nullable
+  public CachedResults get(@Nonnull String tableName, @Nonnull IndexSegment indexSegment, @Nonnull QueryKey queryKey,
+      @Nonnull AggregationFunctionContext[] aggregationFunctionContexts) {
+    ByteBuffer cachedBuffer = getBuffer(tableName, indexSegment, queryKey);
+    if (cachedBuffer == null) {
+      return null;
+    }
+    try {
+      return decode(DataTableFactory.getDataTable(cachedBuffer), aggregationFunctionContexts,
+          queryKey._brokerRequest.isSetGroupBy());
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while decoding cached results for segment: {} of table: {}",
+          indexSegment.getSegmentName(), tableName, e);
+      removeBuffer(tableName, indexSegment, queryKey);
+      return null;
+    }
+  }
+
+  /**
+   * Put the segment level results into the cache. Results with processing exceptions or larger than the max entry
+   * size are not cached.
+   *
+   * @param tableName table name.
+   * @param indexSegment index segment.
+   * @param queryKey query key.
+   * @param resultsBlock segment level results block.
+   * @param executionStatistics segment level execution statistics.
+   */
+  public void put(@Nonnull String tableName, @Nonnull IndexSegment indexSegment, @Nonnull QueryKey queryKey,
+      @Nonnull IntermediateResultsBlock resultsBlock, @Nonnull ExecutionStatistics executionStatistics) {
+    List<?> processingExceptions = resultsBlock.getProcessingExceptions();
+    if (processingExceptions != null && !processingExceptions.isEmpty()) {
+      return;
+    }
+    try {
+      byte[] bytes = encode(resultsBlock, executionStatistics, getMaxEntrySizeInBytes());
+      if (bytes == null || bytes.length > getMaxEntrySizeInBytes()) {
+        return;
+      }
+      ByteBuffer cachedBuffer = ByteBuffer.allocateDirect(bytes.length);
+      cachedBuffer.put(bytes);
+      cachedBuffer.flip();
+      putBuffer(tableName, indexSegment, queryKey, cachedBuffer);
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while caching results for segment: {} of table: {}",
+          indexSegment.getSegmentName(), tableName, e);
+    }
+  }
+
+  /**
+   * Helper method to serialize the segment level results block and execution statistics.
+   * <p>For group-by results, the serialized size is estimated while materializing the group keys, so that results
+   * which would not fit into the max entry size are not serialized at all.
+   *
+   * @return serialized bytes, or null if the results block does not contain aggregation results or is too large.
+   */
+  @Nullable
+  private static byte[] encode(IntermediateResultsBlock resultsBlock, ExecutionStatistics executionStatistics,
+      int maxEntrySizeInBytes)
+      throws Exception {
+    AggregationFunctionContext[] aggregationFunctionContexts = resultsBlock.getAggregationFunctionContexts();
+    if (aggregationFunctionContexts == null) {
+      return null;
+    }
+    IntermediateResultsBlock blockToSerialize;
+    List<Object> aggregationResult = resultsBlock.getAggregationResult();
+    AggregationGroupByResult aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
+    if (aggregationResult != null) {
+      blockToSerialize = new IntermediateResultsBlock(aggregationFunctionContexts, aggregationResult, false);
+    } else if (aggregationGroupByResult != null) {
+      // Materialize the group keys so that the results no longer depend on the segment.
+      int numAggregationFunctions = aggregationFunctionContexts.length;
+      List<Map<String, Object>> groupByResultMaps = new ArrayList<>(numAggregationFunctions);
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        groupByResultMaps.add(new HashMap<String, Object>());
+      }
+      long estimatedSizeInBytes = 0L;
+      Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
+      while (groupKeyIterator.hasNext()) {
+        GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+        String groupKeyString = groupKey.getStringKey();
+        // Each map holds the group key, which takes at least 1 byte per char.
+        estimatedSizeInBytes += numAggregationFunctions * (MIN_SERIALIZED_GROUP_SIZE + groupKeyString.length());
+        if (estimatedSizeInBytes > maxEntrySizeInBytes) {
+          return null;
+        }
+        for (int i = 0; i < numAggregationFunctions; i++) {
+          groupByResultMaps.get(i).put(groupKeyString, aggregationGroupByResult.getResultForKey(groupKey, i));
+        }
+      }
+      blockToSerialize = new IntermediateResultsBlock(aggregationFunctionContexts, groupByResultMaps, true);
+    } else if (resultsBlock.getCombinedAggregationGroupByResult() != null) {
+      // Group keys are already materialized.
+      blockToSerialize = new IntermediateResultsBlock(aggregationFunctionContexts,
+          resultsBlock.getCombinedAggregationGroupByResult(), true);
+    } else {
+      return null;
+    }
+    blockToSerialize.setNumDocsScanned(executionStatistics.getNumDocsScanned());
+    blockToSerialize.setNumEntriesScannedInFilter(executionStatistics.getNumEntriesScannedInFilter());
+    blockToSerialize.setNumEntriesScannedPostFilter(executionStatistics.getNumEntriesScannedPostFilter());
+    blockToSerialize.setNumTotalRawDocs(executionStatistics.getNumTotalRawDocs());
+    return blockToSerialize.getDataTable().toBytes();
+  }
+
+  /**
+   * Helper method to de-serialize the cached results.
+   */
+  private static CachedResults decode(DataTable dataTable, AggregationFunctionContext[] aggregationFunctionContexts,
+      boolean isGroupBy) {
+    int numAggregationFunctions = aggregationFunctionContexts.length;
+    List<Object> aggregationResult = new ArrayList<>(numAggregationFunctions);
+    if (isGroupBy) {
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        aggregationResult.add(dataTable.getObject(i, 1));
+      }
+    } else {
+      DataSchema dataSchema = dataTable.getDataSchema();
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        FieldSpec.DataType columnType = dataSchema.getColumnType(i);
+        switch (columnType) {
+          case LONG:
+            aggregationResult.add(dataTable.getLong(0, i));
+            break;
+          case DOUBLE:
+            aggregationResult.add(dataTable.getDouble(0, i));
+            break;
+          case OBJECT:
+            aggregationResult.add(dataTable.getObject(0, i));
+            break;
+          default:
+            throw new IllegalStateException("Illegal column type in aggregation results: " + columnType);
+        }
+      }
+    }
+    IntermediateResultsBlock resultsBlock =
+        new IntermediateResultsBlock(aggregationFunctionContexts, aggregationResult, isGroupBy);
+
+    Map<String, String> metadata = dataTable.getMetadata();
+    ExecutionStatistics executionStatistics =
+        new ExecutionStatistics(Long.parseLong(metadata.get(DataTable.NUM_DOCS_SCANNED_METADATA_KEY)),
+            Long.parseLong(metadata.get(DataTable.NUM_ENTRIES_SCANNED_IN_FILTER_METADATA_KEY)),
+            Long.parseLong(metadata.get(DataTable.NUM_ENTRIES_SCANNED_POST_FILTER_METADATA_KEY)),
+            Long.parseLong(metadata.get(DataTable.TOTAL_DOCS_METADATA_KEY)));
+    return new CachedResults(resultsBlock, executionStatistics);
+  }
+
+  /**
+   * Cached segment level results block and execution statistics.
+   */
+  public static class CachedResults {
+    private final IntermediateResultsBlock _resultsBlock;
+    private final ExecutionStatistics _executionStatistics;
+
+    private CachedResults(IntermediateResultsBlock resultsBlock, ExecutionStatistics executionStatistics) {
+      _resultsBlock = resultsBlock;
+      _executionStatistics = executionStatistics;
+    }
+
+    public IntermediateResultsBlock getResultsBlock() {
+      return _resultsBlock;
+    }
+
+    public ExecutionStatistics getExecutionStatistics() {
+      return _executionStatistics;
+    }
+  }
+
+  /**
+   * Query part of the cache key, hash code is computed once per query.
+   */
+  public static class QueryKey {
+    private final BrokerRequest _brokerRequest;
+    private final int _hashCode;
+
+    private QueryKey(BrokerRequest brokerRequest) {
+      _brokerRequest = brokerRequest;
+      _hashCode = brokerRequest.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      QueryKey queryKey = (QueryKey) o;
+      return _hashCode == queryKey._hashCode && _brokerRequest.equals(queryKey._brokerRequest);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.query.config;
 
+import com.linkedin.pinot.core.common.datatable.DataTableBuilder;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
 
@@ -32,6 +33,30 @@ public class QueryExecutorConfig {
   public static final String QUERY_PLANNER = "queryPlanner";
   // Prefix key of TimeOut
   public static final String TIME_OUT = "timeout";
+  // Whether to execute segments on a shared fork-join pool with work-stealing
+  public static final String FORK_JOIN_ENABLED = "forkJoin.enabled";
+  // Parallelism of the shared fork-join pool
+  public static final String FORK_JOIN_PARALLELISM = "forkJoin.parallelism";
+  // Version of the data table sent back to broker
+  public static final String DATA_TABLE_VERSION = "dataTable.version";
+  // Whether to cache segment level results of aggregation queries on OFFLINE segments
+  public static final String SEGMENT_RESULT_CACHE_ENABLED = "segmentResultCache.enabled";
+  // Max total size of the (off-heap) segment result cache
+  public static final String SEGMENT_RESULT_CACHE_MAX_SIZE_IN_BYTES = "segmentResultCache.maxSizeInBytes";
+  // Max size of one segment level result in the cache, larger results are not cached
+  public static final String SEGMENT_RESULT_CACHE_MAX_ENTRY_SIZE_IN_BYTES = "segmentResultCache.maxEntrySizeInBytes";
+
+  // Whether to cache the docs matching the filters of queries on OFFLINE segments
+  public static final String FILTER_BITMAP_CACHE_ENABLED = "filterBitmapCache.enabled";
+  // Max total size of the (off-heap) filter bitmap cache
+  public static final String FILTER_BITMAP_CACHE_MAX_SIZE_IN_BYTES = "filterBitmapCache.maxSizeInBytes";
+  // Max size of one serialized bitmap in the cache, larger bitmaps are not cached
+  public static final String FILTER_BITMAP_CACHE_MAX_ENTRY_SIZE_IN_BYTES = "filterBitmapCache.maxEntrySizeInBytes";
+
+  private static final long DEFAULT_SEGMENT_RESULT_CACHE_MAX_SIZE_IN_BYTES = 256 * 1024 * 1024L;
+  private static final int DEFAULT_SEGMENT_RESULT_CACHE_MAX_ENTRY_SIZE_IN_BYTES = 1024 * 1024;
+  private static final long DEFAULT_FILTER_BITMAP_CACHE_MAX_SIZE_IN_BYTES = 128 * 1024 * 1024L;
+  private static final int DEFAULT_FILTER_BITMAP_CACHE_MAX_ENTRY_SIZE_IN_BYTES = 4 * 1024 * 1024;
 
   private static final String[] REQUIRED_KEYS = {};
 
@@ -39,6 +64,15 @@ public class QueryExecutorConfig {
   private SegmentPrunerConfig _segmentPrunerConfig;
   private QueryPlannerConfig _queryPlannerConfig;
   private final long _timeOutMs;
+  private final boolean _forkJoinEnabled;
+  private final int _forkJoinParallelism;
+  private final int _dataTableVersion;
+  private final boolean _segmentResultCacheEnabled;
+  private final long _segmentResultCacheMaxSizeInBytes;
+  private final int _segmentResultCacheMaxEntrySizeInBytes;
+  private final boolean _filterBitmapCacheEnabled;
+  private final long _filterBitmapCacheMaxSizeInBytes;
+  private final int _filterBitmapCacheMaxEntrySizeInBytes;
 
   public QueryExecutorConfig(Configuration config) throws ConfigurationException {
     _queryExecutorConfig = config;
@@ -46,6 +80,20 @@ public class QueryExecutorConfig {
     _segmentPrunerConfig = new SegmentPrunerConfig(_queryExecutorConfig.subset(QUERY_PRUNER));
     _queryPlannerConfig = new QueryPlannerConfig(_queryExecutorConfig.subset(QUERY_PLANNER));
     _timeOutMs = _queryExecutorConfig.getLong(TIME_OUT, -1);
+    _forkJoinEnabled = _queryExecutorConfig.getBoolean(FORK_JOIN_ENABLED, false);
+    _forkJoinParallelism =
+        _queryExecutorConfig.getInt(FORK_JOIN_PARALLELISM, Runtime.getRuntime().availableProcessors());
+    _dataTableVersion = _queryExecutorConfig.getInt(DATA_TABLE_VERSION, DataTableBuilder.VERSION_2);
+    _segmentResultCacheEnabled = _queryExecutorConfig.getBoolean(SEGMENT_RESULT_CACHE_ENABLED, false);
+    _segmentResultCacheMaxSizeInBytes = _queryExecutorConfig.getLong(SEGMENT_RESULT_CACHE_MAX_SIZE_IN_BYTES,
+        DEFAULT_SEGMENT_RESULT_CACHE_MAX_SIZE_IN_BYTES);
+    _segmentResultCacheMaxEntrySizeInBytes = _queryExecutorConfig.getInt(SEGMENT_RESULT_CACHE_MAX_ENTRY_SIZE_IN_BYTES,
+        DEFAULT_SEGMENT_RESULT_CACHE_MAX_ENTRY_SIZE_IN_BYTES);
+    _filterBitmapCacheEnabled = _queryExecutorConfig.getBoolean(FILTER_BITMAP_CACHE_ENABLED, false);
+    _filterBitmapCacheMaxSizeInBytes = _queryExecutorConfig.getLong(FILTER_BITMAP_CACHE_MAX_SIZE_IN_BYTES,
+        DEFAULT_FILTER_BITMAP_CACHE_MAX_SIZE_IN_BYTES);
+    _filterBitmapCacheMaxEntrySizeInBytes = _queryExecutorConfig.getInt(FILTER_BITMAP_CACHE_MAX_ENTRY_SIZE_IN_BYTES,
+        DEFAULT_FILTER_BITMAP_CACHE_MAX_ENTRY_SIZE_IN_BYTES);
   }
 
   private void checkRequiredKeys() throws ConfigurationException {
@@ -71,4 +119,40 @@ public class QueryExecutorConfig {
   public long getTimeOut() {
     return _timeOutMs;
   }
+
+  public boolean isForkJoinEnabled() {
+    return _forkJoinEnabled;
+  }
+
+  public int getForkJoinParallelism() {
+    return _forkJoinParallelism;
+  }
+
+  public int getDataTableVersion() {
+    return _dataTableVersion;
+  }
+
+  public boolean isSegmentResultCacheEnabled() {
+    return _segmentResultCacheEnabled;
+  }
+
+  public long getSegmentResultCacheMaxSizeInBytes() {
+    return _segmentResultCacheMaxSizeInBytes;
+  }
+
+  public int getSegmentResultCacheMaxEntrySizeInBytes() {
+    return _segmentResultCacheMaxEntrySizeInBytes;
+  }
+
+  public boolean isFilterBitmapCacheEnabled() {
+    return _filterBitmapCacheEnabled;
+  }
+
+  public long getFilterBitmapCacheMaxSizeInBytes() {
+    return _filterBitmapCacheMaxSizeInBytes;
+  }
+
+  public int getFilterBitmapCacheMaxEntrySizeInBytes() {
+    return _filterBitmapCacheMaxEntrySizeInBytes;
+  }
 }
@@ -26,6 +26,7 @@ import com.linkedin.pinot.common.query.context.TimerContext;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.InstanceRequest;
 import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.common.datatable.DataTableBuilder;
 import com.linkedin.pinot.core.common.datatable.DataTableImplV2;
 import com.linkedin.pinot.core.data.manager.offline.InstanceDataManager;
 import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
@@ -34,6 +35,8 @@ import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.plan.Plan;
 import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
 import com.linkedin.pinot.core.plan.maker.PlanMaker;
+import com.linkedin.pinot.core.query.cache.FilterBitmapCache;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
 import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
 import com.linkedin.pinot.core.query.pruner.SegmentPrunerService;
 import com.linkedin.pinot.core.query.pruner.SegmentPrunerServiceImpl;
@@ -43,6 +46,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
 import org.slf4j.Logger;
@@ -60,6 +65,8 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
   private boolean _printQueryPlan = false;
   private final Map<String, Long> _resourceTimeOutMsMap = new ConcurrentHashMap<String, Long>();
   private ServerMetrics _serverMetrics;
+  // Shared across all tables when fork-join execution is enabled, null otherwise.
+  private ForkJoinPool _forkJoinPool = null;
 
   public ServerQueryExecutorV1Impl() {
   }
@@ -78,10 +85,41 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
       _defaultTimeOutMs = queryExecutorConfig.getTimeOut();
     }
     LOGGER.info("Default timeout for query executor : {}", _defaultTimeOutMs);
+    LOGGER.info("Data table version : {}", queryExecutorConfig.getDataTableVersion());
+    DataTableBuilder.setCurrentDataTableVersion(queryExecutorConfig.getDataTableVersion());
     LOGGER.info("Trying to build SegmentPrunerService");
     _segmentPrunerService = new SegmentPrunerServiceImpl(queryExecutorConfig.getPrunerConfig());
     LOGGER.info("Trying to build QueryPlanMaker");
-    _planMaker = new InstancePlanMakerImplV2(queryExecutorConfig);
+    SegmentResultCache segmentResultCache = null;
+    if (queryExecutorConfig.isSegmentResultCacheEnabled()) {
+      LOGGER.info("Trying to build SegmentResultCache with max size: {} bytes, max entry size: {} bytes",
+          queryExecutorConfig.getSegmentResultCacheMaxSizeInBytes(),
+          queryExecutorConfig.getSegmentResultCacheMaxEntrySizeInBytes());
+      segmentResultCache = new SegmentResultCache(queryExecutorConfig.getSegmentResultCacheMaxSizeInBytes(),
+          queryExecutorConfig.getSegmentResultCacheMaxEntrySizeInBytes());
+    }
+    FilterBitmapCache filterBitmapCache = null;
+    if (queryExecutorConfig.isFilterBitmapCacheEnabled()) {
+      LOGGER.info("Trying to build FilterBitmapCache with max size: {} bytes, max entry size: {} bytes",
+          queryExecutorConfig.getFilterBitmapCacheMaxSizeInBytes(),
+          queryExecutorConfig.getFilterBitmapCacheMaxEntrySizeInBytes());
+      filterBitmapCache = new FilterBitmapCache(queryExecutorConfig.getFilterBitmapCacheMaxSizeInBytes(),
+          queryExecutorConfig.getFilterBitmapCacheMaxEntrySizeInBytes(), _serverMetrics);
+    }
+    _planMaker = new InstancePlanMakerImplV2(queryExecutorConfig, segmentResultCache, filterBitmapCache);
+    // The table data managers invalidate the entries of replaced or removed segments in the registered caches.
+    if (_instanceDataManager != null) {
+      if (segmentResultCache != null) {
+        _instanceDataManager.registerSegmentCache(segmentResultCache);
+      }
+      if (filterBitmapCache != null) {
+        _instanceDataManager.registerSegmentCache(filterBitmapCache);
+      }
+    }
+    if (queryExecutorConfig.isForkJoinEnabled()) {
+      LOGGER.info("Trying to build ForkJoinPool with parallelism: {}", queryExecutorConfig.getForkJoinParallelism());
+      _forkJoinPool = new ForkJoinPool(queryExecutorConfig.getForkJoinParallelism());
+    }
     LOGGER.info("Trying to build QueryExecutorTimer");
   }
 
@@ -116,9 +154,13 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
       }
 
       TimerContext.Timer planBuildTimer = timerContext.startNewPhaseTimer(ServerQueryPhase.BUILD_QUERY_PLAN);
+      ExecutorService executorService = _forkJoinPool;
+      if (executorService == null) {
+        executorService =
+            _instanceDataManager.getTableDataManager(brokerRequest.getQuerySource().getTableName()).getExecutorService();
+      }
       final Plan globalQueryPlan = _planMaker.makeInterSegmentPlan(queryableSegmentDataManagerList, brokerRequest,
-          _instanceDataManager.getTableDataManager(brokerRequest.getQuerySource().getTableName()).getExecutorService(),
-          getResourceTimeOut(instanceRequest.getQuery()));
+          executorService, getResourceTimeOut(instanceRequest.getQuery()));
       planBuildTimer.stopAndRecord();
 
       if (_printQueryPlan) {
@@ -207,6 +249,9 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
   public synchronized void shutDown() {
     if (isStarted()) {
       _isStarted = false;
+      if (_forkJoinPool != null) {
+        _forkJoinPool.shutdown();
+      }
       LOGGER.info("QueryExecutor is shutDown!");
     } else {
       LOGGER.warn("QueryExecutor is already shutDown, won't do anything!");
@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.pruner;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
+import java.util.List;
+import org.apache.commons.configuration.Configuration;
+
+
+/**
+ * An implementation of SegmentPruner.
+ * Pruner will prune segment if the column bloom filters show that the EQ/IN predicates of the query cannot match any
+ * document in the segment. Segments or columns without bloom filter are never pruned.
+ */
+public class BloomFilterSegmentPruner implements SegmentPruner {
+  @Override
+  public boolean prune(IndexSegment segment, BrokerRequest brokerRequest) {
+    if (!(segment instanceof IndexSegmentImpl)) {
+      return false;
+    }
+    FilterQueryTree filterQueryTree = RequestUtils.generateFilterQueryTree(brokerRequest);
+    if (filterQueryTree == null) {
+      return false;
+    }
+    return !mightMatch((IndexSegmentImpl) segment, filterQueryTree);
+  }
+
+  /**
+   * Returns false if the filter definitely matches no document in the segment, true otherwise.
+   */
+  private static boolean mightMatch(IndexSegmentImpl segment, FilterQueryTree filterQueryTree) {
+    List<FilterQueryTree> children = filterQueryTree.getChildren();
+    switch (filterQueryTree.getOperator()) {
+      case AND:
+        for (FilterQueryTree child : children) {
+          if (!mightMatch(segment, child)) {
+            return false;
+          }
+        }
+        return true;
+      case OR:
+        for (FilterQueryTree child : children) {
+          if (mightMatch(segment, child)) {
+            return true;
+          }
+        }
+        return false;
+      case EQUALITY:
+      case IN:
+        BloomFilterReader bloomFilter = segment.getBloomFilterFor(filterQueryTree.getColumn());
+        if (bloomFilter == null) {
+          return true;
+        }
+        for (String value : filterQueryTree.getValue()) {
+          for (String inValue : value.split(V1Constants.QUERY_RHS_DELIMITER)) {
+            if (bloomFilter.mightContain(inValue)) {
+              return true;
+            }
+          }
+        }
+        return false;
+      default:
+        return true;
+    }
+  }
+
+  @Override
+  public void init(Configuration config) {
+
+  }
+
+  @Override
+  public String toString() {
+    return "BloomFilterSegmentPruner";
+  }
+}
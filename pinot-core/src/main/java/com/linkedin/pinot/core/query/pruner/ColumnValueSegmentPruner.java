@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.pruner;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.common.predicate.RangePredicate;
+import com.linkedin.pinot.core.data.partition.PartitionFunction;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.util.TypedValueUtils;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.configuration.Configuration;
+
+
+/**
+ * An implementation of SegmentPruner.
+ * Pruner will prune segment if the column min/max values and partitions recorded in the segment metadata show that the
+ * EQ/IN/RANGE predicates of the query cannot match any document in the segment. AND/OR of predicates are evaluated
+ * recursively. Columns without min/max values or partitions are never pruned.
+ */
+public class ColumnValueSegmentPruner implements SegmentPruner {
+  // Unbounded side of a RANGE predicate.
+  private static final String UNBOUNDED = "*";
+
+  @Override
+  public boolean prune(IndexSegment segment, BrokerRequest brokerRequest) {
+    SegmentMetadata segmentMetadata = segment.getSegmentMetadata();
+    if (!(segmentMetadata instanceof SegmentMetadataImpl)) {
+      return false;
+    }
+    FilterQueryTree filterQueryTree = RequestUtils.generateFilterQueryTree(brokerRequest);
+    if (filterQueryTree == null) {
+      return false;
+    }
+    return !mightMatch(((SegmentMetadataImpl) segmentMetadata).getColumnMetadataMap(), filterQueryTree);
+  }
+
+  /**
+   * Returns false if the filter definitely matches no document in the segment, true otherwise.
+   */
+  private static boolean mightMatch(Map<String, ColumnMetadata> columnMetadataMap, FilterQueryTree filterQueryTree) {
+    List<FilterQueryTree> children = filterQueryTree.getChildren();
+    switch (filterQueryTree.getOperator()) {
+      case AND:
+        for (FilterQueryTree child : children) {
+          if (!mightMatch(columnMetadataMap, child)) {
+            return false;
+          }
+        }
+        return true;
+      case OR:
+        for (FilterQueryTree child : children) {
+          if (mightMatch(columnMetadataMap, child)) {
+            return true;
+          }
+        }
+        return false;
+      case EQUALITY:
+      case IN:
+        ColumnMetadata columnMetadata = columnMetadataMap.get(filterQueryTree.getColumn());
+        if (columnMetadata == null) {
+          return true;
+        }
+        for (String value : filterQueryTree.getValue()) {
+          for (String inValue : value.split(V1Constants.QUERY_RHS_DELIMITER)) {
+            if (mightContain(columnMetadata, inValue)) {
+              return true;
+            }
+          }
+        }
+        return false;
+      case RANGE:
+        columnMetadata = columnMetadataMap.get(filterQueryTree.getColumn());
+        if (columnMetadata == null) {
+          return true;
+        }
+        return mightOverlap(columnMetadata,
+            new RangePredicate(filterQueryTree.getColumn(), filterQueryTree.getValue()));
+      default:
+        return true;
+    }
+  }
+
+  /**
+   * Returns false if the column definitely does not contain the value, true otherwise.
+   */
+  private static boolean mightContain(ColumnMetadata columnMetadata, String value) {
+    Comparable<Object> typedValue;
+    try {
+      typedValue = TypedValueUtils.parse(columnMetadata.getDataType(), value);
+    } catch (NumberFormatException e) {
+      return true;
+    }
+
+    Comparable<Object> minValue = columnMetadata.getMinValue();
+    Comparable<Object> maxValue = columnMetadata.getMaxValue();
+    if (minValue != null && maxValue != null) {
+      if (typedValue.compareTo(minValue) < 0 || typedValue.compareTo(maxValue) > 0) {
+        return false;
+      }
+    }
+
+    PartitionFunction partitionFunction = columnMetadata.getPartitionFunction();
+    Set<Integer> partitions = columnMetadata.getPartitions();
+    if (partitionFunction != null && partitions != null) {
+      return partitions.contains(partitionFunction.getPartition(typedValue));
+    }
+    return true;
+  }
+
+  /**
+   * Returns false if the range definitely does not overlap with the column min/max values, true otherwise.
+   */
+  private static boolean mightOverlap(ColumnMetadata columnMetadata, RangePredicate rangePredicate) {
+    Comparable<Object> minValue = columnMetadata.getMinValue();
+    Comparable<Object> maxValue = columnMetadata.getMaxValue();
+    if (minValue == null || maxValue == null) {
+      return true;
+    }
+    // With the legacy padding character, the order of the padded string values in the dictionary differs from the
+    // natural order of the string values.
+    if (columnMetadata.getDataType() == FieldSpec.DataType.STRING
+        && columnMetadata.getPaddingCharacter() != V1Constants.Str.DEFAULT_STRING_PAD_CHAR) {
+      return true;
+    }
+
+    try {
+      String lowerBoundary = rangePredicate.getLowerBoundary();
+      if (!lowerBoundary.equals(UNBOUNDED)) {
+        int compareResult = TypedValueUtils.parse(columnMetadata.getDataType(), lowerBoundary).compareTo(maxValue);
+        if (compareResult > 0 || (compareResult == 0 && !rangePredicate.includeLowerBoundary())) {
+          return false;
+        }
+      }
+      String upperBoundary = rangePredicate.getUpperBoundary();
+      if (!upperBoundary.equals(UNBOUNDED)) {
+        int compareResult = TypedValueUtils.parse(columnMetadata.getDataType(), upperBoundary).compareTo(minValue);
+        if (compareResult < 0 || (compareResult == 0 && !rangePredicate.includeUpperBoundary())) {
+          return false;
+        }
+      }
+    } catch (NumberFormatException e) {
+      return true;
+    }
+    return true;
+  }
+
+  @Override
+  public void init(Configuration config) {
+
+  }
+
+  @Override
+  public String toString() {
+    return "ColumnValueSegmentPruner";
+  }
+}
@@ -30,16 +30,40 @@ import com.linkedin.pinot.core.indexsegment.IndexSegment;
  *
  */
 public class TimeSegmentPruner implements SegmentPruner {
+  // The query time interval is the same for all the segments of a query, so cache the last parsed one instead of
+  // parsing it once per segment.
+  private volatile ParsedTimeInterval _lastParsedTimeInterval;
 
   @Override
   public boolean prune(IndexSegment segment, BrokerRequest brokerRequest) {
     Interval interval = segment.getSegmentMetadata().getTimeInterval();
-    if (interval != null && brokerRequest.getTimeInterval() != null && !new Interval(brokerRequest.getTimeInterval()).contains(interval)) {
+    String queryTimeInterval = brokerRequest.getTimeInterval();
+    if (interval != null && queryTimeInterval != null && !getQueryInterval(queryTimeInterval).contains(interval)) {
       return true;
     }
     return false;
   }
 
+  private Interval getQueryInterval(String queryTimeInterval) {
+    ParsedTimeInterval lastParsedTimeInterval = _lastParsedTimeInterval;
+    if (lastParsedTimeInterval != null && lastParsedTimeInterval._timeInterval.equals(queryTimeInterval)) {
+      return lastParsedTimeInterval._interval;
+    }
+    Interval interval = new Interval(queryTimeInterval);
+    _lastParsedTimeInterval = new ParsedTimeInterval(queryTimeInterval, interval);
+    return interval;
+  }
+
+  private static class ParsedTimeInterval {
+    private final String _timeInterval;
+    private final Interval _interval;
+
+    private ParsedTimeInterval(String timeInterval, Interval interval) {
+      _timeInterval = timeInterval;
+      _interval = interval;
+    }
+  }
+
   @Override
   public void init(Configuration config) {
 
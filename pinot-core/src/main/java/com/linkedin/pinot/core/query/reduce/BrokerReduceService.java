@@ -74,11 +74,7 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
     }
 
     BrokerResponseNative brokerResponseNative = new BrokerResponseNative();
-    List<QueryProcessingException> processingExceptions = brokerResponseNative.getProcessingExceptions();
-    long numDocsScanned = 0L;
-    long numEntriesScannedInFilter = 0L;
-    long numEntriesScannedPostFilter = 0L;
-    long numTotalRawDocs = 0L;
+    MetadataReducer metadataReducer = new MetadataReducer(brokerRequest, brokerResponseNative);
 
     // Cache a data schema from data tables (try to cache one with data rows associated with it).
     DataSchema cachedDataSchema = null;
@@ -89,38 +85,7 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
       Map.Entry<ServerInstance, DataTable> entry = iterator.next();
       ServerInstance serverInstance = entry.getKey();
       DataTable dataTable = entry.getValue();
-      Map<String, String> metadata = dataTable.getMetadata();
-
-      // Reduce on trace info.
-      if (brokerRequest.isEnableTrace()) {
-        brokerResponseNative.getTraceInfo()
-            .put(serverInstance.getHostname(), metadata.get(DataTable.TRACE_INFO_METADATA_KEY));
-      }
-
-      // Reduce on exceptions.
-      for (String key : metadata.keySet()) {
-        if (key.startsWith(DataTable.EXCEPTION_METADATA_KEY)) {
-          processingExceptions.add(new QueryProcessingException(Integer.parseInt(key.substring(9)), metadata.get(key)));
-        }
-      }
-
-      // Reduce on execution statistics.
-      String numDocsScannedString = metadata.get(DataTable.NUM_DOCS_SCANNED_METADATA_KEY);
-      if (numDocsScannedString != null) {
-        numDocsScanned += Long.parseLong(numDocsScannedString);
-      }
-      String numEntriesScannedInFilterString = metadata.get(DataTable.NUM_ENTRIES_SCANNED_IN_FILTER_METADATA_KEY);
-      if (numEntriesScannedInFilterString != null) {
-        numEntriesScannedInFilter += Long.parseLong(numEntriesScannedInFilterString);
-      }
-      String numEntriesScannedPostFilterString = metadata.get(DataTable.NUM_ENTRIES_SCANNED_POST_FILTER_METADATA_KEY);
-      if (numEntriesScannedPostFilterString != null) {
-        numEntriesScannedPostFilter += Long.parseLong(numEntriesScannedPostFilterString);
-      }
-      String numTotalRawDocsString = metadata.get(DataTable.TOTAL_DOCS_METADATA_KEY);
-      if (numTotalRawDocsString != null) {
-        numTotalRawDocs += Long.parseLong(numTotalRawDocsString);
-      }
+      metadataReducer.reduce(serverInstance, dataTable.getMetadata());
 
       // After processing the metadata, remove data tables without data rows inside.
       DataSchema dataSchema = dataTable.getDataSchema();
@@ -139,20 +104,9 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
       }
     }
 
-    // Set execution statistics.
-    brokerResponseNative.setNumDocsScanned(numDocsScanned);
-    brokerResponseNative.setNumEntriesScannedInFilter(numEntriesScannedInFilter);
-    brokerResponseNative.setNumEntriesScannedPostFilter(numEntriesScannedPostFilter);
-    brokerResponseNative.setTotalDocs(numTotalRawDocs);
-
-    // Update broker metrics.
+    // Set execution statistics and update broker metrics.
+    metadataReducer.setExecutionStatistics(brokerMetrics);
     String tableName = brokerRequest.getQuerySource().getTableName();
-    if (brokerMetrics != null) {
-      brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.DOCUMENTS_SCANNED, numDocsScanned);
-      brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.ENTRIES_SCANNED_IN_FILTER, numEntriesScannedInFilter);
-      brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.ENTRIES_SCANNED_POST_FILTER,
-          numEntriesScannedPostFilter);
-    }
 
     if (dataTableMap.isEmpty()) {
       // For empty data table map, construct empty result using the cached data schema.
@@ -303,7 +257,22 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
       }
     }
 
-    // Extract final results and set them into the broker response.
+    setAggregationResults(brokerResponseNative, aggregationFunctions, intermediateResults, dataSchema);
+  }
+
+  /**
+   * Extract final results from the merged intermediate results and set them into BrokerResponseNative passed in.
+   *
+   * @param brokerResponseNative broker response.
+   * @param aggregationFunctions array of aggregation functions.
+   * @param intermediateResults merged intermediate results.
+   * @param dataSchema data schema.
+   */
+  @SuppressWarnings("unchecked")
+  static void setAggregationResults(@Nonnull BrokerResponseNative brokerResponseNative,
+      @Nonnull AggregationFunction[] aggregationFunctions, @Nonnull Object[] intermediateResults,
+      @Nonnull DataSchema dataSchema) {
+    int numAggregationFunctions = aggregationFunctions.length;
     List<AggregationResult> reducedAggregationResults = new ArrayList<>(numAggregationFunctions);
     for (int i = 0; i < numAggregationFunctions; i++) {
       String formattedResult =
@@ -365,6 +334,23 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
       finalResultMaps[i] = finalResultMap;
     }
 
+    setGroupByResults(brokerResponseNative, aggregationFunctions, groupBy, columnNames, finalResultMaps);
+  }
+
+  /**
+   * Trim the final result maps to topN and set them into BrokerResponseNative passed in.
+   *
+   * @param brokerResponseNative broker response.
+   * @param aggregationFunctions array of aggregation functions.
+   * @param groupBy group-by information.
+   * @param columnNames column names for each aggregation function.
+   * @param finalResultMaps map from group key to final result for each aggregation function.
+   */
+  static void setGroupByResults(@Nonnull BrokerResponseNative brokerResponseNative,
+      @Nonnull AggregationFunction[] aggregationFunctions, @Nonnull GroupBy groupBy, @Nonnull String[] columnNames,
+      @Nonnull Map<String, Comparable>[] finalResultMaps) {
+    int numAggregationFunctions = aggregationFunctions.length;
+
     // Trim the final result maps to topN and set them into the broker response.
     AggregationGroupByTrimmingService aggregationGroupByTrimmingService =
         new AggregationGroupByTrimmingService(aggregationFunctions, (int) groupBy.getTopN());
@@ -380,4 +366,74 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
     }
     brokerResponseNative.setAggregationResults(aggregationResults);
   }
+
+  /**
+   * The <code>MetadataReducer</code> class reduces the metadata (trace info, exceptions and execution statistics) of
+   * the server responses into the broker response.
+   */
+  static class MetadataReducer {
+    private final BrokerRequest _brokerRequest;
+    private final BrokerResponseNative _brokerResponseNative;
+    private long _numDocsScanned = 0L;
+    private long _numEntriesScannedInFilter = 0L;
+    private long _numEntriesScannedPostFilter = 0L;
+    private long _numTotalRawDocs = 0L;
+
+    MetadataReducer(@Nonnull BrokerRequest brokerRequest, @Nonnull BrokerResponseNative brokerResponseNative) {
+      _brokerRequest = brokerRequest;
+      _brokerResponseNative = brokerResponseNative;
+    }
+
+    void reduce(@Nonnull ServerInstance serverInstance, @Nonnull Map<String, String> metadata) {
+      // Reduce on trace info.
+      if (_brokerRequest.isEnableTrace()) {
+        _brokerResponseNative.getTraceInfo()
+            .put(serverInstance.getHostname(), metadata.get(DataTable.TRACE_INFO_METADATA_KEY));
+      }
+
+      // Reduce on exceptions.
+      List<QueryProcessingException> processingExceptions = _brokerResponseNative.getProcessingExceptions();
+      for (String key : metadata.keySet()) {
+        if (key.startsWith(DataTable.EXCEPTION_METADATA_KEY)) {
+          processingExceptions.add(new QueryProcessingException(Integer.parseInt(key.substring(9)), metadata.get(key)));
+        }
+      }
+
+      // Reduce on execution statistics.
+      String numDocsScannedString = metadata.get(DataTable.NUM_DOCS_SCANNED_METADATA_KEY);
+      if (numDocsScannedString != null) {
+        _numDocsScanned += Long.parseLong(numDocsScannedString);
+      }
+      String numEntriesScannedInFilterString = metadata.get(DataTable.NUM_ENTRIES_SCANNED_IN_FILTER_METADATA_KEY);
+      if (numEntriesScannedInFilterString != null) {
+        _numEntriesScannedInFilter += Long.parseLong(numEntriesScannedInFilterString);
+      }
+      String numEntriesScannedPostFilterString = metadata.get(DataTable.NUM_ENTRIES_SCANNED_POST_FILTER_METADATA_KEY);
+      if (numEntriesScannedPostFilterString != null) {
+        _numEntriesScannedPostFilter += Long.parseLong(numEntriesScannedPostFilterString);
+      }
+      String numTotalRawDocsString = metadata.get(DataTable.TOTAL_DOCS_METADATA_KEY);
+      if (numTotalRawDocsString != null) {
+        _numTotalRawDocs += Long.parseLong(numTotalRawDocsString);
+      }
+    }
+
+    void setExecutionStatistics(@Nullable BrokerMetrics brokerMetrics) {
+      // Set execution statistics.
+      _brokerResponseNative.setNumDocsScanned(_numDocsScanned);
+      _brokerResponseNative.setNumEntriesScannedInFilter(_numEntriesScannedInFilter);
+      _brokerResponseNative.setNumEntriesScannedPostFilter(_numEntriesScannedPostFilter);
+      _brokerResponseNative.setTotalDocs(_numTotalRawDocs);
+
+      // Update broker metrics.
+      String tableName = _brokerRequest.getQuerySource().getTableName();
+      if (brokerMetrics != null) {
+        brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.DOCUMENTS_SCANNED, _numDocsScanned);
+        brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.ENTRIES_SCANNED_IN_FILTER,
+            _numEntriesScannedInFilter);
+        brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.ENTRIES_SCANNED_POST_FILTER,
+            _numEntriesScannedPostFilter);
+      }
+    }
+  }
 }
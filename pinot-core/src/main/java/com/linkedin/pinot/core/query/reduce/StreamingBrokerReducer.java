@@ -0,0 +1,297 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.reduce;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.utils.DataSchema;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import com.linkedin.pinot.core.query.aggregation.function.CountAggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.MaxAggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.MinAggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.SumAggregationFunction;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+
+/**
+ * The <code>StreamingBrokerReducer</code> class reduces data tables for aggregation and aggregation group-by queries
+ * one at a time, so that server responses can be merged as soon as they arrive instead of after all servers replied.
+ * <p>The merged group-by results are kept in primitive structures for COUNT, SUM, MIN and MAX, so that the final step
+ * only extracts the final results and trims them.
+ * <p>Selection queries are not supported, use {@link BrokerReduceService} instead.
+ */
+@NotThreadSafe
+public class StreamingBrokerReducer {
+  private final BrokerRequest _brokerRequest;
+  private final BrokerMetrics _brokerMetrics;
+  private final AggregationFunction[] _aggregationFunctions;
+  private final int _numAggregationFunctions;
+  private final BrokerResponseNative _brokerResponseNative = new BrokerResponseNative();
+  private final BrokerReduceService.MetadataReducer _metadataReducer;
+
+  // For aggregation only query.
+  private final Object[] _intermediateResults;
+  private DataSchema _dataSchema;
+
+  // For aggregation group-by query.
+  private final String[] _columnNames;
+  private final GroupByMergeState[] _groupByMergeStates;
+
+  private int _numDataTablesReduced = 0;
+
+  /**
+   * Returns whether the given broker request can be reduced with this class.
+   */
+  public static boolean isSupported(@Nonnull BrokerRequest brokerRequest) {
+    return brokerRequest.isSetAggregationsInfo() && !brokerRequest.isSetSelections();
+  }
+
+  public StreamingBrokerReducer(@Nonnull BrokerRequest brokerRequest, @Nullable BrokerMetrics brokerMetrics) {
+    _brokerRequest = brokerRequest;
+    _brokerMetrics = brokerMetrics;
+    _aggregationFunctions = AggregationFunctionUtils.getAggregationFunctions(brokerRequest.getAggregationsInfo());
+    _numAggregationFunctions = _aggregationFunctions.length;
+    _metadataReducer = new BrokerReduceService.MetadataReducer(brokerRequest, _brokerResponseNative);
+
+    if (brokerRequest.isSetGroupBy()) {
+      _intermediateResults = null;
+      _columnNames = new String[_numAggregationFunctions];
+      _groupByMergeStates = new GroupByMergeState[_numAggregationFunctions];
+      for (int i = 0; i < _numAggregationFunctions; i++) {
+        _groupByMergeStates[i] = new GroupByMergeState(_aggregationFunctions[i]);
+      }
+    } else {
+      _intermediateResults = new Object[_numAggregationFunctions];
+      _columnNames = null;
+      _groupByMergeStates = null;
+    }
+  }
+
+  /**
+   * Merge one data table into the reduced results.
+   *
+   * @param serverInstance server the data table comes from.
+   * @param dataTable data table.
+   */
+  @SuppressWarnings("unchecked")
+  public void reduce(@Nonnull ServerInstance serverInstance, @Nonnull DataTable dataTable) {
+    _numDataTablesReduced++;
+    _metadataReducer.reduce(serverInstance, dataTable.getMetadata());
+
+    // Skip data tables without data rows inside.
+    DataSchema dataSchema = dataTable.getDataSchema();
+    if (dataSchema == null || dataTable.getNumberOfRows() == 0) {
+      return;
+    }
+
+    if (_groupByMergeStates == null) {
+      // Aggregation only query.
+      _dataSchema = dataSchema;
+      for (int i = 0; i < _numAggregationFunctions; i++) {
+        Object intermediateResultToMerge;
+        FieldSpec.DataType columnType = dataSchema.getColumnType(i);
+        switch (columnType) {
+          case LONG:
+            intermediateResultToMerge = dataTable.getLong(0, i);
+            break;
+          case DOUBLE:
+            intermediateResultToMerge = dataTable.getDouble(0, i);
+            break;
+          case OBJECT:
+            intermediateResultToMerge = dataTable.getObject(0, i);
+            break;
+          default:
+            throw new IllegalStateException("Illegal column type in aggregation results: " + columnType);
+        }
+        Object mergedIntermediateResult = _intermediateResults[i];
+        if (mergedIntermediateResult == null) {
+          _intermediateResults[i] = intermediateResultToMerge;
+        } else {
+          _intermediateResults[i] = _aggregationFunctions[i].merge(mergedIntermediateResult, intermediateResultToMerge);
+        }
+      }
+    } else {
+      // Aggregation group-by query.
+      for (int i = 0; i < _numAggregationFunctions; i++) {
+        if (_columnNames[i] == null) {
+          _columnNames[i] = dataTable.getString(i, 0);
+        }
+        Map<String, Object> intermediateResultMapToMerge = dataTable.getObject(i, 1);
+        _groupByMergeStates[i].merge(intermediateResultMapToMerge);
+      }
+    }
+  }
+
+  public int getNumDataTablesReduced() {
+    return _numDataTablesReduced;
+  }
+
+  /**
+   * Build the broker response from the reduced results. Should be called after all data tables are reduced.
+   *
+   * @return broker response.
+   */
+  @Nonnull
+  public BrokerResponseNative getBrokerResponse() {
+    if (_numDataTablesReduced == 0) {
+      // Empty response.
+      return BrokerResponseNative.empty();
+    }
+
+    _metadataReducer.setExecutionStatistics(_brokerMetrics);
+    if (_groupByMergeStates == null) {
+      if (_dataSchema != null) {
+        BrokerReduceService.setAggregationResults(_brokerResponseNative, _aggregationFunctions, _intermediateResults,
+            _dataSchema);
+      }
+    } else {
+      if (_columnNames[0] != null) {
+        @SuppressWarnings("unchecked")
+        Map<String, Comparable>[] finalResultMaps = new Map[_numAggregationFunctions];
+        for (int i = 0; i < _numAggregationFunctions; i++) {
+          finalResultMaps[i] = _groupByMergeStates[i].getFinalResultMap();
+        }
+        BrokerReduceService.setGroupByResults(_brokerResponseNative, _aggregationFunctions, _brokerRequest.getGroupBy(),
+            _columnNames, finalResultMaps);
+      }
+    }
+    return _brokerResponseNative;
+  }
+
+  /**
+   * Merged group-by results of one aggregation function. Each group key is mapped to an index into the value list,
+   * values are stored as primitives when the merge operation is known.
+   */
+  private static class GroupByMergeState {
+    private enum MergeType {
+      LONG_SUM,
+      DOUBLE_SUM,
+      DOUBLE_MIN,
+      DOUBLE_MAX,
+      OBJECT
+    }
+
+    private final AggregationFunction _aggregationFunction;
+    private final MergeType _mergeType;
+    private final Object2IntOpenHashMap<String> _groupKeyToIndex = new Object2IntOpenHashMap<>();
+    private final LongArrayList _longValues;
+    private final DoubleArrayList _doubleValues;
+    private final ObjectArrayList<Object> _objectValues;
+
+    GroupByMergeState(AggregationFunction aggregationFunction) {
+      _aggregationFunction = aggregationFunction;
+      if (aggregationFunction instanceof CountAggregationFunction) {
+        _mergeType = MergeType.LONG_SUM;
+      } else if (aggregationFunction instanceof SumAggregationFunction) {
+        _mergeType = MergeType.DOUBLE_SUM;
+      } else if (aggregationFunction instanceof MinAggregationFunction) {
+        _mergeType = MergeType.DOUBLE_MIN;
+      } else if (aggregationFunction instanceof MaxAggregationFunction) {
+        _mergeType = MergeType.DOUBLE_MAX;
+      } else {
+        _mergeType = MergeType.OBJECT;
+      }
+      _longValues = (_mergeType == MergeType.LONG_SUM) ? new LongArrayList() : null;
+      _doubleValues = (_mergeType == MergeType.DOUBLE_SUM || _mergeType == MergeType.DOUBLE_MIN
+          || _mergeType == MergeType.DOUBLE_MAX) ? new DoubleArrayList() : null;
+      _objectValues = (_mergeType == MergeType.OBJECT) ? new ObjectArrayList<>() : null;
+      _groupKeyToIndex.defaultReturnValue(-1);
+    }
+
+    @SuppressWarnings("unchecked")
+    void merge(Map<String, Object> intermediateResultMap) {
+      for (Map.Entry<String, Object> entry : intermediateResultMap.entrySet()) {
+        String groupKey = entry.getKey();
+        Object intermediateResult = entry.getValue();
+        int index = _groupKeyToIndex.getInt(groupKey);
+        if (index == -1) {
+          _groupKeyToIndex.put(groupKey, _groupKeyToIndex.size());
+          switch (_mergeType) {
+            case LONG_SUM:
+              _longValues.add(((Number) intermediateResult).longValue());
+              break;
+            case DOUBLE_SUM:
+            case DOUBLE_MIN:
+            case DOUBLE_MAX:
+              _doubleValues.add(((Number) intermediateResult).doubleValue());
+              break;
+            default:
+              _objectValues.add(intermediateResult);
+              break;
+          }
+        } else {
+          switch (_mergeType) {
+            case LONG_SUM:
+              _longValues.set(index, _longValues.getLong(index) + ((Number) intermediateResult).longValue());
+              break;
+            case DOUBLE_SUM:
+              _doubleValues.set(index, _doubleValues.getDouble(index) + ((Number) intermediateResult).doubleValue());
+              break;
+            case DOUBLE_MIN:
+              _doubleValues.set(index,
+                  Math.min(_doubleValues.getDouble(index), ((Number) intermediateResult).doubleValue()));
+              break;
+            case DOUBLE_MAX:
+              _doubleValues.set(index,
+                  Math.max(_doubleValues.getDouble(index), ((Number) intermediateResult).doubleValue()));
+              break;
+            default:
+              _objectValues.set(index, _aggregationFunction.merge(_objectValues.get(index), intermediateResult));
+              break;
+          }
+        }
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    Map<String, Comparable> getFinalResultMap() {
+      Map<String, Comparable> finalResultMap = new HashMap<>(_groupKeyToIndex.size());
+      for (Object2IntMap.Entry<String> entry : _groupKeyToIndex.object2IntEntrySet()) {
+        int index = entry.getIntValue();
+        Comparable finalResult;
+        switch (_mergeType) {
+          case LONG_SUM:
+            finalResult = _longValues.getLong(index);
+            break;
+          case DOUBLE_SUM:
+          case DOUBLE_MIN:
+          case DOUBLE_MAX:
+            finalResult = _doubleValues.getDouble(index);
+            break;
+          default:
+            finalResult = _aggregationFunction.extractFinalResult(_objectValues.get(index));
+            break;
+        }
+        finalResultMap.put(entry.getKey(), finalResult);
+      }
+      return finalResultMap;
+    }
+  }
+}
@@ -0,0 +1,311 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.metrics.ServerQueryPhase;
+import com.linkedin.pinot.common.query.QueryExecutor;
+import com.linkedin.pinot.common.query.QueryRequest;
+import com.linkedin.pinot.common.query.context.TimerContext;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.common.datatable.DataTableImplV2;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nonnull;
+import org.apache.commons.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Query scheduler with one queue per table and weighted fair sharing of the query runner threads across tables.
+ *
+ * <ul>
+ *   <li>Each table has its own FIFO queue of pending queries.</li>
+ *   <li>Each table accumulates a virtual time, which is the query runner time consumed by the table divided by its
+ *   weight. The dispatcher always picks the next query from the non-empty queue with the lowest virtual time, so an
+ *   expensive table can not starve the other tables.</li>
+ *   <li>The number of concurrently running queries per table is capped, so that one table can not hold all the query
+ *   runner threads.</li>
+ *   <li>Admission control: queries are rejected immediately when the queue of the table or the total number of
+ *   pending queries exceeds the configured limit.</li>
+ * </ul>
+ *
+ * Time spent in the queue is reported as {@link ServerQueryPhase#SCHEDULER_WAIT}.
+ *
+ * Configs (under the scheduler config prefix):
+ * <ul>
+ *   <li>max_pending_per_table: max number of pending queries per table.</li>
+ *   <li>max_pending: max number of pending queries across all tables.</li>
+ *   <li>max_concurrent_per_table: max number of concurrently running queries per table (default half of the query
+ *   runner threads).</li>
+ *   <li>table_weight.[tableName]: weight of the table (default 1), tables with higher weight get a larger share.</li>
+ * </ul>
+ *
+ * The queue of a table is dropped once the table is idle and the system virtual time has caught up with its virtual
+ * time, or once all the tables are idle, so that tables which stopped receiving queries do not accumulate.
+ */
+public class FairShareQueryScheduler extends QueryScheduler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(FairShareQueryScheduler.class);
+
+  public static final String MAX_PENDING_PER_TABLE_CONFIG_KEY = "max_pending_per_table";
+  public static final String MAX_PENDING_CONFIG_KEY = "max_pending";
+  public static final String MAX_CONCURRENT_PER_TABLE_CONFIG_KEY = "max_concurrent_per_table";
+  public static final String TABLE_WEIGHT_CONFIG_PREFIX = "table_weight";
+
+  public static final int DEFAULT_MAX_PENDING_PER_TABLE = 100;
+  public static final int DEFAULT_MAX_PENDING = 1000;
+  public static final double DEFAULT_TABLE_WEIGHT = 1.0;
+  // Default max number of concurrently running queries per table, as a fraction of the query runner threads.
+  public static final double DEFAULT_MAX_CONCURRENT_PER_TABLE_RATIO = 0.5;
+
+  private final int _maxPendingPerTable;
+  private final int _maxPending;
+  private final int _maxConcurrentPerTable;
+  private final Configuration _tableWeightConfig;
+
+  private final ReentrantLock _lock = new ReentrantLock();
+  private final Condition _queryRunnable = _lock.newCondition();
+  // Guarded by _lock.
+  private final Map<String, TableQueue> _tableQueues = new HashMap<>();
+  private int _numPending = 0;
+  private double _systemVirtualTime = 0.0;
+
+  // One permit per query runner thread, so that queries are only handed to the runners when a thread is available, and
+  // all the scheduling decisions are made on the table queues.
+  private final Semaphore _runnerPermits;
+  private final Thread _dispatcherThread;
+  private volatile boolean _isRunning = true;
+
+  public FairShareQueryScheduler(@Nonnull Configuration schedulerConfig, @Nonnull QueryExecutor queryExecutor) {
+    super(schedulerConfig, queryExecutor);
+    Preconditions.checkNotNull(queryExecutor);
+
+    _maxPendingPerTable = schedulerConfig.getInt(MAX_PENDING_PER_TABLE_CONFIG_KEY, DEFAULT_MAX_PENDING_PER_TABLE);
+    _maxPending = schedulerConfig.getInt(MAX_PENDING_CONFIG_KEY, DEFAULT_MAX_PENDING);
+    _maxConcurrentPerTable = schedulerConfig.getInt(MAX_CONCURRENT_PER_TABLE_CONFIG_KEY,
+        Math.max((int) Math.ceil(numQueryRunnerThreads * DEFAULT_MAX_CONCURRENT_PER_TABLE_RATIO), 1));
+    Preconditions.checkArgument(_maxPendingPerTable > 0 && _maxPending > 0 && _maxConcurrentPerTable > 0);
+    _tableWeightConfig = schedulerConfig.subset(TABLE_WEIGHT_CONFIG_PREFIX);
+    LOGGER.info("Max pending queries per table: {}, max pending queries: {}, max concurrent queries per table: {}",
+        _maxPendingPerTable, _maxPending, _maxConcurrentPerTable);
+
+    _runnerPermits = new Semaphore(numQueryRunnerThreads);
+    _dispatcherThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        dispatch();
+      }
+    }, "FairShareQueryScheduler-dispatcher");
+    _dispatcherThread.setDaemon(true);
+    _dispatcherThread.start();
+  }
+
+  @Override
+  public ListenableFuture<DataTable> submit(final QueryRequest queryRequest) {
+    TimerContext.Timer schedulerWaitTimer =
+        queryRequest.getTimerContext().startNewPhaseTimer(ServerQueryPhase.SCHEDULER_WAIT);
+    String tableName = queryRequest.getTableName();
+    ListenableFutureTask<DataTable> queryTask = ListenableFutureTask.create(new Callable<DataTable>() {
+      @Override
+      public DataTable call() {
+        return queryExecutor.processQuery(queryRequest);
+      }
+    });
+
+    _lock.lock();
+    try {
+      TableQueue tableQueue = _tableQueues.get(tableName);
+      if (tableQueue == null) {
+        tableQueue = new TableQueue(tableName, _tableWeightConfig.getDouble(tableName, DEFAULT_TABLE_WEIGHT));
+        _tableQueues.put(tableName, tableQueue);
+      }
+      if (tableQueue._pendingQueries.size() >= _maxPendingPerTable || _numPending >= _maxPending) {
+        schedulerWaitTimer.stopAndRecord();
+        return rejectQuery(queryRequest, tableQueue._pendingQueries.size());
+      }
+      if (tableQueue.isIdle()) {
+        // Do not let a table accumulate credit while it has no queries.
+        tableQueue._virtualTime = Math.max(tableQueue._virtualTime, _systemVirtualTime);
+      }
+      tableQueue._pendingQueries.addLast(queryTask);
+      _numPending++;
+      _queryRunnable.signal();
+    } finally {
+      _lock.unlock();
+    }
+    return queryTask;
+  }
+
+  /**
+   * Stops the dispatcher thread. Queries still pending are not executed.
+   */
+  public void stop() {
+    _isRunning = false;
+    _dispatcherThread.interrupt();
+  }
+
+  /**
+   * Dispatcher loop: waits for a free query runner thread, then hands the next query picked by the fair share policy
+   * to the query runners.
+   */
+  private void dispatch() {
+    while (_isRunning) {
+      try {
+        _runnerPermits.acquire();
+      } catch (InterruptedException e) {
+        LOGGER.info("Query scheduler dispatcher interrupted, exiting");
+        return;
+      }
+
+      TableQueue nextTableQueue;
+      ListenableFutureTask<DataTable> queryTask;
+      _lock.lock();
+      try {
+        while ((nextTableQueue = pickNextTableQueue()) == null) {
+          _queryRunnable.await();
+        }
+        queryTask = nextTableQueue._pendingQueries.pollFirst();
+        nextTableQueue._numRunning++;
+        _numPending--;
+        _systemVirtualTime = nextTableQueue._virtualTime;
+      } catch (InterruptedException e) {
+        LOGGER.info("Query scheduler dispatcher interrupted, exiting");
+        _runnerPermits.release();
+        return;
+      } finally {
+        _lock.unlock();
+      }
+
+      final TableQueue tableQueue = nextTableQueue;
+      final long startTimeNs = System.nanoTime();
+      queryTask.addListener(new Runnable() {
+        @Override
+        public void run() {
+          onQueryFinished(tableQueue, System.nanoTime() - startTimeNs);
+        }
+      }, MoreExecutors.directExecutor());
+      try {
+        queryRunners.execute(queryTask);
+      } catch (Exception e) {
+        LOGGER.error("Caught exception while submitting query for table: {}", tableQueue._tableName, e);
+        queryTask.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * Helper method to pick the table queue to run the next query from. Should be called when holding the lock.
+   * <p>Also drops the idle table queues whose virtual time is not ahead of the system virtual time (a new queue for
+   * the table would start from the system virtual time anyway), and all the table queues once they are all idle.
+   *
+   * @return table queue with the lowest virtual time which has pending queries and is under the concurrency limit, or
+   * null if no such table queue.
+   */
+  private TableQueue pickNextTableQueue() {
+    TableQueue nextTableQueue = null;
+    boolean allIdle = true;
+    Iterator<TableQueue> iterator = _tableQueues.values().iterator();
+    while (iterator.hasNext()) {
+      TableQueue tableQueue = iterator.next();
+      if (tableQueue.isIdle()) {
+        if (tableQueue._virtualTime <= _systemVirtualTime) {
+          iterator.remove();
+        }
+        continue;
+      }
+      allIdle = false;
+      if (!tableQueue._pendingQueries.isEmpty() && tableQueue._numRunning < _maxConcurrentPerTable) {
+        if (nextTableQueue == null || tableQueue._virtualTime < nextTableQueue._virtualTime) {
+          nextTableQueue = tableQueue;
+        }
+      }
+    }
+    if (allIdle) {
+      _tableQueues.clear();
+    }
+    return nextTableQueue;
+  }
+
+  @VisibleForTesting
+  int getNumTableQueues() {
+    _lock.lock();
+    try {
+      return _tableQueues.size();
+    } finally {
+      _lock.unlock();
+    }
+  }
+
+  private void onQueryFinished(TableQueue tableQueue, long runTimeNs) {
+    _lock.lock();
+    try {
+      tableQueue._numRunning--;
+      tableQueue._virtualTime += runTimeNs / tableQueue._weight;
+      _queryRunnable.signal();
+    } finally {
+      _lock.unlock();
+    }
+    _runnerPermits.release();
+  }
+
+  private ListenableFuture<DataTable> rejectQuery(QueryRequest queryRequest, int numPendingForTable) {
+    LOGGER.warn("Rejecting query for table: {}, pending queries for table: {}, total pending queries: {}",
+        queryRequest.getTableName(), numPendingForTable, _numPending);
+    ServerMetrics serverMetrics = queryRequest.getServerMetrics();
+    if (serverMetrics != null) {
+      serverMetrics.addMeteredTableValue(queryRequest.getTableName(), ServerMeter.SCHEDULER_REJECTED_QUERIES, 1);
+    }
+    DataTable result = new DataTableImplV2();
+    result.addException(QueryException.SERVER_OUT_OF_CAPACITY_ERROR);
+    return Futures.immediateFuture(result);
+  }
+
+  /**
+   * Pending queries and scheduling state of one table. Should only be accessed when holding the lock.
+   */
+  private static class TableQueue {
+    final String _tableName;
+    final double _weight;
+    final ArrayDeque<ListenableFutureTask<DataTable>> _pendingQueries = new ArrayDeque<>();
+    int _numRunning = 0;
+    double _virtualTime = 0.0;
+
+    TableQueue(String tableName, double weight) {
+      Preconditions.checkArgument(weight > 0, "Table weight must be positive for table: %s", tableName);
+      _tableName = tableName;
+      _weight = weight;
+    }
+
+    boolean isIdle() {
+      return _pendingQueries.isEmpty() && _numRunning == 0;
+    }
+  }
+}
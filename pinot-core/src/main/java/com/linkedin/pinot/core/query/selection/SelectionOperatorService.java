@@ -73,6 +73,7 @@ public class SelectionOperatorService {
   private final int _maxNumRows;
   private final PriorityQueue<Serializable[]> _rows;
 
+  private PriorityQueue<Integer> _rowDocIdPriorityQueue;
   private long _numDocsScanned = 0;
 
   /**
@@ -266,27 +267,44 @@ public class SelectionOperatorService {
   }
 
   /**
-   * Iterate over {@link Block}s, extract values from them and merge the values to the selection results for selection
+   * Iterate over the documents of a block and keep the document ids of the top rows of the segment for selection
    * queries with <code>ORDER BY</code>. (Inner segment)
+   * <p>Only the <code>ORDER BY</code> columns are read here (comparing dictionary ids for sorted dictionaries), the
+   * selection rows get materialized once for the surviving documents by {@link #fetchRowsWithOrdering(Block[])}.
    *
    * @param blockDocIdIterator block document id iterator.
-   * @param blocks {@link Block} array.
+   * @param blocks {@link Block} array covering all documents of the segment, with the <code>ORDER BY</code> columns
+   *               first.
    */
   public void iterateOnBlocksWithOrdering(@Nonnull BlockDocIdIterator blockDocIdIterator, @Nonnull Block[] blocks) {
-    Comparator<Integer> rowDocIdComparator = new CompositeDocIdValComparator(_sortSequence, blocks);
-    PriorityQueue<Integer> rowDocIdPriorityQueue = new PriorityQueue<>(_maxNumRows, rowDocIdComparator);
+    if (_rowDocIdPriorityQueue == null) {
+      Comparator<Integer> rowDocIdComparator = new CompositeDocIdValComparator(_sortSequence, blocks);
+      _rowDocIdPriorityQueue = new PriorityQueue<>(_maxNumRows, rowDocIdComparator);
+    }
     int docId;
     while ((docId = blockDocIdIterator.next()) != Constants.EOF) {
       _numDocsScanned++;
-      SelectionOperatorUtils.addToPriorityQueue(docId, rowDocIdPriorityQueue, _maxNumRows);
+      SelectionOperatorUtils.addToPriorityQueue(docId, _rowDocIdPriorityQueue, _maxNumRows);
     }
+  }
 
+  /**
+   * Extract values for the documents kept by {@link #iterateOnBlocksWithOrdering(BlockDocIdIterator, Block[])} and
+   * merge them to the selection results for selection queries with <code>ORDER BY</code>. (Inner segment)
+   *
+   * @param blocks {@link Block} array covering all documents of the segment.
+   */
+  public void fetchRowsWithOrdering(@Nonnull Block[] blocks) {
+    if (_rowDocIdPriorityQueue == null) {
+      return;
+    }
     SelectionFetcher selectionFetcher = new SelectionFetcher(blocks, _dataSchema);
-    Collection<Serializable[]> rows = new ArrayList<>(rowDocIdPriorityQueue.size());
-    for (int rowDocId : rowDocIdPriorityQueue) {
+    Collection<Serializable[]> rows = new ArrayList<>(_rowDocIdPriorityQueue.size());
+    for (int rowDocId : _rowDocIdPriorityQueue) {
       rows.add(selectionFetcher.getRow(rowDocId));
     }
     SelectionOperatorUtils.mergeWithOrdering(_rows, rows, _maxNumRows);
+    _rowDocIdPriorityQueue = null;
   }
 
   /**
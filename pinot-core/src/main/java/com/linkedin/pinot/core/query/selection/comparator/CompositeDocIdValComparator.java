@@ -21,6 +21,7 @@ import java.util.List;
 
 import com.linkedin.pinot.common.request.SelectionSort;
 import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
 
 /**
  * Comparator to order the doc id based on sort sequence across multiple blocks
@@ -44,8 +45,14 @@ public final class CompositeDocIdValComparator implements Comparator<Integer> {
       }
 
       if (blocks[i].getMetadata().hasDictionary()) {
-        docIdValComparators[i] =
-            new DocIdIntValComparator(blocks[i], sortSequence.get(i).isIsAsc());
+        // Dictionary ids follow the order of the values only for sorted (immutable) dictionaries
+        if (blocks[i].getMetadata().getDictionary() instanceof ImmutableDictionaryReader) {
+          docIdValComparators[i] =
+              new DocIdIntValComparator(blocks[i], sortSequence.get(i).isIsAsc());
+        } else {
+          docIdValComparators[i] =
+              new DocIdDictValComparator(blocks[i], sortSequence.get(i).isIsAsc());
+        }
       } else {
         switch (blocks[i].getMetadata().getDataType()) {
         case INT:
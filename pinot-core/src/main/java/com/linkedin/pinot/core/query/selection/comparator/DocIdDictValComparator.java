@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.selection.comparator;
+
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+
+/**
+ * Comparator for dictionary encoded columns whose dictionary ids are not in the order of the values (e.g. mutable
+ * dictionaries of realtime segments), so the values have to be looked up in the dictionary.
+ */
+public class DocIdDictValComparator implements IDocIdValComparator {
+
+  int orderToggleMultiplier = 1;
+  private final BlockSingleValIterator blockValSetIterator;
+  private final Dictionary dictionary;
+
+  public DocIdDictValComparator(Block block, boolean ascending) {
+    blockValSetIterator = (BlockSingleValIterator) block.getBlockValueSet().iterator();
+    dictionary = block.getMetadata().getDictionary();
+    if (ascending) {
+      orderToggleMultiplier = -1;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  public int compare(int docId1, int docId2) {
+    blockValSetIterator.skipTo(docId1);
+    int dictId1 = blockValSetIterator.nextIntVal();
+    blockValSetIterator.skipTo(docId2);
+    int dictId2 = blockValSetIterator.nextIntVal();
+    if (dictId1 == dictId2) {
+      return 0;
+    }
+    Comparable<Object> val1 = (Comparable<Object>) dictionary.get(dictId1);
+    return val1.compareTo(dictionary.get(dictId2)) * orderToggleMultiplier;
+  }
+
+}
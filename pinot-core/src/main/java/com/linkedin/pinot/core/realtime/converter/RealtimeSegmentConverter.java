@@ -91,6 +91,10 @@ public class RealtimeSegmentConverter {
         genConfig.createInvertedIndexForColumn(column);
       }
     }
+    // Columns without dictionary in the realtime segment are carried over as raw indexes
+    if (!realtimeSegmentImpl.getNoDictionaryColumns().isEmpty()) {
+      genConfig.setRawIndexCreationColumns(new ArrayList<>(realtimeSegmentImpl.getNoDictionaryColumns()));
+    }
     genConfig.setTimeColumnName(dataSchema.getTimeFieldSpec().getOutgoingTimeColumnName());
     genConfig.setSegmentTimeUnit(dataSchema.getTimeFieldSpec().getOutgoingGranularitySpec().getTimeType());
     genConfig.setSegmentVersion(segmentVersion);
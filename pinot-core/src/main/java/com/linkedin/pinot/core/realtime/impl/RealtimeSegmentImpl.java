@@ -22,9 +22,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.joda.time.DateTime;
 import org.joda.time.Interval;
@@ -45,16 +47,16 @@ import com.linkedin.pinot.core.data.GenericRow;
 import com.linkedin.pinot.core.data.readers.RecordReader;
 import com.linkedin.pinot.core.indexsegment.IndexType;
 import com.linkedin.pinot.core.io.reader.DataFileReader;
+import com.linkedin.pinot.core.io.readerwriter.RealtimeIndexOffHeapMemoryManager;
+import com.linkedin.pinot.core.io.readerwriter.impl.DirectMemoryManager;
 import com.linkedin.pinot.core.io.readerwriter.impl.FixedByteSingleColumnMultiValueReaderWriter;
 import com.linkedin.pinot.core.io.readerwriter.impl.FixedByteSingleColumnSingleValueReaderWriter;
 import com.linkedin.pinot.core.realtime.RealtimeSegment;
 import com.linkedin.pinot.core.realtime.impl.datasource.RealtimeColumnDataSource;
 import com.linkedin.pinot.core.realtime.impl.dictionary.MutableDictionaryReader;
 import com.linkedin.pinot.core.realtime.impl.dictionary.RealtimeDictionaryProvider;
-import com.linkedin.pinot.core.realtime.impl.invertedIndex.DimensionInvertertedIndex;
-import com.linkedin.pinot.core.realtime.impl.invertedIndex.MetricInvertedIndex;
+import com.linkedin.pinot.core.realtime.impl.invertedIndex.ChunkedRealtimeInvertedIndex;
 import com.linkedin.pinot.core.realtime.impl.invertedIndex.RealtimeInvertedIndex;
-import com.linkedin.pinot.core.realtime.impl.invertedIndex.TimeInvertedIndex;
 import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
 import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
 import com.linkedin.pinot.core.startree.StarTree;
@@ -70,6 +72,8 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
 
   private final Map<String, MutableDictionaryReader> dictionaryMap;
   private final Map<String, RealtimeInvertedIndex> invertedIndexMap;
+  // Metric columns storing raw values in their forward index instead of dictionary ids
+  private final Set<String> noDictionaryColumns;
 
   private final TimeConverter timeConverter;
   private AtomicInteger docIdGenerator;
@@ -79,7 +83,8 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
 
   private Map<String, Integer> maxNumberOfMultivaluesMap;
 
-  private int docIdSearchableOffset = -1;
+  // Written by the ingestion thread after all the indexes of a row, so that query threads reading it see the row
+  private volatile int docIdSearchableOffset = -1;
   private int numDocsIndexed = 0;
   private int numSuccessIndexed = 0;
 
@@ -90,14 +95,31 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
   private final int capacity;
 
   private final Map<String, DataFileReader> columnIndexReaderWriterMap;
+  // Allocates the buffers of the forward indexes
+  private final RealtimeIndexOffHeapMemoryManager memoryManager;
 
   private final ServerMetrics serverMetrics;
   private final String tableAndStreamName;
 
   public RealtimeSegmentImpl(Schema schema, int capacity, String tableName, String segmentName, String streamName,
       ServerMetrics serverMetrics, List<String> invertedIndexColumns) throws IOException {
+    this(schema, capacity, tableName, segmentName, streamName, serverMetrics, invertedIndexColumns,
+        new ArrayList<String>());
+  }
+
+  public RealtimeSegmentImpl(Schema schema, int capacity, String tableName, String segmentName, String streamName,
+      ServerMetrics serverMetrics, List<String> invertedIndexColumns, List<String> noDictionaryColumns)
+      throws IOException {
+    this(schema, capacity, tableName, segmentName, streamName, serverMetrics, invertedIndexColumns,
+        noDictionaryColumns, new DirectMemoryManager());
+  }
+
+  public RealtimeSegmentImpl(Schema schema, int capacity, String tableName, String segmentName, String streamName,
+      ServerMetrics serverMetrics, List<String> invertedIndexColumns, List<String> noDictionaryColumns,
+      RealtimeIndexOffHeapMemoryManager memoryManager) throws IOException {
     // initial variable setup
     this.segmentName = segmentName;
+    this.memoryManager = memoryManager;
     this.serverMetrics = serverMetrics;
     LOGGER = LoggerFactory.getLogger(RealtimeSegmentImpl.class.getName() + "_" + segmentName + "_" + streamName);
     dataSchema = schema;
@@ -111,14 +133,30 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     }
     // dictionary assignment for dimensions and time column
     for (String column : dataSchema.getDimensionNames()) {
-      dictionaryMap.put(column, RealtimeDictionaryProvider.getDictionaryFor(dataSchema.getFieldSpecFor(column)));
+      dictionaryMap.put(column, RealtimeDictionaryProvider.getDictionaryFor(dataSchema.getFieldSpecFor(column),
+          memoryManager, column + ".dictionary"));
     }
 
     dictionaryMap.put(outgoingTimeColumnName,
-        RealtimeDictionaryProvider.getDictionaryFor(dataSchema.getFieldSpecFor(outgoingTimeColumnName)));
+        RealtimeDictionaryProvider.getDictionaryFor(dataSchema.getFieldSpecFor(outgoingTimeColumnName), memoryManager,
+            outgoingTimeColumnName + ".dictionary"));
+
+    // no dictionary is only supported for single value metrics
+    this.noDictionaryColumns = new HashSet<String>();
+    for (String column : noDictionaryColumns) {
+      FieldSpec fieldSpec = dataSchema.getFieldSpecFor(column);
+      if (fieldSpec != null && fieldSpec.getFieldType() == FieldType.METRIC && fieldSpec.isSingleValueField()) {
+        this.noDictionaryColumns.add(column);
+      } else {
+        LOGGER.warn("Ignoring no dictionary config for column {}, only supported for single value metrics", column);
+      }
+    }
 
     for (String metric : dataSchema.getMetricNames()) {
-      dictionaryMap.put(metric, RealtimeDictionaryProvider.getDictionaryFor(dataSchema.getFieldSpecFor(metric)));
+      if (!this.noDictionaryColumns.contains(metric)) {
+        dictionaryMap.put(metric, RealtimeDictionaryProvider.getDictionaryFor(dataSchema.getFieldSpecFor(metric),
+            memoryManager, metric + ".dictionary"));
+      }
     }
 
     // docId generator and time granularity converter
@@ -133,30 +171,37 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
 
     for (String dimension : schema.getDimensionNames()) {
       if (invertedIndexColumns.contains(dimension)) {
-        invertedIndexMap.put(dimension, new DimensionInvertertedIndex(dimension));
+        invertedIndexMap.put(dimension, new ChunkedRealtimeInvertedIndex(dimension));
       }
       if (schema.getFieldSpecFor(dimension).isSingleValueField()) {
         columnIndexReaderWriterMap.put(dimension, new FixedByteSingleColumnSingleValueReaderWriter(capacity,
-            V1Constants.Dict.INT_DICTIONARY_COL_SIZE));
+            V1Constants.Dict.INT_DICTIONARY_COL_SIZE, memoryManager, dimension));
       } else {
         columnIndexReaderWriterMap.put(dimension, new FixedByteSingleColumnMultiValueReaderWriter(capacity,
-            Integer.SIZE / 8, FixedByteSingleColumnMultiValueReaderWriter.DEFAULT_MAX_NUMBER_OF_MULTIVALUES));
+            Integer.SIZE / 8, FixedByteSingleColumnMultiValueReaderWriter.DEFAULT_MAX_NUMBER_OF_MULTIVALUES,
+            memoryManager, dimension));
       }
     }
 
     for (String metric : schema.getMetricNames()) {
+      if (this.noDictionaryColumns.contains(metric)) {
+        // raw values, no inverted index as there are no dictionary ids
+        columnIndexReaderWriterMap.put(metric, new FixedByteSingleColumnSingleValueReaderWriter(capacity,
+            getRawValueSize(schema.getFieldSpecFor(metric).getDataType()), memoryManager, metric));
+        continue;
+      }
       if (invertedIndexColumns.contains(metric)) {
-        invertedIndexMap.put(metric, new MetricInvertedIndex(metric));
+        invertedIndexMap.put(metric, new ChunkedRealtimeInvertedIndex(metric));
       }
       columnIndexReaderWriterMap.put(metric, new FixedByteSingleColumnSingleValueReaderWriter(capacity,
-          V1Constants.Dict.INT_DICTIONARY_COL_SIZE));
+          V1Constants.Dict.INT_DICTIONARY_COL_SIZE, memoryManager, metric));
     }
 
     if (invertedIndexColumns.contains(outgoingTimeColumnName)) {
-      invertedIndexMap.put(outgoingTimeColumnName, new TimeInvertedIndex(outgoingTimeColumnName));
+      invertedIndexMap.put(outgoingTimeColumnName, new ChunkedRealtimeInvertedIndex(outgoingTimeColumnName));
     }
     columnIndexReaderWriterMap.put(outgoingTimeColumnName, new FixedByteSingleColumnSingleValueReaderWriter(capacity,
-        V1Constants.Dict.INT_DICTIONARY_COL_SIZE));
+        V1Constants.Dict.INT_DICTIONARY_COL_SIZE, memoryManager, outgoingTimeColumnName));
 
     tableAndStreamName = tableName + "-" + streamName;
   }
@@ -239,7 +284,10 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     }
 
     for (String metric : dataSchema.getMetricNames()) {
-      dictionaryMap.get(metric).index(row.getValue(metric));
+      MutableDictionaryReader dictionary = dictionaryMap.get(metric);
+      if (dictionary != null) {
+        dictionary.index(row.getValue(metric));
+      }
     }
 
     // Conversion already happens in PlainFieldExtractor
@@ -291,6 +339,10 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     for (String metric : dataSchema.getMetricNames()) {
       FixedByteSingleColumnSingleValueReaderWriter readerWriter =
           (FixedByteSingleColumnSingleValueReaderWriter) columnIndexReaderWriterMap.get(metric);
+      if (noDictionaryColumns.contains(metric)) {
+        setRawValue(readerWriter, docId, dataSchema.getFieldSpecFor(metric).getDataType(), row.getValue(metric));
+        continue;
+      }
       int dicId = dictionaryMap.get(metric).indexOf(row.getValue(metric));
       readerWriter.setInt(docId, dicId);
       rawRowToDicIdMap.put(metric, dicId);
@@ -305,27 +357,30 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     // lets update the inverted index now
     // metrics
     for (String metric : dataSchema.getMetricNames()) {
-      if (invertedIndexMap.containsKey(metric)) {
-        invertedIndexMap.get(metric).add(rawRowToDicIdMap.get(metric), docId);
+      RealtimeInvertedIndex invertedIndex = invertedIndexMap.get(metric);
+      if (invertedIndex != null) {
+        invertedIndex.add(((Integer) rawRowToDicIdMap.get(metric)).intValue(), docId);
       }
     }
 
     // dimension
     for (String dimension : dataSchema.getDimensionNames()) {
-      if (invertedIndexMap.containsKey(dimension)) {
+      RealtimeInvertedIndex invertedIndex = invertedIndexMap.get(dimension);
+      if (invertedIndex != null) {
         if (dataSchema.getFieldSpecFor(dimension).isSingleValueField()) {
-          invertedIndexMap.get(dimension).add(rawRowToDicIdMap.get(dimension), docId);
+          invertedIndex.add(((Integer) rawRowToDicIdMap.get(dimension)).intValue(), docId);
         } else {
           int[] dicIds = (int[]) rawRowToDicIdMap.get(dimension);
           for (int dicId : dicIds) {
-            invertedIndexMap.get(dimension).add(dicId, docId);
+            invertedIndex.add(dicId, docId);
           }
         }
       }
     }
     // time
-    if (invertedIndexMap.containsKey(outgoingTimeColumnName)) {
-      invertedIndexMap.get(outgoingTimeColumnName).add(rawRowToDicIdMap.get(outgoingTimeColumnName), docId);
+    RealtimeInvertedIndex timeInvertedIndex = invertedIndexMap.get(outgoingTimeColumnName);
+    if (timeInvertedIndex != null) {
+      timeInvertedIndex.add(timeDicId, docId);
     }
     docIdSearchableOffset = docId;
     numDocsIndexed += 1;
@@ -431,6 +486,21 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
       }
     }
     invertedIndexMap.clear();
+
+    for (MutableDictionaryReader dictionary : dictionaryMap.values()) {
+      try {
+        dictionary.close();
+      } catch (IOException e) {
+        LOGGER.error("Failed to close dictionary. Service will continue with memory leaks, error: ", e);
+      }
+    }
+
+    // after the forward indexes, as it may release the memory backing them
+    try {
+      memoryManager.close();
+    } catch (IOException e) {
+      LOGGER.error("Failed to close memory manager. Service will continue with memory leaks, error: ", e);
+    }
     _segmentMetadata.close();
   }
 
@@ -619,8 +689,13 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     }
 
     for (String metric : dataSchema.getMetricNames()) {
-      final int dicId =
-          ((FixedByteSingleColumnSingleValueReaderWriter) columnIndexReaderWriterMap.get(metric)).getInt(docId);
+      FixedByteSingleColumnSingleValueReaderWriter readerWriter =
+          (FixedByteSingleColumnSingleValueReaderWriter) columnIndexReaderWriterMap.get(metric);
+      if (noDictionaryColumns.contains(metric)) {
+        row.putField(metric, getRawValue(readerWriter, docId, dataSchema.getFieldSpecFor(metric).getDataType()));
+        continue;
+      }
+      final int dicId = readerWriter.getInt(docId);
       switch (dataSchema.getFieldSpecFor(metric).getDataType()) {
       case INT:
         int intValue = dictionaryMap.get(metric).getIntValue(dicId);
@@ -686,6 +761,68 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     return dictionaryMap.containsKey(columnName);
   }
 
+  /**
+   * Returns the metric columns storing raw values instead of dictionary ids.
+   */
+  public Set<String> getNoDictionaryColumns() {
+    return noDictionaryColumns;
+  }
+
+  private static int getRawValueSize(FieldSpec.DataType dataType) {
+    switch (dataType) {
+      case INT:
+        return V1Constants.Numbers.INTEGER_SIZE;
+      case LONG:
+        return V1Constants.Numbers.LONG_SIZE;
+      case FLOAT:
+        return V1Constants.Numbers.FLOAT_SIZE;
+      case DOUBLE:
+        return V1Constants.Numbers.DOUBLE_SIZE;
+      default:
+        throw new UnsupportedOperationException("Unsupported data type for no dictionary column: " + dataType);
+    }
+  }
+
+  private static void setRawValue(FixedByteSingleColumnSingleValueReaderWriter readerWriter, int docId,
+      FieldSpec.DataType dataType, Object value) {
+    switch (dataType) {
+      case INT:
+        readerWriter.setInt(docId,
+            (value instanceof Number) ? ((Number) value).intValue() : Integer.parseInt(value.toString()));
+        break;
+      case LONG:
+        readerWriter.setLong(docId,
+            (value instanceof Number) ? ((Number) value).longValue() : Long.parseLong(value.toString()));
+        break;
+      case FLOAT:
+        readerWriter.setFloat(docId,
+            (value instanceof Number) ? ((Number) value).floatValue() : Float.parseFloat(value.toString()));
+        break;
+      case DOUBLE:
+        readerWriter.setDouble(docId,
+            (value instanceof Number) ? ((Number) value).doubleValue() : Double.parseDouble(value.toString()));
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported data type for no dictionary column: " + dataType);
+    }
+  }
+
+  private static Object getRawValue(FixedByteSingleColumnSingleValueReaderWriter readerWriter, int docId,
+      FieldSpec.DataType dataType) {
+    switch (dataType) {
+      case INT:
+        return readerWriter.getInt(docId);
+      case LONG:
+        return readerWriter.getLong(docId);
+      case FLOAT:
+        return readerWriter.getFloat(docId);
+      case DOUBLE:
+        return readerWriter.getDouble(docId);
+      default:
+        throw new UnsupportedOperationException("Unsupported data type for no dictionary column: " + dataType);
+    }
+  }
+
   @Override
   public StarTree getStarTree() {
     return null;
@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import it.unimi.dsi.fastutil.HashCommon;
+
+
+/**
+ * Base class for the mutable dictionaries of the numeric types. Values are stored in primitive arrays indexed by
+ * dictionary id, and mapped to dictionary ids through an open-addressing hash table, so no value is ever boxed.
+ * Subclasses convert their values to and from <code>long</code> bits, which is what the hash table works on.
+ *
+ * <p>A dictionary is written by a single thread (the ingestion thread) and read concurrently by the query threads.
+ * The writer stores the value and its hash table slot, replacing the arrays when they are full, before publishing the
+ * new number of entries through a volatile write. Readers read the number of entries before any array, so all the
+ * entries with a smaller dictionary id are visible to them, and ignore the entries being added.
+ */
+public abstract class BasePrimitiveMutableDictionary extends MutableDictionaryReader {
+  protected static final int INITIAL_CAPACITY = 256;
+  // Maximum ratio of the number of entries to the hash table size
+  private static final float LOAD_FACTOR = 0.5f;
+
+  // Hash table slots contain the dictionary id + 1, 0 for empty slots
+  private volatile int[] _hashTable = new int[(int) (INITIAL_CAPACITY / LOAD_FACTOR)];
+  private volatile int _numEntries = 0;
+
+  protected BasePrimitiveMutableDictionary(FieldSpec spec) {
+    super(spec, false);
+  }
+
+  /**
+   * Converts a raw value (string, number) into the bits of the value. Throws NumberFormatException if a string cannot
+   * be parsed.
+   */
+  protected abstract long toValueBits(Object rawValue);
+
+  /**
+   * Returns the bits of the value for the given dictionary id.
+   */
+  protected abstract long getValueBits(int dictionaryId);
+
+  /**
+   * Stores the value for the next dictionary id. If the value array is full, a larger copy replaces it. Only called
+   * by the writer, before the new number of entries is published.
+   */
+  protected abstract void setValueBits(int dictionaryId, long valueBits);
+
+  /**
+   * Updates the min/max values with a new value. Only called by the writer.
+   */
+  protected abstract void updateMinMax(long valueBits);
+
+  @Override
+  public void index(Object rawValue) {
+    if (rawValue == null) {
+      hasNull = true;
+      return;
+    }
+
+    if (rawValue instanceof Object[]) {
+      for (Object value : (Object[]) rawValue) {
+        if (value != null) {
+          indexValueBits(toValueBits(value));
+        }
+      }
+      return;
+    }
+
+    indexValueBits(toValueBits(rawValue));
+  }
+
+  @Override
+  public int indexOf(Object rawValue) {
+    return indexOfValueBits(toValueBits(rawValue));
+  }
+
+  @Override
+  public boolean contains(Object rawValue) {
+    if (rawValue == null) {
+      return hasNull;
+    }
+    return indexOf(rawValue) != NULL_VALUE_INDEX;
+  }
+
+  @Override
+  public int length() {
+    return _numEntries;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return _numEntries == 0;
+  }
+
+  @Override
+  public void print() {
+    System.out.println("************* printing dictionary for column : " + spec.getName() + " ***************");
+    int numEntries = _numEntries;
+    for (int i = 0; i < numEntries; i++) {
+      System.out.println(i + "," + get(i));
+    }
+    System.out.println("************************************");
+  }
+
+  /**
+   * Returns the dictionary id of the value, adding it to the dictionary if needed. Only called by the writer.
+   */
+  private int indexValueBits(long valueBits) {
+    int[] hashTable = _hashTable;
+    int mask = hashTable.length - 1;
+    int slot = hash(valueBits) & mask;
+    int entry;
+    while ((entry = hashTable[slot]) != 0) {
+      if (getValueBits(entry - 1) == valueBits) {
+        return entry - 1;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    int dictionaryId = _numEntries;
+    setValueBits(dictionaryId, valueBits);
+    updateMinMax(valueBits);
+    if (dictionaryId + 1 > hashTable.length * LOAD_FACTOR) {
+      // Build a larger hash table with all the entries, then replace the current one
+      int[] newHashTable = new int[hashTable.length * 2];
+      int newMask = newHashTable.length - 1;
+      for (int i = 0; i <= dictionaryId; i++) {
+        int newSlot = hash(getValueBits(i)) & newMask;
+        while (newHashTable[newSlot] != 0) {
+          newSlot = (newSlot + 1) & newMask;
+        }
+        newHashTable[newSlot] = i + 1;
+      }
+      _hashTable = newHashTable;
+    } else {
+      hashTable[slot] = dictionaryId + 1;
+    }
+    _numEntries = dictionaryId + 1;
+    return dictionaryId;
+  }
+
+  private int indexOfValueBits(long valueBits) {
+    int numEntries = _numEntries;
+    int[] hashTable = _hashTable;
+    int mask = hashTable.length - 1;
+    int slot = hash(valueBits) & mask;
+    int entry;
+    while ((entry = hashTable[slot]) != 0) {
+      int dictionaryId = entry - 1;
+      if (dictionaryId < numEntries && getValueBits(dictionaryId) == valueBits) {
+        return dictionaryId;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return NULL_VALUE_INDEX;
+  }
+
+  private static int hash(long valueBits) {
+    return (int) HashCommon.murmurHash3(valueBits);
+  }
+}
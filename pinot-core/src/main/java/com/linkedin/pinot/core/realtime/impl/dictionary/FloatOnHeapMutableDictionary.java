@@ -0,0 +1,161 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import java.util.Arrays;
+
+
+/**
+ * Float mutable dictionary storing the values in a primitive array, see {@link BasePrimitiveMutableDictionary}.
+ */
+public class FloatOnHeapMutableDictionary extends BasePrimitiveMutableDictionary {
+  private volatile float[] _values = new float[INITIAL_CAPACITY];
+  private volatile float _min = Float.MAX_VALUE;
+  private volatile float _max = -Float.MAX_VALUE;
+
+  public FloatOnHeapMutableDictionary(FieldSpec spec) {
+    super(spec);
+  }
+
+  @Override
+  protected long toValueBits(Object rawValue) {
+    float value;
+    if (rawValue instanceof Number) {
+      value = ((Number) rawValue).floatValue();
+    } else {
+      value = Float.parseFloat(rawValue.toString());
+    }
+    return Float.floatToIntBits(value);
+  }
+
+  @Override
+  protected long getValueBits(int dictionaryId) {
+    float[] values = _values;
+    return Float.floatToIntBits(values[dictionaryId]);
+  }
+
+  @Override
+  protected void setValueBits(int dictionaryId, long valueBits) {
+    float[] values = _values;
+    if (dictionaryId == values.length) {
+      values = Arrays.copyOf(values, values.length * 2);
+      values[dictionaryId] = Float.intBitsToFloat((int) valueBits);
+      _values = values;
+    } else {
+      values[dictionaryId] = Float.intBitsToFloat((int) valueBits);
+    }
+  }
+
+  @Override
+  protected void updateMinMax(long valueBits) {
+    float value = Float.intBitsToFloat((int) valueBits);
+    if (value < _min) {
+      _min = value;
+    }
+    if (value > _max) {
+      _max = value;
+    }
+  }
+
+  @Override
+  public Object get(int dictionaryId) {
+    return getValue(dictionaryId);
+  }
+
+  @Override
+  public long getLongValue(int dictionaryId) {
+    return (long) getValue(dictionaryId);
+  }
+
+  @Override
+  public double getDoubleValue(int dictionaryId) {
+    return getValue(dictionaryId);
+  }
+
+  @Override
+  public int getIntValue(int dictionaryId) {
+    return (int) getValue(dictionaryId);
+  }
+
+  @Override
+  public float getFloatValue(int dictionaryId) {
+    return getValue(dictionaryId);
+  }
+
+  @Override
+  public String getStringValue(int dictionaryId) {
+    return Float.toString(getValue(dictionaryId));
+  }
+
+  @Override
+  public String toString(int dictionaryId) {
+    return Float.toString(getValue(dictionaryId));
+  }
+
+  @Override
+  public void readFloatValues(int[] dictionaryIds, int startPos, int limit, float[] outValues, int outStartPos) {
+    float[] values = _values;
+    int endPos = startPos + limit;
+    for (int iter = startPos; iter < endPos; ++iter) {
+      outValues[outStartPos++] = values[dictionaryIds[iter]];
+    }
+  }
+
+  @Override
+  public boolean inRange(String lower, String upper, int indexOfValueToCompare, boolean includeLower,
+      boolean includeUpper) {
+    float valueToCompare = getValue(indexOfValueToCompare);
+    float lowerValue = Float.parseFloat(lower);
+    float upperValue = Float.parseFloat(upper);
+
+    if (includeLower) {
+      if (valueToCompare < lowerValue) {
+        return false;
+      }
+    } else {
+      if (valueToCompare <= lowerValue) {
+        return false;
+      }
+    }
+
+    if (includeUpper) {
+      if (valueToCompare > upperValue) {
+        return false;
+      }
+    } else {
+      if (valueToCompare >= upperValue) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  public float getValue(int dictionaryId) {
+    return _values[dictionaryId];
+  }
+
+  @Override
+  public Object getMinVal() {
+    return _min;
+  }
+
+  @Override
+  public Object getMaxVal() {
+    return _max;
+  }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import java.util.Arrays;
+
+
+/**
+ * Int mutable dictionary storing the values in a primitive array, see {@link BasePrimitiveMutableDictionary}.
+ */
+public class IntOnHeapMutableDictionary extends BasePrimitiveMutableDictionary {
+  private volatile int[] _values = new int[INITIAL_CAPACITY];
+  private volatile int _min = Integer.MAX_VALUE;
+  private volatile int _max = Integer.MIN_VALUE;
+
+  public IntOnHeapMutableDictionary(FieldSpec spec) {
+    super(spec);
+  }
+
+  @Override
+  protected long toValueBits(Object rawValue) {
+    int value;
+    if (rawValue instanceof Number) {
+      value = ((Number) rawValue).intValue();
+    } else {
+      value = Integer.parseInt(rawValue.toString());
+    }
+    return value;
+  }
+
+  @Override
+  protected long getValueBits(int dictionaryId) {
+    int[] values = _values;
+    return values[dictionaryId];
+  }
+
+  @Override
+  protected void setValueBits(int dictionaryId, long valueBits) {
+    int[] values = _values;
+    if (dictionaryId == values.length) {
+      values = Arrays.copyOf(values, values.length * 2);
+      values[dictionaryId] = (int) valueBits;
+      _values = values;
+    } else {
+      values[dictionaryId] = (int) valueBits;
+    }
+  }
+
+  @Override
+  protected void updateMinMax(long valueBits) {
+    int value = (int) valueBits;
+    if (value < _min) {
+      _min = value;
+    }
+    if (value > _max) {
+      _max = value;
+    }
+  }
+
+  @Override
+  public Object get(int dictionaryId) {
+    return getValue(dictionaryId);
+  }
+
+  @Override
+  public long getLongValue(int dictionaryId) {
+    return getValue(dictionaryId);
+  }
+
+  @Override
+  public double getDoubleValue(int dictionaryId) {
+    return getValue(dictionaryId);
+  }
+
+  @Override
+  public int getIntValue(int dictionaryId) {
+    return getValue(dictionaryId);
+  }
+
+  @Override
+  public float getFloatValue(int dictionaryId) {
+    return getValue(dictionaryId);
+  }
+
+  @Override
+  public String getStringValue(int dictionaryId) {
+    return Integer.toString(getValue(dictionaryId));
+  }
+
+  @Override
+  public String toString(int dictionaryId) {
+    return Integer.toString(getValue(dictionaryId));
+  }
+
+  @Override
+  public void readIntValues(int[] dictionaryIds, int startPos, int limit, int[] outValues, int outStartPos) {
+    int[] values = _values;
+    int endPos = startPos + limit;
+    for (int iter = startPos; iter < endPos; ++iter) {
+      outValues[outStartPos++] = values[dictionaryIds[iter]];
+    }
+  }
+
+  @Override
+  public boolean inRange(String lower, String upper, int indexOfValueToCompare, boolean includeLower,
+      boolean includeUpper) {
+    int valueToCompare = getValue(indexOfValueToCompare);
+    int lowerValue = Integer.parseInt(lower);
+    int upperValue = Integer.parseInt(upper);
+
+    if (includeLower) {
+      if (valueToCompare < lowerValue) {
+        return false;
+      }
+    } else {
+      if (valueToCompare <= lowerValue) {
+        return false;
+      }
+    }
+
+    if (includeUpper) {
+      if (valueToCompare > upperValue) {
+        return false;
+      }
+    } else {
+      if (valueToCompare >= upperValue) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  public int getValue(int dictionaryId) {
+    return _values[dictionaryId];
+  }
+
+  @Override
+  public Object getMinVal() {
+    return _min;
+  }
+
+  @Override
+  public Object getMaxVal() {
+    return _max;
+  }
+}
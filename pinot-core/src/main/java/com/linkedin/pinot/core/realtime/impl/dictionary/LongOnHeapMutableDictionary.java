@@ -0,0 +1,161 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import java.util.Arrays;
+
+
+/**
+ * Long mutable dictionary storing the values in a primitive array, see {@link BasePrimitiveMutableDictionary}.
+ */
+public class LongOnHeapMutableDictionary extends BasePrimitiveMutableDictionary {
+  private volatile long[] _values = new long[INITIAL_CAPACITY];
+  private volatile long _min = Long.MAX_VALUE;
+  private volatile long _max = Long.MIN_VALUE;
+
+  public LongOnHeapMutableDictionary(FieldSpec spec) {
+    super(spec);
+  }
+
+  @Override
+  protected long toValueBits(Object rawValue) {
+    long value;
+    if (rawValue instanceof Number) {
+      value = ((Number) rawValue).longValue();
+    } else {
+      value = Long.parseLong(rawValue.toString());
+    }
+    return value;
+  }
+
+  @Override
+  protected long getValueBits(int dictionaryId) {
+    long[] values = _values;
+    return values[dictionaryId];
+  }
+
+  @Override
+  protected void setValueBits(int dictionaryId, long valueBits) {
+    long[] values = _values;
+    if (dictionaryId == values.length) {
+      values = Arrays.copyOf(values, values.length * 2);
+      values[dictionaryId] = valueBits;
+      _values = values;
+    } else {
+      values[dictionaryId] = valueBits;
+    }
+  }
+
+  @Override
+  protected void updateMinMax(long valueBits) {
+    long value = valueBits;
+    if (value < _min) {
+      _min = value;
+    }
+    if (value > _max) {
+      _max = value;
+    }
+  }
+
+  @Override
+  public Object get(int dictionaryId) {
+    return getValue(dictionaryId);
+  }
+
+  @Override
+  public long getLongValue(int dictionaryId) {
+    return getValue(dictionaryId);
+  }
+
+  @Override
+  public double getDoubleValue(int dictionaryId) {
+    return getValue(dictionaryId);
+  }
+
+  @Override
+  public int getIntValue(int dictionaryId) {
+    return (int) getValue(dictionaryId);
+  }
+
+  @Override
+  public float getFloatValue(int dictionaryId) {
+    return (float) getValue(dictionaryId);
+  }
+
+  @Override
+  public String getStringValue(int dictionaryId) {
+    return Long.toString(getValue(dictionaryId));
+  }
+
+  @Override
+  public String toString(int dictionaryId) {
+    return Long.toString(getValue(dictionaryId));
+  }
+
+  @Override
+  public void readLongValues(int[] dictionaryIds, int startPos, int limit, long[] outValues, int outStartPos) {
+    long[] values = _values;
+    int endPos = startPos + limit;
+    for (int iter = startPos; iter < endPos; ++iter) {
+      outValues[outStartPos++] = values[dictionaryIds[iter]];
+    }
+  }
+
+  @Override
+  public boolean inRange(String lower, String upper, int indexOfValueToCompare, boolean includeLower,
+      boolean includeUpper) {
+    long valueToCompare = getValue(indexOfValueToCompare);
+    long lowerValue = Long.parseLong(lower);
+    long upperValue = Long.parseLong(upper);
+
+    if (includeLower) {
+      if (valueToCompare < lowerValue) {
+        return false;
+      }
+    } else {
+      if (valueToCompare <= lowerValue) {
+        return false;
+      }
+    }
+
+    if (includeUpper) {
+      if (valueToCompare > upperValue) {
+        return false;
+      }
+    } else {
+      if (valueToCompare >= upperValue) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  public long getValue(int dictionaryId) {
+    return _values[dictionaryId];
+  }
+
+  @Override
+  public Object getMinVal() {
+    return _min;
+  }
+
+  @Override
+  public Object getMaxVal() {
+    return _max;
+  }
+}
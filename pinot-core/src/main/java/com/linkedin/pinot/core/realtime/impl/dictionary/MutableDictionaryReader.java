@@ -19,6 +19,7 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import java.io.IOException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 
@@ -29,8 +30,16 @@ public abstract class MutableDictionaryReader implements Dictionary {
   private final AtomicInteger dictionaryIdGenerator;
 
   public MutableDictionaryReader(FieldSpec spec) {
+    this(spec, true);
+  }
+
+  /**
+   * @param useBiMap false for dictionaries managing the storage of their values, which must override
+   *                 {@link #length()}, {@link #isEmpty()} and {@link #print()}
+   */
+  protected MutableDictionaryReader(FieldSpec spec, boolean useBiMap) {
     this.spec = spec;
-    this.dictionaryIdBiMap = HashBiMap.<Integer, Object> create();
+    this.dictionaryIdBiMap = useBiMap ? HashBiMap.<Integer, Object> create() : null;
     dictionaryIdGenerator = new AtomicInteger(-1);
   }
 
@@ -184,4 +193,10 @@ public abstract class MutableDictionaryReader implements Dictionary {
   public boolean isEmpty() {
     return dictionaryIdBiMap.isEmpty();
   }
+
+  /**
+   * Releases the memory held outside of the heap, if any.
+   */
+  public void close() throws IOException {
+  }
 }
@@ -16,23 +16,33 @@
 package com.linkedin.pinot.core.realtime.impl.dictionary;
 
 import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.io.readerwriter.RealtimeIndexOffHeapMemoryManager;
+import com.linkedin.pinot.core.io.readerwriter.impl.DirectMemoryManager;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
 public class RealtimeDictionaryProvider {
 
   public static MutableDictionaryReader getDictionaryFor(FieldSpec spec) {
+    return getDictionaryFor(spec, new DirectMemoryManager(), "direct allocation");
+  }
+
+  /**
+   * Off-heap dictionaries allocate their buffers through the given memory manager, with the given context.
+   */
+  public static MutableDictionaryReader getDictionaryFor(FieldSpec spec,
+      RealtimeIndexOffHeapMemoryManager memoryManager, String context) {
     switch (spec.getDataType()) {
       case INT:
-        return new IntMutableDictionary(spec);
+        return new IntOnHeapMutableDictionary(spec);
       case LONG:
-        return new LongMutableDictionary(spec);
+        return new LongOnHeapMutableDictionary(spec);
       case FLOAT:
-        return new FloatMutableDictionary(spec);
+        return new FloatOnHeapMutableDictionary(spec);
       case DOUBLE:
-        return new DoubleMutableDictionary(spec);
+        return new DoubleOnHeapMutableDictionary(spec);
       case BOOLEAN:
       case STRING:
-        return new StringMutableDictionary(spec);
+        return new StringOffHeapMutableDictionary(spec, memoryManager, context);
     }
     throw new UnsupportedOperationException();
   }
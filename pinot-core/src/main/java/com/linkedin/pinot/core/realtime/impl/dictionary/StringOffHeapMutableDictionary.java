@@ -0,0 +1,335 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.io.readerwriter.RealtimeIndexOffHeapMemoryManager;
+import com.linkedin.pinot.core.io.readerwriter.impl.DirectMemoryManager;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import it.unimi.dsi.fastutil.HashCommon;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+
+/**
+ * String mutable dictionary storing the UTF-8 bytes of the values in off-heap buffers used as an append-only arena.
+ * Only the offset, length and hash code of each value are kept on heap, in primitive arrays indexed by dictionary id,
+ * and values are mapped to dictionary ids through an open-addressing hash table. The arena buffers are allocated
+ * through the {@link RealtimeIndexOffHeapMemoryManager} of the segment, so they are memory-mapped along with the
+ * forward indexes when the segment is configured to.
+ *
+ * <p>Same as {@link BasePrimitiveMutableDictionary}, the dictionary is written by a single thread and read
+ * concurrently: the writer publishes the new number of entries through a volatile write after storing everything about
+ * the new value, and readers read the number of entries before anything else.
+ */
+public class StringOffHeapMutableDictionary extends MutableDictionaryReader {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int INITIAL_CAPACITY = 256;
+  private static final float LOAD_FACTOR = 0.5f;
+  // Arena buffers start small for low cardinality columns, and double in size up to the max size
+  private static final int INITIAL_BUFFER_SIZE = 4 * 1024;
+  private static final int MAX_BUFFER_SIZE = 1024 * 1024;
+
+  // Per dictionary id: index of the arena buffer in the high 32 bits and offset in the buffer in the low 32 bits
+  private volatile long[] _offsets = new long[INITIAL_CAPACITY];
+  private volatile int[] _lengths = new int[INITIAL_CAPACITY];
+  private volatile int[] _hashCodes = new int[INITIAL_CAPACITY];
+  private volatile PinotDataBuffer[] _buffers = new PinotDataBuffer[1];
+  // Hash table slots contain the dictionary id + 1, 0 for empty slots
+  private volatile int[] _hashTable = new int[(int) (INITIAL_CAPACITY / LOAD_FACTOR)];
+  private volatile int _numEntries = 0;
+  private volatile String _min = null;
+  private volatile String _max = null;
+
+  private final RealtimeIndexOffHeapMemoryManager _memoryManager;
+  private final String _context;
+
+  // Only accessed by the writer
+  private int _numBuffers = 0;
+  private int _currentBufferSize = 0;
+  private int _currentBufferOffset = 0;
+
+  public StringOffHeapMutableDictionary(FieldSpec spec) {
+    this(spec, new DirectMemoryManager(), "direct allocation");
+  }
+
+  public StringOffHeapMutableDictionary(FieldSpec spec, RealtimeIndexOffHeapMemoryManager memoryManager,
+      String context) {
+    super(spec, false);
+    _memoryManager = memoryManager;
+    _context = context;
+  }
+
+  @Override
+  public void index(Object rawValue) {
+    if (rawValue instanceof Object[]) {
+      for (Object o : (Object[]) rawValue) {
+        indexValue(o.toString());
+      }
+      return;
+    }
+
+    indexValue(rawValue.toString());
+  }
+
+  private void indexValue(String value) {
+    byte[] valueBytes = value.getBytes(UTF_8);
+    int hashCode = hash(valueBytes);
+    int[] hashTable = _hashTable;
+    int mask = hashTable.length - 1;
+    int slot = hashCode & mask;
+    int entry;
+    while ((entry = hashTable[slot]) != 0) {
+      if (equalsValue(entry - 1, valueBytes, hashCode)) {
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    int dictionaryId = _numEntries;
+    addValue(dictionaryId, valueBytes, hashCode);
+    updateMinMax(value);
+    if (dictionaryId + 1 > hashTable.length * LOAD_FACTOR) {
+      // Build a larger hash table with all the entries, then replace the current one
+      int[] hashCodes = _hashCodes;
+      int[] newHashTable = new int[hashTable.length * 2];
+      int newMask = newHashTable.length - 1;
+      for (int i = 0; i <= dictionaryId; i++) {
+        int newSlot = hashCodes[i] & newMask;
+        while (newHashTable[newSlot] != 0) {
+          newSlot = (newSlot + 1) & newMask;
+        }
+        newHashTable[newSlot] = i + 1;
+      }
+      _hashTable = newHashTable;
+    } else {
+      hashTable[slot] = dictionaryId + 1;
+    }
+    _numEntries = dictionaryId + 1;
+  }
+
+  /**
+   * Copies the value bytes into the arena and records its offset, length and hash code.
+   */
+  private void addValue(int dictionaryId, byte[] valueBytes, int hashCode) {
+    int length = valueBytes.length;
+    if (_numBuffers == 0 || _currentBufferOffset + length > _currentBufferSize) {
+      _currentBufferSize = Math.max(Math.min(_currentBufferSize * 2, MAX_BUFFER_SIZE), INITIAL_BUFFER_SIZE);
+      _currentBufferSize = Math.max(_currentBufferSize, length);
+      PinotDataBuffer[] buffers = _buffers;
+      if (_numBuffers == buffers.length) {
+        buffers = Arrays.copyOf(buffers, buffers.length * 2);
+      }
+      buffers[_numBuffers++] = _memoryManager.allocate(_currentBufferSize, _context);
+      _buffers = buffers;
+      _currentBufferOffset = 0;
+    }
+    if (length > 0) {
+      _buffers[_numBuffers - 1].readFrom(valueBytes, 0, _currentBufferOffset, length);
+    }
+    long offset = ((long) (_numBuffers - 1) << 32) | _currentBufferOffset;
+    _currentBufferOffset += length;
+
+    long[] offsets = _offsets;
+    int[] lengths = _lengths;
+    int[] hashCodes = _hashCodes;
+    if (dictionaryId == offsets.length) {
+      int newCapacity = offsets.length * 2;
+      offsets = Arrays.copyOf(offsets, newCapacity);
+      lengths = Arrays.copyOf(lengths, newCapacity);
+      hashCodes = Arrays.copyOf(hashCodes, newCapacity);
+    }
+    offsets[dictionaryId] = offset;
+    lengths[dictionaryId] = length;
+    hashCodes[dictionaryId] = hashCode;
+    _offsets = offsets;
+    _lengths = lengths;
+    _hashCodes = hashCodes;
+  }
+
+  private void updateMinMax(String value) {
+    if (_min == null || value.compareTo(_min) < 0) {
+      _min = value;
+    }
+    if (_max == null || value.compareTo(_max) > 0) {
+      _max = value;
+    }
+  }
+
+  /**
+   * Compares the value bytes against the bytes in the arena, without decoding the stored value.
+   */
+  private boolean equalsValue(int dictionaryId, byte[] valueBytes, int hashCode) {
+    if (_hashCodes[dictionaryId] != hashCode || _lengths[dictionaryId] != valueBytes.length) {
+      return false;
+    }
+    long offset = _offsets[dictionaryId];
+    PinotDataBuffer buffer = _buffers[(int) (offset >>> 32)];
+    int bufferOffset = (int) offset;
+    for (int i = 0; i < valueBytes.length; i++) {
+      if (buffer.getByte(bufferOffset + i) != valueBytes[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int indexOf(Object rawValue) {
+    int numEntries = _numEntries;
+    byte[] valueBytes = rawValue.toString().getBytes(UTF_8);
+    int hashCode = hash(valueBytes);
+    int[] hashTable = _hashTable;
+    int mask = hashTable.length - 1;
+    int slot = hashCode & mask;
+    int entry;
+    while ((entry = hashTable[slot]) != 0) {
+      int dictionaryId = entry - 1;
+      if (dictionaryId < numEntries && equalsValue(dictionaryId, valueBytes, hashCode)) {
+        return dictionaryId;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return NULL_VALUE_INDEX;
+  }
+
+  @Override
+  public boolean contains(Object rawValue) {
+    if (rawValue == null) {
+      return hasNull;
+    }
+    return indexOf(rawValue) != NULL_VALUE_INDEX;
+  }
+
+  @Override
+  public Object get(int dictionaryId) {
+    return getString(dictionaryId);
+  }
+
+  @Override
+  public long getLongValue(int dictionaryId) {
+    return -1;
+  }
+
+  @Override
+  public double getDoubleValue(int dictionaryId) {
+    return -1;
+  }
+
+  @Override
+  public int getIntValue(int dictionaryId) {
+    return -1;
+  }
+
+  @Override
+  public float getFloatValue(int dictionaryId) {
+    return -1;
+  }
+
+  @Override
+  public String toString(int dictionaryId) {
+    return getString(dictionaryId);
+  }
+
+  @Override
+  public String getStringValue(int dictionaryId) {
+    return getString(dictionaryId);
+  }
+
+  @Override
+  public boolean inRange(String lower, String upper, int indexOfValueToCompare, boolean includeLower,
+      boolean includeUpper) {
+    String stringToCompare = getString(indexOfValueToCompare);
+
+    if (includeLower) {
+      if (lower.compareTo(stringToCompare) > 0) {
+        return false;
+      }
+    } else {
+      if (lower.compareTo(stringToCompare) >= 0) {
+        return false;
+      }
+    }
+
+    if (includeUpper) {
+      if (upper.compareTo(stringToCompare) < 0) {
+        return false;
+      }
+    } else {
+      if (upper.compareTo(stringToCompare) <= 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private String getString(int dictionaryId) {
+    int length = _lengths[dictionaryId];
+    if (length == 0) {
+      return "";
+    }
+    long offset = _offsets[dictionaryId];
+    byte[] valueBytes = new byte[length];
+    _buffers[(int) (offset >>> 32)].copyTo((int) offset, valueBytes, 0, length);
+    return new String(valueBytes, UTF_8);
+  }
+
+  @Override
+  public Object getMinVal() {
+    return _min;
+  }
+
+  @Override
+  public Object getMaxVal() {
+    return _max;
+  }
+
+  @Override
+  public int length() {
+    return _numEntries;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return _numEntries == 0;
+  }
+
+  @Override
+  public void print() {
+    System.out.println("************* printing dictionary for column : " + spec.getName() + " ***************");
+    int numEntries = _numEntries;
+    for (int i = 0; i < numEntries; i++) {
+      System.out.println(i + "," + getString(i));
+    }
+    System.out.println("************************************");
+  }
+
+  @Override
+  public void close() throws IOException {
+    PinotDataBuffer[] buffers = _buffers;
+    for (int i = 0; i < _numBuffers; i++) {
+      buffers[i].close();
+      buffers[i] = null;
+    }
+    _numBuffers = 0;
+  }
+
+  private static int hash(byte[] valueBytes) {
+    return HashCommon.murmurHash3(Arrays.hashCode(valueBytes));
+  }
+}
@@ -0,0 +1,217 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.invertedIndex;
+
+import com.linkedin.pinot.common.utils.Pairs.IntPair;
+import java.io.IOException;
+import java.util.Arrays;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * Realtime inverted index storing one bitmap per dictionary id in an array indexed by dictionary id. The array is
+ * split into fixed size chunks, so growing it only copies the (small) chunk directory, never the bitmaps.
+ *
+ * <p>The index is written by a single thread (the ingestion thread) and read concurrently by the query threads without
+ * locking. Readers never see a bitmap while it is modified: for each dictionary id, the writer publishes an immutable
+ * bitmap, and appends the doc ids added after it to a sorted tail array. Once the tail holds a fraction of the
+ * cardinality, the writer publishes a new bitmap including the tail, so the copies are amortized over the additions
+ * instead of being made by every read. Readers take the published bitmap plus the tail doc ids up to the searchable
+ * doc id they were planned with (see {@link DocIdSnapshot}).
+ */
+public class ChunkedRealtimeInvertedIndex implements RealtimeInvertedIndex {
+  // Number of bitmaps per chunk, must be a power of 2
+  private static final int CHUNK_SIZE_LOG2 = 10;
+  private static final int CHUNK_SIZE = 1 << CHUNK_SIZE_LOG2;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  private static final int INITIAL_NUM_CHUNKS = 4;
+
+  // Bounds of the tail length, between which it is a fraction (1 / 2^TAIL_SIZE_SHIFT) of the bitmap cardinality
+  private static final int INITIAL_TAIL_SIZE = 4;
+  private static final int MIN_MAX_TAIL_SIZE = 64;
+  private static final int MAX_MAX_TAIL_SIZE = 1 << 16;
+  private static final int TAIL_SIZE_SHIFT = 3;
+
+  // Shared by all dictionary ids without published doc ids, never modified
+  private static final MutableRoaringBitmap EMPTY_BITMAP = new MutableRoaringBitmap();
+  private static final DocIdSnapshot EMPTY_SNAPSHOT = new DocIdSnapshot(EMPTY_BITMAP, new int[0], 0);
+
+  private final String _columnName;
+
+  // Chunk directory, re-assigned (volatile write) whenever a new bitmap is stored so that readers see it
+  private volatile DocIdBitmap[][] _chunks = new DocIdBitmap[INITIAL_NUM_CHUNKS][];
+
+  public ChunkedRealtimeInvertedIndex(String columnName) {
+    _columnName = columnName;
+  }
+
+  @Override
+  public void add(Object dictId, int docId) {
+    add(((Integer) dictId).intValue(), docId);
+  }
+
+  /**
+   * Only called by the writer, with increasing doc ids.
+   */
+  @Override
+  public void add(int dictId, int docId) {
+    DocIdBitmap[][] chunks = _chunks;
+    int chunkId = dictId >>> CHUNK_SIZE_LOG2;
+    int offsetInChunk = dictId & CHUNK_MASK;
+
+    if (chunkId < chunks.length) {
+      DocIdBitmap[] chunk = chunks[chunkId];
+      if (chunk != null) {
+        DocIdBitmap bitmap = chunk[offsetInChunk];
+        if (bitmap != null) {
+          bitmap.add(docId);
+          return;
+        }
+      }
+    }
+
+    // First doc id for this dictionary id
+    if (chunkId >= chunks.length) {
+      DocIdBitmap[][] newChunks = new DocIdBitmap[Math.max(chunks.length * 2, chunkId + 1)][];
+      System.arraycopy(chunks, 0, newChunks, 0, chunks.length);
+      chunks = newChunks;
+    }
+    if (chunks[chunkId] == null) {
+      chunks[chunkId] = new DocIdBitmap[CHUNK_SIZE];
+    }
+    chunks[chunkId][offsetInChunk] = new DocIdBitmap(docId);
+    // Publish the new bitmap (and the new directory if it grew)
+    _chunks = chunks;
+  }
+
+  @Override
+  public MutableRoaringBitmap getDocIdSetFor(Object dicId) {
+    return getDocIdSnapshot((Integer) dicId, Integer.MAX_VALUE).toBitmap();
+  }
+
+  @Override
+  public ImmutableRoaringBitmap getImmutable(int idx) {
+    return getDocIdSnapshot(idx, Integer.MAX_VALUE).toBitmap();
+  }
+
+  @Override
+  public DocIdSnapshot getDocIdSnapshot(int dictId, int maxDocId) {
+    DocIdBitmap[][] chunks = _chunks;
+    int chunkId = dictId >>> CHUNK_SIZE_LOG2;
+    if (chunkId >= chunks.length) {
+      return EMPTY_SNAPSHOT;
+    }
+    DocIdBitmap[] chunk = chunks[chunkId];
+    if (chunk == null) {
+      return EMPTY_SNAPSHOT;
+    }
+    DocIdBitmap bitmap = chunk[dictId & CHUNK_MASK];
+    if (bitmap == null) {
+      return EMPTY_SNAPSHOT;
+    }
+    return bitmap.getSnapshot(maxDocId);
+  }
+
+  @Override
+  public IntPair getMinMaxRangeFor(int docId) {
+    throw new UnsupportedOperationException("getMinMaxRangeFor not supported for realtime inverted index on column: "
+        + _columnName);
+  }
+
+  @Override
+  public void close() throws IOException {
+    _chunks = new DocIdBitmap[0][];
+  }
+
+  /**
+   * Doc ids for one dictionary id, as a published bitmap plus a tail of the doc ids added after it.
+   */
+  private static final class DocIdBitmap {
+    private volatile Published _published;
+    // Only accessed by the writer
+    private int _lastDocId;
+
+    DocIdBitmap(int firstDocId) {
+      int[] tailDocIds = new int[INITIAL_TAIL_SIZE];
+      tailDocIds[0] = firstDocId;
+      _published = new Published(EMPTY_BITMAP, tailDocIds, 1);
+      _lastDocId = firstDocId;
+    }
+
+    void add(int docId) {
+      // Multi-value columns can hold the same value several times in a doc
+      if (docId == _lastDocId) {
+        return;
+      }
+      _lastDocId = docId;
+
+      Published published = _published;
+      int[] tailDocIds = published._tailDocIds;
+      int numTailDocIds = published._numTailDocIds;
+      if (numTailDocIds < tailDocIds.length) {
+        tailDocIds[numTailDocIds] = docId;
+        // Volatile write, publishes the doc id written above
+        published._numTailDocIds = numTailDocIds + 1;
+        return;
+      }
+
+      int maxTailSize = Math.min(
+          Math.max(published._bitmap.getCardinality() >>> TAIL_SIZE_SHIFT, MIN_MAX_TAIL_SIZE), MAX_MAX_TAIL_SIZE);
+      if (numTailDocIds < maxTailSize) {
+        // Grow the tail, readers holding the previous one keep reading valid doc ids from it
+        int[] newTailDocIds = Arrays.copyOf(tailDocIds, Math.min(numTailDocIds * 2, maxTailSize));
+        newTailDocIds[numTailDocIds] = docId;
+        _published = new Published(published._bitmap, newTailDocIds, numTailDocIds + 1);
+      } else {
+        // Publish a new bitmap including the tail
+        MutableRoaringBitmap bitmap = published._bitmap.clone();
+        for (int i = 0; i < numTailDocIds; i++) {
+          bitmap.add(tailDocIds[i]);
+        }
+        bitmap.add(docId);
+        _published = new Published(bitmap, new int[INITIAL_TAIL_SIZE], 0);
+      }
+    }
+
+    DocIdSnapshot getSnapshot(int maxDocId) {
+      Published published = _published;
+      int[] tailDocIds = published._tailDocIds;
+      int numTailDocIds = published._numTailDocIds;
+      // Only the doc ids searchable by the reader
+      while (numTailDocIds > 0 && tailDocIds[numTailDocIds - 1] > maxDocId) {
+        numTailDocIds--;
+      }
+      return new DocIdSnapshot(published._bitmap, tailDocIds, numTailDocIds);
+    }
+  }
+
+  /**
+   * Published state of a {@link DocIdBitmap}, replaced by the writer whenever the bitmap or the tail array changes.
+   * The bitmap and the first {@code _numTailDocIds} tail doc ids are never modified.
+   */
+  private static final class Published {
+    final MutableRoaringBitmap _bitmap;
+    final int[] _tailDocIds;
+    volatile int _numTailDocIds;
+
+    Published(MutableRoaringBitmap bitmap, int[] tailDocIds, int numTailDocIds) {
+      _bitmap = bitmap;
+      _tailDocIds = tailDocIds;
+      _numTailDocIds = numTailDocIds;
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.invertedIndex;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * Read-only view of the doc ids of one dictionary id in a realtime inverted index: the last published bitmap, plus
+ * the (sorted) doc ids added after it was published. The tail doc ids are all greater than the doc ids in the bitmap,
+ * so iterating the bitmap and then the tail visits the doc ids in order without copying the bitmap.
+ */
+public final class DocIdSnapshot {
+  private final MutableRoaringBitmap _bitmap;
+  private final int[] _tailDocIds;
+  private final int _numTailDocIds;
+
+  public DocIdSnapshot(MutableRoaringBitmap bitmap, int[] tailDocIds, int numTailDocIds) {
+    _bitmap = bitmap;
+    _tailDocIds = tailDocIds;
+    _numTailDocIds = numTailDocIds;
+  }
+
+  /**
+   * Returns the published bitmap, which must not be modified.
+   */
+  public ImmutableRoaringBitmap getBitmap() {
+    return _bitmap;
+  }
+
+  /**
+   * Returns the array holding the tail doc ids, only the first {@link #getNumTailDocIds()} entries are valid.
+   */
+  public int[] getTailDocIds() {
+    return _tailDocIds;
+  }
+
+  public int getNumTailDocIds() {
+    return _numTailDocIds;
+  }
+
+  public int getCardinality() {
+    return _bitmap.getCardinality() + _numTailDocIds;
+  }
+
+  /**
+   * Returns all the doc ids as a single bitmap, which must not be modified. Only copies the published bitmap if the
+   * tail is not empty.
+   */
+  public MutableRoaringBitmap toBitmap() {
+    if (_numTailDocIds == 0) {
+      return _bitmap;
+    }
+    MutableRoaringBitmap tailBitmap = new MutableRoaringBitmap();
+    for (int i = 0; i < _numTailDocIds; i++) {
+      tailBitmap.add(_tailDocIds[i]);
+    }
+    return ImmutableRoaringBitmap.or(_bitmap, tailBitmap);
+  }
+}
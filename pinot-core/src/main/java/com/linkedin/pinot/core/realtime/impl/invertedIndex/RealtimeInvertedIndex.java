@@ -23,6 +23,17 @@ import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
 public interface RealtimeInvertedIndex extends InvertedIndexReader {
   public void add(Object dictId, int docId);
 
+  /**
+   * Adds a doc id to the bitmap of the given dictionary id, without boxing the dictionary id.
+   */
+  public void add(int dictId, int docId);
+
   public MutableRoaringBitmap getDocIdSetFor(Object dicId);
 
+  /**
+   * Returns the doc ids of the given dictionary id, without the doc ids added after the given (inclusive) maximum doc
+   * id. Unlike {@link #getImmutable(int)}, never copies the doc ids.
+   */
+  public DocIdSnapshot getDocIdSnapshot(int dictId, int maxDocId);
+
 }
@@ -49,6 +49,16 @@ public interface SegmentCreator {
    */
   void indexRow(GenericRow row);
 
+  /**
+   * Adds the value of a single column of a row to the index, as an alternative to {@link #indexRow(GenericRow)}.
+   * Different columns can be indexed concurrently, but the values of each column must be added in doc id order.
+   *
+   * @param column The column to index
+   * @param docId The doc id of the row
+   * @param value The value of the column in the row
+   */
+  void indexColumn(String column, int docId, Object value);
+
   /**
    * Sets the name of the segment.
    *
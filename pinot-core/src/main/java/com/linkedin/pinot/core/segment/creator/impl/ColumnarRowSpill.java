@@ -0,0 +1,199 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.core.data.GenericRow;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+
+/**
+ * Spills the rows of a segment to disk, one file per column, so that the columns can be read back independently and
+ * concurrently once the statistics over the whole input are known. Values are written with a one byte type tag,
+ * multi-values as an array of tagged values.
+ */
+public class ColumnarRowSpill implements Closeable {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int BUFFER_SIZE = 32 * 1024;
+
+  private static final byte NULL = 0;
+  private static final byte INT = 1;
+  private static final byte LONG = 2;
+  private static final byte FLOAT = 3;
+  private static final byte DOUBLE = 4;
+  private static final byte STRING = 5;
+  private static final byte ARRAY = 6;
+
+  private final File _dir;
+  private final List<String> _columns;
+  private final Map<String, File> _columnFiles = new HashMap<>();
+  private final List<DataOutputStream> _outputStreams = new ArrayList<>();
+  private int _numRows = 0;
+  private boolean _writing = true;
+
+  public ColumnarRowSpill(File dir, List<String> columns) throws IOException {
+    Preconditions.checkState(dir.mkdirs(), "Failed to create spill directory: %s", dir);
+    _dir = dir;
+    _columns = columns;
+    int numColumns = columns.size();
+    for (int i = 0; i < numColumns; i++) {
+      // Column names are not necessarily valid file names
+      File file = new File(dir, i + ".spill");
+      _columnFiles.put(columns.get(i), file);
+      _outputStreams.add(new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE)));
+    }
+  }
+
+  public void append(GenericRow row) throws IOException {
+    Preconditions.checkState(_writing, "Cannot append rows after finishing writing");
+    int numColumns = _columns.size();
+    for (int i = 0; i < numColumns; i++) {
+      writeValue(_outputStreams.get(i), row.getValue(_columns.get(i)));
+    }
+    _numRows++;
+  }
+
+  public int getNumRows() {
+    return _numRows;
+  }
+
+  /**
+   * Flushes the spilled rows to disk. Must be called before reading the columns.
+   */
+  public void finishWriting() throws IOException {
+    for (DataOutputStream outputStream : _outputStreams) {
+      outputStream.close();
+    }
+    _outputStreams.clear();
+    _writing = false;
+  }
+
+  /**
+   * Returns a reader over the values of a column, in row order. Readers of different columns can be used
+   * concurrently.
+   */
+  public ColumnReader getColumnReader(String column) throws IOException {
+    Preconditions.checkState(!_writing, "Cannot read columns before finishing writing");
+    File file = _columnFiles.get(column);
+    Preconditions.checkArgument(file != null, "Column %s was not spilled", column);
+    return new ColumnReader(
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)));
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (DataOutputStream outputStream : _outputStreams) {
+      IOUtils.closeQuietly(outputStream);
+    }
+    _outputStreams.clear();
+    FileUtils.deleteDirectory(_dir);
+  }
+
+  private static void writeValue(DataOutputStream out, Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(NULL);
+    } else if (value instanceof Integer) {
+      out.writeByte(INT);
+      out.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      out.writeLong((Long) value);
+    } else if (value instanceof Float) {
+      out.writeByte(FLOAT);
+      out.writeFloat((Float) value);
+    } else if (value instanceof Double) {
+      out.writeByte(DOUBLE);
+      out.writeDouble((Double) value);
+    } else if (value instanceof String) {
+      byte[] bytes = ((String) value).getBytes(UTF_8);
+      out.writeByte(STRING);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    } else if (value instanceof Object[]) {
+      Object[] values = (Object[]) value;
+      out.writeByte(ARRAY);
+      out.writeInt(values.length);
+      for (Object element : values) {
+        writeValue(out, element);
+      }
+    } else {
+      throw new IllegalStateException("Cannot spill value of type " + value.getClass().getName());
+    }
+  }
+
+  private static Object readValue(DataInputStream in) throws IOException {
+    byte type = in.readByte();
+    switch (type) {
+      case NULL:
+        return null;
+      case INT:
+        return in.readInt();
+      case LONG:
+        return in.readLong();
+      case FLOAT:
+        return in.readFloat();
+      case DOUBLE:
+        return in.readDouble();
+      case STRING:
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+      case ARRAY:
+        Object[] values = new Object[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = readValue(in);
+        }
+        return values;
+      default:
+        throw new IllegalStateException("Invalid spilled value type " + type);
+    }
+  }
+
+  /**
+   * Reads back the values of one column, in row order.
+   */
+  public static class ColumnReader implements Closeable {
+    private final DataInputStream _in;
+
+    private ColumnReader(DataInputStream in) {
+      _in = in;
+    }
+
+    public Object next() throws IOException {
+      return readValue(_in);
+    }
+
+    @Override
+    public void close() throws IOException {
+      _in.close();
+    }
+  }
+}
@@ -15,10 +15,16 @@
  */
 package com.linkedin.pinot.core.segment.creator.impl;
 
+import com.google.common.base.Throwables;
+import com.linkedin.pinot.common.config.ColumnPartitionConfig;
+import com.linkedin.pinot.common.config.SegmentPartitionConfig;
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.common.data.StarTreeIndexSpec;
+import com.linkedin.pinot.common.utils.NamedThreadFactory;
 import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.partition.PartitionFunction;
+import com.linkedin.pinot.core.data.partition.PartitionFunctionFactory;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
 import com.linkedin.pinot.core.segment.creator.ColumnIndexCreationInfo;
 import com.linkedin.pinot.core.segment.creator.ForwardIndexCreator;
@@ -28,6 +34,8 @@ import com.linkedin.pinot.core.segment.creator.SegmentCreator;
 import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationInfo;
 import com.linkedin.pinot.core.segment.creator.SingleValueForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.SingleValueRawIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.bloom.BloomFilterCreator;
+import com.linkedin.pinot.core.segment.creator.impl.range.RangeIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.MultiValueUnsortedForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueFixedByteRawIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueSortedForwardIndexCreator;
@@ -37,11 +45,22 @@ import com.linkedin.pinot.core.segment.creator.impl.inv.OffHeapBitmapInvertedInd
 import com.linkedin.pinot.core.startree.hll.HllConfig;
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.commons.lang.StringEscapeUtils;
+import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,6 +82,8 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
   private Map<String, ForwardIndexCreator> forwardIndexCreatorMap;
   private Map<String, ForwardIndexCreator> rawIndexCreatorMap;
   private Map<String, InvertedIndexCreator> invertedIndexCreatorMap;
+  private Map<String, BloomFilterCreator> bloomFilterCreatorMap;
+  private Map<String, RangeIndexCreator> rangeIndexCreatorMap;
   private String segmentName;
 
   private Schema schema;
@@ -88,6 +109,8 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     forwardIndexCreatorMap = new HashMap<String, ForwardIndexCreator>();
     this.indexCreationInfoMap = indexCreationInfoMap;
     invertedIndexCreatorMap = new HashMap<String, InvertedIndexCreator>();
+    bloomFilterCreatorMap = new HashMap<String, BloomFilterCreator>();
+    rangeIndexCreatorMap = new HashMap<String, RangeIndexCreator>();
     file = outDir;
 
     // Check that the output directory does not exist
@@ -116,20 +139,16 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
       if (createDictionaryForColumn(info, config, spec)) {
         dictionaryCreatorMap.put(column,
             new SegmentDictionaryCreator(info.hasNulls(), info.getSortedUniqueElementsArray(), spec, file,
-                paddingCharacter));
+                paddingCharacter, config.getVarLengthDictionaryColumns().contains(column)));
       }
     }
 
-    // For each column, build its dictionary and initialize a forwards and an inverted index
+    buildDictionaries();
+
+    // For each column, initialize a forwards and an inverted index
     for (final String column : indexCreationInfoMap.keySet()) {
       ColumnIndexCreationInfo indexCreationInfo = indexCreationInfoMap.get(column);
-      boolean[] isSorted = new boolean[1];
-      isSorted[0] = indexCreationInfo.isSorted();
-      SegmentDictionaryCreator dictionaryCreator = dictionaryCreatorMap.get(column);
-
-      if (dictionaryCreator != null) {
-        dictionaryCreator.build(isSorted);
-        indexCreationInfo.setSorted(isSorted[0]);
+      if (dictionaryCreatorMap.containsKey(column)) {
         dictionaryCache.put(column, new HashMap<Object, Object>());
       }
       int uniqueValueCount = indexCreationInfo.getDistinctValueCount();
@@ -173,6 +192,86 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
           uniqueValueCount, totalDocs, indexCreationInfo.getTotalNumberOfEntries(), schema.getFieldSpecFor(column));
       invertedIndexCreatorMap.put(column, invertedIndexCreator);
     }
+
+    // Bloom filters are built on the unique values of the column, which are already known at this point.
+    for (String column : config.getBloomFilterCreationColumns()) {
+      if (!dictionaryCreatorMap.containsKey(column)) {
+        LOGGER.warn("Skipping bloom filter on column:{} since it is missing in schema or has no dictionary", column);
+        continue;
+      }
+      ColumnIndexCreationInfo indexCreationInfo = indexCreationInfoMap.get(column);
+      // Sorted unique elements can be a primitive array.
+      Object sortedUniqueElements = indexCreationInfo.getSortedUniqueElementsArray();
+      int numUniqueElements = Array.getLength(sortedUniqueElements);
+      BloomFilterCreator bloomFilterCreator = new BloomFilterCreator(file, column, numUniqueElements);
+      for (int i = 0; i < numUniqueElements; i++) {
+        bloomFilterCreator.add(Array.get(sortedUniqueElements, i));
+      }
+      bloomFilterCreatorMap.put(column, bloomFilterCreator);
+    }
+
+    for (String column : config.getRangeIndexCreationColumns()) {
+      if (!dictionaryCreatorMap.containsKey(column)) {
+        LOGGER.warn("Skipping range index on column:{} since it is missing in schema or has no dictionary", column);
+        continue;
+      }
+      ColumnIndexCreationInfo indexCreationInfo = indexCreationInfoMap.get(column);
+      if (indexCreationInfo.isSorted() && schema.getFieldSpecFor(column).isSingleValueField()) {
+        LOGGER.info("Skipping range index on column:{} since it is sorted", column);
+        continue;
+      }
+      RangeIndexCreator rangeIndexCreator = new RangeIndexCreator(file, column,
+          indexCreationInfo.getDistinctValueCount(), totalDocs, indexCreationInfo.getTotalNumberOfEntries(),
+          schema.getFieldSpecFor(column).isSingleValueField());
+      rangeIndexCreatorMap.put(column, rangeIndexCreator);
+    }
+  }
+
+  /**
+   * Builds the dictionaries, on the index creation threads of the config, and updates the sorted flag of their
+   * columns.
+   */
+  private void buildDictionaries() throws Exception {
+    int numThreads = Math.min(config.getNumIndexCreationThreads(), dictionaryCreatorMap.size());
+    if (numThreads <= 1) {
+      for (String column : dictionaryCreatorMap.keySet()) {
+        buildDictionary(column);
+      }
+      return;
+    }
+
+    ExecutorService executorService =
+        Executors.newFixedThreadPool(numThreads, new NamedThreadFactory("dictionary-creator"));
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (final String column : dictionaryCreatorMap.keySet()) {
+        futures.add(executorService.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            buildDictionary(column);
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          Throwables.propagateIfInstanceOf(e.getCause(), Exception.class);
+          throw Throwables.propagate(e.getCause());
+        }
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private void buildDictionary(String column) throws Exception {
+    ColumnIndexCreationInfo indexCreationInfo = indexCreationInfoMap.get(column);
+    boolean[] isSorted = new boolean[1];
+    isSorted[0] = indexCreationInfo.isSorted();
+    dictionaryCreatorMap.get(column).build(isSorted);
+    indexCreationInfo.setSorted(isSorted[0]);
   }
 
   /**
@@ -207,38 +306,54 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
   @Override
   public void indexRow(GenericRow row) {
     for (final String column : forwardIndexCreatorMap.keySet()) {
-      try {
-        Object columnValueToIndex = row.getValue(column);
-        if (columnValueToIndex == null) {
-          throw new RuntimeException("Null value for column:" + column);
-        }
+      indexColumn(column, docIdCounter, row.getValue(column));
+    }
+    docIdCounter++;
+  }
 
-        SegmentDictionaryCreator dictionaryCreator = dictionaryCreatorMap.get(column);
-        if (schema.getFieldSpecFor(column).isSingleValueField()) {
-          if (dictionaryCreator != null) {
-            int dictionaryIndex = dictionaryCreator.indexOfSV(columnValueToIndex);
-            ((SingleValueForwardIndexCreator) forwardIndexCreatorMap.get(column)).index(docIdCounter, dictionaryIndex);
-            // TODO : {refactor inverted index addition}
-            if (invertedIndexCreatorMap.containsKey(column)) {
-              invertedIndexCreatorMap.get(column).add(docIdCounter, dictionaryIndex);
-            }
-          } else {
-            ((SingleValueRawIndexCreator) forwardIndexCreatorMap.get(column)).index(docIdCounter, columnValueToIndex);
-          }
-        } else {
-          int[] dictionaryIndex = dictionaryCreator.indexOfMV(columnValueToIndex);
-          ((MultiValueForwardIndexCreator) forwardIndexCreatorMap.get(column)).index(docIdCounter, dictionaryIndex);
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The creators of a column are only accessed by the thread indexing that column, the maps holding them are not
+   * modified after {@link #init}.
+   */
+  @Override
+  public void indexColumn(String column, int docId, Object columnValueToIndex) {
+    try {
+      if (columnValueToIndex == null) {
+        throw new RuntimeException("Null value for column:" + column);
+      }
 
+      SegmentDictionaryCreator dictionaryCreator = dictionaryCreatorMap.get(column);
+      if (schema.getFieldSpecFor(column).isSingleValueField()) {
+        if (dictionaryCreator != null) {
+          int dictionaryIndex = dictionaryCreator.indexOfSV(columnValueToIndex);
+          ((SingleValueForwardIndexCreator) forwardIndexCreatorMap.get(column)).index(docId, dictionaryIndex);
           // TODO : {refactor inverted index addition}
           if (invertedIndexCreatorMap.containsKey(column)) {
-            invertedIndexCreatorMap.get(column).add(docIdCounter, dictionaryIndex);
+            invertedIndexCreatorMap.get(column).add(docId, dictionaryIndex);
           }
+          if (rangeIndexCreatorMap.containsKey(column)) {
+            rangeIndexCreatorMap.get(column).add(docId, dictionaryIndex);
+          }
+        } else {
+          ((SingleValueRawIndexCreator) forwardIndexCreatorMap.get(column)).index(docId, columnValueToIndex);
+        }
+      } else {
+        int[] dictionaryIndex = dictionaryCreator.indexOfMV(columnValueToIndex);
+        ((MultiValueForwardIndexCreator) forwardIndexCreatorMap.get(column)).index(docId, dictionaryIndex);
+
+        // TODO : {refactor inverted index addition}
+        if (invertedIndexCreatorMap.containsKey(column)) {
+          invertedIndexCreatorMap.get(column).add(docId, dictionaryIndex);
+        }
+        if (rangeIndexCreatorMap.containsKey(column)) {
+          rangeIndexCreatorMap.get(column).add(docId, dictionaryIndex, dictionaryIndex.length);
         }
-      } catch (Exception e) {
-        throw new RuntimeException("Exception while indexing column:"+ column, e);
       }
+    } catch (Exception e) {
+      throw new RuntimeException("Exception while indexing column:"+ column, e);
     }
-    docIdCounter++;
   }
 
   @Override
@@ -260,6 +375,12 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     for (final String invertedColumn : invertedIndexCreatorMap.keySet()) {
       invertedIndexCreatorMap.get(invertedColumn).seal();
     }
+    for (BloomFilterCreator bloomFilterCreator : bloomFilterCreatorMap.values()) {
+      bloomFilterCreator.seal();
+    }
+    for (RangeIndexCreator rangeIndexCreator : rangeIndexCreatorMap.values()) {
+      rangeIndexCreator.seal();
+    }
     writeMetadata();
   }
 
@@ -348,11 +469,52 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
       addColumnMetadataInfo(properties, column, columnIndexCreationInfo, totalDocs, totalRawDocs, totalAggDocs,
           schema.getFieldSpecFor(column), dictionaryCreatorMap.containsKey(column), dictionaryElementSize,
           hasInvertedIndex, hllOriginColumn);
+      if (dictionaryCreator != null && dictionaryCreator.isVarLengthDictionary()) {
+        properties.setProperty(getKeyFor(column, HAS_VAR_LENGTH_DICTIONARY), String.valueOf(true));
+      }
+    }
+
+    SegmentPartitionConfig segmentPartitionConfig = config.getSegmentPartitionConfig();
+    if (segmentPartitionConfig != null) {
+      for (Map.Entry<String, ColumnPartitionConfig> entry : segmentPartitionConfig.getColumnPartitionMap().entrySet()) {
+        String column = entry.getKey();
+        ColumnIndexCreationInfo columnIndexCreationInfo = indexCreationInfoMap.get(column);
+        if (columnIndexCreationInfo == null) {
+          LOGGER.warn("Cannot find partitioned column {} in segment, will not add partition metadata.", column);
+          continue;
+        }
+        ColumnPartitionConfig columnPartitionConfig = entry.getValue();
+        PartitionFunction partitionFunction = PartitionFunctionFactory.getPartitionFunction(
+            columnPartitionConfig.getFunctionName(), columnPartitionConfig.getNumPartitions());
+        addColumnPartitionInfo(properties, column, partitionFunction,
+            columnIndexCreationInfo.getSortedUniqueElementsArray());
+      }
     }
 
     properties.save();
   }
 
+  /**
+   * Helper method to add the partition function and the ids of the partitions the values of the column fall into to
+   * the segment metadata.
+   *
+   * @param properties Segment metadata properties
+   * @param column Column name
+   * @param partitionFunction Partition function of the column
+   * @param sortedUniqueElements Unique values of the column, can be a primitive array
+   */
+  public static void addColumnPartitionInfo(PropertiesConfiguration properties, String column,
+      PartitionFunction partitionFunction, Object sortedUniqueElements) {
+    Set<Integer> partitions = new TreeSet<>();
+    int numUniqueElements = Array.getLength(sortedUniqueElements);
+    for (int i = 0; i < numUniqueElements; i++) {
+      partitions.add(partitionFunction.getPartition(Array.get(sortedUniqueElements, i)));
+    }
+    properties.setProperty(getKeyFor(column, PARTITION_FUNCTION), partitionFunction.toString());
+    properties.setProperty(getKeyFor(column, NUM_PARTITIONS), String.valueOf(partitionFunction.getNumPartitions()));
+    properties.setProperty(getKeyFor(column, PARTITION_VALUES), StringUtils.join(partitions, ','));
+  }
+
   public static void addColumnMetadataInfo(PropertiesConfiguration properties, String column,
       ColumnIndexCreationInfo columnIndexCreationInfo, int totalDocs, int totalRawDocs,
       int totalAggDocs, FieldSpec fieldSpec, boolean hasDictionary, int dictionaryElementSize, boolean hasInvertedIndex,
@@ -394,6 +556,33 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     }
     properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, DEFAULT_NULL_VALUE),
         String.valueOf(defaultNullValue));
+
+    // Min/max values, used for segment pruning. Skip values that cannot be stored as is in the properties file.
+    Object min = columnIndexCreationInfo.getMin();
+    Object max = columnIndexCreationInfo.getMax();
+    if (isValidPropertyValue(min) && isValidPropertyValue(max)) {
+      properties.setProperty(getKeyFor(column, MIN_VALUE), escapeListDelimiter(min.toString()));
+      properties.setProperty(getKeyFor(column, MAX_VALUE), escapeListDelimiter(max.toString()));
+    }
+  }
+
+  /**
+   * Returns whether the value reads back unchanged from the properties file, which trims the values and interprets
+   * backslashes.
+   */
+  private static boolean isValidPropertyValue(Object value) {
+    if (value == null) {
+      return false;
+    }
+    String stringValue = value.toString();
+    return !stringValue.isEmpty() && stringValue.equals(stringValue.trim()) && stringValue.indexOf('\\') < 0;
+  }
+
+  /**
+   * Escapes the list delimiter so that the value is not split into multiple values by the properties file.
+   */
+  private static String escapeListDelimiter(String value) {
+    return value.replace(",", "\\,");
   }
 
   public static void removeColumnMetadataInfo(PropertiesConfiguration properties, String column) {
@@ -409,11 +598,17 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     properties.clearProperty(getKeyFor(column, HAS_NULL_VALUE));
     properties.clearProperty(getKeyFor(column, HAS_DICTIONARY));
     properties.clearProperty(getKeyFor(column, HAS_INVERTED_INDEX));
+    properties.clearProperty(getKeyFor(column, HAS_VAR_LENGTH_DICTIONARY));
     properties.clearProperty(getKeyFor(column, IS_SINGLE_VALUED));
     properties.clearProperty(getKeyFor(column, MAX_MULTI_VALUE_ELEMTS));
     properties.clearProperty(getKeyFor(column, TOTAL_NUMBER_OF_ENTRIES));
     properties.clearProperty(getKeyFor(column, IS_AUTO_GENERATED));
     properties.clearProperty(getKeyFor(column, DEFAULT_NULL_VALUE));
+    properties.clearProperty(getKeyFor(column, MIN_VALUE));
+    properties.clearProperty(getKeyFor(column, MAX_VALUE));
+    properties.clearProperty(getKeyFor(column, PARTITION_FUNCTION));
+    properties.clearProperty(getKeyFor(column, NUM_PARTITIONS));
+    properties.clearProperty(getKeyFor(column, PARTITION_VALUES));
   }
 
   /**
@@ -28,6 +28,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.commons.io.FileUtils;
@@ -43,6 +44,7 @@ public class SegmentDictionaryCreator implements Closeable {
   private final File dictionaryFile;
   private final int rowCount;
   private final char  paddingChar;
+  private final boolean useVarLengthDictionary;
   private static final Charset utf8CharSet = Charset.forName("UTF-8");
 
   private Int2IntOpenHashMap intValueToIndexMap;
@@ -55,6 +57,15 @@ public class SegmentDictionaryCreator implements Closeable {
 
   public SegmentDictionaryCreator(boolean hasNulls, Object sortedList, FieldSpec spec, File indexDir, char paddingChar)
       throws IOException {
+    this(hasNulls, sortedList, spec, indexDir, paddingChar, false);
+  }
+
+  /**
+   * @param useVarLengthDictionary whether to write string dictionaries in the variable-length, front-coded format
+   *                               instead of padding all entries to the longest value. Ignored for other data types.
+   */
+  public SegmentDictionaryCreator(boolean hasNulls, Object sortedList, FieldSpec spec, File indexDir, char paddingChar,
+      boolean useVarLengthDictionary) throws IOException {
     rowCount = ArrayUtils.getLength(sortedList);
 
     Object first = null;
@@ -102,6 +113,7 @@ public class SegmentDictionaryCreator implements Closeable {
     this.sortedList = sortedList;
     this.spec = spec;
     this.paddingChar = paddingChar;
+    this.useVarLengthDictionary = useVarLengthDictionary;
     dictionaryFile = new File(indexDir, spec.getName() + ".dict");
     FileUtils.touch(dictionaryFile);
   }
@@ -176,6 +188,11 @@ public class SegmentDictionaryCreator implements Closeable {
           }
         }
 
+        if (useVarLengthDictionary) {
+          buildVarLengthStringDictionary(sortedObjects, isSorted);
+          break;
+        }
+
         final FixedByteSingleValueMultiColWriter stringDictionaryWrite =
             new FixedByteSingleValueMultiColWriter(dictionaryFile, rowCount, 1,
                 new int[] { stringColumnMaxLength });
@@ -216,10 +233,56 @@ public class SegmentDictionaryCreator implements Closeable {
     }
   }
 
+  /**
+   * Writes the string dictionary without padding. Entries are ordered by their UTF-8 bytes, which only differs from the
+   * string order for values with supplementary characters.
+   */
+  private void buildVarLengthStringDictionary(Object[] sortedObjects, boolean[] isSorted) throws IOException {
+    final byte[][] valueBytes = new byte[rowCount][];
+    Integer[] order = new Integer[rowCount];
+    for (int i = 0; i < rowCount; i++) {
+      valueBytes[i] = sortedObjects[i].toString().getBytes(utf8CharSet);
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer o1, Integer o2) {
+        return VarLengthStringDictionaryWriter.BYTES_COMPARATOR.compare(valueBytes[o1], valueBytes[o2]);
+      }
+    });
+
+    byte[][] sortedValues = new byte[rowCount][];
+    stringValueToIndexMap = new Object2IntOpenHashMap<>(rowCount);
+    for (int i = 0; i < rowCount; i++) {
+      if (order[i] != i) {
+        isSorted[0] = false;
+      }
+      sortedValues[i] = valueBytes[order[i]];
+      stringValueToIndexMap.put(sortedObjects[order[i]].toString(), i);
+    }
+    VarLengthStringDictionaryWriter.write(dictionaryFile, sortedValues);
+  }
+
   public int getStringColumnMaxLength() {
     return stringColumnMaxLength;
   }
 
+  /**
+   * Returns true if the dictionary is written in the variable-length, front-coded format.
+   */
+  public boolean isVarLengthDictionary() {
+    if (!useVarLengthDictionary) {
+      return false;
+    }
+    switch (spec.getDataType()) {
+      case STRING:
+      case BOOLEAN:
+        return true;
+      default:
+        return false;
+    }
+  }
+
   public int indexOfSV(Object e) {
     switch (spec.getDataType()) {
       case INT:
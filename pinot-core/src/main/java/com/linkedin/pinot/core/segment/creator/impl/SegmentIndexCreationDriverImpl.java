@@ -22,6 +22,7 @@ import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -30,15 +31,22 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.mutable.MutableLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.google.common.base.Throwables;
 import com.google.common.collect.HashBiMap;
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.MetricFieldSpec;
 import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.common.data.StarTreeIndexSpec;
+import com.linkedin.pinot.common.utils.NamedThreadFactory;
 import com.linkedin.pinot.common.utils.SegmentNameBuilder;
 import com.linkedin.pinot.core.data.GenericRow;
 import com.linkedin.pinot.core.data.extractors.FieldExtractorFactory;
@@ -222,6 +230,8 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
 
     boolean enableOffHeapFormat = starTreeIndexSpec.isEnableOffHeapFormat();
     starTreeBuilderConfig.setEnableOffHealpFormat(enableOffHeapFormat);
+    starTreeBuilderConfig.setNumThreads(config.getNumIndexCreationThreads());
+    starTreeBuilderConfig.setSortMemoryBudgetBytes(config.getStarTreeSortMemoryBudgetBytes());
 
     //initialize star tree builder
     StarTreeBuilder starTreeBuilder = new OffHeapStarTreeBuilder();
@@ -352,6 +362,10 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
   }
 
   public void buildRaw() throws Exception {
+    if (config.getNumIndexCreationThreads() > 1) {
+      buildRawParallel();
+      return;
+    }
     // Count the number of documents and gather per-column statistics
     LOGGER.debug("Start building StatsCollector!");
     totalDocs = 0;
@@ -389,6 +403,96 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     }
     recordReader.close();
     LOGGER.info("Finished records indexing in IndexCreator!");
+    logExtractorCounters();
+
+    handlePostCreation();
+  }
+
+  /**
+   * Same as {@link #buildRaw()}, but reads the input only once: the rows are spilled to disk column by column while
+   * gathering the statistics, then each column is indexed from its spill file, in parallel on the configured number
+   * of index creation threads.
+   */
+  private void buildRawParallel() throws Exception {
+    LOGGER.debug("Start building StatsCollector and spilling rows!");
+    totalDocs = 0;
+    List<String> columns = new ArrayList<>(dataSchema.getColumnNames());
+    File spillDir = new File(config.getOutDir(), com.linkedin.pinot.common.utils.FileUtils.getRandomFileName());
+    ColumnarRowSpill rowSpill = new ColumnarRowSpill(spillDir, columns);
+    try {
+      GenericRow readRow = new GenericRow();
+      GenericRow transformedRow = new GenericRow();
+      while (recordReader.hasNext()) {
+        totalDocs++;
+        totalRawDocs++;
+        long start = System.currentTimeMillis();
+        transformedRow = readNextRowSanitized(readRow, transformedRow);
+        long stop = System.currentTimeMillis();
+        statsCollector.collectRow(transformedRow);
+        rowSpill.append(transformedRow);
+        long stop1 = System.currentTimeMillis();
+        totalRecordReadTime += (stop - start);
+        totalStatsCollectorTime += (stop1 - stop);
+      }
+      recordReader.close();
+      rowSpill.finishWriting();
+      buildIndexCreationInfo();
+      LOGGER.info("Finished building StatsCollector!");
+      LOGGER.info("Collected stats for {} documents", totalDocs);
+
+      // Initialize the index creation using the per-column statistics information
+      indexCreator.init(config, segmentIndexCreationInfo, indexCreationInfoMap, dataSchema, tempIndexDir);
+
+      // Build the index of each column from its spill file
+      LOGGER.info("Start building IndexCreator with {} threads!", config.getNumIndexCreationThreads());
+      long start = System.currentTimeMillis();
+      indexColumns(rowSpill, columns);
+      totalIndexTime += System.currentTimeMillis() - start;
+      LOGGER.info("Finished records indexing in IndexCreator!");
+    } finally {
+      rowSpill.close();
+    }
+    logExtractorCounters();
+
+    handlePostCreation();
+  }
+
+  private void indexColumns(final ColumnarRowSpill rowSpill, List<String> columns) throws Exception {
+    ExecutorService executorService = Executors.newFixedThreadPool(config.getNumIndexCreationThreads(),
+        new NamedThreadFactory("index-creator"));
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (final String column : columns) {
+        futures.add(executorService.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            ColumnarRowSpill.ColumnReader columnReader = rowSpill.getColumnReader(column);
+            try {
+              int numRows = rowSpill.getNumRows();
+              for (int docId = 0; docId < numRows; docId++) {
+                indexCreator.indexColumn(column, docId, columnReader.next());
+              }
+            } finally {
+              columnReader.close();
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          Throwables.propagateIfInstanceOf(e.getCause(), Exception.class);
+          throw Throwables.propagate(e.getCause());
+        }
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private void logExtractorCounters() {
     int numErrors, numConversions, numNulls, numNullCols;
     if ((numErrors = extractor.getTotalErrors()) > 0) {
       LOGGER.warn("Index creator for schema {} had {} rows with errors", dataSchema.getSchemaName(), numErrors);
@@ -409,8 +513,6 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     if ((numNullCols = extractor.getTotalNullCols()) > 0) {
       LOGGER.info("Index creator for schema {} had {}  null columns", dataSchema.getSchemaName(), numNullCols);
     }
-
-    handlePostCreation();
   }
 
   private void handlePostCreation() throws Exception {
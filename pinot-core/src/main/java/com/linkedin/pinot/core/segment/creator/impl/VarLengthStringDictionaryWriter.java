@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl;
+
+import com.google.common.base.Preconditions;
+import com.google.common.primitives.UnsignedBytes;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Comparator;
+
+
+/**
+ * Writes a string dictionary in the variable-length, front-coded format read by
+ * {@link com.linkedin.pinot.core.segment.index.readers.VarLengthStringDictionary}.
+ *
+ * <p>Layout, all ints are big endian:
+ * <ul>
+ *   <li>Header: version, number of entries, number of entries per block.</li>
+ *   <li>Offset block: for each block, the offset of its first entry relative to the start of the data section.</li>
+ *   <li>Data section: for each entry, the length of the prefix shared with the previous entry and the length of the
+ *   remaining suffix as unsigned varints, followed by the suffix bytes. The first entry of each block is stored in
+ *   full, so that every block can be decoded on its own.</li>
+ * </ul>
+ *
+ * <p>Entries are the UTF-8 bytes of the values, and must be strictly increasing in unsigned lexicographical order,
+ * so that lookups can binary search over the raw bytes.
+ */
+public class VarLengthStringDictionaryWriter {
+  public static final int VERSION = 1;
+  public static final int HEADER_SIZE = 3 * (Integer.SIZE / Byte.SIZE);
+  public static final int DEFAULT_NUM_ENTRIES_PER_BLOCK = 16;
+  public static final Comparator<byte[]> BYTES_COMPARATOR = UnsignedBytes.lexicographicalComparator();
+
+  private VarLengthStringDictionaryWriter() {
+  }
+
+  public static void write(File file, byte[][] sortedValues) throws IOException {
+    write(file, sortedValues, DEFAULT_NUM_ENTRIES_PER_BLOCK);
+  }
+
+  public static void write(File file, byte[][] sortedValues, int numEntriesPerBlock) throws IOException {
+    Preconditions.checkArgument(numEntriesPerBlock > 0);
+    int numEntries = sortedValues.length;
+    int numBlocks = (numEntries + numEntriesPerBlock - 1) / numEntriesPerBlock;
+    int[] blockOffsets = new int[numBlocks];
+
+    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    byte[] previousValue = null;
+    for (int i = 0; i < numEntries; i++) {
+      byte[] value = sortedValues[i];
+      if (previousValue != null && BYTES_COMPARATOR.compare(previousValue, value) >= 0) {
+        throw new IllegalArgumentException("Dictionary values are not sorted or not unique at index: " + i);
+      }
+      int prefixLength = 0;
+      if (i % numEntriesPerBlock == 0) {
+        blockOffsets[i / numEntriesPerBlock] = data.size();
+      } else {
+        prefixLength = getCommonPrefixLength(previousValue, value);
+      }
+      int suffixLength = value.length - prefixLength;
+      writeVarInt(data, prefixLength);
+      writeVarInt(data, suffixLength);
+      data.write(value, prefixLength, suffixLength);
+      previousValue = value;
+    }
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+      out.writeInt(VERSION);
+      out.writeInt(numEntries);
+      out.writeInt(numEntriesPerBlock);
+      for (int blockOffset : blockOffsets) {
+        out.writeInt(blockOffset);
+      }
+      data.writeTo(out);
+    }
+  }
+
+  private static int getCommonPrefixLength(byte[] value1, byte[] value2) {
+    int maxLength = Math.min(value1.length, value2.length);
+    int length = 0;
+    while (length < maxLength && value1[length] == value2[length]) {
+      length++;
+    }
+    return length;
+  }
+
+  private static void writeVarInt(ByteArrayOutputStream out, int value) {
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl.bloom;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+
+/**
+ * Creator for the column bloom filter, which is built on the unique values of the column (the dictionary), so that
+ * segments not containing a value can be skipped without touching the dictionary.
+ * <p>Values are stored as their string representation, predicate values are normalized the same way by
+ * {@link com.linkedin.pinot.core.segment.index.readers.BloomFilterReader}.
+ * <p>Typical usage:
+ * <code>
+ * creator = new BloomFilterCreator(indexDir, column, cardinality);
+ * creator.add(value) // for each unique value
+ * creator.seal() // generates the bloom filter file
+ * </code>
+ */
+public class BloomFilterCreator {
+  public static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.05;
+
+  private final File _bloomFilterFile;
+  private final BloomFilter<CharSequence> _bloomFilter;
+
+  public BloomFilterCreator(File indexDir, String column, int cardinality) {
+    _bloomFilterFile = new File(indexDir, column + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION);
+    _bloomFilter = BloomFilter.create(Funnels.stringFunnel(Charsets.UTF_8), Math.max(cardinality, 1),
+        DEFAULT_FALSE_POSITIVE_PROBABILITY);
+  }
+
+  public void add(Object value) {
+    _bloomFilter.put(value.toString());
+  }
+
+  public void seal()
+      throws IOException {
+    try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(_bloomFilterFile))) {
+      _bloomFilter.writeTo(outputStream);
+    }
+  }
+}
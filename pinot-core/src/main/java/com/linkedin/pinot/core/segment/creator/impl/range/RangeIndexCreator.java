@@ -0,0 +1,195 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl.range;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.utils.MmapUtils;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * Creator for the column range index, which splits the (sorted) dictionary ids of the column into buckets of
+ * contiguous dictionary ids holding roughly the same number of entries, and keeps one bitmap of the matching docs per
+ * bucket. A range predicate is then answered by OR-ing the buckets fully inside the range, and only checking the docs
+ * of the (at most two) buckets on the edges of the range against the forward index.
+ * <p>Typical usage:
+ * <code>
+ * creator = new RangeIndexCreator(indexDir, column, cardinality, numDocs, totalNumberOfEntries, isSingleValue);
+ * creator.add(docId, dictId) // single value
+ * creator.add(docId, dictIds, length) // multi value
+ * creator.seal() // generates the range index file
+ * </code>
+ * <p>OUTPUT FILE FORMAT
+ * <code>
+ * [VERSION] -- INT
+ * [NUMBER OF BUCKETS] -- INT
+ * [BUCKET START DICTIONARY IDS] -- number of buckets + 1 INTs, the last one being the cardinality
+ * [BITMAP OFFSETS] -- number of buckets + 1 INTs, offset of each bitmap from the start of the file, the last one being
+ * the size of the file
+ * [BITMAP SERIALIZED DATA] -- one serialized roaring bitmap per bucket
+ * </code>
+ */
+public class RangeIndexCreator {
+  public static final int VERSION = 1;
+  public static final int DEFAULT_MAX_NUM_BUCKETS = 128;
+
+  private static final int INT_SIZE = Integer.SIZE / Byte.SIZE;
+
+  private final File _rangeIndexFile;
+  private final int _cardinality;
+  private final int _numDocs;
+  private final boolean _isSingleValue;
+  private final int _maxNumBuckets;
+  private final int[] _numEntriesPerDictId;
+
+  // Dictionary id of each entry, and for multi value columns the doc id of each entry
+  private ByteBuffer _origDictIdBuffer;
+  private IntBuffer _dictIdBuffer;
+  private ByteBuffer _origDocIdBuffer;
+  private IntBuffer _docIdBuffer;
+  private int _numEntries = 0;
+
+  public RangeIndexCreator(File indexDir, String column, int cardinality, int numDocs, int totalNumberOfEntries,
+      boolean isSingleValue) {
+    this(indexDir, column, cardinality, numDocs, totalNumberOfEntries, isSingleValue, DEFAULT_MAX_NUM_BUCKETS);
+  }
+
+  public RangeIndexCreator(File indexDir, String column, int cardinality, int numDocs, int totalNumberOfEntries,
+      boolean isSingleValue, int maxNumBuckets) {
+    Preconditions.checkArgument(cardinality > 0, "Cardinality:%s must > 0", cardinality);
+    Preconditions.checkArgument(maxNumBuckets > 0, "Max number of buckets:%s must > 0", maxNumBuckets);
+    _rangeIndexFile = new File(indexDir, column + V1Constants.Indexes.RANGE_INDEX_FILE_EXTENSION);
+    _cardinality = cardinality;
+    _numDocs = numDocs;
+    _isSingleValue = isSingleValue;
+    _maxNumBuckets = maxNumBuckets;
+    _numEntriesPerDictId = new int[cardinality];
+
+    int capacity = isSingleValue ? numDocs : totalNumberOfEntries;
+    _origDictIdBuffer = MmapUtils.allocateDirectByteBuffer(Math.max(capacity, 1) * INT_SIZE, null,
+        "dictionary id buffer to create range index for " + column);
+    _dictIdBuffer = _origDictIdBuffer.asIntBuffer();
+    if (!isSingleValue) {
+      _origDocIdBuffer = MmapUtils.allocateDirectByteBuffer(Math.max(capacity, 1) * INT_SIZE, null,
+          "doc id buffer to create range index for " + column);
+      _docIdBuffer = _origDocIdBuffer.asIntBuffer();
+    }
+  }
+
+  public void add(int docId, int dictId) {
+    Preconditions.checkArgument(docId >= 0 && docId < _numDocs, "docId Id %s must >=0 and < %s", docId, _numDocs);
+    _dictIdBuffer.put(docId, dictId);
+    _numEntriesPerDictId[dictId]++;
+    _numEntries++;
+  }
+
+  public void add(int docId, int[] dictIds, int length) {
+    Preconditions.checkState(!_isSingleValue, "Method not applicable to single value fields");
+    for (int i = 0; i < length; i++) {
+      int dictId = dictIds[i];
+      _dictIdBuffer.put(_numEntries, dictId);
+      _docIdBuffer.put(_numEntries, docId);
+      _numEntriesPerDictId[dictId]++;
+      _numEntries++;
+    }
+  }
+
+  public void seal()
+      throws IOException {
+    try {
+      int[] bucketStartDictIds = computeBucketStartDictIds();
+      int numBuckets = bucketStartDictIds.length - 1;
+      int[] dictIdToBucketId = new int[_cardinality];
+      MutableRoaringBitmap[] bitmaps = new MutableRoaringBitmap[numBuckets];
+      for (int bucketId = 0; bucketId < numBuckets; bucketId++) {
+        for (int dictId = bucketStartDictIds[bucketId]; dictId < bucketStartDictIds[bucketId + 1]; dictId++) {
+          dictIdToBucketId[dictId] = bucketId;
+        }
+        bitmaps[bucketId] = new MutableRoaringBitmap();
+      }
+      for (int i = 0; i < _numEntries; i++) {
+        int docId = _isSingleValue ? i : _docIdBuffer.get(i);
+        bitmaps[dictIdToBucketId[_dictIdBuffer.get(i)]].add(docId);
+      }
+
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(new FileOutputStream(_rangeIndexFile)))) {
+        out.writeInt(VERSION);
+        out.writeInt(numBuckets);
+        for (int bucketStartDictId : bucketStartDictIds) {
+          out.writeInt(bucketStartDictId);
+        }
+        int offset = (2 + 2 * (numBuckets + 1)) * INT_SIZE;
+        out.writeInt(offset);
+        for (MutableRoaringBitmap bitmap : bitmaps) {
+          bitmap.runOptimize();
+          offset += bitmap.serializedSizeInBytes();
+          out.writeInt(offset);
+        }
+        for (MutableRoaringBitmap bitmap : bitmaps) {
+          bitmap.serialize(out);
+        }
+      }
+    } finally {
+      MmapUtils.unloadByteBuffer(_origDictIdBuffer);
+      _origDictIdBuffer = null;
+      _dictIdBuffer = null;
+      if (_origDocIdBuffer != null) {
+        MmapUtils.unloadByteBuffer(_origDocIdBuffer);
+        _origDocIdBuffer = null;
+        _docIdBuffer = null;
+      }
+    }
+  }
+
+  /**
+   * Splits the dictionary ids into buckets holding roughly the same number of entries. A dictionary id with more
+   * entries than the target bucket size gets a bucket of its own.
+   */
+  private int[] computeBucketStartDictIds() {
+    int numBuckets = Math.min(_maxNumBuckets, _cardinality);
+    long targetBucketSize = Math.max((_numEntries + numBuckets - 1) / numBuckets, 1);
+    List<Integer> bucketStartDictIds = new ArrayList<>(numBuckets + 1);
+    bucketStartDictIds.add(0);
+    long bucketSize = 0;
+    for (int dictId = 0; dictId < _cardinality - 1; dictId++) {
+      bucketSize += _numEntriesPerDictId[dictId];
+      // Close the bucket before a dictionary id that would overflow it, or after reaching the target size
+      if (bucketSize >= targetBucketSize
+          || (bucketSize > 0 && bucketSize + _numEntriesPerDictId[dictId + 1] > 2 * targetBucketSize)) {
+        bucketStartDictIds.add(dictId + 1);
+        bucketSize = 0;
+      }
+    }
+    bucketStartDictIds.add(_cardinality);
+
+    int[] result = new int[bucketStartDictIds.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = bucketStartDictIds.get(i);
+    }
+    return result;
+  }
+}
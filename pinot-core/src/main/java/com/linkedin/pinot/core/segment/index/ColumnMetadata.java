@@ -22,9 +22,15 @@ import com.linkedin.pinot.common.data.FieldSpec.FieldType;
 import com.linkedin.pinot.common.data.MetricFieldSpec;
 import com.linkedin.pinot.common.data.MetricFieldSpec.DerivedMetricType;
 import com.linkedin.pinot.common.data.TimeFieldSpec;
+import com.linkedin.pinot.core.data.partition.PartitionFunction;
+import com.linkedin.pinot.core.data.partition.PartitionFunctionFactory;
 import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
 import com.linkedin.pinot.core.startree.hll.HllUtil;
+import com.linkedin.pinot.core.util.TypedValueUtils;
 import java.lang.reflect.Field;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.commons.lang.StringEscapeUtils;
@@ -56,6 +62,7 @@ public class ColumnMetadata {
   private final boolean hasDictionary;
   @JsonProperty
   private final boolean hasInvertedIndex;
+  private final boolean hasVarLengthDictionary;
   private final boolean isSingleValue;
   private final int maxNumberOfMultiValues;
   private final int totalNumberOfEntries;
@@ -66,6 +73,10 @@ public class ColumnMetadata {
   private final DerivedMetricType derivedMetricType;
   private final int fieldSize;
   private final String originColumnName;
+  private final Comparable<Object> minValue;
+  private final Comparable<Object> maxValue;
+  private final PartitionFunction partitionFunction;
+  private final Set<Integer> partitions;
 
   public static ColumnMetadata fromPropertiesConfiguration(String column, PropertiesConfiguration config) {
     Builder builder = new Builder();
@@ -84,6 +95,7 @@ public class ColumnMetadata {
     builder.setContainsNulls(config.getBoolean(getKeyFor(column, HAS_NULL_VALUE)));
     builder.setHasDictionary(config.getBoolean(getKeyFor(column, HAS_DICTIONARY), true));
     builder.setHasInvertedIndex(config.getBoolean(getKeyFor(column, HAS_INVERTED_INDEX)));
+    builder.setHasVarLengthDictionary(config.getBoolean(getKeyFor(column, HAS_VAR_LENGTH_DICTIONARY), false));
     builder.setSingleValue(config.getBoolean(getKeyFor(column, IS_SINGLE_VALUED)));
     builder.setMaxNumberOfMultiValues(config.getInt(getKeyFor(column, MAX_MULTI_VALUE_ELEMTS)));
     builder.setTotalNumberOfEntries(config.getInt(getKeyFor(column, TOTAL_NUMBER_OF_ENTRIES)));
@@ -122,6 +134,38 @@ public class ColumnMetadata {
       builder.setDerivedMetricType(derivedMetricType);
     }
 
+    // MIN_VALUE and MAX_VALUE properties are only available for segments created after they were introduced
+    String minString = config.getString(getKeyFor(column, MIN_VALUE), null);
+    String maxString = config.getString(getKeyFor(column, MAX_VALUE), null);
+    if (minString != null && maxString != null) {
+      DataType dataType = DataType.valueOf(config.getString(getKeyFor(column, DATA_TYPE)).toUpperCase());
+      try {
+        builder.setMinValue(TypedValueUtils.parse(dataType, minString));
+        builder.setMaxValue(TypedValueUtils.parse(dataType, maxString));
+      } catch (NumberFormatException e) {
+        LOGGER.warn("Caught exception while parsing min/max values: {}/{} for column: {}, ignoring them.", minString,
+            maxString, column, e);
+        builder.setMinValue(null);
+        builder.setMaxValue(null);
+      }
+    }
+
+    // PARTITION_FUNCTION property is only available for partitioned columns
+    String partitionFunctionName = config.getString(getKeyFor(column, PARTITION_FUNCTION), null);
+    if (partitionFunctionName != null) {
+      int numPartitions = config.getInt(getKeyFor(column, NUM_PARTITIONS));
+      builder.setPartitionFunction(PartitionFunctionFactory.getPartitionFunction(partitionFunctionName, numPartitions));
+      List<Object> partitionValues = config.getList(getKeyFor(column, PARTITION_VALUES));
+      Set<Integer> partitions = new HashSet<>(partitionValues.size());
+      for (Object partitionValue : partitionValues) {
+        String partitionString = partitionValue.toString();
+        if (!partitionString.isEmpty()) {
+          partitions.add(Integer.valueOf(partitionString));
+        }
+      }
+      builder.setPartitions(partitions);
+    }
+
     return builder.build();
   }
 
@@ -149,6 +193,11 @@ public class ColumnMetadata {
     private DerivedMetricType derivedMetricType;
     private int fieldSize;
     private String originColumnName;
+    private Comparable<Object> minValue;
+    private Comparable<Object> maxValue;
+    private PartitionFunction partitionFunction;
+    private Set<Integer> partitions;
+    private boolean hasVarLengthDictionary;
 
     public Builder setColumnName(String columnName) {
       this.columnName = columnName;
@@ -265,11 +314,37 @@ public class ColumnMetadata {
       return this;
     }
 
+    public Builder setMinValue(Comparable<Object> minValue) {
+      this.minValue = minValue;
+      return this;
+    }
+
+    public Builder setMaxValue(Comparable<Object> maxValue) {
+      this.maxValue = maxValue;
+      return this;
+    }
+
+    public Builder setPartitionFunction(PartitionFunction partitionFunction) {
+      this.partitionFunction = partitionFunction;
+      return this;
+    }
+
+    public Builder setPartitions(Set<Integer> partitions) {
+      this.partitions = partitions;
+      return this;
+    }
+
+    public Builder setHasVarLengthDictionary(boolean hasVarLengthDictionary) {
+      this.hasVarLengthDictionary = hasVarLengthDictionary;
+      return this;
+    }
+
     public ColumnMetadata build() {
       return new ColumnMetadata(columnName, cardinality, totalDocs, totalRawDocs, totalAggDocs, dataType,
           bitsPerElement, stringColumnMaxLength, fieldType, isSorted, containsNulls, hasDictionary, hasInvertedIndex,
           isSingleValue, maxNumberOfMultiValues, totalNumberOfEntries, isAutoGenerated, defaultNullValueString,
-          timeUnit, paddingCharacter, derivedMetricType, fieldSize, originColumnName);
+          timeUnit, paddingCharacter, derivedMetricType, fieldSize, originColumnName, minValue, maxValue,
+          partitionFunction, partitions, hasVarLengthDictionary);
     }
   }
 
@@ -278,7 +353,8 @@ public class ColumnMetadata {
       boolean hasNulls, boolean hasDictionary, boolean hasInvertedIndex, boolean isSingleValue,
       int maxNumberOfMultiValues, int totalNumberOfEntries, boolean isAutoGenerated, String defaultNullValueString,
       TimeUnit timeUnit, char paddingCharacter, DerivedMetricType derivedMetricType, int fieldSize,
-      String originColumnName) {
+      String originColumnName, Comparable<Object> minValue, Comparable<Object> maxValue,
+      PartitionFunction partitionFunction, Set<Integer> partitions, boolean hasVarLengthDictionary) {
     this.columnName = columnName;
     this.cardinality = cardinality;
     this.totalDocs = totalDocs;
@@ -292,6 +368,7 @@ public class ColumnMetadata {
     this.containsNulls = hasNulls;
     this.hasDictionary = hasDictionary;
     this.hasInvertedIndex = hasInvertedIndex;
+    this.hasVarLengthDictionary = hasVarLengthDictionary;
     this.isSingleValue = isSingleValue;
     this.maxNumberOfMultiValues = maxNumberOfMultiValues;
     this.totalNumberOfEntries = totalNumberOfEntries;
@@ -302,6 +379,10 @@ public class ColumnMetadata {
     this.derivedMetricType = derivedMetricType;
     this.fieldSize = fieldSize;
     this.originColumnName = originColumnName;
+    this.minValue = minValue;
+    this.maxValue = maxValue;
+    this.partitionFunction = partitionFunction;
+    this.partitions = partitions;
 
     switch (fieldType) {
       case DIMENSION:
@@ -374,6 +455,13 @@ public class ColumnMetadata {
     return hasInvertedIndex;
   }
 
+  /**
+   * Returns true if the string dictionary of the column is stored in the variable-length front-coded format.
+   */
+  public boolean hasVarLengthDictionary() {
+    return hasVarLengthDictionary;
+  }
+
   public boolean isSingleValue() {
     return isSingleValue;
   }
@@ -414,6 +502,34 @@ public class ColumnMetadata {
     return fieldSpec;
   }
 
+  /**
+   * Returns the minimum value of the column, or null if not available.
+   */
+  public Comparable<Object> getMinValue() {
+    return minValue;
+  }
+
+  /**
+   * Returns the maximum value of the column, or null if not available.
+   */
+  public Comparable<Object> getMaxValue() {
+    return maxValue;
+  }
+
+  /**
+   * Returns the partition function of the column, or null if the column is not partitioned.
+   */
+  public PartitionFunction getPartitionFunction() {
+    return partitionFunction;
+  }
+
+  /**
+   * Returns the ids of the partitions the values of the column fall into, or null if the column is not partitioned.
+   */
+  public Set<Integer> getPartitions() {
+    return partitions;
+  }
+
   @Override
   public String toString() {
     final StringBuilder result = new StringBuilder();
@@ -27,6 +27,7 @@ import com.linkedin.pinot.core.indexsegment.IndexType;
 import com.linkedin.pinot.core.io.reader.DataFileReader;
 import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
 import com.linkedin.pinot.core.segment.index.data.source.ColumnDataSourceImpl;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
@@ -67,6 +68,17 @@ public class IndexSegmentImpl implements IndexSegment {
     return indexContainerMap.get(column).getInvertedIndex();
   }
 
+  /**
+   * Returns the bloom filter for the column, or null if the column does not exist or has no bloom filter.
+   */
+  public BloomFilterReader getBloomFilterFor(String column) {
+    ColumnIndexContainer columnIndexContainer = indexContainerMap.get(column);
+    if (columnIndexContainer == null) {
+      return null;
+    }
+    return columnIndexContainer.getBloomFilter();
+  }
+
   @Override
   public IndexType getIndexType() {
     return IndexType.COLUMNAR;
@@ -127,6 +139,13 @@ public class IndexSegmentImpl implements IndexSegment {
       } catch (Exception e) {
         LOGGER.error("Error when close inverted index for column : " + column, e);
       }
+      try {
+        if (columnIndexContainer.getRangeIndex() != null) {
+          columnIndexContainer.getRangeIndex().close();
+        }
+      } catch (Exception e) {
+        LOGGER.error("Error when close range index for column : " + column, e);
+      }
     }
     try {
       segmentDirectory.close();
@@ -32,13 +32,16 @@ import com.linkedin.pinot.core.io.reader.impl.v1.VarByteChunkSingleValueReader;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueFixedByteRawIndexCreator;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
 import com.linkedin.pinot.core.segment.index.readers.BitmapInvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
 import com.linkedin.pinot.core.segment.index.readers.DoubleDictionary;
 import com.linkedin.pinot.core.segment.index.readers.FloatDictionary;
 import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
 import com.linkedin.pinot.core.segment.index.readers.IntDictionary;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.LongDictionary;
+import com.linkedin.pinot.core.segment.index.readers.RangeIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.StringDictionary;
+import com.linkedin.pinot.core.segment.index.readers.VarLengthStringDictionary;
 import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
 import com.linkedin.pinot.core.segment.store.ColumnIndexType;
 import com.linkedin.pinot.core.segment.store.SegmentDirectory;
@@ -49,6 +52,9 @@ import org.slf4j.LoggerFactory;
 public abstract class ColumnIndexContainer {
   private static final Logger LOGGER = LoggerFactory.getLogger(ColumnIndexContainer.class);
 
+  private BloomFilterReader bloomFilter;
+  private RangeIndexReader rangeIndex;
+
   public static ColumnIndexContainer init(SegmentDirectory.Reader segmentReader, ColumnMetadata metadata,
       IndexLoadingConfigMetadata indexLoadingConfigMetadata)
       throws IOException {
@@ -63,20 +69,33 @@ public abstract class ColumnIndexContainer {
     ImmutableDictionaryReader dictionary = null;
     if (metadata.hasDictionary()) {
       PinotDataBuffer dictionaryBuffer = segmentReader.getIndexFor(column, ColumnIndexType.DICTIONARY);
-      dictionary = load(metadata, dictionaryBuffer);
+      dictionary = loadDictionary(metadata, dictionaryBuffer);
     }
 
+    ColumnIndexContainer columnIndexContainer;
     if (metadata.isSorted() && metadata.isSingleValue()) {
-      return loadSorted(column, segmentReader, metadata, dictionary);
+      columnIndexContainer = loadSorted(column, segmentReader, metadata, dictionary);
       //return loadSorted(column, indexDir, metadata, dictionary, mode);
+    } else if (metadata.isSingleValue()) {
+      columnIndexContainer = loadUnsorted(column, segmentReader, metadata, dictionary, loadInverted);
+      //return loadUnsorted(column, indexDir, metadata, dictionary, mode, loadInverted);
+    } else {
+      //return loadMultiValue(column, indexDir, metadata, dictionary, mode, loadInverted);
+      columnIndexContainer = loadMultiValue(column, segmentReader, metadata, dictionary, loadInverted);
     }
 
-    if (metadata.isSingleValue()) {
-      return loadUnsorted(column, segmentReader, metadata, dictionary, loadInverted);
-      //return loadUnsorted(column, indexDir, metadata, dictionary, mode, loadInverted);
+    // Bloom filter is always loaded if exists, it is small and only used for segment pruning.
+    if (segmentReader.hasIndexFor(column, ColumnIndexType.BLOOM_FILTER)) {
+      PinotDataBuffer bloomFilterBuffer = segmentReader.getIndexFor(column, ColumnIndexType.BLOOM_FILTER);
+      columnIndexContainer.bloomFilter = new BloomFilterReader(bloomFilterBuffer, metadata.getDataType());
     }
-    //return loadMultiValue(column, indexDir, metadata, dictionary, mode, loadInverted);
-    return loadMultiValue(column, segmentReader, metadata, dictionary, loadInverted);
+
+    // Range index is always loaded if exists, only its header is read until it is used by a query.
+    if (segmentReader.hasIndexFor(column, ColumnIndexType.RANGE_INDEX)) {
+      PinotDataBuffer rangeIndexBuffer = segmentReader.getIndexFor(column, ColumnIndexType.RANGE_INDEX);
+      columnIndexContainer.rangeIndex = new RangeIndexReader(rangeIndexBuffer);
+    }
+    return columnIndexContainer;
   }
 
   private static ColumnIndexContainer loadMultiValue(String column, SegmentDirectory.Reader segmentReader,
@@ -137,7 +156,7 @@ public abstract class ColumnIndexContainer {
     return new SortedSVColumnIndexContainer(column, metadata, indexReader, dictionary);
   }
 
-  private static ImmutableDictionaryReader load(ColumnMetadata metadata, PinotDataBuffer dictionaryBuffer) {
+  public static ImmutableDictionaryReader loadDictionary(ColumnMetadata metadata, PinotDataBuffer dictionaryBuffer) {
     switch (metadata.getDataType()) {
       case INT:
         return new IntDictionary(dictionaryBuffer, metadata);
@@ -149,6 +168,9 @@ public abstract class ColumnIndexContainer {
         return new DoubleDictionary(dictionaryBuffer, metadata);
       case STRING:
       case BOOLEAN:
+        if (metadata.hasVarLengthDictionary()) {
+          return new VarLengthStringDictionary(dictionaryBuffer, metadata);
+        }
         return new StringDictionary(dictionaryBuffer, metadata);
     }
 
@@ -187,6 +209,20 @@ public abstract class ColumnIndexContainer {
    */
   public abstract InvertedIndexReader getInvertedIndex();
 
+  /**
+   * @return Bloom filter for the column, or null if not exists
+   */
+  public BloomFilterReader getBloomFilter() {
+    return bloomFilter;
+  }
+
+  /**
+   * @return Range index for the column, or null if not exists
+   */
+  public RangeIndexReader getRangeIndex() {
+    return rangeIndex;
+  }
+
   /**
    * @return
    */
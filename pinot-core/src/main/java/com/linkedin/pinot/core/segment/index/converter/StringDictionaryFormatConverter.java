@@ -0,0 +1,256 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.converter;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.creator.impl.VarLengthStringDictionaryWriter;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import com.linkedin.pinot.core.segment.store.ColumnIndexType;
+import com.linkedin.pinot.core.segment.store.SegmentDirectory;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.linkedin.pinot.core.segment.creator.impl.V1Constants.MetadataKeys.Column.HAS_VAR_LENGTH_DICTIONARY;
+import static com.linkedin.pinot.core.segment.creator.impl.V1Constants.MetadataKeys.Column.getKeyFor;
+
+
+/**
+ * Rewrites the padded, fixed-length string dictionaries of a segment in the variable-length, front-coded format.
+ * Dictionary ids do not change, so the forward and inverted indexes are kept as is. Columns whose padded entries are
+ * not in UTF-8 byte order (see [PINOT-2730]) cannot be converted without rewriting the indexes, and are skipped.
+ *
+ * Only the v1 and v2 formats support replacing an index, so segments must be converted before moving to v3. Segments
+ * are converted at load time for the columns configured with variable-length dictionaries (see
+ * {@link com.linkedin.pinot.core.segment.index.loader.Loaders}).
+ *
+ * The dictionary of each column is replaced in place, so a copy of the original dictionary is kept until the column is
+ * marked as converted in the segment metadata. If the conversion gets interrupted in between, the original dictionary
+ * is restored from that copy by {@link #recoverInterruptedConversion(File)} on the next load.
+ */
+public class StringDictionaryFormatConverter implements SegmentFormatConverter {
+  private static final Logger LOGGER = LoggerFactory.getLogger(StringDictionaryFormatConverter.class);
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final String BACKUP_FILE_EXTENSION = V1Constants.Dict.FILE_EXTENTION + ".backup";
+  private static final String TMP_FILE_EXTENSION = ".tmp";
+
+  private final Set<String> _columns;
+
+  /**
+   * @param columns Columns to convert, or null to convert all the string columns with a dictionary
+   */
+  public StringDictionaryFormatConverter(@Nullable Set<String> columns) {
+    _columns = columns;
+  }
+
+  @Override
+  public void convert(File indexSegmentDir) throws Exception {
+    recoverInterruptedConversion(indexSegmentDir);
+
+    SegmentMetadataImpl segmentMetadata = new SegmentMetadataImpl(indexSegmentDir);
+    List<String> convertedColumns = new ArrayList<>();
+    SegmentDirectory segmentDirectory =
+        SegmentDirectory.createFromLocalFS(indexSegmentDir, segmentMetadata, ReadMode.mmap);
+    try {
+      SegmentDirectory.Writer segmentWriter = segmentDirectory.createWriter();
+      try {
+        if (!segmentWriter.isIndexRemovalSupported()) {
+          throw new UnsupportedOperationException(
+              "Cannot convert string dictionaries of segment: " + segmentMetadata.getName() + " with version: "
+                  + segmentMetadata.getVersion());
+        }
+        for (String column : segmentMetadata.getAllColumns()) {
+          ColumnMetadata columnMetadata = segmentMetadata.getColumnMetadataFor(column);
+          if (shouldConvert(columnMetadata) && convertDictionary(indexSegmentDir, columnMetadata, segmentWriter)) {
+            markConverted(indexSegmentDir, column);
+            // The converted dictionary is now the one described by the metadata.
+            FileUtils.deleteQuietly(getBackupFile(indexSegmentDir, column));
+            convertedColumns.add(column);
+          }
+        }
+      } finally {
+        segmentWriter.saveAndClose();
+      }
+    } finally {
+      segmentDirectory.close();
+    }
+
+    LOGGER.info("Converted string dictionaries of segment: {} for columns: {}", segmentMetadata.getName(),
+        convertedColumns);
+  }
+
+  /**
+   * Restores the original dictionaries of the columns whose conversion got interrupted before they were marked as
+   * converted in the segment metadata, and removes the left over files of the conversion.
+   * <p>Should be called before loading the segment, whether or not any column is to be converted.
+   *
+   * @param indexSegmentDir Segment directory in v1 or v2 format
+   */
+  public static void recoverInterruptedConversion(File indexSegmentDir) throws Exception {
+    File[] tmpFiles = indexSegmentDir.listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.endsWith(V1Constants.Dict.FILE_EXTENTION + TMP_FILE_EXTENSION)
+            || name.endsWith(BACKUP_FILE_EXTENSION + TMP_FILE_EXTENSION);
+      }
+    });
+    if (tmpFiles != null) {
+      for (File tmpFile : tmpFiles) {
+        FileUtils.deleteQuietly(tmpFile);
+      }
+    }
+
+    File[] backupFiles = indexSegmentDir.listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.endsWith(BACKUP_FILE_EXTENSION);
+      }
+    });
+    if (backupFiles == null || backupFiles.length == 0) {
+      return;
+    }
+
+    SegmentMetadataImpl segmentMetadata = new SegmentMetadataImpl(indexSegmentDir);
+    SegmentDirectory segmentDirectory =
+        SegmentDirectory.createFromLocalFS(indexSegmentDir, segmentMetadata, ReadMode.mmap);
+    try {
+      SegmentDirectory.Writer segmentWriter = segmentDirectory.createWriter();
+      try {
+        for (File backupFile : backupFiles) {
+          String fileName = backupFile.getName();
+          String column = fileName.substring(0, fileName.length() - BACKUP_FILE_EXTENSION.length());
+          ColumnMetadata columnMetadata = segmentMetadata.getColumnMetadataFor(column);
+          if (columnMetadata != null && !columnMetadata.hasVarLengthDictionary()) {
+            LOGGER.warn("Restoring dictionary of segment: {}, column: {} after interrupted conversion",
+                segmentMetadata.getName(), column);
+            replaceDictionary(segmentWriter, column, backupFile);
+          }
+        }
+      } finally {
+        segmentWriter.saveAndClose();
+      }
+    } finally {
+      segmentDirectory.close();
+    }
+    // Only remove the backups once the restored dictionaries are closed.
+    for (File backupFile : backupFiles) {
+      FileUtils.deleteQuietly(backupFile);
+    }
+  }
+
+  /**
+   * Returns whether any of the columns to convert still has a fixed-length string dictionary in the segment.
+   */
+  public boolean isConversionNeeded(SegmentMetadataImpl segmentMetadata) {
+    for (String column : segmentMetadata.getAllColumns()) {
+      if (shouldConvert(segmentMetadata.getColumnMetadataFor(column))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean shouldConvert(ColumnMetadata columnMetadata) {
+    if (_columns != null && !_columns.contains(columnMetadata.getColumnName())) {
+      return false;
+    }
+    switch (columnMetadata.getDataType()) {
+      case STRING:
+      case BOOLEAN:
+        return columnMetadata.hasDictionary() && !columnMetadata.hasVarLengthDictionary();
+      default:
+        return false;
+    }
+  }
+
+  private boolean convertDictionary(File indexSegmentDir, ColumnMetadata columnMetadata,
+      SegmentDirectory.Writer segmentWriter) throws Exception {
+    String column = columnMetadata.getColumnName();
+    int cardinality = columnMetadata.getCardinality();
+    byte[][] values = new byte[cardinality][];
+    // The dictionary buffer is owned and released by the segment writer, so the dictionary is not closed.
+    PinotDataBuffer dictionaryBuffer = segmentWriter.getIndexFor(column, ColumnIndexType.DICTIONARY);
+    ImmutableDictionaryReader dictionary = ColumnIndexContainer.loadDictionary(columnMetadata, dictionaryBuffer);
+    for (int dictId = 0; dictId < cardinality; dictId++) {
+      values[dictId] = dictionary.getStringValue(dictId).getBytes(UTF_8);
+      if (dictId > 0 && VarLengthStringDictionaryWriter.BYTES_COMPARATOR.compare(values[dictId - 1], values[dictId])
+          >= 0) {
+        LOGGER.warn("Dictionary entries of column: {} are not in byte order, skipping conversion", column);
+        return false;
+      }
+    }
+
+    // Keep a copy of the original dictionary until the column is marked as converted, the copy is only complete once
+    // renamed.
+    File backupFile = getBackupFile(indexSegmentDir, column);
+    File backupTmpFile = new File(indexSegmentDir, backupFile.getName() + TMP_FILE_EXTENSION);
+    byte[] dictionaryBytes = new byte[(int) dictionaryBuffer.size()];
+    dictionaryBuffer.copyTo(0, dictionaryBytes, 0, dictionaryBytes.length);
+    FileUtils.writeByteArrayToFile(backupTmpFile, dictionaryBytes);
+    if (!backupTmpFile.renameTo(backupFile)) {
+      FileUtils.deleteQuietly(backupTmpFile);
+      throw new IOException("Failed to rename " + backupTmpFile + " to " + backupFile);
+    }
+
+    File convertedDictionaryFile =
+        new File(indexSegmentDir, column + V1Constants.Dict.FILE_EXTENTION + TMP_FILE_EXTENSION);
+    try {
+      VarLengthStringDictionaryWriter.write(convertedDictionaryFile, values);
+      replaceDictionary(segmentWriter, column, convertedDictionaryFile);
+    } finally {
+      FileUtils.deleteQuietly(convertedDictionaryFile);
+    }
+    return true;
+  }
+
+  /**
+   * Marks the column as having a variable-length dictionary in the segment metadata.
+   */
+  @VisibleForTesting
+  protected void markConverted(File indexSegmentDir, String column) throws Exception {
+    PropertiesConfiguration properties =
+        new PropertiesConfiguration(new File(indexSegmentDir, V1Constants.MetadataKeys.METADATA_FILE_NAME));
+    properties.setProperty(getKeyFor(column, HAS_VAR_LENGTH_DICTIONARY), String.valueOf(true));
+    properties.save();
+  }
+
+  private static void replaceDictionary(SegmentDirectory.Writer segmentWriter, String column, File dictionaryFile)
+      throws Exception {
+    segmentWriter.removeIndex(column, ColumnIndexType.DICTIONARY);
+    PinotDataBuffer newDictionaryBuffer =
+        segmentWriter.newIndexFor(column, ColumnIndexType.DICTIONARY, (int) dictionaryFile.length());
+    newDictionaryBuffer.readFrom(dictionaryFile);
+  }
+
+  private static File getBackupFile(File indexSegmentDir, String column) {
+    return new File(indexSegmentDir, column + BACKUP_FILE_EXTENSION);
+  }
+}
@@ -34,6 +34,7 @@ import com.linkedin.pinot.core.operator.blocks.UnSortedSingleValueBlock;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
 import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.segment.index.readers.RangeIndexReader;
 
 /**
  * Nov 15, 2014
@@ -160,4 +161,9 @@ public class ColumnDataSourceImpl extends DataSource {
   public Dictionary getDictionary() {
     return indexContainer.getDictionary();
   }
+
+  @Override
+  public RangeIndexReader getRangeIndex() {
+    return indexContainer.getRangeIndex();
+  }
 }
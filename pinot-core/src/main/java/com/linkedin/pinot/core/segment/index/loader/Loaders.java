@@ -26,6 +26,7 @@ import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
 import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
 import com.linkedin.pinot.core.segment.index.converter.SegmentFormatConverter;
 import com.linkedin.pinot.core.segment.index.converter.SegmentFormatConverterFactory;
+import com.linkedin.pinot.core.segment.index.converter.StringDictionaryFormatConverter;
 import com.linkedin.pinot.core.segment.store.SegmentDirectory;
 import com.linkedin.pinot.core.segment.store.SegmentDirectoryPaths;
 import com.linkedin.pinot.core.startree.StarTreeFormatVersion;
@@ -34,6 +35,7 @@ import com.linkedin.pinot.core.startree.StarTreeSerDe;
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,10 +62,15 @@ public class Loaders {
       Preconditions.checkArgument(indexDir.isDirectory(), "Index directory: {} is not a directory", indexDir);
       // NOTE: indexLoadingConfigMetadata and schema can be null.
 
+      // Restore the string dictionaries of an interrupted conversion, even if the conversion is no longer configured.
+      if (!targetFormatAlreadyExists(indexDir, SegmentVersion.v3)) {
+        StringDictionaryFormatConverter.recoverInterruptedConversion(indexDir);
+      }
 
       if (indexLoadingConfigMetadata != null) {
         StarTreeFormatVersion starTreeVersionToLoad = getStarTreeVersionToLoad(indexLoadingConfigMetadata);
         StarTreeSerDe.convertStarTreeFormatIfNeeded(indexDir, starTreeVersionToLoad);
+        convertStringDictionariesIfNeeded(indexDir, indexLoadingConfigMetadata.getLoadingVarLengthDictionaryColumns());
       }
 
 
@@ -112,6 +119,26 @@ public class Loaders {
       return new IndexSegmentImpl(segmentDirectory, metadata, indexContainerMap, starTree);
     }
 
+    /**
+     * Convert the string dictionaries of the given columns to the variable-length format. This must be done before the
+     * segment is converted to v3, which does not support replacing an index.
+     */
+    private static void convertStringDictionariesIfNeeded(File indexDir, Set<String> columns)
+        throws Exception {
+      if (columns.isEmpty()) {
+        return;
+      }
+      if (targetFormatAlreadyExists(indexDir, SegmentVersion.v3)) {
+        LOGGER.warn("Cannot convert string dictionaries of segment: {} in v3 format", indexDir.getName());
+        return;
+      }
+      StringDictionaryFormatConverter converter = new StringDictionaryFormatConverter(columns);
+      if (converter.isConversionNeeded(new SegmentMetadataImpl(indexDir))) {
+        LOGGER.info("Converting string dictionaries of segment: {} for columns: {}", indexDir.getName(), columns);
+        converter.convert(indexDir);
+      }
+    }
+
     static boolean targetFormatAlreadyExists(File indexDir, SegmentVersion expectedSegmentVersion) {
       return SegmentDirectoryPaths.segmentDirectoryFor(indexDir, expectedSegmentVersion).exists();
     }
@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+
+/**
+ * Reader for the column bloom filter created by
+ * {@link com.linkedin.pinot.core.segment.creator.impl.bloom.BloomFilterCreator}.
+ * <p>The bloom filter is small, so it is de-serialized onto heap when the segment is loaded.
+ */
+public class BloomFilterReader {
+  private final BloomFilter<CharSequence> _bloomFilter;
+  private final FieldSpec.DataType _dataType;
+
+  public BloomFilterReader(PinotDataBuffer bloomFilterBuffer, FieldSpec.DataType dataType)
+      throws IOException {
+    byte[] bytes = new byte[(int) bloomFilterBuffer.size()];
+    bloomFilterBuffer.toDirectByteBuffer(0, bytes.length).get(bytes);
+    _bloomFilter = BloomFilter.readFrom(new ByteArrayInputStream(bytes), Funnels.stringFunnel(Charsets.UTF_8));
+    _dataType = dataType;
+  }
+
+  /**
+   * Returns false if the column definitely does not contain the given value, true if it might contain the value.
+   *
+   * @param value value from the query predicate.
+   */
+  public boolean mightContain(String value) {
+    String normalizedValue;
+    try {
+      normalizedValue = normalize(value, _dataType);
+    } catch (NumberFormatException e) {
+      // Cannot tell, let the query decide.
+      return true;
+    }
+    return _bloomFilter.mightContain(normalizedValue);
+  }
+
+  /**
+   * Normalize the predicate value into the string representation of the typed value, which is the same as the one
+   * stored in the bloom filter.
+   */
+  private static String normalize(String value, FieldSpec.DataType dataType) {
+    switch (dataType) {
+      case INT:
+        return Integer.toString(Integer.parseInt(value));
+      case LONG:
+        return Long.toString(Long.parseLong(value));
+      case FLOAT:
+        return Float.toString(Float.parseFloat(value));
+      case DOUBLE:
+        return Double.toString(Double.parseDouble(value));
+      default:
+        return value;
+    }
+  }
+}
@@ -34,6 +34,15 @@ public abstract class ImmutableDictionaryReader implements Dictionary {
     fileSearcher = new ByteBufferBinarySearchUtil(dataFileReader);
   }
 
+  /**
+   * For dictionaries that are not stored as fixed size entries, and implement their own lookups.
+   */
+  protected ImmutableDictionaryReader(int rows) {
+    dataFileReader = null;
+    fileSearcher = null;
+    this.rows = rows;
+  }
+
 
   protected int intIndexOf(int actualValue) {
     return fileSearcher.binarySearch(0, actualValue);
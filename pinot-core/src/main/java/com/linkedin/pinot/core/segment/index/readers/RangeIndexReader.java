@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.core.segment.creator.impl.range.RangeIndexCreator;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.Closeable;
+import java.io.IOException;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+
+/**
+ * Reader for the column range index created by {@link RangeIndexCreator}: one bitmap of the matching docs per bucket
+ * of contiguous dictionary ids.
+ */
+public class RangeIndexReader implements Closeable {
+  private static final int INT_SIZE = Integer.SIZE / Byte.SIZE;
+
+  private final PinotDataBuffer _buffer;
+  private final int _numBuckets;
+  private final int[] _bucketStartDictIds;
+  private final int _offsetsStart;
+
+  public RangeIndexReader(PinotDataBuffer rangeIndexBuffer) {
+    _buffer = rangeIndexBuffer;
+    int version = _buffer.getInt(0);
+    Preconditions.checkState(version == RangeIndexCreator.VERSION, "Unsupported range index version: %s", version);
+    _numBuckets = _buffer.getInt(INT_SIZE);
+    _bucketStartDictIds = new int[_numBuckets + 1];
+    for (int i = 0; i <= _numBuckets; i++) {
+      _bucketStartDictIds[i] = _buffer.getInt((2 + i) * INT_SIZE);
+    }
+    _offsetsStart = (2 + _numBuckets + 1) * INT_SIZE;
+  }
+
+  public int getNumBuckets() {
+    return _numBuckets;
+  }
+
+  /**
+   * Returns the first dictionary id of the bucket.
+   */
+  public int getBucketStartDictId(int bucketId) {
+    return _bucketStartDictIds[bucketId];
+  }
+
+  /**
+   * Returns the last dictionary id of the bucket (inclusive).
+   */
+  public int getBucketEndDictId(int bucketId) {
+    return _bucketStartDictIds[bucketId + 1] - 1;
+  }
+
+  /**
+   * Returns the id of the bucket holding the given dictionary id.
+   */
+  public int getBucketId(int dictId) {
+    int low = 0;
+    int high = _numBuckets - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (_bucketStartDictIds[mid] <= dictId) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the bitmap of the docs with a value in the given bucket.
+   */
+  public ImmutableRoaringBitmap getBitmap(int bucketId) {
+    int startOffset = _buffer.getInt(_offsetsStart + bucketId * INT_SIZE);
+    int endOffset = _buffer.getInt(_offsetsStart + (bucketId + 1) * INT_SIZE);
+    return new ImmutableRoaringBitmap(_buffer.toDirectByteBuffer(startOffset, endOffset - startOffset));
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    _buffer.close();
+  }
+}
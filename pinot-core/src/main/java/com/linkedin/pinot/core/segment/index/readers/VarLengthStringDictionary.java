@@ -0,0 +1,248 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import com.google.common.base.Preconditions;
+import com.google.common.primitives.UnsignedBytes;
+import com.linkedin.pinot.core.segment.creator.impl.VarLengthStringDictionaryWriter;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+
+/**
+ * Reader for string dictionaries stored in the variable-length, front-coded format written by
+ * {@link VarLengthStringDictionaryWriter}.
+ *
+ * <p>Lookups binary search the first entries of the blocks, then scan the entries of one block, comparing the raw
+ * UTF-8 bytes in the buffer against the value without decoding any entry.
+ */
+public class VarLengthStringDictionary extends ImmutableDictionaryReader {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int BLOCK_OFFSET_SIZE = Integer.SIZE / Byte.SIZE;
+
+  private final PinotDataBuffer _dataBuffer;
+  private final int _numEntriesPerBlock;
+  private final int _numBlocks;
+  private final long _dataStartOffset;
+  private final int _maxEntryLength;
+
+  public VarLengthStringDictionary(PinotDataBuffer dataBuffer, ColumnMetadata metadata) {
+    super(metadata.getCardinality());
+    _dataBuffer = dataBuffer;
+    int version = dataBuffer.getInt(0);
+    Preconditions.checkState(version == VarLengthStringDictionaryWriter.VERSION,
+        "Unsupported var-length dictionary version: %s for column: %s", version, metadata.getColumnName());
+    int numEntries = dataBuffer.getInt(4);
+    Preconditions.checkState(numEntries == metadata.getCardinality(),
+        "Number of dictionary entries: %s does not match cardinality: %s for column: %s", numEntries,
+        metadata.getCardinality(), metadata.getColumnName());
+    _numEntriesPerBlock = dataBuffer.getInt(8);
+    _numBlocks = (numEntries + _numEntriesPerBlock - 1) / _numEntriesPerBlock;
+    _dataStartOffset = VarLengthStringDictionaryWriter.HEADER_SIZE + (long) _numBlocks * BLOCK_OFFSET_SIZE;
+    _maxEntryLength = metadata.getStringColumnMaxLength();
+  }
+
+  @Override
+  public int indexOf(Object rawValue) {
+    byte[] lookup = ((String) rawValue).getBytes(UTF_8);
+
+    // Find the last block with its first entry smaller than the value
+    int low = 0;
+    int high = _numBlocks - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      long offset = getBlockOffset(middle);
+      // Skip the prefix length, which is always 0 for the first entry of a block
+      offset++;
+      int length = readVarInt(offset);
+      offset += getVarIntSize(length);
+      int numMatchedBytes = getNumMatchedBytes(offset, length, lookup, 0);
+      int compareResult;
+      if (numMatchedBytes == length) {
+        compareResult = (length == lookup.length) ? 0 : -1;
+      } else if (numMatchedBytes == lookup.length) {
+        compareResult = 1;
+      } else {
+        compareResult = UnsignedBytes.compare(_dataBuffer.getByte(offset + numMatchedBytes), lookup[numMatchedBytes]);
+      }
+      if (compareResult < 0) {
+        low = middle + 1;
+      } else if (compareResult > 0) {
+        high = middle - 1;
+      } else {
+        return middle * _numEntriesPerBlock;
+      }
+    }
+    if (high < 0) {
+      return -1;
+    }
+    return indexOfInBlock(high, lookup);
+  }
+
+  /**
+   * Scans the block for the value, knowing that the first entry of the block is smaller than the value. Only the
+   * length of the prefix shared by the previous entry and the value needs to be tracked: an entry sharing a longer
+   * prefix with the previous entry is still smaller than the value, and an entry sharing a shorter one is larger.
+   * Returns the index of the value, or <code>-(insertionPoint + 1)</code> if the value is not in the dictionary.
+   */
+  private int indexOfInBlock(int blockId, byte[] lookup) {
+    int startIndex = blockId * _numEntriesPerBlock;
+    int endIndex = Math.min(startIndex + _numEntriesPerBlock, length());
+    long offset = getBlockOffset(blockId);
+    int numMatchedBytes = 0;
+    for (int i = startIndex; i < endIndex; i++) {
+      int prefixLength = readVarInt(offset);
+      offset += getVarIntSize(prefixLength);
+      int suffixLength = readVarInt(offset);
+      offset += getVarIntSize(suffixLength);
+      if (prefixLength < numMatchedBytes) {
+        return -(i + 1);
+      }
+      if (prefixLength == numMatchedBytes) {
+        int numMatchedSuffixBytes = getNumMatchedBytes(offset, suffixLength, lookup, prefixLength);
+        numMatchedBytes = prefixLength + numMatchedSuffixBytes;
+        if (numMatchedSuffixBytes == suffixLength) {
+          if (numMatchedBytes == lookup.length) {
+            return i;
+          }
+        } else if (numMatchedBytes == lookup.length
+            || UnsignedBytes.compare(_dataBuffer.getByte(offset + numMatchedSuffixBytes), lookup[numMatchedBytes])
+            > 0) {
+          return -(i + 1);
+        }
+      }
+      offset += suffixLength;
+    }
+    return -(endIndex + 1);
+  }
+
+  @Override
+  public String get(int dictionaryId) {
+    if ((dictionaryId == -1) || (dictionaryId >= length())) {
+      return "null";
+    }
+    byte[] buffer = new byte[_maxEntryLength];
+    int blockId = dictionaryId / _numEntriesPerBlock;
+    long offset = getBlockOffset(blockId);
+    int length = 0;
+    for (int i = blockId * _numEntriesPerBlock; i <= dictionaryId; i++) {
+      int prefixLength = readVarInt(offset);
+      offset += getVarIntSize(prefixLength);
+      int suffixLength = readVarInt(offset);
+      offset += getVarIntSize(suffixLength);
+      _dataBuffer.copyTo(offset, buffer, prefixLength, suffixLength);
+      offset += suffixLength;
+      length = prefixLength + suffixLength;
+    }
+    return new String(buffer, 0, length, UTF_8);
+  }
+
+  @Override
+  public long getLongValue(int dictionaryId) {
+    throw new RuntimeException("cannot converted string to long");
+  }
+
+  @Override
+  public double getDoubleValue(int dictionaryId) {
+    throw new RuntimeException("cannot converted string to double");
+  }
+
+  @Override
+  public int getIntValue(int dictionaryId) {
+    throw new RuntimeException("cannot converted string to int");
+  }
+
+  @Override
+  public float getFloatValue(int dictionaryId) {
+    throw new RuntimeException("cannot converted string to float");
+  }
+
+  @Override
+  public String getStringValue(int dictionaryId) {
+    return get(dictionaryId);
+  }
+
+  @Override
+  public String toString(int dictionaryId) {
+    return get(dictionaryId);
+  }
+
+  @Override
+  public void readIntValues(int[] dictionaryIds, int startPos, int limit, int[] outValues, int outStartPos) {
+    throw new RuntimeException("Can not convert string to int");
+  }
+
+  @Override
+  public void readLongValues(int[] dictionaryIds, int startPos, int limit, long[] outValues, int outStartPos) {
+    throw new RuntimeException("Can not convert string to long");
+  }
+
+  @Override
+  public void readFloatValues(int[] dictionaryIds, int startPos, int limit, float[] outValues, int outStartPos) {
+    throw new RuntimeException("Can not convert string to float");
+  }
+
+  @Override
+  public void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos) {
+    throw new RuntimeException("Can not convert string to double");
+  }
+
+  @Override
+  public void close() throws IOException {
+    _dataBuffer.close();
+  }
+
+  private long getBlockOffset(int blockId) {
+    return _dataStartOffset
+        + _dataBuffer.getInt(VarLengthStringDictionaryWriter.HEADER_SIZE + (long) blockId * BLOCK_OFFSET_SIZE);
+  }
+
+  /**
+   * Returns the length of the common prefix of the entry bytes at the offset and the value bytes from the start index.
+   */
+  private int getNumMatchedBytes(long offset, int length, byte[] lookup, int lookupStartIndex) {
+    int maxNumMatchedBytes = Math.min(length, lookup.length - lookupStartIndex);
+    int numMatchedBytes = 0;
+    while (numMatchedBytes < maxNumMatchedBytes
+        && _dataBuffer.getByte(offset + numMatchedBytes) == lookup[lookupStartIndex + numMatchedBytes]) {
+      numMatchedBytes++;
+    }
+    return numMatchedBytes;
+  }
+
+  private int readVarInt(long offset) {
+    int value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = _dataBuffer.getByte(offset++);
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+  private static int getVarIntSize(int value) {
+    int size = 1;
+    while ((value & ~0x7F) != 0) {
+      value >>>= 7;
+      size++;
+    }
+    return size;
+  }
+}
@@ -17,8 +17,10 @@ package com.linkedin.pinot.core.startree;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
+import com.google.common.io.Files;
 import com.linkedin.pinot.common.data.DimensionFieldSpec;
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.FieldSpec.DataType;
@@ -29,25 +31,37 @@ import com.linkedin.pinot.common.utils.Pairs.IntPair;
 import com.linkedin.pinot.core.data.GenericRow;
 import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import com.linkedin.pinot.core.startree.hll.HllUtil;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.joda.time.DateTime;
 import org.json.JSONObject;
@@ -92,6 +106,13 @@ import org.slf4j.LoggerFactory;
  *    }
  * }
  * </code>
+ *
+ * <p>With more than one thread configured, the subtrees under the root are constructed concurrently on a fork-join
+ * pool, each appending its aggregated records to a file of its own. The files are appended to the table in the
+ * order the single threaded construction would have appended the records, so that the doc ids, and the serialized
+ * tree, do not depend on the number of threads. Splitting the leaves on time and aggregating the leaf records are
+ * done in parallel as well. With a sort memory budget configured, the raw records are sorted in runs that fit the
+ * budget, which are then merged.
  */
 public class OffHeapStarTreeBuilder implements StarTreeBuilder {
   private static final Logger LOG = LoggerFactory.getLogger(OffHeapStarTreeBuilder.class);
@@ -125,6 +146,10 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
   private int[] sortOrder;
   private int skipMaterializationCardinalityThreshold;
   private boolean enableOffHeapFormat;
+  private int numThreads;
+  private long sortMemoryBudgetBytes;
+  // Only set while building with more than one thread
+  private ForkJoinPool forkJoinPool;
 
   public void init(StarTreeBuilderConfig builderConfig) throws Exception {
     schema = builderConfig.schema;
@@ -134,6 +159,8 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
     skipMaterializationForDimensions = builderConfig.getSkipMaterializationForDimensions();
     skipMaterializationCardinalityThreshold = builderConfig.getSkipMaterializationCardinalityThreshold();
     enableOffHeapFormat = builderConfig.isEnableOffHealpFormat();
+    numThreads = builderConfig.getNumThreads();
+    sortMemoryBudgetBytes = builderConfig.getSortMemoryBudgetBytes();
 
     this.maxLeafRecords = builderConfig.maxLeafRecords;
     this.outDir = builderConfig.getOutDir();
@@ -325,23 +352,52 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
 
     long start = System.currentTimeMillis();
     dataBuffer.flush();
-    // Sort the data based on default sort order (split order + remaining dimensions)
-    sort(dataFile, 0, rawRecordCount);
-    // Recursively construct the star tree, continuously sorting the data
-    constructStarTree(starTreeRootIndexNode, 0, rawRecordCount, 0, dataFile);
-
-    // Split the leaf nodes on time column. This is only possible if we have not split on time-column name
-    // yet, and time column is still preserved (ie not replaced by StarTreeNode.all()).
-    if (timeColumnName != null && !skipMaterializationForDimensions.contains(timeColumnName) &&
-        !dimensionsSplitOrder.contains(timeColumnName)) {
-      splitLeafNodesOnTimeColumn();
+    // Computed up front, as it is shared by the threads constructing the tree
+    getSortOrder();
+    if (numThreads > 1) {
+      forkJoinPool = new ForkJoinPool(numThreads);
     }
+    long sortTime, constructionTime, timeSplitTime, aggregationTime;
+    try {
+      // Sort the data based on default sort order (split order + remaining dimensions)
+      sortRawRecords();
+      long sortEnd = System.currentTimeMillis();
+      sortTime = sortEnd - start;
+
+      // Recursively construct the star tree, continuously sorting the data
+      TreeConstruction construction = new TreeConstruction(dataFile, dataBuffer, 0);
+      constructStarTree(starTreeRootIndexNode, 0, rawRecordCount, 0, construction);
+      aggRecordCount = construction.numAggRecords;
+      long constructionEnd = System.currentTimeMillis();
+      constructionTime = constructionEnd - sortEnd;
+
+      // Split the leaf nodes on time column. This is only possible if we have not split on time-column name
+      // yet, and time column is still preserved (ie not replaced by StarTreeNode.all()).
+      if (timeColumnName != null && !skipMaterializationForDimensions.contains(timeColumnName) &&
+          !dimensionsSplitOrder.contains(timeColumnName)) {
+        splitLeafNodesOnTimeColumn();
+      }
+      long timeSplitEnd = System.currentTimeMillis();
+      timeSplitTime = timeSplitEnd - constructionEnd;
 
-    // Create aggregate rows for all nodes in the tree
-    createAggDocForAllNodes(starTreeRootIndexNode);
+      // Create aggregate rows for all nodes in the tree
+      Map<StarTreeIndexNode, MetricBuffer> leafAggregates = null;
+      if (forkJoinPool != null) {
+        leafAggregates = aggregateLeafRecords();
+      }
+      createAggDocForAllNodes(starTreeRootIndexNode, leafAggregates);
+      aggregationTime = System.currentTimeMillis() - timeSplitEnd;
+    } finally {
+      if (forkJoinPool != null) {
+        forkJoinPool.shutdownNow();
+        forkJoinPool = null;
+      }
+    }
     long end = System.currentTimeMillis();
     LOG.info("Took {} ms to build star tree index. Original records:{} Materialized record:{}",
         (end - start), rawRecordCount, aggRecordCount);
+    LOG.info("Star tree build phases with {} threads: sort {} ms, tree construction {} ms, time split {} ms, "
+        + "aggregation {} ms", Math.max(numThreads, 1), sortTime, constructionTime, timeSplitTime, aggregationTime);
     starTree = new StarTree(starTreeRootIndexNode, dimensionNameToIndexMap);
     File treeBinary = new File(outDir, "star-tree.bin");
 
@@ -361,27 +417,23 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
   /**
    * Create aggregated docs using BFS
    * @param node
+   * @param leafAggregates Aggregated metrics of the leaf nodes if already computed, null otherwise
    */
-  private MetricBuffer createAggDocForAllNodes(StarTreeIndexNode node) throws Exception {
+  private MetricBuffer createAggDocForAllNodes(StarTreeIndexNode node,
+      Map<StarTreeIndexNode, MetricBuffer> leafAggregates) throws Exception {
     MetricBuffer aggMetricBuffer = null;
     if (node.isLeaf()) {
-      StarTreeDataTable leafDataTable =
-          new StarTreeDataTable(dataFile, dimensionSizeBytes, metricSizeBytes, null);
-      Iterator<Pair<byte[], byte[]>> iterator =
-          leafDataTable.iterator(node.getStartDocumentId(), node.getEndDocumentId());
-      Pair<byte[], byte[]> first = iterator.next();
-      aggMetricBuffer = MetricBuffer.fromBytes(first.getRight(), schema.getMetricFieldSpecs());
-      while (iterator.hasNext()) {
-        Pair<byte[], byte[]> next = iterator.next();
-        MetricBuffer metricBuffer = MetricBuffer.fromBytes(next.getRight(), schema.getMetricFieldSpecs());
-        aggMetricBuffer.aggregate(metricBuffer);
+      if (leafAggregates != null) {
+        aggMetricBuffer = leafAggregates.get(node);
+      } else {
+        aggMetricBuffer = aggregateLeafRecords(node);
       }
     } else {
 
       Iterator<StarTreeIndexNode> childrenIterator = node.getChildrenIterator();
       while (childrenIterator.hasNext()) {
         StarTreeIndexNode child = childrenIterator.next();
-        MetricBuffer childMetricBuffer = createAggDocForAllNodes(child);
+        MetricBuffer childMetricBuffer = createAggDocForAllNodes(child, leafAggregates);
         // don't use the star node value to compute aggregate for the parent
         if (child.getDimensionValue() == StarTreeIndexNodeInterf.ALL) {
           continue;
@@ -410,46 +462,56 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
   }
 
   /**
-   * Helper method that visits each leaf node does the following:
-   * - Re-orders the doc-id's corresponding to leaf node wrt time column.
-   * - Create children nodes for each time value under this leaf node.
-   * - Adds a new record with aggregated data for this leaf node.
-   * @throws Exception
+   * Aggregates the metrics of the records of a leaf node.
    */
-  private void splitLeafNodesOnTimeColumn() throws Exception {
+  private MetricBuffer aggregateLeafRecords(StarTreeIndexNode node) throws IOException {
+    StarTreeDataTable leafDataTable =
+        new StarTreeDataTable(dataFile, dimensionSizeBytes, metricSizeBytes, null);
+    Iterator<Pair<byte[], byte[]>> iterator =
+        leafDataTable.iterator(node.getStartDocumentId(), node.getEndDocumentId());
+    Pair<byte[], byte[]> first = iterator.next();
+    MetricBuffer aggMetricBuffer = MetricBuffer.fromBytes(first.getRight(), schema.getMetricFieldSpecs());
+    while (iterator.hasNext()) {
+      Pair<byte[], byte[]> next = iterator.next();
+      MetricBuffer metricBuffer = MetricBuffer.fromBytes(next.getRight(), schema.getMetricFieldSpecs());
+      aggMetricBuffer.aggregate(metricBuffer);
+    }
+    return aggMetricBuffer;
+  }
+
+  /**
+   * Aggregates the metrics of the records of all the leaf nodes, in parallel.
+   */
+  private Map<StarTreeIndexNode, MetricBuffer> aggregateLeafRecords() throws Exception {
+    List<StarTreeIndexNode> leafNodes = getLeafNodes();
+    List<Callable<MetricBuffer>> tasks = new ArrayList<>(leafNodes.size());
+    for (final StarTreeIndexNode leafNode : leafNodes) {
+      tasks.add(new Callable<MetricBuffer>() {
+        @Override
+        public MetricBuffer call() throws Exception {
+          return aggregateLeafRecords(leafNode);
+        }
+      });
+    }
+    List<MetricBuffer> aggregates = invokeAll(tasks);
+    Map<StarTreeIndexNode, MetricBuffer> leafAggregates = new IdentityHashMap<>(leafNodes.size());
+    for (int i = 0; i < leafNodes.size(); i++) {
+      leafAggregates.put(leafNodes.get(i), aggregates.get(i));
+    }
+    return leafAggregates;
+  }
+
+  /**
+   * Returns the leaf nodes of the tree, in BFS order.
+   */
+  private List<StarTreeIndexNode> getLeafNodes() {
+    List<StarTreeIndexNode> leafNodes = new ArrayList<>();
     Queue<StarTreeIndexNode> nodes = new LinkedList<>();
     nodes.add(starTreeRootIndexNode);
-    StarTreeDataSorter dataSorter = new StarTreeDataSorter(dataFile, dimensionSizeBytes, metricSizeBytes);
     while (!nodes.isEmpty()) {
       StarTreeIndexNode node = nodes.remove();
       if (node.isLeaf()) {
-        // If we have time column, split on time column, helps in time based filtering
-        if (timeColumnName != null) {
-          int level = node.getLevel();
-          int[] newSortOrder = moveColumnInSortOrder(timeColumnName, getSortOrder(), level);
-
-          int startDocId = node.getStartDocumentId();
-          int endDocId = node.getEndDocumentId();
-          dataSorter.sort(startDocId, endDocId, newSortOrder);
-          int timeColIndex = dimensionNameToIndexMap.get(timeColumnName);
-          Map<Integer, IntPair> timeColumnRangeMap =
-              dataSorter.groupByIntColumnCount(startDocId, endDocId, timeColIndex);
-
-          node.setChildDimensionName(timeColIndex);
-          node.setChildren(new HashMap<Integer, StarTreeIndexNode>());
-
-          for (int timeValue : timeColumnRangeMap.keySet()) {
-            IntPair range = timeColumnRangeMap.get(timeValue);
-            StarTreeIndexNode child = new StarTreeIndexNode();
-            child.setDimensionName(timeColIndex);
-            child.setDimensionValue(timeValue);
-            child.setParent(node);
-            child.setLevel(node.getLevel() + 1);
-            child.setStartDocumentId(range.getLeft());
-            child.setEndDocumentId(range.getRight());
-            node.addChild(child, timeValue);
-          }
-        }
+        leafNodes.add(node);
       } else {
         Iterator<StarTreeIndexNode> childrenIterator = node.getChildrenIterator();
         while (childrenIterator.hasNext()) {
@@ -457,7 +519,85 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
         }
       }
     }
-    dataSorter.close();
+    return leafNodes;
+  }
+
+  /**
+   * Runs the tasks on the fork-join pool if building with more than one thread, on the calling thread otherwise.
+   * Returns the results in the order of the tasks.
+   */
+  private <T> List<T> invokeAll(List<Callable<T>> tasks) throws Exception {
+    List<T> results = new ArrayList<>(tasks.size());
+    if (forkJoinPool == null) {
+      for (Callable<T> task : tasks) {
+        results.add(task.call());
+      }
+      return results;
+    }
+    for (Future<T> future : forkJoinPool.invokeAll(tasks)) {
+      try {
+        results.add(future.get());
+      } catch (ExecutionException e) {
+        Throwables.propagateIfInstanceOf(e.getCause(), Exception.class);
+        throw Throwables.propagate(e.getCause());
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Helper method that visits each leaf node does the following:
+   * - Re-orders the doc-id's corresponding to leaf node wrt time column.
+   * - Create children nodes for each time value under this leaf node.
+   * - Adds a new record with aggregated data for this leaf node.
+   * @throws Exception
+   */
+  private void splitLeafNodesOnTimeColumn() throws Exception {
+    // Leaf nodes cover disjoint ranges of the data file, so they can be split concurrently
+    final StarTreeDataSorter dataSorter = new StarTreeDataSorter(dataFile, dimensionSizeBytes, metricSizeBytes);
+    try {
+      List<StarTreeIndexNode> leafNodes = getLeafNodes();
+      List<Callable<Void>> tasks = new ArrayList<>(leafNodes.size());
+      for (final StarTreeIndexNode leafNode : leafNodes) {
+        tasks.add(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            splitLeafNodeOnTimeColumn(leafNode, dataSorter);
+            return null;
+          }
+        });
+      }
+      invokeAll(tasks);
+    } finally {
+      dataSorter.close();
+    }
+  }
+
+  private void splitLeafNodeOnTimeColumn(StarTreeIndexNode node, StarTreeDataSorter dataSorter) {
+    int level = node.getLevel();
+    int[] newSortOrder = moveColumnInSortOrder(timeColumnName, getSortOrder(), level);
+
+    int startDocId = node.getStartDocumentId();
+    int endDocId = node.getEndDocumentId();
+    dataSorter.sort(startDocId, endDocId, newSortOrder);
+    int timeColIndex = dimensionNameToIndexMap.get(timeColumnName);
+    Map<Integer, IntPair> timeColumnRangeMap =
+        dataSorter.groupByIntColumnCount(startDocId, endDocId, timeColIndex);
+
+    node.setChildDimensionName(timeColIndex);
+    node.setChildren(new HashMap<Integer, StarTreeIndexNode>());
+
+    for (int timeValue : timeColumnRangeMap.keySet()) {
+      IntPair range = timeColumnRangeMap.get(timeValue);
+      StarTreeIndexNode child = new StarTreeIndexNode();
+      child.setDimensionName(timeColIndex);
+      child.setDimensionValue(timeValue);
+      child.setParent(node);
+      child.setLevel(node.getLevel() + 1);
+      child.setStartDocumentId(range.getLeft());
+      child.setEndDocumentId(range.getRight());
+      node.addChild(child, timeValue);
+    }
   }
 
   /**
@@ -582,6 +722,104 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
     }
   }
 
+  /**
+   * Sorts the raw records. If they do not fit the sort memory budget, sorts runs that fit the budget concurrently and
+   * merges them.
+   */
+  private void sortRawRecords() throws Exception {
+    int recordSizeBytes = dimensionSizeBytes + metricSizeBytes;
+    // Sorting a record takes 3 int arrays on top of the record itself
+    long sortSizeBytes = (recordSizeBytes + 3 * V1Constants.Numbers.INTEGER_SIZE) * (long) rawRecordCount;
+    if (sortMemoryBudgetBytes <= 0 || sortSizeBytes <= sortMemoryBudgetBytes) {
+      sort(dataFile, 0, rawRecordCount);
+      return;
+    }
+
+    int numThreadsSorting = Math.max(numThreads, 1);
+    final int runSize = (int) Math.max(sortMemoryBudgetBytes
+        / ((recordSizeBytes + 3 * V1Constants.Numbers.INTEGER_SIZE) * (long) numThreadsSorting), 1);
+    int numRuns = (rawRecordCount + runSize - 1) / runSize;
+    LOG.info("Sorting {} raw records in {} runs of {} records", rawRecordCount, numRuns, runSize);
+    List<Callable<Void>> tasks = new ArrayList<>(numRuns);
+    for (int i = 0; i < numRuns; i++) {
+      final int runStart = i * runSize;
+      tasks.add(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          sort(dataFile, runStart, Math.min(runStart + runSize, rawRecordCount));
+          return null;
+        }
+      });
+    }
+    invokeAll(tasks);
+
+    File mergedFile = new File(outDir, dataFile.getName() + ".merged");
+    mergeSortedRuns(mergedFile, runSize, numRuns);
+    try (RandomAccessFile source = new RandomAccessFile(mergedFile, "r");
+        RandomAccessFile destination = new RandomAccessFile(dataFile, "rw")) {
+      FileChannel sourceChannel = source.getChannel();
+      FileChannel destinationChannel = destination.getChannel();
+      long size = sourceChannel.size();
+      long position = 0;
+      while (position < size) {
+        position += sourceChannel.transferTo(position, size - position, destinationChannel.position(position));
+      }
+    }
+    FileUtils.deleteQuietly(mergedFile);
+  }
+
+  /**
+   * Merges the sorted runs of raw records of the data file into the given file.
+   */
+  private void mergeSortedRuns(File mergedFile, int runSize, int numRuns) throws IOException {
+    final int recordSizeBytes = dimensionSizeBytes + metricSizeBytes;
+    final int[] sortOrder = getSortOrder();
+    final byte[][] heads = new byte[numRuns][];
+    DataInputStream[] runs = new DataInputStream[numRuns];
+    int[] remaining = new int[numRuns];
+    PriorityQueue<Integer> queue = new PriorityQueue<>(numRuns, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer run1, Integer run2) {
+        DimensionBuffer dimensions1 = DimensionBuffer.fromBytes(heads[run1]);
+        DimensionBuffer dimensions2 = DimensionBuffer.fromBytes(heads[run2]);
+        for (int dimIndex : sortOrder) {
+          int v1 = dimensions1.getDimension(dimIndex);
+          int v2 = dimensions2.getDimension(dimIndex);
+          if (v1 != v2) {
+            return v1 - v2;
+          }
+        }
+        return Integer.compare(run1, run2);
+      }
+    });
+    try (DataOutputStream output = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(mergedFile)))) {
+      for (int i = 0; i < numRuns; i++) {
+        FileInputStream input = new FileInputStream(dataFile);
+        runs[i] = new DataInputStream(new BufferedInputStream(input));
+        input.getChannel().position(i * runSize * (long) recordSizeBytes);
+        remaining[i] = Math.min(runSize, rawRecordCount - i * runSize);
+        heads[i] = new byte[recordSizeBytes];
+        runs[i].readFully(heads[i]);
+        remaining[i]--;
+        queue.add(i);
+      }
+      while (!queue.isEmpty()) {
+        int run = queue.poll();
+        output.write(heads[run]);
+        if (remaining[run] > 0) {
+          runs[run].readFully(heads[run]);
+          remaining[run]--;
+          queue.add(run);
+        }
+      }
+    } finally {
+      for (DataInputStream run : runs) {
+        IOUtils.closeQuietly(run);
+      }
+    }
+  }
+
   private int[] getSortOrder() {
     if (sortOrder == null) {
       sortOrder = new int[dimensionNames.size()];
@@ -618,7 +856,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
   }
 
   private int constructStarTree(StarTreeIndexNode node, int startDocId, int endDocId, int level,
-      File file) throws Exception {
+      TreeConstruction construction) throws Exception {
     // node.setStartDocumentId(startDocId);
     int docsAdded = 0;
     if (level == dimensionsSplitOrder.size()) {
@@ -628,11 +866,13 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
     Integer splitDimensionId = dimensionNameToIndexMap.get(splitDimensionName);
     LOG.debug(
         "Building tree at level:{} using file:{} from startDoc:{} endDocId:{} splitting on dimension:{}",
-        level, file.getName(), startDocId, endDocId, splitDimensionName);
-    Map<Integer, IntPair> sortGroupBy = groupBy(startDocId, endDocId, splitDimensionId, file);
+        level, construction.getFile(startDocId).getName(), startDocId, endDocId, splitDimensionName);
+    Map<Integer, IntPair> sortGroupBy = groupBy(startDocId, endDocId, splitDimensionId, construction);
     LOG.debug("Group stats:{}", sortGroupBy);
     node.setChildDimensionName(splitDimensionId);
     node.setChildren(new HashMap<Integer, StarTreeIndexNode>());
+    List<StarTreeIndexNode> children = new ArrayList<>(sortGroupBy.size());
+    List<IntPair> childRanges = new ArrayList<>(sortGroupBy.size());
     for (int childDimensionValue : sortGroupBy.keySet()) {
       StarTreeIndexNode child = new StarTreeIndexNode();
       child.setDimensionName(splitDimensionId);
@@ -644,18 +884,32 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
 
       // Add child to parent
       node.addChild(child, childDimensionValue);
+      children.add(child);
+      childRanges.add(sortGroupBy.get(childDimensionValue));
+    }
 
-      int childDocs = 0;
-      IntPair range = sortGroupBy.get(childDimensionValue);
-      if (range.getRight() - range.getLeft() > maxLeafRecords) {
-        childDocs = constructStarTree(child, range.getLeft(), range.getRight(), level + 1, file);
-        docsAdded += childDocs;
+    int[] childrenDocs;
+    if (level == 0 && forkJoinPool != null) {
+      childrenDocs = constructSubtreesInParallel(children, childRanges, construction);
+    } else {
+      childrenDocs = new int[children.size()];
+      for (int i = 0; i < children.size(); i++) {
+        IntPair range = childRanges.get(i);
+        if (range.getRight() - range.getLeft() > maxLeafRecords) {
+          childrenDocs[i] = constructStarTree(children.get(i), range.getLeft(), range.getRight(), level + 1,
+              construction);
+        }
       }
+    }
+
+    for (int i = 0; i < children.size(); i++) {
+      docsAdded += childrenDocs[i];
 
       // Either range <= maxLeafRecords, or we did not split further (last level).
-      if (childDocs == 0) {
-        child.setStartDocumentId(range.getLeft());
-        child.setEndDocumentId(range.getRight());
+      if (childrenDocs[i] == 0) {
+        IntPair range = childRanges.get(i);
+        children.get(i).setStartDocumentId(range.getLeft());
+        children.get(i).setEndDocumentId(range.getRight());
       }
     }
 
@@ -676,28 +930,31 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
     // Add child to parent
     node.addChild(starChild, StarTreeIndexNodeInterf.ALL);
 
+    int startPosition = construction.getFilePosition(startDocId);
     Iterator<Pair<DimensionBuffer, MetricBuffer>> iterator =
-        uniqueCombinations(startDocId, endDocId, file, splitDimensionId);
+        uniqueCombinations(startPosition, startPosition + endDocId - startDocId, construction.getFile(startDocId),
+            splitDimensionId);
     int rowsAdded = 0;
-    int startOffset = rawRecordCount + aggRecordCount;
+    int startOffset = construction.getNextAggDocId();
     while (iterator.hasNext()) {
       Pair<DimensionBuffer, MetricBuffer> next = iterator.next();
       DimensionBuffer dimension = next.getLeft();
       MetricBuffer metricsHolder = next.getRight();
       LOG.debug("Adding row:{}", dimension);
-      appendToAggBuffer(dimension, metricsHolder);
+      construction.append(dimension, metricsHolder);
       rowsAdded++;
     }
     docsAdded += rowsAdded;
     LOG.debug("Added {} additional records at level {}", rowsAdded, level);
     // flush
-    dataBuffer.flush();
+    construction.aggBuffer.flush();
 
     int childDocs = 0;
     if (rowsAdded >= maxLeafRecords) {
-      sort(dataFile, startOffset, startOffset + rowsAdded);
+      int startOffsetPosition = construction.getFilePosition(startOffset);
+      sort(construction.aggFile, startOffsetPosition, startOffsetPosition + rowsAdded);
       childDocs =
-          constructStarTree(starChild, startOffset, startOffset + rowsAdded, level + 1, dataFile);
+          constructStarTree(starChild, startOffset, startOffset + rowsAdded, level + 1, construction);
       docsAdded += childDocs;
     }
 
@@ -710,6 +967,110 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
     return docsAdded;
   }
 
+  /**
+   * Constructs the subtrees of the children of the root concurrently, each into a file of its own. Once all are
+   * constructed, the aggregated records of the subtrees are appended in the order of the children, and their doc ids
+   * shifted accordingly.
+   * @return Number of aggregated records added by the subtree of each child
+   */
+  private int[] constructSubtreesInParallel(List<StarTreeIndexNode> children, List<IntPair> childRanges,
+      TreeConstruction construction) throws Exception {
+    int numChildren = children.size();
+    TreeConstruction[] subtreeConstructions = new TreeConstruction[numChildren];
+    List<Callable<Integer>> tasks = new ArrayList<>();
+    for (int i = 0; i < numChildren; i++) {
+      final IntPair range = childRanges.get(i);
+      if (range.getRight() - range.getLeft() > maxLeafRecords) {
+        final StarTreeIndexNode child = children.get(i);
+        File subtreeFile = new File(outDir, dataFile.getName() + ".subtree." + i);
+        final TreeConstruction subtreeConstruction = new TreeConstruction(subtreeFile,
+            new DataOutputStream(new BufferedOutputStream(new FileOutputStream(subtreeFile))), rawRecordCount);
+        subtreeConstructions[i] = subtreeConstruction;
+        tasks.add(new Callable<Integer>() {
+          @Override
+          public Integer call() throws Exception {
+            try {
+              return constructStarTree(child, range.getLeft(), range.getRight(), 1, subtreeConstruction);
+            } finally {
+              subtreeConstruction.aggBuffer.close();
+            }
+          }
+        });
+      }
+    }
+
+    List<Integer> subtreeDocs = invokeAll(tasks);
+    int[] childrenDocs = new int[numChildren];
+    int taskIndex = 0;
+    for (int i = 0; i < numChildren; i++) {
+      TreeConstruction subtreeConstruction = subtreeConstructions[i];
+      if (subtreeConstruction != null) {
+        childrenDocs[i] = subtreeDocs.get(taskIndex++);
+        shiftAggregatedDocIds(children.get(i), construction.numAggRecords);
+        construction.append(subtreeConstruction);
+        FileUtils.deleteQuietly(subtreeConstruction.aggFile);
+      }
+    }
+    return childrenDocs;
+  }
+
+  /**
+   * Shifts the doc ranges of the nodes of a subtree that point to aggregated records by the given offset.
+   */
+  private void shiftAggregatedDocIds(StarTreeIndexNode node, int offset) {
+    if (node.getStartDocumentId() >= rawRecordCount) {
+      node.setStartDocumentId(node.getStartDocumentId() + offset);
+      node.setEndDocumentId(node.getEndDocumentId() + offset);
+    }
+    if (!node.isLeaf()) {
+      Iterator<StarTreeIndexNode> childrenIterator = node.getChildrenIterator();
+      while (childrenIterator.hasNext()) {
+        shiftAggregatedDocIds(childrenIterator.next(), offset);
+      }
+    }
+  }
+
+  /**
+   * Target of the aggregated records appended while constructing (a subtree of) the tree. The doc ids of the raw
+   * records map to the data file, the doc ids of the aggregated records to the aggregated records file, which is the
+   * data file itself when constructing the whole tree.
+   */
+  private class TreeConstruction {
+    private final File aggFile;
+    private final DataOutputStream aggBuffer;
+    // Doc id of the first record of the aggregated records file
+    private final int aggFileStartDocId;
+    private int numAggRecords = 0;
+
+    private TreeConstruction(File aggFile, DataOutputStream aggBuffer, int aggFileStartDocId) {
+      this.aggFile = aggFile;
+      this.aggBuffer = aggBuffer;
+      this.aggFileStartDocId = aggFileStartDocId;
+    }
+
+    private int getNextAggDocId() {
+      return rawRecordCount + numAggRecords;
+    }
+
+    private File getFile(int docId) {
+      return (docId < rawRecordCount) ? dataFile : aggFile;
+    }
+
+    private int getFilePosition(int docId) {
+      return (docId < rawRecordCount) ? docId : docId - aggFileStartDocId;
+    }
+
+    private void append(DimensionBuffer dimension, MetricBuffer metrics) throws IOException {
+      appendToBuffer(aggBuffer, dimension, metrics);
+      numAggRecords++;
+    }
+
+    private void append(TreeConstruction subtreeConstruction) throws IOException {
+      Files.copy(subtreeConstruction.aggFile, aggBuffer);
+      numAggRecords += subtreeConstruction.numAggRecords;
+    }
+  }
+
   /**
    * Assumes the file is already sorted, returns the unique combinations after removing a specified
    * dimension.
@@ -805,13 +1166,25 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
    * @param startDocId
    * @param endDocId
    * @param dimension
-   * @param file
+   * @param construction
    * @return
    */
-  private Int2ObjectMap<IntPair> groupBy(int startDocId, int endDocId, Integer dimension, File file) {
-    StarTreeDataTable dataSorter =
-        new StarTreeDataTable(file, dimensionSizeBytes, metricSizeBytes, getSortOrder());
-    return dataSorter.groupByIntColumnCount(startDocId, endDocId, dimension);
+  private Int2ObjectMap<IntPair> groupBy(int startDocId, int endDocId, Integer dimension,
+      TreeConstruction construction) {
+    int startPosition = construction.getFilePosition(startDocId);
+    StarTreeDataTable dataSorter = new StarTreeDataTable(construction.getFile(startDocId), dimensionSizeBytes,
+        metricSizeBytes, getSortOrder());
+    Int2ObjectMap<IntPair> groupBy =
+        dataSorter.groupByIntColumnCount(startPosition, startPosition + endDocId - startDocId, dimension);
+    // Convert the positions in the file back to doc ids
+    int shift = startDocId - startPosition;
+    if (shift != 0) {
+      for (IntPair range : groupBy.values()) {
+        range.setLeft(range.getLeft() + shift);
+        range.setRight(range.getRight() + shift);
+      }
+    }
+    return groupBy;
   }
 
   /**
@@ -38,6 +38,8 @@ public class StarTreeBuilderConfig {
   private int skipMaterializationCardinalityThreshold =
       StarTreeIndexSpec.DEFAULT_SKIP_MATERIALIZATION_CARDINALITY_THRESHOLD;
   private boolean enableOffHealpFormat;
+  private int numThreads = 1;
+  private long sortMemoryBudgetBytes = 0;
 
   public StarTreeBuilderConfig() {
   }
@@ -124,4 +126,37 @@ public class StarTreeBuilderConfig {
   public void setEnableOffHealpFormat(boolean enableOffHealpFormat) {
     this.enableOffHealpFormat = enableOffHealpFormat;
   }
+
+  /**
+   * Returns the number of threads used to build the star tree.
+   * @return
+   */
+  public int getNumThreads() {
+    return numThreads;
+  }
+
+  /**
+   * Set the number of threads used to build the star tree, 1 (default) builds it on the calling thread.
+   * @param numThreads
+   */
+  public void setNumThreads(int numThreads) {
+    this.numThreads = numThreads;
+  }
+
+  /**
+   * Returns the memory budget in bytes for sorting the raw records, 0 if unbounded.
+   * @return
+   */
+  public long getSortMemoryBudgetBytes() {
+    return sortMemoryBudgetBytes;
+  }
+
+  /**
+   * Set the memory budget in bytes for sorting the raw records. Above the budget, the records are sorted in runs
+   * which are then merged. 0 (default) sorts all the raw records at once.
+   * @param sortMemoryBudgetBytes
+   */
+  public void setSortMemoryBudgetBytes(long sortMemoryBudgetBytes) {
+    this.sortMemoryBudgetBytes = sortMemoryBudgetBytes;
+  }
 }
@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.util;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+
+
+/**
+ * Utility methods to convert the string representation of values, as found in the segment metadata and the query
+ * predicates, into comparable typed values.
+ */
+public class TypedValueUtils {
+  private TypedValueUtils() {
+  }
+
+  /**
+   * Parses the given string value into a typed value of the stored type of the given data type.
+   *
+   * @param dataType Data type of the column.
+   * @param value String representation of the value.
+   * @return Integer, Long, Float, Double or String value.
+   * @throws NumberFormatException if the value cannot be parsed into the numeric stored type.
+   */
+  @SuppressWarnings("unchecked")
+  public static Comparable<Object> parse(DataType dataType, String value) {
+    Comparable<?> typedValue;
+    switch (dataType.getStoredType()) {
+      case INT:
+        typedValue = Integer.valueOf(value);
+        break;
+      case LONG:
+        typedValue = Long.valueOf(value);
+        break;
+      case FLOAT:
+        typedValue = Float.valueOf(value);
+        break;
+      case DOUBLE:
+        typedValue = Double.valueOf(value);
+        break;
+      default:
+        typedValue = value;
+        break;
+    }
+    return (Comparable<Object>) typedValue;
+  }
+}
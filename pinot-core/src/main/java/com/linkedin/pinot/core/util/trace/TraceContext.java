@@ -35,8 +35,8 @@ import org.slf4j.LoggerFactory;
  * {@link #unregister(InstanceRequest)} to avoid any resource leaks.
  *
  * For place where trace info needs to be recorded, just call {@link TraceContext#logInfo(CONSTANT, long)},
- * {@link TraceContext#logInfo(CONSTANT, InstanceRequest)}, {@link TraceContext#logException(String, String)} or
- * {@link TraceContext#logLatency(String, long)}.
+ * {@link TraceContext#logInfo(CONSTANT, InstanceRequest)}, {@link TraceContext#logInfo(String, String)},
+ * {@link TraceContext#logException(String, String)} or {@link TraceContext#logLatency(String, long)}.
  */
 public class TraceContext {
 
@@ -256,6 +256,21 @@ public class TraceContext {
     }
   }
 
+  public static void logInfo(String key, String value) {
+    if (shouldTrace()) {
+      _localTrace.get().log(key, value);
+    }
+  }
+
+  /**
+   * Returns true if the request of the calling thread has tracing enabled, so that callers can skip building costly
+   * trace values otherwise.
+   */
+  public static boolean isTraceEnabled() {
+    InstanceRequest request = _request.get();
+    return request != null && request.isEnableTrace();
+  }
+
   private static boolean shouldTrace() {
     if (_request.get() == null) {
       logInfo(CONSTANT.REQUEST_FOR_THREAD_NOT_FOUND, null);
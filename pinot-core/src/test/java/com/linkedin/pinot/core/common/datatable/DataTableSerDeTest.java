@@ -41,12 +41,17 @@ public class DataTableSerDeTest {
   @Test
   public void testException()
       throws IOException {
+    testException(new DataTableImplV2());
+    testException(new DataTableImplV3());
+  }
+
+  private void testException(DataTable dataTable)
+      throws IOException {
     Exception exception = new UnsupportedOperationException("Caught exception.");
     ProcessingException processingException =
         QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, exception);
     String expected = processingException.getMessage();
 
-    DataTable dataTable = new DataTableImplV2();
     dataTable.addException(processingException);
     DataTable newDataTable = DataTableFactory.getDataTable(dataTable.toBytes());
     Assert.assertNull(newDataTable.getDataSchema());
@@ -60,6 +65,12 @@ public class DataTableSerDeTest {
   @Test
   public void testAllDataTypes()
       throws IOException {
+    testAllDataTypes(DataTableBuilder.VERSION_2);
+    testAllDataTypes(DataTableBuilder.VERSION_3);
+  }
+
+  private void testAllDataTypes(int version)
+      throws IOException {
     DataType[] columnTypes = DataType.values();
     int numColumns = columnTypes.length;
     String[] columnNames = new String[numColumns];
@@ -68,7 +79,7 @@ public class DataTableSerDeTest {
     }
     DataSchema dataSchema = new DataSchema(columnNames, columnTypes);
 
-    DataTableBuilder dataTableBuilder = new DataTableBuilder(dataSchema);
+    DataTableBuilder dataTableBuilder = new DataTableBuilder(dataSchema, version);
 
     boolean[] booleans = new boolean[NUM_ROWS];
     byte[] bytes = new byte[NUM_ROWS];
@@ -212,7 +223,10 @@ public class DataTableSerDeTest {
     }
 
     DataTable dataTable = dataTableBuilder.build();
+    Assert.assertEquals(dataTable.getClass(),
+        (version == DataTableBuilder.VERSION_3) ? DataTableImplV3.class : DataTableImplV2.class);
     DataTable newDataTable = DataTableFactory.getDataTable(dataTable.toBytes());
+    Assert.assertEquals(newDataTable.getClass(), dataTable.getClass());
     Assert.assertEquals(newDataTable.getDataSchema(), dataSchema, ERROR_MESSAGE);
     Assert.assertEquals(newDataTable.getNumberOfRows(), NUM_ROWS, ERROR_MESSAGE);
 
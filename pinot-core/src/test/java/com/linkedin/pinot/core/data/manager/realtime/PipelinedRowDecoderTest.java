@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.data.manager.realtime;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.extractors.PlainFieldExtractor;
+import com.linkedin.pinot.core.realtime.impl.kafka.KafkaLowLevelStreamProviderConfig;
+import com.linkedin.pinot.core.realtime.impl.kafka.KafkaMessageDecoder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import kafka.message.Message;
+import kafka.message.MessageAndOffset;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class PipelinedRowDecoderTest {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final String COLUMN_NAME = "column";
+  private static final String OTHER_COLUMN_NAME = "otherColumn";
+  private static final long START_OFFSET = 1000L;
+  private static final int NUM_MESSAGES = PipelinedRowDecoder.CHUNK_SIZE * 10 + 7;
+
+  private Schema _schema;
+  private PipelinedRowDecoder _pipelinedRowDecoder;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    _schema = new Schema();
+    _schema.addField(new DimensionFieldSpec(COLUMN_NAME, FieldSpec.DataType.STRING, true));
+    _schema.addField(new DimensionFieldSpec(OTHER_COLUMN_NAME, FieldSpec.DataType.STRING, true));
+
+    KafkaLowLevelStreamProviderConfig streamProviderConfig = mock(KafkaLowLevelStreamProviderConfig.class);
+    when(streamProviderConfig.getDecoder()).thenReturn(new StringDecoder(), new StringDecoder(),
+        new StringDecoder());
+    _pipelinedRowDecoder = new PipelinedRowDecoder(streamProviderConfig, _schema, 3, "testDecoder");
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _pipelinedRowDecoder.shutdown();
+  }
+
+  @Test
+  public void testDecodeInOrder() {
+    PlainFieldExtractor fieldExtractor = new PlainFieldExtractor(_schema);
+    PipelinedRowDecoder.DecodedMessageIterator iterator =
+        _pipelinedRowDecoder.decode(makeMessages(NUM_MESSAGES).iterator(), fieldExtractor);
+
+    int numDecoded = 0;
+    for (int i = 0; i < NUM_MESSAGES; i++) {
+      Assert.assertTrue(iterator.hasNext());
+      PipelinedRowDecoder.DecodedMessage decodedMessage = iterator.next();
+      Assert.assertEquals(decodedMessage.getOffset(), START_OFFSET + i);
+      Assert.assertEquals(decodedMessage.getNextOffset(), START_OFFSET + i + 1);
+      if (i % 10 == 0) {
+        // Messages the decoder could not decode
+        Assert.assertFalse(decodedMessage.isDecoded());
+        Assert.assertNull(decodedMessage.getRow());
+      } else {
+        Assert.assertTrue(decodedMessage.isDecoded());
+        Assert.assertEquals(decodedMessage.getRow().getValue(COLUMN_NAME), "value" + i);
+        numDecoded++;
+      }
+    }
+    Assert.assertFalse(iterator.hasNext());
+
+    // The counters of the worker field extractors are added to the caller's field extractor
+    Assert.assertEquals(fieldExtractor.getTotalNullCols(), numDecoded);
+  }
+
+  @Test
+  public void testCancel() {
+    PlainFieldExtractor fieldExtractor = new PlainFieldExtractor(_schema);
+    PipelinedRowDecoder.DecodedMessageIterator iterator =
+        _pipelinedRowDecoder.decode(makeMessages(NUM_MESSAGES).iterator(), fieldExtractor);
+    for (int i = 0; i < 5; i++) {
+      Assert.assertEquals(iterator.next().getOffset(), START_OFFSET + i);
+    }
+    iterator.cancel();
+    Assert.assertFalse(iterator.hasNext());
+  }
+
+  private static List<MessageAndOffset> makeMessages(int numMessages) {
+    List<MessageAndOffset> messages = new ArrayList<>(numMessages);
+    for (int i = 0; i < numMessages; i++) {
+      String payload = (i % 10 == 0) ? "" : "value" + i;
+      messages.add(new MessageAndOffset(new Message(payload.getBytes(UTF_8)), START_OFFSET + i));
+    }
+    return messages;
+  }
+
+  /**
+   * Decodes the payload as the value of a single string column, returns null for an empty payload.
+   */
+  private static class StringDecoder implements KafkaMessageDecoder {
+    @Override
+    public void init(Map<String, String> props, Schema indexingSchema, String kafkaTopicName) {
+    }
+
+    @Override
+    public GenericRow decode(byte[] payload, GenericRow destination) {
+      return decode(payload, 0, payload.length, destination);
+    }
+
+    @Override
+    public GenericRow decode(byte[] payload, int offset, int length, GenericRow destination) {
+      if (length == 0) {
+        return null;
+      }
+      destination.putField(COLUMN_NAME, new String(payload, offset, length, UTF_8));
+      return destination;
+    }
+  }
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests that the combine operators stop processing segments once they have timed out, for both the fork-join pool
+ * (whose tasks are not interrupted by cancellation) and the regular thread pool.
+ */
+public class CombineOperatorTimeoutTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final int NUM_OPERATORS = 20;
+  private static final long OPERATOR_SLEEP_MS = 50L;
+  private static final long TIME_OUT_MS = 100L;
+
+  private final ForkJoinPool _forkJoinPool = new ForkJoinPool(1);
+  private final ExecutorService _threadPool = Executors.newFixedThreadPool(2);
+
+  @Test
+  public void testGetNumSegmentsPerBatch() {
+    Assert.assertEquals(MCombineOperator.getNumSegmentsPerBatch(0, 4), 1);
+    Assert.assertEquals(MCombineOperator.getNumSegmentsPerBatch(10, 4), 1);
+    Assert.assertEquals(MCombineOperator.getNumSegmentsPerBatch(16, 4), 1);
+    Assert.assertEquals(MCombineOperator.getNumSegmentsPerBatch(17, 4), 2);
+    Assert.assertEquals(MCombineOperator.getNumSegmentsPerBatch(100, 4), 7);
+    Assert.assertEquals(MCombineOperator.getNumSegmentsPerBatch(100, 1), 25);
+    // Parallelism 0 is treated as one batch.
+    Assert.assertEquals(MCombineOperator.getNumSegmentsPerBatch(5, 0), 5);
+  }
+
+  @Test
+  public void testCombineTimeout()
+      throws Exception {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest("SELECT COUNT(*) FROM testTable");
+    for (ExecutorService executorService : new ExecutorService[]{_forkJoinPool, _threadPool}) {
+      AtomicInteger numOperatorsRun = new AtomicInteger();
+      MCombineOperator combineOperator =
+          new MCombineOperator(getOperators(numOperatorsRun), executorService, TIME_OUT_MS, brokerRequest);
+      IntermediateResultsBlock resultsBlock = (IntermediateResultsBlock) combineOperator.nextBlock();
+      Assert.assertNotNull(resultsBlock.getProcessingExceptions());
+      assertRemainingSegmentsSkipped(numOperatorsRun);
+    }
+  }
+
+  @Test
+  public void testCombineGroupByTimeout()
+      throws Exception {
+    BrokerRequest brokerRequest =
+        COMPILER.compileToBrokerRequest("SELECT COUNT(*) FROM testTable GROUP BY column1");
+    for (ExecutorService executorService : new ExecutorService[]{_forkJoinPool, _threadPool}) {
+      AtomicInteger numOperatorsRun = new AtomicInteger();
+      MCombineGroupByOperator combineOperator =
+          new MCombineGroupByOperator(getOperators(numOperatorsRun), executorService, TIME_OUT_MS, brokerRequest);
+      IntermediateResultsBlock resultsBlock = (IntermediateResultsBlock) combineOperator.nextBlock();
+      Assert.assertNotNull(resultsBlock.getProcessingExceptions());
+      assertRemainingSegmentsSkipped(numOperatorsRun);
+    }
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _forkJoinPool.shutdownNow();
+    _threadPool.shutdownNow();
+  }
+
+  /**
+   * Waits long enough for all segments to be processed without the timeout check, then checks that most of them were
+   * skipped.
+   */
+  private static void assertRemainingSegmentsSkipped(AtomicInteger numOperatorsRun)
+      throws InterruptedException {
+    Thread.sleep(NUM_OPERATORS * OPERATOR_SLEEP_MS);
+    Assert.assertTrue(numOperatorsRun.get() < NUM_OPERATORS / 2, "Operators run: " + numOperatorsRun.get());
+  }
+
+  private static List<Operator> getOperators(AtomicInteger numOperatorsRun) {
+    List<Operator> operators = new ArrayList<>(NUM_OPERATORS);
+    for (int i = 0; i < NUM_OPERATORS; i++) {
+      operators.add(new SlowOperator(numOperatorsRun));
+    }
+    return operators;
+  }
+
+  /**
+   * Operator sleeping before returning an empty result block.
+   */
+  private static class SlowOperator implements Operator {
+    private final AtomicInteger _numOperatorsRun;
+
+    private SlowOperator(AtomicInteger numOperatorsRun) {
+      _numOperatorsRun = numOperatorsRun;
+    }
+
+    @Override
+    public boolean open() {
+      return true;
+    }
+
+    @Override
+    public Block nextBlock() {
+      _numOperatorsRun.incrementAndGet();
+      try {
+        Thread.sleep(OPERATOR_SLEEP_MS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return new IntermediateResultsBlock(new Exception("Empty segment"));
+    }
+
+    @Override
+    public Block nextBlock(BlockId blockId) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean close() {
+      return true;
+    }
+
+    @Override
+    public ExecutionStatistics getExecutionStatistics() {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator;
+
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.plan.PlanNode;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class LazyPlanOperatorTest {
+
+  @Test
+  public void testPlanNodeRunOnFirstBlock() {
+    Block block = Mockito.mock(Block.class);
+    ExecutionStatistics executionStatistics = new ExecutionStatistics();
+    Operator operator = Mockito.mock(Operator.class);
+    Mockito.when(operator.nextBlock()).thenReturn(block);
+    Mockito.when(operator.getExecutionStatistics()).thenReturn(executionStatistics);
+    Mockito.when(operator.close()).thenReturn(true);
+    PlanNode planNode = Mockito.mock(PlanNode.class);
+    Mockito.when(planNode.run()).thenReturn(operator);
+
+    LazyPlanOperator lazyPlanOperator = new LazyPlanOperator(planNode);
+    Assert.assertTrue(lazyPlanOperator.open());
+    Mockito.verify(planNode, Mockito.never()).run();
+    Assert.assertNull(lazyPlanOperator.getExecutionStatistics());
+
+    // The plan node is run and the operator opened on the first block only.
+    Assert.assertSame(lazyPlanOperator.nextBlock(), block);
+    Assert.assertSame(lazyPlanOperator.nextBlock(), block);
+    Mockito.verify(planNode, Mockito.times(1)).run();
+    Mockito.verify(operator, Mockito.times(1)).open();
+    Mockito.verify(operator, Mockito.times(2)).nextBlock();
+    Assert.assertSame(lazyPlanOperator.getExecutionStatistics(), executionStatistics);
+
+    Assert.assertTrue(lazyPlanOperator.close());
+    Mockito.verify(operator).close();
+  }
+
+  @Test
+  public void testCloseWithoutRun() {
+    PlanNode planNode = Mockito.mock(PlanNode.class);
+    LazyPlanOperator lazyPlanOperator = new LazyPlanOperator(planNode);
+    Assert.assertTrue(lazyPlanOperator.close());
+    Mockito.verify(planNode, Mockito.never()).run();
+  }
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.docidsets;
+
+import com.linkedin.pinot.common.utils.Pairs.IntPair;
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.BlockMetadata;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.operator.dociditerators.ArrayBasedDocIdIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.mockito.Mockito;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for the bitmap based evaluation of AND/OR doc id sets.
+ */
+public class BitmapBasedAndOrDocIdSetTest {
+  private static final int NUM_DOCS = 100;
+
+  @Test
+  public void testNestedAndOr() {
+    // a AND (b OR c OR d) with a and b bitmap based, c and d sorted ranges
+    FilterBlockDocIdSet or = new OrBlockDocIdSet(
+        Arrays.asList(bitmapDocIdSet(10, 20, 30, 40), sortedDocIdSet(50, 59), sortedDocIdSet(90, 95)));
+    AndBlockDocIdSet and = new AndBlockDocIdSet(Arrays.asList(bitmapDocIdSet(0, 10, 11, 40, 55, 91, 99), or));
+
+    Assert.assertTrue(and.isBitmapBased());
+    assertDocIds(and.iterator(), 10, 40, 55, 91);
+    Assert.assertEquals(and.getBitmap(), MutableRoaringBitmap.bitmapOf(10, 40, 55, 91));
+  }
+
+  @Test
+  public void testSortedAndBitmap() {
+    AndBlockDocIdSet and = new AndBlockDocIdSet(
+        Arrays.asList(sortedDocIdSet(10, 30), bitmapDocIdSet(5, 10, 20, 31), sortedDocIdSet(15, 50)));
+
+    Assert.assertTrue(and.isBitmapBased());
+    assertDocIds(and.iterator(), 20);
+  }
+
+  @Test
+  public void testOrOfSortedRanges() {
+    OrBlockDocIdSet or = new OrBlockDocIdSet(Arrays.asList(sortedDocIdSet(1, 3), sortedDocIdSet(7, 8)));
+
+    Assert.assertTrue(or.isBitmapBased());
+    assertDocIds(or.iterator(), 1, 2, 3, 7, 8);
+  }
+
+  @Test
+  public void testEmptyChild() {
+    FilterBlockDocIdSet empty = new EmptyDocIdSet(0, NUM_DOCS - 1);
+    AndBlockDocIdSet and = new AndBlockDocIdSet(Arrays.asList(bitmapDocIdSet(1, 2, 3), empty));
+    Assert.assertTrue(and.isBitmapBased());
+    assertDocIds(and.iterator());
+
+    OrBlockDocIdSet or = new OrBlockDocIdSet(Arrays.asList(bitmapDocIdSet(1, 2, 3), empty));
+    Assert.assertTrue(or.isBitmapBased());
+    assertDocIds(or.iterator(), 1, 2, 3);
+  }
+
+  @Test
+  public void testIteratorBasedChild() {
+    // Children which are not bitmap based are still intersected/merged doc by doc.
+    FilterBlockDocIdSet or = new OrBlockDocIdSet(Arrays.asList(bitmapDocIdSet(2, 4), arrayDocIdSet(6, 8)));
+    Assert.assertFalse(((OrBlockDocIdSet) or).isBitmapBased());
+
+    AndBlockDocIdSet and = new AndBlockDocIdSet(Arrays.asList(sortedDocIdSet(0, 6), or));
+    Assert.assertFalse(and.isBitmapBased());
+    assertDocIds(and.iterator(), 2, 4, 6);
+  }
+
+  private static FilterBlockDocIdSet bitmapDocIdSet(int... docIds) {
+    BlockMetadata blockMetadata = Mockito.mock(BlockMetadata.class);
+    Mockito.when(blockMetadata.getStartDocId()).thenReturn(0);
+    Mockito.when(blockMetadata.getEndDocId()).thenReturn(NUM_DOCS - 1);
+    return new BitmapDocIdSet("column", blockMetadata, 0, NUM_DOCS - 1,
+        new ImmutableRoaringBitmap[]{MutableRoaringBitmap.bitmapOf(docIds)});
+  }
+
+  private static FilterBlockDocIdSet sortedDocIdSet(int startDocId, int endDocId) {
+    List<IntPair> pairs = new ArrayList<>();
+    pairs.add(new IntPair(startDocId, endDocId));
+    return new SortedDocIdSet("column", pairs);
+  }
+
+  private static FilterBlockDocIdSet arrayDocIdSet(final int... docIds) {
+    return new FilterBlockDocIdSet() {
+      @Override
+      public int getMinDocId() {
+        return 0;
+      }
+
+      @Override
+      public int getMaxDocId() {
+        return NUM_DOCS - 1;
+      }
+
+      @Override
+      public void setStartDocId(int startDocId) {
+      }
+
+      @Override
+      public void setEndDocId(int endDocId) {
+      }
+
+      @Override
+      public long getNumEntriesScannedInFilter() {
+        return 0L;
+      }
+
+      @Override
+      public BlockDocIdIterator iterator() {
+        return new ArrayBasedDocIdIterator(docIds, docIds.length);
+      }
+
+      @Override
+      public <T> T getRaw() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  private static void assertDocIds(BlockDocIdIterator iterator, int... expectedDocIds) {
+    List<Integer> docIds = new ArrayList<>();
+    int docId;
+    while ((docId = iterator.next()) != Constants.EOF) {
+      docIds.add(docId);
+    }
+    List<Integer> expected = new ArrayList<>();
+    for (int expectedDocId : expectedDocIds) {
+      expected.add(expectedDocId);
+    }
+    Assert.assertEquals(docIds, expected);
+  }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.plan;
+
+import com.linkedin.pinot.common.utils.Pairs.IntPair;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.common.DataSourceMetadata;
+import com.linkedin.pinot.core.common.Predicate;
+import com.linkedin.pinot.core.common.predicate.EqPredicate;
+import com.linkedin.pinot.core.common.predicate.InPredicate;
+import com.linkedin.pinot.core.common.predicate.NEqPredicate;
+import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluatorProvider;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
+import java.util.Collections;
+import org.mockito.Mockito;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class FilterSelectivityEstimatorTest {
+  private static final String COLUMN = "column";
+  private static final int NUM_DOCS = 1000;
+  private static final int CARDINALITY = 100;
+
+  @Test
+  public void testValueNotInDictionary() {
+    DataSource dataSource = mockDataSource(true, false, false);
+    Assert.assertEquals(estimate(dataSource, eq("missing")), 0L);
+  }
+
+  @Test
+  public void testWithoutIndex() {
+    // Docs are assumed to be uniformly distributed over the dictionary.
+    DataSource dataSource = mockDataSource(true, false, false);
+    Assert.assertEquals(estimate(dataSource, eq("7")), 10L);
+    Assert.assertEquals(estimate(dataSource, in("7", "8", "missing")), 20L);
+    Assert.assertEquals(estimate(dataSource, neq("7")), 990L);
+  }
+
+  @Test
+  public void testWithoutDictionary() {
+    DataSource dataSource = mockDataSource(true, false, false);
+    Mockito.when(dataSource.getDataSourceMetadata().hasDictionary()).thenReturn(false);
+    // Nothing to estimate from.
+    Assert.assertFalse(FilterSelectivityEstimator.canEstimate(dataSource, eq("7")));
+  }
+
+  @Test
+  public void testInvertedIndex() {
+    DataSource dataSource = mockDataSource(true, true, false);
+    InvertedIndexReader invertedIndex = dataSource.getInvertedIndex();
+    // Dictionary id 7 is in 3 docs, dictionary id 8 in every doc.
+    Mockito.when(invertedIndex.getImmutable(7)).thenReturn(MutableRoaringBitmap.bitmapOf(1, 2, 3));
+    MutableRoaringBitmap allDocs = new MutableRoaringBitmap();
+    allDocs.add(0L, NUM_DOCS);
+    Mockito.when(invertedIndex.getImmutable(8)).thenReturn(allDocs);
+
+    Assert.assertEquals(estimate(dataSource, eq("7")), 3L);
+    Assert.assertEquals(estimate(dataSource, in("7", "8")), (long) NUM_DOCS);
+    Assert.assertEquals(estimate(dataSource, neq("7")), 997L);
+    // Exact for single-value columns.
+    Assert.assertEquals(estimate(dataSource, neq("8")), 0L);
+
+    // Docs with other values may remain for multi-value columns.
+    Mockito.when(dataSource.getDataSourceMetadata().isSingleValue()).thenReturn(false);
+    Assert.assertEquals(estimate(dataSource, neq("8")), 1L);
+  }
+
+  @Test
+  public void testSortedColumn() {
+    DataSource dataSource = mockDataSource(true, true, true);
+    InvertedIndexReader invertedIndex = dataSource.getInvertedIndex();
+    Mockito.when(invertedIndex.getMinMaxRangeFor(7)).thenReturn(new IntPair(70, 99));
+    Mockito.when(invertedIndex.getMinMaxRangeFor(8)).thenReturn(new IntPair(100, 104));
+
+    Assert.assertEquals(estimate(dataSource, eq("7")), 30L);
+    Assert.assertEquals(estimate(dataSource, in("7", "8")), 35L);
+    Assert.assertEquals(estimate(dataSource, neq("8")), 995L);
+  }
+
+  @Test
+  public void testStarTreeSegment() {
+    DataSource dataSource = mockDataSource(true, true, false);
+    // The bitmap also holds aggregated docs, so raw docs may remain.
+    MutableRoaringBitmap bitmap = new MutableRoaringBitmap();
+    bitmap.add(0L, NUM_DOCS + 100L);
+    Mockito.when(dataSource.getInvertedIndex().getImmutable(8)).thenReturn(bitmap);
+    Assert.assertEquals(estimate(dataSource, neq("8")), 0L);
+    Assert.assertEquals(FilterSelectivityEstimator.estimateNumMatchingDocs(dataSource, neq("8"),
+        PredicateEvaluatorProvider.getPredicateFunctionFor(neq("8"), dataSource.getDictionary()), NUM_DOCS, false), 1L);
+  }
+
+  private static long estimate(DataSource dataSource, Predicate predicate) {
+    Assert.assertTrue(FilterSelectivityEstimator.canEstimate(dataSource, predicate));
+    return FilterSelectivityEstimator.estimateNumMatchingDocs(dataSource, predicate,
+        PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dataSource.getDictionary()), NUM_DOCS, true);
+  }
+
+  private static DataSource mockDataSource(boolean isSingleValue, boolean hasInvertedIndex, boolean isSorted) {
+    DataSourceMetadata dataSourceMetadata = Mockito.mock(DataSourceMetadata.class);
+    Mockito.when(dataSourceMetadata.hasDictionary()).thenReturn(true);
+    Mockito.when(dataSourceMetadata.isSingleValue()).thenReturn(isSingleValue);
+    Mockito.when(dataSourceMetadata.hasInvertedIndex()).thenReturn(hasInvertedIndex);
+    Mockito.when(dataSourceMetadata.isSorted()).thenReturn(isSorted);
+    Mockito.when(dataSourceMetadata.cardinality()).thenReturn(CARDINALITY);
+
+    Dictionary dictionary = Mockito.mock(Dictionary.class);
+    Mockito.when(dictionary.length()).thenReturn(CARDINALITY);
+    Mockito.when(dictionary.indexOf(Mockito.anyObject())).thenReturn(-1);
+    Mockito.when(dictionary.indexOf("7")).thenReturn(7);
+    Mockito.when(dictionary.indexOf("8")).thenReturn(8);
+
+    DataSource dataSource = Mockito.mock(DataSource.class);
+    Mockito.when(dataSource.getDataSourceMetadata()).thenReturn(dataSourceMetadata);
+    Mockito.when(dataSource.getDictionary()).thenReturn(dictionary);
+    if (hasInvertedIndex) {
+      InvertedIndexReader invertedIndex = Mockito.mock(InvertedIndexReader.class);
+      Mockito.when(dataSource.getInvertedIndex()).thenReturn(invertedIndex);
+    }
+    return dataSource;
+  }
+
+  private static EqPredicate eq(String value) {
+    return new EqPredicate(COLUMN, Collections.singletonList(value));
+  }
+
+  private static NEqPredicate neq(String value) {
+    return new NEqPredicate(COLUMN, Collections.singletonList(value));
+  }
+
+  private static InPredicate in(String... values) {
+    StringBuilder stringBuilder = new StringBuilder(values[0]);
+    for (int i = 1; i < values.length; i++) {
+      stringBuilder.append("\t\t").append(values[i]);
+    }
+    return new InPredicate(COLUMN, Collections.singletonList(stringBuilder.toString()));
+  }
+}
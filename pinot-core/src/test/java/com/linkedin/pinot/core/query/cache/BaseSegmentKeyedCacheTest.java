@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Shared fixture and tests for the {@link SegmentKeyedCache} sub-classes.
+ */
+public abstract class BaseSegmentKeyedCacheTest<C extends SegmentKeyedCache<?>> {
+  protected static final Pql2Compiler COMPILER = new Pql2Compiler();
+  protected static final String TABLE_NAME = "myTable_OFFLINE";
+  protected static final String SEGMENT_NAME = "mySegment";
+
+  /**
+   * Create the cache to be tested.
+   */
+  protected abstract C createCache(int maxEntrySizeInBytes);
+
+  /**
+   * Put an entry (larger than 1 byte) for the segment into the cache.
+   */
+  protected abstract void putEntry(C cache, IndexSegment indexSegment);
+
+  @Test
+  public void testInvalidateAndMaxEntrySize() {
+    C cache = createCache(1024);
+    putEntry(cache, getIndexSegment("crc1"));
+    Assert.assertEquals(cache.size(), 1L);
+
+    // Invalidating another segment or table should not affect the cache.
+    cache.invalidate(TABLE_NAME, "otherSegment");
+    Assert.assertEquals(cache.size(), 1L);
+    cache.invalidate("otherTable_OFFLINE", SEGMENT_NAME);
+    Assert.assertEquals(cache.size(), 1L);
+    cache.invalidate(TABLE_NAME, SEGMENT_NAME);
+    Assert.assertEquals(cache.size(), 0L);
+
+    // Invalidating a segment should only drop its own entries, and the segment can be cached again afterwards.
+    putEntry(cache, getIndexSegment("crc1"));
+    putEntry(cache, getIndexSegment("otherSegment", "crc2"));
+    Assert.assertEquals(cache.size(), 2L);
+    cache.invalidate(TABLE_NAME, SEGMENT_NAME);
+    Assert.assertEquals(cache.size(), 1L);
+    putEntry(cache, getIndexSegment("crc1"));
+    Assert.assertEquals(cache.size(), 2L);
+    cache.invalidate(TABLE_NAME, "otherSegment");
+    Assert.assertEquals(cache.size(), 1L);
+
+    // Entries larger than the max entry size should not be cached.
+    C smallCache = createCache(1);
+    Assert.assertEquals(smallCache.getMaxEntrySizeInBytes(), 1);
+    putEntry(smallCache, getIndexSegment("crc1"));
+    Assert.assertEquals(smallCache.size(), 0L);
+  }
+
+  protected static IndexSegment getIndexSegment(String crc) {
+    return getIndexSegment(SEGMENT_NAME, crc);
+  }
+
+  protected static IndexSegment getIndexSegment(String segmentName, String crc) {
+    SegmentMetadata segmentMetadata = Mockito.mock(SegmentMetadata.class);
+    Mockito.when(segmentMetadata.getCrc()).thenReturn(crc);
+    IndexSegment indexSegment = Mockito.mock(IndexSegment.class);
+    Mockito.when(indexSegment.getSegmentName()).thenReturn(segmentName);
+    Mockito.when(indexSegment.getSegmentMetadata()).thenReturn(segmentMetadata);
+    return indexSegment;
+  }
+}
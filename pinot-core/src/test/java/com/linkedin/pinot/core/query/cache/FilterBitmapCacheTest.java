@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import org.mockito.Mockito;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class FilterBitmapCacheTest extends BaseSegmentKeyedCacheTest<FilterBitmapCache> {
+  @Test
+  public void testFilterKey() {
+    String filterKey = getFilterKey("SELECT COUNT(*) FROM myTable WHERE a = 'x' AND b IN ('1', '2', '3')");
+
+    // Order of AND children and IN values should not matter.
+    Assert.assertEquals(getFilterKey("SELECT SUM(met) FROM myTable WHERE b IN ('3', '1', '2') AND a = 'x'"),
+        filterKey);
+
+    // Different operator, column or value should give different keys.
+    Assert.assertFalse(
+        getFilterKey("SELECT COUNT(*) FROM myTable WHERE a = 'x' OR b IN ('1', '2', '3')").equals(filterKey));
+    Assert.assertFalse(
+        getFilterKey("SELECT COUNT(*) FROM myTable WHERE a = 'x' AND c IN ('1', '2', '3')").equals(filterKey));
+    Assert.assertFalse(
+        getFilterKey("SELECT COUNT(*) FROM myTable WHERE a = 'x' AND b IN ('1', '2', '4')").equals(filterKey));
+    Assert.assertFalse(getFilterKey("SELECT COUNT(*) FROM myTable WHERE a = 'x' AND b NOT IN ('1', '2', '3')").equals(
+        filterKey));
+  }
+
+  @Test
+  public void testGetAndPut() {
+    ServerMetrics serverMetrics = Mockito.mock(ServerMetrics.class);
+    FilterBitmapCache filterBitmapCache = new FilterBitmapCache(1024 * 1024L, 1024, serverMetrics);
+    String filterKey = getFilterKey("SELECT COUNT(*) FROM myTable WHERE a = 'x'");
+    IndexSegment indexSegment = getIndexSegment("crc1");
+    Assert.assertNull(filterBitmapCache.get(TABLE_NAME, indexSegment, filterKey));
+    Mockito.verify(serverMetrics).addMeteredGlobalValue(ServerMeter.FILTER_BITMAP_CACHE_MISSES, 1L);
+
+    MutableRoaringBitmap bitmap = MutableRoaringBitmap.bitmapOf(1, 5, 100, 1000);
+    bitmap.add(2000, 3000);
+    filterBitmapCache.put(TABLE_NAME, indexSegment, filterKey, bitmap);
+    Assert.assertEquals(filterBitmapCache.size(), 1L);
+
+    ImmutableRoaringBitmap cachedBitmap = filterBitmapCache.get(TABLE_NAME, indexSegment, filterKey);
+    Assert.assertNotNull(cachedBitmap);
+    Assert.assertEquals(cachedBitmap.toMutableRoaringBitmap(), bitmap);
+    Mockito.verify(serverMetrics).addMeteredGlobalValue(ServerMeter.FILTER_BITMAP_CACHE_HITS, 1L);
+
+    // Different filter, table or segment CRC should not hit the cache.
+    Assert.assertNull(
+        filterBitmapCache.get(TABLE_NAME, indexSegment, getFilterKey("SELECT COUNT(*) FROM myTable WHERE a = 'y'")));
+    Assert.assertNull(filterBitmapCache.get("otherTable_OFFLINE", indexSegment, filterKey));
+    Assert.assertNull(filterBitmapCache.get(TABLE_NAME, getIndexSegment("crc2"), filterKey));
+  }
+
+  @Override
+  protected FilterBitmapCache createCache(int maxEntrySizeInBytes) {
+    return new FilterBitmapCache(1024 * 1024L, maxEntrySizeInBytes, null);
+  }
+
+  @Override
+  protected void putEntry(FilterBitmapCache cache, IndexSegment indexSegment) {
+    cache.put(TABLE_NAME, indexSegment, getFilterKey("SELECT COUNT(*) FROM myTable WHERE a = 'x'"),
+        MutableRoaringBitmap.bitmapOf(1, 2, 3));
+  }
+
+  private static String getFilterKey(String pql) {
+    return FilterBitmapCache.getFilterKey(RequestUtils.generateFilterQueryTree(COMPILER.compileToBrokerRequest(pql)));
+  }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.ExecutionStatistics;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class SegmentResultCacheTest extends BaseSegmentKeyedCacheTest<SegmentResultCache> {
+  @Test
+  public void testAggregation() {
+    SegmentResultCache segmentResultCache = new SegmentResultCache(1024 * 1024L, 1024);
+    BrokerRequest brokerRequest = getBrokerRequest("SELECT COUNT(*), SUM(met) FROM myTable WHERE dim = 'a'");
+    SegmentResultCache.QueryKey queryKey = SegmentResultCache.getQueryKey(brokerRequest);
+    Assert.assertNotNull(queryKey);
+    IndexSegment indexSegment = getIndexSegment("crc1");
+    AggregationFunctionContext[] aggregationFunctionContexts =
+        AggregationFunctionUtils.getAggregationFunctionContexts(brokerRequest.getAggregationsInfo(), null);
+    Assert.assertNull(segmentResultCache.get(TABLE_NAME, indexSegment, queryKey, aggregationFunctionContexts));
+
+    List<Object> aggregationResult = Arrays.<Object>asList(10L, 5.5);
+    segmentResultCache.put(TABLE_NAME, indexSegment, queryKey,
+        new IntermediateResultsBlock(aggregationFunctionContexts, aggregationResult, false),
+        new ExecutionStatistics(10L, 100L, 20L, 1000L));
+    Assert.assertEquals(segmentResultCache.size(), 1L);
+
+    // Same query compiled again should hit the cache.
+    SegmentResultCache.QueryKey sameQueryKey = SegmentResultCache.getQueryKey(
+        getBrokerRequest("SELECT COUNT(*), SUM(met) FROM myTable WHERE dim = 'a'"));
+    SegmentResultCache.CachedResults cachedResults =
+        segmentResultCache.get(TABLE_NAME, indexSegment, sameQueryKey, aggregationFunctionContexts);
+    Assert.assertNotNull(cachedResults);
+    Assert.assertEquals(cachedResults.getResultsBlock().getAggregationResult(), aggregationResult);
+    ExecutionStatistics executionStatistics = cachedResults.getExecutionStatistics();
+    Assert.assertEquals(executionStatistics.getNumDocsScanned(), 10L);
+    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 100L);
+    Assert.assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 20L);
+    Assert.assertEquals(executionStatistics.getNumTotalRawDocs(), 1000L);
+
+    // Different filter or segment CRC should not hit the cache.
+    SegmentResultCache.QueryKey otherQueryKey = SegmentResultCache.getQueryKey(
+        getBrokerRequest("SELECT COUNT(*), SUM(met) FROM myTable WHERE dim = 'b'"));
+    Assert.assertNull(segmentResultCache.get(TABLE_NAME, indexSegment, otherQueryKey, aggregationFunctionContexts));
+    Assert.assertNull(
+        segmentResultCache.get(TABLE_NAME, getIndexSegment("crc2"), queryKey, aggregationFunctionContexts));
+
+    // Selection query should not be cached.
+    Assert.assertNull(SegmentResultCache.getQueryKey(getBrokerRequest("SELECT * FROM myTable")));
+  }
+
+  @Test
+  public void testAggregationGroupBy() {
+    SegmentResultCache segmentResultCache = new SegmentResultCache(1024 * 1024L, 1024);
+    BrokerRequest brokerRequest = getBrokerRequest("SELECT SUM(met) FROM myTable GROUP BY dim TOP 10");
+    SegmentResultCache.QueryKey queryKey = SegmentResultCache.getQueryKey(brokerRequest);
+    IndexSegment indexSegment = getIndexSegment("crc1");
+    AggregationFunctionContext[] aggregationFunctionContexts =
+        AggregationFunctionUtils.getAggregationFunctionContexts(brokerRequest.getAggregationsInfo(), null);
+
+    Map<String, Object> groupByResultMap = new HashMap<>();
+    groupByResultMap.put("a", 1.0);
+    groupByResultMap.put("b", 2.0);
+    List<Map<String, Object>> groupByResult = new ArrayList<>();
+    groupByResult.add(groupByResultMap);
+    segmentResultCache.put(TABLE_NAME, indexSegment, queryKey,
+        new IntermediateResultsBlock(aggregationFunctionContexts, groupByResult, true),
+        new ExecutionStatistics(2L, 0L, 4L, 2L));
+
+    // TOP N does not affect the segment level results.
+    SegmentResultCache.QueryKey otherTopNQueryKey =
+        SegmentResultCache.getQueryKey(getBrokerRequest("SELECT SUM(met) FROM myTable GROUP BY dim TOP 100"));
+    SegmentResultCache.CachedResults cachedResults =
+        segmentResultCache.get(TABLE_NAME, indexSegment, otherTopNQueryKey, aggregationFunctionContexts);
+    Assert.assertNotNull(cachedResults);
+    Assert.assertEquals(cachedResults.getResultsBlock().getCombinedAggregationGroupByResult(), groupByResult);
+  }
+
+  @Test
+  public void testLargeAggregationGroupBy() {
+    SegmentResultCache segmentResultCache = new SegmentResultCache(1024 * 1024L, 1024);
+    BrokerRequest brokerRequest = getBrokerRequest("SELECT SUM(met) FROM myTable GROUP BY dim TOP 10");
+    SegmentResultCache.QueryKey queryKey = SegmentResultCache.getQueryKey(brokerRequest);
+    AggregationFunctionContext[] aggregationFunctionContexts =
+        AggregationFunctionUtils.getAggregationFunctionContexts(brokerRequest.getAggregationsInfo(), null);
+
+    // 1000 groups cannot fit into 1024 bytes, the results should not be materialized nor serialized.
+    List<GroupKeyGenerator.GroupKey> groupKeys = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      groupKeys.add(new GroupKeyGenerator.GroupKey(i, "group" + i));
+    }
+    AggregationGroupByResult aggregationGroupByResult = Mockito.mock(AggregationGroupByResult.class);
+    Mockito.when(aggregationGroupByResult.getGroupKeyIterator()).thenReturn(groupKeys.iterator());
+    Mockito.when(aggregationGroupByResult.getResultForKey(Mockito.any(GroupKeyGenerator.GroupKey.class),
+        Mockito.anyInt())).thenReturn(1.0);
+    segmentResultCache.put(TABLE_NAME, getIndexSegment("crc1"), queryKey,
+        new IntermediateResultsBlock(aggregationFunctionContexts, aggregationGroupByResult),
+        new ExecutionStatistics(1000L, 0L, 1000L, 1000L));
+    Assert.assertEquals(segmentResultCache.size(), 0L);
+    Mockito.verify(aggregationGroupByResult, Mockito.atMost(100))
+        .getResultForKey(Mockito.any(GroupKeyGenerator.GroupKey.class), Mockito.anyInt());
+  }
+
+  @Override
+  protected SegmentResultCache createCache(int maxEntrySizeInBytes) {
+    return new SegmentResultCache(1024 * 1024L, maxEntrySizeInBytes);
+  }
+
+  @Override
+  protected void putEntry(SegmentResultCache cache, IndexSegment indexSegment) {
+    BrokerRequest brokerRequest = getBrokerRequest("SELECT COUNT(*) FROM myTable");
+    AggregationFunctionContext[] aggregationFunctionContexts =
+        AggregationFunctionUtils.getAggregationFunctionContexts(brokerRequest.getAggregationsInfo(), null);
+    cache.put(TABLE_NAME, indexSegment, SegmentResultCache.getQueryKey(brokerRequest),
+        new IntermediateResultsBlock(aggregationFunctionContexts, Collections.<Object>singletonList(10L), false),
+        new ExecutionStatistics(10L, 0L, 0L, 10L));
+  }
+
+  private static BrokerRequest getBrokerRequest(String pql) {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(pql);
+    brokerRequest.getQuerySource().setTableName(TABLE_NAME);
+    return brokerRequest;
+  }
+}
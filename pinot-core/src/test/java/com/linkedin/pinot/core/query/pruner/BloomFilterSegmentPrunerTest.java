@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.pruner;
+
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class BloomFilterSegmentPrunerTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final BloomFilterSegmentPruner PRUNER = new BloomFilterSegmentPruner();
+
+  @Test
+  public void testPruning() {
+    // Segment with bloom filters on memberId containing 5 and 7, and on dim containing 'b' and 'd'.
+    IndexSegment indexSegment = getIndexSegment();
+
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable"));
+
+    // EQ.
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE memberId = 5"));
+    Assert.assertTrue(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE memberId = 6"));
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE dim = 'b'"));
+    Assert.assertTrue(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE dim = 'c'"));
+
+    // IN.
+    Assert.assertTrue(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE memberId IN (4, 6, 8)"));
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE memberId IN (4, 6, 7)"));
+    Assert.assertTrue(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE dim IN ('a', 'c')"));
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE dim IN ('a', 'd')"));
+
+    // Nested AND/OR.
+    Assert.assertTrue(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE memberId = 5 AND dim = 'c'"));
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE memberId = 6 OR dim = 'b'"));
+    Assert.assertTrue(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE memberId = 6 OR dim = 'c'"));
+    Assert.assertFalse(
+        prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE memberId = 5 AND (dim = 'c' OR dim IN ('a', 'd'))"));
+    Assert.assertTrue(
+        prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE memberId = 5 AND (dim = 'c' OR memberId IN (4, 6))"));
+    Assert.assertTrue(prune(indexSegment,
+        "SELECT COUNT(*) FROM myTable WHERE (memberId = 6 AND dim = 'b') OR (memberId = 7 AND dim = 'a')"));
+
+    // Columns without bloom filter and other predicates are never pruned.
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE foo = 'a'"));
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE foo IN ('a', 'c')"));
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE memberId = 6 OR foo = 'a'"));
+    Assert.assertTrue(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE memberId = 6 AND foo = 'a'"));
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE memberId > 6"));
+
+    // Segments other than IndexSegmentImpl are never pruned.
+    Assert.assertFalse(prune(Mockito.mock(IndexSegment.class), "SELECT COUNT(*) FROM myTable WHERE memberId = 6"));
+  }
+
+  private static boolean prune(IndexSegment indexSegment, String query) {
+    return PRUNER.prune(indexSegment, COMPILER.compileToBrokerRequest(query));
+  }
+
+  private static IndexSegment getIndexSegment() {
+    BloomFilterReader memberIdBloomFilter = Mockito.mock(BloomFilterReader.class);
+    Mockito.when(memberIdBloomFilter.mightContain("5")).thenReturn(true);
+    Mockito.when(memberIdBloomFilter.mightContain("7")).thenReturn(true);
+    BloomFilterReader dimBloomFilter = Mockito.mock(BloomFilterReader.class);
+    Mockito.when(dimBloomFilter.mightContain("b")).thenReturn(true);
+    Mockito.when(dimBloomFilter.mightContain("d")).thenReturn(true);
+
+    IndexSegmentImpl indexSegment = Mockito.mock(IndexSegmentImpl.class);
+    Mockito.when(indexSegment.getBloomFilterFor("memberId")).thenReturn(memberIdBloomFilter);
+    Mockito.when(indexSegment.getBloomFilterFor("dim")).thenReturn(dimBloomFilter);
+    return indexSegment;
+  }
+}
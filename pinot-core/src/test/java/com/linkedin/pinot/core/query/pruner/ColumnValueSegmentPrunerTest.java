@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.pruner;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.data.FieldSpec.FieldType;
+import com.linkedin.pinot.core.data.partition.ModuloPartitionFunction;
+import com.linkedin.pinot.core.data.partition.PartitionFunction;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class ColumnValueSegmentPrunerTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final ColumnValueSegmentPruner PRUNER = new ColumnValueSegmentPruner();
+
+  @Test
+  public void testMinMaxPruning() {
+    // Segment with daysSinceEpoch in [100, 200] and dim in ['b', 'd'].
+    IndexSegment indexSegment = getIndexSegment(null);
+
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable"));
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch = 150"));
+    Assert.assertTrue(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch = 50"));
+    Assert.assertTrue(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch IN (50, 250)"));
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch IN (50, 200)"));
+    Assert.assertTrue(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE dim = 'a'"));
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE dim = 'c'"));
+
+    // Ranges.
+    Assert.assertTrue(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch > 200"));
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch >= 200"));
+    Assert.assertTrue(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch < 100"));
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch <= 100"));
+    Assert.assertTrue(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch BETWEEN 201 AND 300"));
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch BETWEEN 50 AND 300"));
+    Assert.assertTrue(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE dim > 'd'"));
+
+    // AND/OR.
+    Assert.assertTrue(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch = 150 AND dim = 'a'"));
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch = 50 OR dim = 'c'"));
+    Assert.assertTrue(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch = 50 OR dim = 'a'"));
+
+    // Columns without metadata and values that cannot be parsed are never pruned.
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE foo = 'a'"));
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE daysSinceEpoch = 'abc'"));
+  }
+
+  @Test
+  public void testPartitionPruning() {
+    // Segment with memberId values in partitions 1 and 3 out of 4.
+    IndexSegment indexSegment = getIndexSegment(new ModuloPartitionFunction(4));
+
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE memberId = 5"));
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE memberId = 7"));
+    Assert.assertTrue(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE memberId = 6"));
+    Assert.assertTrue(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE memberId IN (4, 6, 8)"));
+    Assert.assertFalse(prune(indexSegment, "SELECT COUNT(*) FROM myTable WHERE memberId IN (4, 6, 9)"));
+  }
+
+  private static boolean prune(IndexSegment indexSegment, String query) {
+    return PRUNER.prune(indexSegment, COMPILER.compileToBrokerRequest(query));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static IndexSegment getIndexSegment(PartitionFunction partitionFunction) {
+    Map<String, ColumnMetadata> columnMetadataMap = new HashMap<>();
+    columnMetadataMap.put("daysSinceEpoch", new ColumnMetadata.Builder().setColumnName("daysSinceEpoch")
+        .setFieldType(FieldType.DIMENSION)
+        .setDataType(DataType.LONG)
+        .setMinValue((Comparable) 100L)
+        .setMaxValue((Comparable) 200L)
+        .build());
+    columnMetadataMap.put("dim", new ColumnMetadata.Builder().setColumnName("dim")
+        .setFieldType(FieldType.DIMENSION)
+        .setDataType(DataType.STRING)
+        .setPaddingCharacter(V1Constants.Str.DEFAULT_STRING_PAD_CHAR)
+        .setMinValue((Comparable) "b")
+        .setMaxValue((Comparable) "d")
+        .build());
+    if (partitionFunction != null) {
+      columnMetadataMap.put("memberId", new ColumnMetadata.Builder().setColumnName("memberId")
+          .setFieldType(FieldType.DIMENSION)
+          .setDataType(DataType.INT)
+          .setPartitionFunction(partitionFunction)
+          .setPartitions(new HashSet<>(Arrays.asList(1, 3)))
+          .build());
+    }
+
+    SegmentMetadataImpl segmentMetadata = Mockito.mock(SegmentMetadataImpl.class);
+    Mockito.when(segmentMetadata.getColumnMetadataMap()).thenReturn(columnMetadataMap);
+    IndexSegment indexSegment = Mockito.mock(IndexSegment.class);
+    Mockito.when(indexSegment.getSegmentMetadata()).thenReturn(segmentMetadata);
+    return indexSegment;
+  }
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.query.QueryExecutor;
+import com.linkedin.pinot.common.query.QueryRequest;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.InstanceRequest;
+import com.linkedin.pinot.common.request.QuerySource;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.common.datatable.DataTableImplV2;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class FairShareQuerySchedulerTest {
+  private static final String TABLE_A = "tableA_OFFLINE";
+  private static final String TABLE_B = "tableB_OFFLINE";
+  private static final String TABLE_C = "tableC_OFFLINE";
+  private static final String EXCEPTION_KEY =
+      DataTable.EXCEPTION_METADATA_KEY + QueryException.SERVER_OUT_OF_CAPACITY_ERROR_CODE;
+
+  @Test
+  public void testPerTableLimits()
+      throws Exception {
+    final CountDownLatch blockQueries = new CountDownLatch(1);
+    final AtomicInteger numRunning = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    QueryExecutor queryExecutor = mock(QueryExecutor.class);
+    when(queryExecutor.processQuery(any(QueryRequest.class))).thenAnswer(new Answer<DataTable>() {
+      @Override
+      public DataTable answer(InvocationOnMock invocation)
+          throws Throwable {
+        int running = numRunning.incrementAndGet();
+        synchronized (maxRunning) {
+          maxRunning.set(Math.max(maxRunning.get(), running));
+        }
+        blockQueries.await();
+        numRunning.decrementAndGet();
+        return new DataTableImplV2();
+      }
+    });
+
+    PropertiesConfiguration config = new PropertiesConfiguration();
+    config.setProperty(QueryScheduler.QUERY_RUNNER_CONFIG_KEY, 4);
+    config.setProperty(FairShareQueryScheduler.MAX_CONCURRENT_PER_TABLE_CONFIG_KEY, 2);
+    config.setProperty(FairShareQueryScheduler.MAX_PENDING_PER_TABLE_CONFIG_KEY, 2);
+    FairShareQueryScheduler scheduler = new FairShareQueryScheduler(config, queryExecutor);
+
+    try {
+      // Table A: 2 running + 2 pending, the fifth query should be rejected.
+      ListenableFuture[] tableAFutures = new ListenableFuture[4];
+      for (int i = 0; i < 4; i++) {
+        tableAFutures[i] = scheduler.submit(getQueryRequest(TABLE_A));
+        if (i < 2) {
+          waitForRunning(numRunning, i + 1);
+        }
+      }
+      ListenableFuture<DataTable> rejected = scheduler.submit(getQueryRequest(TABLE_A));
+      Assert.assertTrue(rejected.isDone());
+      Assert.assertTrue(rejected.get().getMetadata().containsKey(EXCEPTION_KEY));
+
+      // Table B should still get the remaining query runners even though table A has pending queries.
+      ListenableFuture<DataTable> tableBFuture = scheduler.submit(getQueryRequest(TABLE_B));
+      waitForRunning(numRunning, 3);
+
+      blockQueries.countDown();
+      for (ListenableFuture future : tableAFutures) {
+        Assert.assertFalse(((DataTable) future.get(10, TimeUnit.SECONDS)).getMetadata().containsKey(EXCEPTION_KEY));
+      }
+      Assert.assertFalse(tableBFuture.get(10, TimeUnit.SECONDS).getMetadata().containsKey(EXCEPTION_KEY));
+      Assert.assertTrue(maxRunning.get() <= 3);
+    } finally {
+      scheduler.stop();
+    }
+  }
+
+  @Test
+  public void testWeightedFairShare()
+      throws Exception {
+    final CountDownLatch blockQueries = new CountDownLatch(1);
+    final List<String> executionOrder = Collections.synchronizedList(new ArrayList<String>());
+    QueryExecutor queryExecutor = mock(QueryExecutor.class);
+    when(queryExecutor.processQuery(any(QueryRequest.class))).thenAnswer(new Answer<DataTable>() {
+      @Override
+      public DataTable answer(InvocationOnMock invocation)
+          throws Throwable {
+        String tableName = ((QueryRequest) invocation.getArguments()[0]).getTableName();
+        if (tableName.equals(TABLE_C)) {
+          blockQueries.await();
+        } else {
+          executionOrder.add(tableName);
+          Thread.sleep(20L);
+        }
+        return new DataTableImplV2();
+      }
+    });
+
+    // One query runner thread, table A gets 3 times the share of table B.
+    PropertiesConfiguration config = new PropertiesConfiguration();
+    config.setProperty(QueryScheduler.QUERY_RUNNER_CONFIG_KEY, 1);
+    config.setProperty(FairShareQueryScheduler.TABLE_WEIGHT_CONFIG_PREFIX + "." + TABLE_A, 3.0);
+    FairShareQueryScheduler scheduler = new FairShareQueryScheduler(config, queryExecutor);
+
+    try {
+      // Hold the only query runner thread with table C, so that both tables queue up their queries.
+      ListenableFuture<DataTable> blockingFuture = scheduler.submit(getQueryRequest(TABLE_C));
+      List<ListenableFuture<DataTable>> futures = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        futures.add(scheduler.submit(getQueryRequest(TABLE_A)));
+        futures.add(scheduler.submit(getQueryRequest(TABLE_B)));
+      }
+      blockQueries.countDown();
+      blockingFuture.get(10, TimeUnit.SECONDS);
+      for (ListenableFuture<DataTable> future : futures) {
+        Assert.assertFalse(future.get(10, TimeUnit.SECONDS).getMetadata().containsKey(EXCEPTION_KEY));
+      }
+
+      // While both tables have pending queries, table A should run about 3 queries for each query of table B.
+      int numTableAQueries = 0;
+      for (String tableName : executionOrder.subList(0, 16)) {
+        if (tableName.equals(TABLE_A)) {
+          numTableAQueries++;
+        }
+      }
+      Assert.assertTrue(numTableAQueries >= 10 && numTableAQueries <= 14, "Table A queries: " + numTableAQueries);
+
+      // Queues of the idle tables should get dropped.
+      long deadline = System.currentTimeMillis() + 10_000L;
+      while (scheduler.getNumTableQueues() > 0) {
+        Assert.assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for idle table queues to drop");
+        Thread.sleep(10L);
+      }
+    } finally {
+      scheduler.stop();
+    }
+  }
+
+  private static QueryRequest getQueryRequest(String tableName) {
+    QuerySource querySource = new QuerySource();
+    querySource.setTableName(tableName);
+    BrokerRequest brokerRequest = new BrokerRequest();
+    brokerRequest.setQuerySource(querySource);
+    return new QueryRequest(new InstanceRequest(0L, brokerRequest), null);
+  }
+
+  private static void waitForRunning(AtomicInteger numRunning, int expected)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10_000L;
+    while (numRunning.get() < expected) {
+      Assert.assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for running queries");
+      Thread.sleep(10L);
+    }
+  }
+}
@@ -58,6 +58,7 @@ public class RealtimeSegmentTest {
   private static Schema schema;
   private static RealtimeSegment segmentWithInvIdx;
   private static RealtimeSegment segmentWithoutInvIdx;
+  private static RealtimeSegment segmentWithoutDictionary;
 
   @BeforeClass
   public static void before() throws Exception {
@@ -91,10 +92,16 @@ public class RealtimeSegmentTest {
         invertedIdxCols);
     segmentWithoutInvIdx =
         new RealtimeSegmentImpl(schema, 100000, tableName, "noSegment", AVRO_DATA, new ServerMetrics(new MetricsRegistry()));
+    List<String> noDictionaryCols = new ArrayList<>();
+    noDictionaryCols.add("count");
+    segmentWithoutDictionary =
+        new RealtimeSegmentImpl(schema, 100000, tableName, "noSegment", AVRO_DATA, new ServerMetrics(new MetricsRegistry()),
+            new ArrayList<String>(), noDictionaryCols);
     GenericRow row = provider.next(new GenericRow());
     while (row != null) {
       segmentWithInvIdx.index(row);
       segmentWithoutInvIdx.index(row);
+      segmentWithoutDictionary.index(row);
       row = GenericRow.createOrReuseRow(row);
       row = provider.next(row);
     }
@@ -331,4 +338,35 @@ public class RealtimeSegmentTest {
     Assert.assertEquals(counter, 0);
   }
 
+  @Test
+  public void testMetricWithoutDictionary() throws Exception {
+    Assert.assertFalse(((RealtimeSegmentImpl) segmentWithoutDictionary).hasDictionary("count"));
+    DataSource dictionaryDs = segmentWithoutInvIdx.getDataSource("count");
+    Block dictionaryBlock = dictionaryDs.nextBlock();
+    DataSource rawDs = segmentWithoutDictionary.getDataSource("count");
+    Block rawBlock = rawDs.nextBlock();
+    Assert.assertFalse(rawDs.getDataSourceMetadata().hasDictionary());
+    Assert.assertFalse(rawBlock.getMetadata().hasDictionary());
+    Assert.assertNull(rawBlock.getMetadata().getDictionary());
+
+    int numDocs = segmentWithoutDictionary.getAggregateDocumentCount();
+    Assert.assertEquals(numDocs, segmentWithoutInvIdx.getAggregateDocumentCount());
+    int[] docIds = new int[numDocs];
+    for (int i = 0; i < numDocs; i++) {
+      docIds[i] = i;
+    }
+    int[] dictIds = new int[numDocs];
+    dictionaryBlock.getBlockValueSet().getDictionaryIds(docIds, 0, numDocs, dictIds, 0);
+    double[] expectedValues = new double[numDocs];
+    dictionaryBlock.getMetadata().getDictionary().readDoubleValues(dictIds, 0, numDocs, expectedValues, 0);
+    double[] actualValues = new double[numDocs];
+    rawBlock.getBlockValueSet().getDoubleValues(docIds, 0, numDocs, actualValues, 0);
+    for (int i = 0; i < numDocs; i++) {
+      Assert.assertEquals(actualValues[i], expectedValues[i], 0.0);
+    }
+
+    GenericRow dictionaryRow = segmentWithoutInvIdx.getRawValueRowAt(0, new GenericRow());
+    GenericRow rawRow = segmentWithoutDictionary.getRawValueRowAt(0, new GenericRow());
+    Assert.assertEquals(rawRow.getValue("count"), dictionaryRow.getValue("count"));
+  }
 }
@@ -0,0 +1,208 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.io.readerwriter.impl.MmapMemoryManager;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class MutableDictionaryTest {
+  private static final int NUM_ENTRIES = 10000;
+  private static final int NUM_READERS = 3;
+  private static final long RANDOM_SEED = System.nanoTime();
+
+  @Test
+  public void testIntDictionary() throws Exception {
+    MutableDictionaryReader dictionary =
+        RealtimeDictionaryProvider.getDictionaryFor(new DimensionFieldSpec("int", FieldSpec.DataType.INT, true));
+    Assert.assertTrue(dictionary instanceof IntOnHeapMutableDictionary);
+    Assert.assertTrue(dictionary.isEmpty());
+
+    Random random = new Random(RANDOM_SEED);
+    Map<Integer, Integer> valueToDictId = new HashMap<>();
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      int value = random.nextInt(NUM_ENTRIES) - NUM_ENTRIES / 2;
+      // Mix boxed and string values
+      dictionary.index((i % 2 == 0) ? value : Integer.toString(value));
+      if (!valueToDictId.containsKey(value)) {
+        valueToDictId.put(value, valueToDictId.size());
+      }
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+    }
+
+    Assert.assertEquals(dictionary.length(), valueToDictId.size(), "Random seed is: " + RANDOM_SEED);
+    for (Map.Entry<Integer, Integer> entry : valueToDictId.entrySet()) {
+      int dictId = entry.getValue();
+      Assert.assertEquals(dictionary.indexOf(entry.getKey()), dictId);
+      Assert.assertEquals(dictionary.indexOf(entry.getKey().toString()), dictId);
+      Assert.assertEquals(dictionary.get(dictId), entry.getKey());
+      Assert.assertEquals(dictionary.getIntValue(dictId), entry.getKey().intValue());
+      Assert.assertEquals(dictionary.getLongValue(dictId), entry.getKey().longValue());
+      Assert.assertEquals(dictionary.getStringValue(dictId), entry.getKey().toString());
+    }
+    Assert.assertEquals(dictionary.indexOf(NUM_ENTRIES), Dictionary.NULL_VALUE_INDEX);
+    Assert.assertFalse(dictionary.contains(NUM_ENTRIES));
+    Assert.assertEquals(dictionary.getMinVal(), min);
+    Assert.assertEquals(dictionary.getMaxVal(), max);
+
+    int dictId = valueToDictId.get(max);
+    Assert.assertTrue(dictionary.inRange(Integer.toString(min), Integer.toString(max), dictId));
+    Assert.assertFalse(dictionary.inRange(Integer.toString(min), Integer.toString(max), dictId, true, false));
+  }
+
+  @Test
+  public void testFloatingPointDictionaries() throws Exception {
+    MutableDictionaryReader floatDictionary =
+        RealtimeDictionaryProvider.getDictionaryFor(new DimensionFieldSpec("float", FieldSpec.DataType.FLOAT, true));
+    MutableDictionaryReader doubleDictionary =
+        RealtimeDictionaryProvider.getDictionaryFor(new DimensionFieldSpec("double", FieldSpec.DataType.DOUBLE, true));
+    floatDictionary.index(new Object[]{-1.5f, "2.5", -1.5f, 0f});
+    doubleDictionary.index(new Object[]{-1.5, "2.5", -1.5, 0.0});
+
+    for (MutableDictionaryReader dictionary : new MutableDictionaryReader[]{floatDictionary, doubleDictionary}) {
+      Assert.assertEquals(dictionary.length(), 3);
+      Assert.assertEquals(dictionary.indexOf("-1.5"), 0);
+      Assert.assertEquals(dictionary.indexOf("2.5"), 1);
+      Assert.assertEquals(dictionary.indexOf("0"), 2);
+      Assert.assertEquals(dictionary.indexOf("3"), Dictionary.NULL_VALUE_INDEX);
+      Assert.assertEquals(dictionary.getDoubleValue(1), 2.5);
+      Assert.assertEquals(dictionary.getMinVal().toString(), "-1.5");
+      Assert.assertEquals(dictionary.getMaxVal().toString(), "2.5");
+    }
+  }
+
+  @Test
+  public void testStringDictionary() throws Exception {
+    testStringDictionary(
+        RealtimeDictionaryProvider.getDictionaryFor(new DimensionFieldSpec("string", FieldSpec.DataType.STRING, true)));
+  }
+
+  @Test
+  public void testMmapStringDictionary() throws Exception {
+    File dir = new File(FileUtils.getTempDirectory(), "MutableDictionaryTest");
+    MmapMemoryManager memoryManager = new MmapMemoryManager(dir);
+    try {
+      testStringDictionary(RealtimeDictionaryProvider.getDictionaryFor(
+          new DimensionFieldSpec("string", FieldSpec.DataType.STRING, true), memoryManager, "string.dictionary"));
+      // The arena buffers are backed by files of the memory manager
+      Assert.assertTrue(dir.list().length > 1);
+    } finally {
+      memoryManager.close();
+    }
+    Assert.assertFalse(dir.exists());
+  }
+
+  private void testStringDictionary(MutableDictionaryReader dictionary) throws Exception {
+    Assert.assertTrue(dictionary instanceof StringOffHeapMutableDictionary);
+    try {
+      Random random = new Random(RANDOM_SEED);
+      Map<String, Integer> valueToDictId = new HashMap<>();
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+        // Values of different lengths to spread them over several arena buffers, including multi-byte characters
+        String value = (i % 100 == 0) ? "" : Integer.toString(random.nextInt(NUM_ENTRIES)) + "\u00e9"
+            + new String(new char[random.nextInt(1000)]).replace('\0', 'x');
+        dictionary.index(value);
+        if (!valueToDictId.containsKey(value)) {
+          valueToDictId.put(value, valueToDictId.size());
+        }
+      }
+
+      Assert.assertEquals(dictionary.length(), valueToDictId.size(), "Random seed is: " + RANDOM_SEED);
+      for (Map.Entry<String, Integer> entry : valueToDictId.entrySet()) {
+        int dictId = entry.getValue();
+        Assert.assertEquals(dictionary.indexOf(entry.getKey()), dictId);
+        Assert.assertEquals(dictionary.getStringValue(dictId), entry.getKey());
+      }
+      Assert.assertEquals(dictionary.indexOf("missing"), Dictionary.NULL_VALUE_INDEX);
+      Assert.assertEquals(dictionary.getMinVal(), "");
+    } finally {
+      dictionary.close();
+    }
+  }
+
+  /**
+   * Readers looking up values while the writer adds them must either not find a value, or find its final dictionary
+   * id with the right value.
+   */
+  @Test
+  public void testConcurrentReadWrite() throws Exception {
+    final MutableDictionaryReader longDictionary =
+        RealtimeDictionaryProvider.getDictionaryFor(new DimensionFieldSpec("long", FieldSpec.DataType.LONG, true));
+    final MutableDictionaryReader stringDictionary =
+        RealtimeDictionaryProvider.getDictionaryFor(new DimensionFieldSpec("string", FieldSpec.DataType.STRING, true));
+    ExecutorService executorService = Executors.newFixedThreadPool(NUM_READERS + 1);
+    try {
+      Future<?> writerFuture = executorService.submit(new Runnable() {
+        @Override
+        public void run() {
+          // Value i gets dictionary id i
+          for (int i = 0; i < NUM_ENTRIES; i++) {
+            longDictionary.index((long) i);
+            stringDictionary.index(Integer.toString(i));
+          }
+        }
+      });
+      Future<?>[] readerFutures = new Future<?>[NUM_READERS];
+      for (int i = 0; i < NUM_READERS; i++) {
+        readerFutures[i] = executorService.submit(new Runnable() {
+          @Override
+          public void run() {
+            Random random = new Random();
+            while (longDictionary.length() < NUM_ENTRIES || stringDictionary.length() < NUM_ENTRIES) {
+              int value = random.nextInt(NUM_ENTRIES);
+              int dictId = longDictionary.indexOf((long) value);
+              Assert.assertTrue(dictId == Dictionary.NULL_VALUE_INDEX || dictId == value);
+              if (dictId != Dictionary.NULL_VALUE_INDEX) {
+                Assert.assertEquals(longDictionary.getLongValue(dictId), value);
+              }
+              dictId = stringDictionary.indexOf(Integer.toString(value));
+              Assert.assertTrue(dictId == Dictionary.NULL_VALUE_INDEX || dictId == value);
+              if (dictId != Dictionary.NULL_VALUE_INDEX) {
+                Assert.assertEquals(stringDictionary.getStringValue(dictId), Integer.toString(value));
+              }
+              int length = longDictionary.length();
+              if (length > 0) {
+                Assert.assertEquals(longDictionary.getLongValue(length - 1), length - 1);
+              }
+            }
+          }
+        });
+      }
+      writerFuture.get();
+      for (Future<?> readerFuture : readerFutures) {
+        readerFuture.get();
+      }
+    } finally {
+      executorService.shutdown();
+      stringDictionary.close();
+    }
+  }
+}
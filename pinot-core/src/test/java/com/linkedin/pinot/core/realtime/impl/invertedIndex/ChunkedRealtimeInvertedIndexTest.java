@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.invertedIndex;
+
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.operator.docidsets.BitmapDocIdSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class ChunkedRealtimeInvertedIndexTest {
+  // Spans several chunks and grows the chunk directory
+  private static final int NUM_DICT_IDS = 10000;
+  private static final int NUM_DOCS = 100000;
+  private static final int NUM_READERS = 3;
+  private static final long RANDOM_SEED = System.nanoTime();
+
+  @Test
+  public void testAddAndGet() throws Exception {
+    ChunkedRealtimeInvertedIndex invertedIndex = new ChunkedRealtimeInvertedIndex("column");
+    Random random = new Random(RANDOM_SEED);
+    int[] dictIds = new int[NUM_DOCS];
+    int[] counts = new int[NUM_DICT_IDS];
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      // Leave the last dictionary id empty
+      int dictId = random.nextInt(NUM_DICT_IDS - 1);
+      dictIds[docId] = dictId;
+      counts[dictId]++;
+      if (docId % 2 == 0) {
+        invertedIndex.add(dictId, docId);
+      } else {
+        invertedIndex.add((Object) dictId, docId);
+      }
+    }
+
+    for (int dictId = 0; dictId < NUM_DICT_IDS; dictId++) {
+      ImmutableRoaringBitmap bitmap = invertedIndex.getImmutable(dictId);
+      Assert.assertEquals(bitmap.getCardinality(), counts[dictId], "Random seed is: " + RANDOM_SEED);
+      IntIterator iterator = bitmap.getIntIterator();
+      while (iterator.hasNext()) {
+        Assert.assertEquals(dictIds[iterator.next()], dictId, "Random seed is: " + RANDOM_SEED);
+      }
+    }
+    Assert.assertTrue(invertedIndex.getImmutable(NUM_DICT_IDS * 100).isEmpty());
+
+    // Snapshots are not affected by later additions
+    ImmutableRoaringBitmap snapshot = invertedIndex.getImmutable(0);
+    int cardinality = snapshot.getCardinality();
+    invertedIndex.add(0, NUM_DOCS);
+    Assert.assertEquals(snapshot.getCardinality(), cardinality);
+    Assert.assertEquals(invertedIndex.getImmutable(0).getCardinality(), cardinality + 1);
+    invertedIndex.close();
+  }
+
+  @Test
+  public void testDocIdSnapshot() throws Exception {
+    ChunkedRealtimeInvertedIndex invertedIndex = new ChunkedRealtimeInvertedIndex("column");
+    // Doc i goes to dictionary id 0 if i is even, and to dictionary id 1 twice (as in a multi-value column) otherwise
+    Map<ImmutableRoaringBitmap, Boolean> publishedBitmaps = new IdentityHashMap<>();
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      if (docId % 2 == 0) {
+        invertedIndex.add(0, docId);
+        publishedBitmaps.put(invertedIndex.getDocIdSnapshot(0, docId).getBitmap(), Boolean.TRUE);
+      } else {
+        invertedIndex.add(1, docId);
+        invertedIndex.add(1, docId);
+      }
+    }
+    // Reads share the published bitmaps, which are only copied when the tail gets large
+    Assert.assertTrue(publishedBitmaps.size() < NUM_DOCS / 1000, "Number of published bitmaps: "
+        + publishedBitmaps.size());
+
+    for (int dictId = 0; dictId < 2; dictId++) {
+      DocIdSnapshot snapshot = invertedIndex.getDocIdSnapshot(dictId, Integer.MAX_VALUE);
+      Assert.assertEquals(snapshot.getCardinality(), NUM_DOCS / 2);
+      Assert.assertEquals(snapshot.toBitmap().getCardinality(), NUM_DOCS / 2);
+
+      // Iterate through the bitmap and then the tail
+      int endDocId = NUM_DOCS - 1;
+      BitmapDocIdSet docIdSet = new BitmapDocIdSet("column", null, 0, endDocId,
+          new ImmutableRoaringBitmap[]{snapshot.getBitmap()}, snapshot.getTailDocIds(), snapshot.getNumTailDocIds(),
+          false);
+      BlockDocIdIterator iterator = docIdSet.iterator();
+      for (int expectedDocId = dictId; expectedDocId <= endDocId; expectedDocId += 2) {
+        Assert.assertEquals(iterator.next(), expectedDocId);
+      }
+      Assert.assertEquals(iterator.next(), Constants.EOF);
+      Assert.assertEquals(((ImmutableRoaringBitmap) docIdSet.getRaw()).getCardinality(), NUM_DOCS / 2);
+    }
+
+    // Reads are bounded by the max doc id
+    int numTailDocIds = invertedIndex.getDocIdSnapshot(0, Integer.MAX_VALUE).getNumTailDocIds();
+    Assert.assertTrue(numTailDocIds > 0);
+    DocIdSnapshot snapshot = invertedIndex.getDocIdSnapshot(0, NUM_DOCS - 3);
+    Assert.assertEquals(snapshot.getNumTailDocIds(), numTailDocIds - 1);
+    Assert.assertEquals(snapshot.getCardinality(), NUM_DOCS / 2 - 1);
+    invertedIndex.close();
+  }
+
+  @Test
+  public void testConcurrentReadWrite() throws Exception {
+    final ChunkedRealtimeInvertedIndex invertedIndex = new ChunkedRealtimeInvertedIndex("column");
+    ExecutorService executorService = Executors.newFixedThreadPool(NUM_READERS + 1);
+    try {
+      Future<?> writerFuture = executorService.submit(new Runnable() {
+        @Override
+        public void run() {
+          // Doc i goes to dictionary id i % NUM_DICT_IDS
+          for (int docId = 0; docId < NUM_DOCS; docId++) {
+            invertedIndex.add(docId % NUM_DICT_IDS, docId);
+          }
+        }
+      });
+      Future<?>[] readerFutures = new Future<?>[NUM_READERS];
+      for (int i = 0; i < NUM_READERS; i++) {
+        readerFutures[i] = executorService.submit(new Runnable() {
+          @Override
+          public void run() {
+            Random random = new Random();
+            while (invertedIndex.getImmutable(NUM_DICT_IDS - 1).getCardinality() < NUM_DOCS / NUM_DICT_IDS) {
+              int dictId = random.nextInt(NUM_DICT_IDS);
+              ImmutableRoaringBitmap bitmap = invertedIndex.getImmutable(dictId);
+              int expectedDocId = dictId;
+              IntIterator iterator = bitmap.getIntIterator();
+              while (iterator.hasNext()) {
+                Assert.assertEquals(iterator.next(), expectedDocId);
+                expectedDocId += NUM_DICT_IDS;
+              }
+            }
+          }
+        });
+      }
+      writerFuture.get();
+      for (Future<?> readerFuture : readerFutures) {
+        readerFuture.get();
+      }
+    } finally {
+      executorService.shutdown();
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.creator;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.creator.impl.bloom.BloomFilterCreator;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.File;
+import java.nio.channels.FileChannel;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+public class BloomFilterCreatorTest {
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "BloomFilterCreatorTest");
+  private static final int NUM_VALUES = 100;
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    FileUtils.forceMkdir(INDEX_DIR);
+  }
+
+  @Test
+  public void testIntColumn()
+      throws Exception {
+    BloomFilterReader bloomFilterReader = createAndRead("intColumn", FieldSpec.DataType.INT);
+    for (int i = 0; i < NUM_VALUES; i++) {
+      Assert.assertTrue(bloomFilterReader.mightContain(Integer.toString(i)));
+    }
+    // Predicate values are normalized to the typed value.
+    Assert.assertTrue(bloomFilterReader.mightContain("007"));
+    // Values that cannot be parsed should never be pruned.
+    Assert.assertTrue(bloomFilterReader.mightContain("notANumber"));
+    assertFewFalsePositives(bloomFilterReader);
+  }
+
+  @Test
+  public void testDoubleColumn()
+      throws Exception {
+    BloomFilterReader bloomFilterReader = createAndRead("doubleColumn", FieldSpec.DataType.DOUBLE);
+    for (int i = 0; i < NUM_VALUES; i++) {
+      Assert.assertTrue(bloomFilterReader.mightContain(Integer.toString(i)));
+      Assert.assertTrue(bloomFilterReader.mightContain(Double.toString(i)));
+    }
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  private static BloomFilterReader createAndRead(String column, FieldSpec.DataType dataType)
+      throws Exception {
+    BloomFilterCreator bloomFilterCreator = new BloomFilterCreator(INDEX_DIR, column, NUM_VALUES);
+    for (int i = 0; i < NUM_VALUES; i++) {
+      if (dataType == FieldSpec.DataType.INT) {
+        bloomFilterCreator.add(i);
+      } else {
+        bloomFilterCreator.add((double) i);
+      }
+    }
+    bloomFilterCreator.seal();
+
+    File bloomFilterFile = new File(INDEX_DIR, column + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION);
+    Assert.assertTrue(bloomFilterFile.exists());
+    PinotDataBuffer bloomFilterBuffer =
+        PinotDataBuffer.fromFile(bloomFilterFile, ReadMode.heap, FileChannel.MapMode.READ_ONLY, column);
+    try {
+      return new BloomFilterReader(bloomFilterBuffer, dataType);
+    } finally {
+      bloomFilterBuffer.close();
+    }
+  }
+
+  private static void assertFewFalsePositives(BloomFilterReader bloomFilterReader) {
+    int numFalsePositives = 0;
+    for (int i = NUM_VALUES; i < 2 * NUM_VALUES; i++) {
+      if (bloomFilterReader.mightContain(Integer.toString(i))) {
+        numFalsePositives++;
+      }
+    }
+    Assert.assertTrue(numFalsePositives < NUM_VALUES / 5);
+  }
+}
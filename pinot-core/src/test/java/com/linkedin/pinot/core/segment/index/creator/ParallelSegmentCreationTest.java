@@ -0,0 +1,135 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.creator;
+
+import com.google.common.io.Files;
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.data.TimeFieldSpec;
+import com.linkedin.pinot.common.data.TimeGranularitySpec;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.readers.PinotSegmentRecordReader;
+import com.linkedin.pinot.core.data.readers.TestRecordReader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests that segments built with several index creation threads hold the same rows as the input.
+ */
+public class ParallelSegmentCreationTest {
+  private static final String SEGMENT_NAME = "parallelSegmentCreationTest";
+  private static final String D_SV_1 = "d_sv_1";
+  private static final String D_MV_1 = "d_mv_1";
+  private static final String M1 = "m1";
+  private static final String M2 = "m2";
+  private static final String TIME = "t";
+  private static final int NUM_ROWS = 10000;
+
+  private String _segmentOutputDir;
+  private Schema _schema;
+  private List<GenericRow> _rows;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    _segmentOutputDir = Files.createTempDir().toString();
+    _schema = new Schema();
+    _schema.setSchemaName("schema");
+    _schema.addField(new DimensionFieldSpec(D_SV_1, DataType.STRING, true));
+    _schema.addField(new DimensionFieldSpec(D_MV_1, DataType.STRING, false));
+    _schema.addField(new MetricFieldSpec(M1, DataType.INT));
+    _schema.addField(new MetricFieldSpec(M2, DataType.FLOAT));
+    _schema.addField(new TimeFieldSpec(new TimeGranularitySpec(DataType.LONG, TimeUnit.HOURS, TIME)));
+
+    Random random = new Random();
+    _rows = new ArrayList<>(NUM_ROWS);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      Map<String, Object> fields = new HashMap<>();
+      fields.put(D_SV_1, D_SV_1 + "_" + RandomStringUtils.randomAlphabetic(2));
+      Object[] mvValues = new Object[1 + random.nextInt(5)];
+      for (int j = 0; j < mvValues.length; j++) {
+        mvValues[j] = D_MV_1 + "_" + j + "_" + RandomStringUtils.randomAlphabetic(2);
+      }
+      fields.put(D_MV_1, mvValues);
+      fields.put(M1, Math.abs(random.nextInt()));
+      fields.put(M2, Math.abs(random.nextFloat()));
+      fields.put(TIME, Math.abs(random.nextLong()));
+      GenericRow row = new GenericRow();
+      row.init(fields);
+      _rows.add(row);
+    }
+  }
+
+  @Test
+  public void testParallelSegmentCreation() throws Exception {
+    SegmentGeneratorConfig config = new SegmentGeneratorConfig(_schema);
+    config.setTableName(SEGMENT_NAME);
+    config.setOutDir(_segmentOutputDir);
+    config.setSegmentName(SEGMENT_NAME);
+    config.setInvertedIndexCreationColumns(Collections.singletonList(D_SV_1));
+    config.setNumIndexCreationThreads(4);
+
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(config, new TestRecordReader(_rows, _schema) {
+      @Override
+      public void rewind() throws Exception {
+        throw new UnsupportedOperationException("Input must be read only once");
+      }
+    });
+    driver.build();
+
+    File segmentIndexDir = new File(_segmentOutputDir, SEGMENT_NAME);
+    Assert.assertTrue(segmentIndexDir.exists());
+    // Only the segment is left in the output directory
+    Assert.assertEquals(new File(_segmentOutputDir).listFiles().length, 1);
+
+    PinotSegmentRecordReader segmentRecordReader = new PinotSegmentRecordReader(segmentIndexDir);
+    segmentRecordReader.init();
+    int numRows = 0;
+    while (segmentRecordReader.hasNext()) {
+      GenericRow outputRow = segmentRecordReader.next();
+      GenericRow row = _rows.get(numRows++);
+      Assert.assertEquals(outputRow.getValue(D_SV_1), row.getValue(D_SV_1));
+      Assert.assertEquals(outputRow.getValue(D_MV_1), row.getValue(D_MV_1));
+      Assert.assertEquals(outputRow.getValue(M1), row.getValue(M1));
+      Assert.assertEquals(outputRow.getValue(M2), row.getValue(M2));
+      Assert.assertEquals(outputRow.getValue(TIME), row.getValue(TIME));
+    }
+    segmentRecordReader.close();
+    Assert.assertEquals(numRows, NUM_ROWS);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(new File(_segmentOutputDir));
+  }
+}
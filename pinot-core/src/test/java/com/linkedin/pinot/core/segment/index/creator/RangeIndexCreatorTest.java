@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.creator;
+
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.creator.impl.range.RangeIndexCreator;
+import com.linkedin.pinot.core.segment.index.readers.RangeIndexReader;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+public class RangeIndexCreatorTest {
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "RangeIndexCreatorTest");
+  private static final int NUM_DOCS = 1000;
+  private static final int CARDINALITY = 100;
+  private static final int MAX_NUM_BUCKETS = 10;
+  private static final int MAX_NUM_MULTI_VALUES = 5;
+  private static final Random RANDOM = new Random();
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    FileUtils.forceMkdir(INDEX_DIR);
+  }
+
+  @Test
+  public void testSingleValue()
+      throws Exception {
+    String column = "svColumn";
+    int[] dictIds = new int[NUM_DOCS];
+    RangeIndexCreator creator =
+        new RangeIndexCreator(INDEX_DIR, column, CARDINALITY, NUM_DOCS, NUM_DOCS, true, MAX_NUM_BUCKETS);
+    for (int i = 0; i < NUM_DOCS; i++) {
+      dictIds[i] = RANDOM.nextInt(CARDINALITY);
+      creator.add(i, dictIds[i]);
+    }
+    creator.seal();
+
+    try (RangeIndexReader reader = read(column)) {
+      assertBucketsCoverDictionary(reader);
+      for (int bucketId = 0; bucketId < reader.getNumBuckets(); bucketId++) {
+        MutableRoaringBitmap expected = new MutableRoaringBitmap();
+        for (int docId = 0; docId < NUM_DOCS; docId++) {
+          if (reader.getBucketId(dictIds[docId]) == bucketId) {
+            expected.add(docId);
+          }
+        }
+        Assert.assertEquals(reader.getBitmap(bucketId), expected);
+      }
+    }
+  }
+
+  @Test
+  public void testMultiValue()
+      throws Exception {
+    String column = "mvColumn";
+    int[][] dictIds = new int[NUM_DOCS][];
+    int totalNumberOfEntries = 0;
+    for (int i = 0; i < NUM_DOCS; i++) {
+      int numValues = 1 + RANDOM.nextInt(MAX_NUM_MULTI_VALUES);
+      dictIds[i] = new int[numValues];
+      for (int j = 0; j < numValues; j++) {
+        dictIds[i][j] = RANDOM.nextInt(CARDINALITY);
+      }
+      totalNumberOfEntries += numValues;
+    }
+    RangeIndexCreator creator =
+        new RangeIndexCreator(INDEX_DIR, column, CARDINALITY, NUM_DOCS, totalNumberOfEntries, false, MAX_NUM_BUCKETS);
+    for (int i = 0; i < NUM_DOCS; i++) {
+      creator.add(i, dictIds[i], dictIds[i].length);
+    }
+    creator.seal();
+
+    try (RangeIndexReader reader = read(column)) {
+      assertBucketsCoverDictionary(reader);
+      for (int bucketId = 0; bucketId < reader.getNumBuckets(); bucketId++) {
+        MutableRoaringBitmap expected = new MutableRoaringBitmap();
+        for (int docId = 0; docId < NUM_DOCS; docId++) {
+          for (int dictId : dictIds[docId]) {
+            if (reader.getBucketId(dictId) == bucketId) {
+              expected.add(docId);
+            }
+          }
+        }
+        Assert.assertEquals(reader.getBitmap(bucketId), expected);
+      }
+    }
+  }
+
+  @Test
+  public void testSkewedValues()
+      throws Exception {
+    // A dominant value should end up in a bucket of its own.
+    String column = "skewedColumn";
+    int dominantDictId = CARDINALITY / 2;
+    RangeIndexCreator creator =
+        new RangeIndexCreator(INDEX_DIR, column, CARDINALITY, NUM_DOCS, NUM_DOCS, true, MAX_NUM_BUCKETS);
+    for (int i = 0; i < NUM_DOCS; i++) {
+      creator.add(i, i % 2 == 0 ? dominantDictId : i % CARDINALITY);
+    }
+    creator.seal();
+
+    try (RangeIndexReader reader = read(column)) {
+      assertBucketsCoverDictionary(reader);
+      int bucketId = reader.getBucketId(dominantDictId);
+      Assert.assertEquals(reader.getBucketStartDictId(bucketId), dominantDictId);
+      Assert.assertEquals(reader.getBucketEndDictId(bucketId), dominantDictId);
+      Assert.assertEquals(reader.getBitmap(bucketId).getCardinality(), NUM_DOCS / 2);
+    }
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  private static RangeIndexReader read(String column)
+      throws Exception {
+    File rangeIndexFile = new File(INDEX_DIR, column + V1Constants.Indexes.RANGE_INDEX_FILE_EXTENSION);
+    Assert.assertTrue(rangeIndexFile.exists());
+    PinotDataBuffer rangeIndexBuffer =
+        PinotDataBuffer.fromFile(rangeIndexFile, ReadMode.heap, FileChannel.MapMode.READ_ONLY, column);
+    return new RangeIndexReader(rangeIndexBuffer);
+  }
+
+  private static void assertBucketsCoverDictionary(RangeIndexReader reader) {
+    int numBuckets = reader.getNumBuckets();
+    Assert.assertTrue(numBuckets > 1);
+    Assert.assertEquals(reader.getBucketStartDictId(0), 0);
+    Assert.assertEquals(reader.getBucketEndDictId(numBuckets - 1), CARDINALITY - 1);
+    for (int bucketId = 0; bucketId < numBuckets; bucketId++) {
+      Assert.assertTrue(reader.getBucketStartDictId(bucketId) <= reader.getBucketEndDictId(bucketId));
+      if (bucketId > 0) {
+        Assert.assertEquals(reader.getBucketStartDictId(bucketId), reader.getBucketEndDictId(bucketId - 1) + 1);
+      }
+      for (int dictId = reader.getBucketStartDictId(bucketId); dictId <= reader.getBucketEndDictId(bucketId);
+          dictId++) {
+        Assert.assertEquals(reader.getBucketId(dictId), bucketId);
+      }
+    }
+  }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.data.FieldSpec.FieldType;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.segment.creator.impl.VarLengthStringDictionaryWriter;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+public class VarLengthStringDictionaryTest {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "VarLengthStringDictionaryTest");
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int NUM_VALUES = 1000;
+  private static final int MAX_VALUE_LENGTH = 50;
+
+  private final Random _random = new Random();
+  private String[] _values;
+  private byte[][] _valueBytes;
+  private int _maxLength;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(TEMP_DIR);
+    TEMP_DIR.mkdirs();
+
+    // Values sharing long prefixes, including multi-byte characters
+    TreeSet<String> valueSet = new TreeSet<>();
+    valueSet.add("");
+    while (valueSet.size() < NUM_VALUES) {
+      StringBuilder stringBuilder = new StringBuilder("http://www.linkedin.com/");
+      int length = _random.nextInt(MAX_VALUE_LENGTH);
+      for (int i = 0; i < length; i++) {
+        stringBuilder.append((_random.nextInt(10) == 0) ? '\u00e9' : (char) ('a' + _random.nextInt(3)));
+      }
+      valueSet.add(stringBuilder.toString());
+    }
+    _values = valueSet.toArray(new String[NUM_VALUES]);
+    _valueBytes = new byte[NUM_VALUES][];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      _valueBytes[i] = _values[i].getBytes(UTF_8);
+      _maxLength = Math.max(_maxLength, _valueBytes[i].length);
+    }
+  }
+
+  @Test
+  public void testDictionary() throws Exception {
+    for (int numEntriesPerBlock : new int[]{1, 4, VarLengthStringDictionaryWriter.DEFAULT_NUM_ENTRIES_PER_BLOCK}) {
+      File dictionaryFile = new File(TEMP_DIR, "dictionary" + numEntriesPerBlock);
+      VarLengthStringDictionaryWriter.write(dictionaryFile, _valueBytes, numEntriesPerBlock);
+      Assert.assertTrue(dictionaryFile.length() < (long) NUM_VALUES * _maxLength);
+
+      PinotDataBuffer dataBuffer =
+          PinotDataBuffer.fromFile(dictionaryFile, ReadMode.mmap, FileChannel.MapMode.READ_ONLY, getClass().getName());
+      VarLengthStringDictionary dictionary = new VarLengthStringDictionary(dataBuffer, getColumnMetadata(NUM_VALUES));
+      try {
+        Assert.assertEquals(dictionary.length(), NUM_VALUES);
+        for (int i = 0; i < NUM_VALUES; i++) {
+          Assert.assertEquals(dictionary.get(i), _values[i]);
+          Assert.assertEquals(dictionary.indexOf(_values[i]), i);
+        }
+
+        // Values not in the dictionary return the insertion point the same way as Arrays.binarySearch()
+        String[] missingValues = {"a", "http://www.linkedin.com/a\u00e9", "http://www.linkedin.com/ab", "zzz"};
+        for (String missingValue : missingValues) {
+          int expected = Arrays.binarySearch(_values, missingValue);
+          if (expected < 0) {
+            Assert.assertEquals(dictionary.indexOf(missingValue), expected);
+          }
+        }
+        for (int i = 0; i < 100; i++) {
+          String value = _values[_random.nextInt(NUM_VALUES)];
+          String missingValue = value + (char) ('a' + _random.nextInt(4));
+          Assert.assertEquals(dictionary.indexOf(missingValue), Arrays.binarySearch(_values, missingValue));
+          if (!value.isEmpty()) {
+            missingValue = value.substring(0, value.length() - 1);
+            Assert.assertEquals(dictionary.indexOf(missingValue), Arrays.binarySearch(_values, missingValue));
+          }
+        }
+
+        int[] dictIds = {5, 0, NUM_VALUES - 1};
+        String[] outValues = new String[dictIds.length];
+        dictionary.readStringValues(dictIds, 0, dictIds.length, outValues, 0);
+        for (int i = 0; i < dictIds.length; i++) {
+          Assert.assertEquals(outValues[i], _values[dictIds[i]]);
+        }
+      } finally {
+        dictionary.close();
+      }
+    }
+  }
+
+  @Test
+  public void testEmptyDictionary() throws Exception {
+    File dictionaryFile = new File(TEMP_DIR, "emptyDictionary");
+    VarLengthStringDictionaryWriter.write(dictionaryFile, new byte[0][]);
+    PinotDataBuffer dataBuffer =
+        PinotDataBuffer.fromFile(dictionaryFile, ReadMode.heap, FileChannel.MapMode.READ_ONLY, getClass().getName());
+    VarLengthStringDictionary dictionary = new VarLengthStringDictionary(dataBuffer, getColumnMetadata(0));
+    Assert.assertEquals(dictionary.length(), 0);
+    Assert.assertEquals(dictionary.indexOf("a"), -1);
+    dictionary.close();
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testUnsortedValues() throws Exception {
+    byte[][] values = {"b".getBytes(UTF_8), "a".getBytes(UTF_8)};
+    VarLengthStringDictionaryWriter.write(new File(TEMP_DIR, "unsortedDictionary"), values);
+  }
+
+  private ColumnMetadata getColumnMetadata(int cardinality) {
+    return new ColumnMetadata.Builder().setColumnName("column")
+        .setFieldType(FieldType.DIMENSION)
+        .setDataType(DataType.STRING)
+        .setCardinality(cardinality)
+        .setStringColumnMaxLength(_maxLength)
+        .setHasVarLengthDictionary(true)
+        .build();
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+}
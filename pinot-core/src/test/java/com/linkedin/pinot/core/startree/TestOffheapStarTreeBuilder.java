@@ -17,15 +17,18 @@ package com.linkedin.pinot.core.startree;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.math.util.MathUtils;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import com.linkedin.pinot.common.data.DimensionFieldSpec;
@@ -171,4 +174,107 @@ public class TestOffheapStarTreeBuilder {
     FileUtils.deleteDirectory(builderConfig.outDir);
   }
 
+  /**
+   * Test that building the star tree with multiple threads and a bounded sort memory produces the same tree and
+   * records as building it on a single thread.
+   * @throws Exception
+   */
+  @Test
+  public void testParallelBuild() throws Exception {
+    OffHeapStarTreeBuilder sequentialBuilder = buildRandom(1, 0, new File("/tmp/startree-sequential"));
+    OffHeapStarTreeBuilder parallelBuilder = buildRandom(4, 4096, new File("/tmp/startree-parallel"));
+    try {
+      int numRawDocs = sequentialBuilder.getTotalRawDocumentCount();
+      int numDocs = numRawDocs + sequentialBuilder.getTotalAggregateDocumentCount();
+      Assert.assertEquals(parallelBuilder.getTotalRawDocumentCount(), numRawDocs);
+      Assert.assertEquals(parallelBuilder.getTotalAggregateDocumentCount(),
+          sequentialBuilder.getTotalAggregateDocumentCount());
+      Assert.assertEquals(toString(parallelBuilder.getTree().getRoot()),
+          toString(sequentialBuilder.getTree().getRoot()));
+
+      // Records with the same dimensions may be sorted differently
+      Assert.assertEquals(toSortedStrings(parallelBuilder.iterator(0, numRawDocs)),
+          toSortedStrings(sequentialBuilder.iterator(0, numRawDocs)));
+      Iterator<GenericRow> sequentialIterator = sequentialBuilder.iterator(numRawDocs, numDocs);
+      Iterator<GenericRow> parallelIterator = parallelBuilder.iterator(numRawDocs, numDocs);
+      while (sequentialIterator.hasNext()) {
+        Assert.assertEquals(parallelIterator.next().toString(), sequentialIterator.next().toString());
+      }
+    } finally {
+      sequentialBuilder.cleanup();
+      parallelBuilder.cleanup();
+    }
+  }
+
+  private OffHeapStarTreeBuilder buildRandom(int numThreads, long sortMemoryBudgetBytes, File outDir)
+      throws Exception {
+    int ROWS = 2000;
+    int numDimensions = 4;
+    int numMetrics = 2;
+    StarTreeBuilderConfig builderConfig = new StarTreeBuilderConfig();
+    Schema schema = new Schema();
+    builderConfig.dimensionsSplitOrder = new ArrayList<>();
+    for (int i = 0; i < numDimensions; i++) {
+      String dimName = "d" + (i + 1);
+      DimensionFieldSpec dimensionFieldSpec = new DimensionFieldSpec(dimName, DataType.STRING, true);
+      schema.addField(dimensionFieldSpec);
+      builderConfig.dimensionsSplitOrder.add(dimName);
+    }
+    schema.setTimeFieldSpec(new TimeFieldSpec("daysSinceEpoch", DataType.INT, TimeUnit.DAYS));
+    for (int i = 0; i < numMetrics; i++) {
+      String metricName = "m" + (i + 1);
+      MetricFieldSpec metricFieldSpec = new MetricFieldSpec(metricName, DataType.INT);
+      schema.addField(metricFieldSpec);
+    }
+    builderConfig.maxLeafRecords = 10;
+    builderConfig.schema = schema;
+    builderConfig.outDir = outDir;
+    builderConfig.setNumThreads(numThreads);
+    builderConfig.setSortMemoryBudgetBytes(sortMemoryBudgetBytes);
+    OffHeapStarTreeBuilder builder = new OffHeapStarTreeBuilder();
+    builder.init(builderConfig);
+    Random r = new Random(1);
+    HashMap<String, Object> map = new HashMap<>();
+    for (int row = 0; row < ROWS; row++) {
+      for (int i = 0; i < numDimensions; i++) {
+        String dimName = schema.getDimensionFieldSpecs().get(i).getName();
+        map.put(dimName, dimName + "-v" + r.nextInt(numDimensions - i + 4));
+      }
+      map.put("daysSinceEpoch", r.nextInt(10));
+      for (int i = 0; i < numMetrics; i++) {
+        String metName = schema.getMetricFieldSpecs().get(i).getName();
+        map.put(metName, r.nextInt(100));
+      }
+      GenericRow genericRow = new GenericRow();
+      genericRow.init(map);
+      builder.append(genericRow);
+    }
+    builder.build();
+    return builder;
+  }
+
+  private static String toString(StarTreeIndexNodeInterf node) {
+    StringBuilder builder = new StringBuilder();
+    builder.append(node.getDimensionName()).append(':').append(node.getDimensionValue()).append('[')
+        .append(node.getStartDocumentId()).append(',').append(node.getEndDocumentId()).append(',')
+        .append(node.getAggregatedDocumentId()).append(']');
+    if (!node.isLeaf()) {
+      builder.append('{');
+      Iterator<? extends StarTreeIndexNodeInterf> childrenIterator = node.getChildrenIterator();
+      while (childrenIterator.hasNext()) {
+        builder.append(toString(childrenIterator.next()));
+      }
+      builder.append('}');
+    }
+    return builder.toString();
+  }
+
+  private static List<String> toSortedStrings(Iterator<GenericRow> iterator) {
+    List<String> rows = new ArrayList<>();
+    while (iterator.hasNext()) {
+      rows.add(iterator.next().toString());
+    }
+    Collections.sort(rows);
+    return rows;
+  }
 }
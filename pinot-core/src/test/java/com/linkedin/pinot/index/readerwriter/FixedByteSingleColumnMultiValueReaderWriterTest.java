@@ -16,6 +16,8 @@
 package com.linkedin.pinot.index.readerwriter;
 
 import com.linkedin.pinot.core.io.readerwriter.impl.FixedByteSingleColumnMultiValueReaderWriter;
+import com.linkedin.pinot.core.io.readerwriter.impl.MmapMemoryManager;
+import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Random;
@@ -53,4 +55,35 @@ public class FixedByteSingleColumnMultiValueReaderWriterTest {
     }
     readerWriter.close();
   }
+
+  @Test
+  public void testIntArrayMmap()
+      throws IOException {
+    File dir = new File(System.getProperty("java.io.tmpdir"), "FixedByteSingleColumnMultiValueReaderWriterTest");
+    MmapMemoryManager memoryManager = new MmapMemoryManager(dir);
+    int rows = 1000;
+    int maxNumberOfMultiValuesPerRow = 20;
+    FixedByteSingleColumnMultiValueReaderWriter readerWriter =
+        new FixedByteSingleColumnMultiValueReaderWriter(rows, Integer.SIZE / 8, maxNumberOfMultiValuesPerRow,
+            memoryManager, "intArrayColumn");
+
+    Random r = new Random();
+    int[][] data = new int[rows][];
+    for (int i = 0; i < rows; i++) {
+      data[i] = new int[r.nextInt(maxNumberOfMultiValuesPerRow)];
+      for (int j = 0; j < data[i].length; j++) {
+        data[i][j] = r.nextInt();
+      }
+      readerWriter.setIntArray(i, data[i]);
+    }
+    int[] ret = new int[maxNumberOfMultiValuesPerRow];
+    for (int i = 0; i < rows; i++) {
+      int length = readerWriter.getIntArray(i, ret);
+      Assert.assertEquals(data[i].length, length);
+      Assert.assertTrue(Arrays.equals(data[i], Arrays.copyOf(ret, length)));
+    }
+    readerWriter.close();
+    memoryManager.close();
+    Assert.assertFalse(dir.exists());
+  }
 }
@@ -16,6 +16,8 @@
 package com.linkedin.pinot.index.readerwriter;
 
 import com.linkedin.pinot.core.io.readerwriter.impl.FixedByteSingleColumnSingleValueReaderWriter;
+import com.linkedin.pinot.core.io.readerwriter.impl.MmapMemoryManager;
+import java.io.File;
 import java.io.IOException;
 import java.util.Random;
 import org.testng.Assert;
@@ -58,4 +60,26 @@ public class FixedByteSingleColumnSingleValueReaderWriterTest {
     }
     readerWriter.close();
   }
+
+  @Test
+  public void testIntMmap() throws IOException {
+    File dir = new File(System.getProperty("java.io.tmpdir"), "FixedByteSingleColumnSingleValueReaderWriterTest");
+    MmapMemoryManager memoryManager = new MmapMemoryManager(dir);
+    int rows = 1000;
+    FixedByteSingleColumnSingleValueReaderWriter readerWriter =
+        new FixedByteSingleColumnSingleValueReaderWriter(rows, Integer.SIZE / 8, memoryManager, "intColumn");
+    Assert.assertEquals(dir.listFiles().length, 1);
+    Random r = new Random();
+    int[] data = new int[rows];
+    for (int i = 0; i < rows; i++) {
+      data[i] = r.nextInt();
+      readerWriter.setInt(i, data[i]);
+    }
+    for (int i = 0; i < rows; i++) {
+      Assert.assertEquals(data[i], readerWriter.getInt(i));
+    }
+    readerWriter.close();
+    memoryManager.close();
+    Assert.assertFalse(dir.exists());
+  }
 }
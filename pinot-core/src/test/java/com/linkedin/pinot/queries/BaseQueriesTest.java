@@ -80,12 +80,36 @@ public abstract class BaseQueriesTest {
    * @return broker response.
    */
   protected BrokerResponseNative getBrokerResponseForQuery(String query) {
+    return getBrokerResponseForQuery(query, EXECUTOR_SERVICE);
+  }
+
+  /**
+   * Run query on multiple index segments with the given executor service.
+   * <p>Use this to test the combine with a specific executor service (e.g. fork-join pool).
+   *
+   * @param query PQL query.
+   * @param executorService executor service for the server side combine.
+   * @return broker response.
+   */
+  protected BrokerResponseNative getBrokerResponseForQuery(String query, ExecutorService executorService) {
+    return getBrokerResponseForQuery(query, PLAN_MAKER, executorService);
+  }
+
+  /**
+   * Run query on multiple index segments with the given plan maker and executor service.
+   * <p>Use this to test the server side with a specific configuration (e.g. dictionary id based group-by combine).
+   *
+   * @param query PQL query.
+   * @param planMaker plan maker for the server side.
+   * @param executorService executor service for the server side combine.
+   * @return broker response.
+   */
+  protected BrokerResponseNative getBrokerResponseForQuery(String query, PlanMaker planMaker,
+      ExecutorService executorService) {
     BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(query);
 
     // Server side.
-    Plan plan = PLAN_MAKER.makeInterSegmentPlan(getSegmentDataManagers(), brokerRequest, EXECUTOR_SERVICE, 10_000);
-    plan.execute();
-    DataTable instanceResponse = plan.getInstanceResponse();
+    DataTable instanceResponse = getInstanceResponse(brokerRequest, planMaker, executorService);
 
     // Broker side.
     BrokerReduceService brokerReduceService = new BrokerReduceService();
@@ -95,6 +119,24 @@ public abstract class BaseQueriesTest {
     return brokerReduceService.reduceOnDataTable(brokerRequest, dataTableMap);
   }
 
+  /**
+   * Run query on multiple index segments on the server side only.
+   * <p>Use this to test the broker side reduce.
+   *
+   * @param query PQL query.
+   * @return server response data table.
+   */
+  protected DataTable getInstanceResponseForQuery(String query) {
+    return getInstanceResponse(COMPILER.compileToBrokerRequest(query), PLAN_MAKER, EXECUTOR_SERVICE);
+  }
+
+  private DataTable getInstanceResponse(BrokerRequest brokerRequest, PlanMaker planMaker,
+      ExecutorService executorService) {
+    Plan plan = planMaker.makeInterSegmentPlan(getSegmentDataManagers(), brokerRequest, executorService, 10_000);
+    plan.execute();
+    return plan.getInstanceResponse();
+  }
+
   /**
    * Run query with hard-coded filter on multiple index segments.
    * <p>Use this to test the whole flow from server to broker.
@@ -17,19 +17,28 @@ package com.linkedin.pinot.queries;
 
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.metadata.segment.RealtimeSegmentZKMetadata;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
 import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.data.GenericRow;
 import com.linkedin.pinot.core.data.manager.offline.OfflineSegmentDataManager;
 import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.indexsegment.utils.AvroUtils;
+import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
+import com.linkedin.pinot.core.realtime.impl.kafka.AvroRecordToPinotRowGenerator;
 import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
 import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.yammer.metrics.core.MetricsRegistry;
 import java.io.File;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.generic.GenericRecord;
 import org.apache.commons.io.FileUtils;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
@@ -84,23 +93,8 @@ public abstract class BaseSingleValueQueriesTest extends BaseQueriesTest {
     Assert.assertNotNull(resource);
     String filePath = resource.getFile();
 
-    // Build the segment schema.
-    Schema schema = new Schema.SchemaBuilder().setSchemaName("testTable")
-        .addMetric("column1", FieldSpec.DataType.INT)
-        .addMetric("column3", FieldSpec.DataType.INT)
-        .addSingleValueDimension("column5", FieldSpec.DataType.STRING)
-        .addSingleValueDimension("column6", FieldSpec.DataType.INT)
-        .addSingleValueDimension("column7", FieldSpec.DataType.INT)
-        .addSingleValueDimension("column9", FieldSpec.DataType.INT)
-        .addSingleValueDimension("column11", FieldSpec.DataType.STRING)
-        .addSingleValueDimension("column12", FieldSpec.DataType.STRING)
-        .addMetric("column17", FieldSpec.DataType.INT)
-        .addMetric("column18", FieldSpec.DataType.INT)
-        .addTime("daysSinceEpoch", TimeUnit.DAYS, FieldSpec.DataType.INT)
-        .build();
-
     // Create the segment generator config.
-    SegmentGeneratorConfig segmentGeneratorConfig = new SegmentGeneratorConfig(schema);
+    SegmentGeneratorConfig segmentGeneratorConfig = new SegmentGeneratorConfig(getSchema());
     segmentGeneratorConfig.setInputFilePath(filePath);
     segmentGeneratorConfig.setTableName("testTable");
     segmentGeneratorConfig.setOutDir(INDEX_DIR.getAbsolutePath());
@@ -126,11 +120,60 @@ public abstract class BaseSingleValueQueriesTest extends BaseQueriesTest {
     _indexSegment.destroy();
   }
 
+  /**
+   * Builds a realtime segment with the same records as the index segment. Unlike the index segment, the dictionaries
+   * of the realtime segment are mutable dictionaries whose dictionary ids are in insertion order.
+   * <p>The caller should destroy the segment.
+   *
+   * @return realtime segment.
+   */
+  protected RealtimeSegmentImpl buildRealtimeSegment()
+      throws Exception {
+    Schema schema = getSchema();
+    RealtimeSegmentImpl realtimeSegment =
+        new RealtimeSegmentImpl(schema, 100_000, "testTable", "testTable_realtime", AVRO_DATA,
+            new ServerMetrics(new MetricsRegistry()));
+    URL resource = getClass().getClassLoader().getResource(AVRO_DATA);
+    Assert.assertNotNull(resource);
+    AvroRecordToPinotRowGenerator rowGenerator = new AvroRecordToPinotRowGenerator(schema);
+    try (DataFileStream<GenericRecord> avroReader = AvroUtils.getAvroReader(new File(resource.getFile()))) {
+      GenericRow row = null;
+      while (avroReader.hasNext()) {
+        row = GenericRow.createOrReuseRow(row);
+        row = rowGenerator.transform(avroReader.next(), row);
+        realtimeSegment.index(row);
+      }
+    }
+    RealtimeSegmentZKMetadata segmentZKMetadata = new RealtimeSegmentZKMetadata();
+    segmentZKMetadata.setTableName("testTable");
+    realtimeSegment.setSegmentMetadata(segmentZKMetadata);
+    return realtimeSegment;
+  }
+
   @AfterTest
   public void deleteSegment() {
     FileUtils.deleteQuietly(INDEX_DIR);
   }
 
+  /**
+   * Returns the schema of the segment, with the 11 selected columns.
+   */
+  private static Schema getSchema() {
+    return new Schema.SchemaBuilder().setSchemaName("testTable")
+        .addMetric("column1", FieldSpec.DataType.INT)
+        .addMetric("column3", FieldSpec.DataType.INT)
+        .addSingleValueDimension("column5", FieldSpec.DataType.STRING)
+        .addSingleValueDimension("column6", FieldSpec.DataType.INT)
+        .addSingleValueDimension("column7", FieldSpec.DataType.INT)
+        .addSingleValueDimension("column9", FieldSpec.DataType.INT)
+        .addSingleValueDimension("column11", FieldSpec.DataType.STRING)
+        .addSingleValueDimension("column12", FieldSpec.DataType.STRING)
+        .addMetric("column17", FieldSpec.DataType.INT)
+        .addMetric("column18", FieldSpec.DataType.INT)
+        .addTime("daysSinceEpoch", TimeUnit.DAYS, FieldSpec.DataType.INT)
+        .build();
+  }
+
   @Override
   protected String getFilter() {
     return QUERY_FILTER;
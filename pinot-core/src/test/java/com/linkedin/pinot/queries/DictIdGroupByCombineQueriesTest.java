@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.queries;
+
+import com.linkedin.pinot.common.response.broker.AggregationResult;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.response.broker.GroupByResult;
+import com.linkedin.pinot.core.data.manager.offline.OfflineSegmentDataManager;
+import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
+import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import com.linkedin.pinot.core.plan.maker.PlanMaker;
+import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
+import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * The <code>DictIdGroupByCombineQueriesTest</code> class verifies that merging the group-by results of many segments
+ * concurrently through the dictionary id based combine gives the same results as the default combine.
+ * <p>Offline segments are mixed with a realtime segment holding the same records, so that the same values are mapped
+ * from different dictionary ids.
+ */
+public class DictIdGroupByCombineQueriesTest extends BaseSingleValueQueriesTest {
+  private static final int NUM_OFFLINE_SEGMENTS = 16;
+  private static final int NUM_REALTIME_SEGMENTS = 4;
+  private static final int NUM_THREADS = 4;
+  // Larger than the number of groups, so that no group is trimmed.
+  private static final String TOP = " TOP 100000";
+
+  private ExecutorService _executorService;
+  private PlanMaker _dictIdBasedPlanMaker;
+  private RealtimeSegmentImpl _realtimeSegment;
+  private List<SegmentDataManager> _segmentDataManagers;
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    _executorService = Executors.newFixedThreadPool(NUM_THREADS);
+    PropertiesConfiguration config = new PropertiesConfiguration();
+    config.setProperty("groupby.combine.dictIdBased", true);
+    _dictIdBasedPlanMaker = new InstancePlanMakerImplV2(new QueryExecutorConfig(config));
+
+    _realtimeSegment = buildRealtimeSegment();
+    _segmentDataManagers = new ArrayList<>(NUM_OFFLINE_SEGMENTS + NUM_REALTIME_SEGMENTS);
+    for (int i = 0; i < NUM_OFFLINE_SEGMENTS; i++) {
+      _segmentDataManagers.add(new OfflineSegmentDataManager(getIndexSegment()));
+      // Spread the realtime segments among the offline segments.
+      if (i % (NUM_OFFLINE_SEGMENTS / NUM_REALTIME_SEGMENTS) == 0) {
+        _segmentDataManagers.add(new OfflineSegmentDataManager(_realtimeSegment));
+      }
+    }
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _executorService.shutdown();
+    _realtimeSegment.destroy();
+  }
+
+  @Override
+  protected List<SegmentDataManager> getSegmentDataManagers() {
+    return _segmentDataManagers;
+  }
+
+  @Test
+  public void testOneGroupByColumn() {
+    String query = "SELECT COUNT(*), SUM(column1), MAX(column3), AVG(column7) FROM testTable GROUP BY column6" + TOP;
+    compareResults(query);
+    compareResults(query + getFilter());
+
+    query = "SELECT COUNT(*), MIN(column1), DISTINCTCOUNT(column9) FROM testTable GROUP BY column12" + TOP;
+    compareResults(query);
+    compareResults(query + getFilter());
+  }
+
+  @Test
+  public void testTwoGroupByColumns() {
+    String query =
+        "SELECT COUNT(*), SUM(column1), MAX(column3), AVG(column7) FROM testTable GROUP BY column11, column6" + TOP;
+    compareResults(query);
+    compareResults(query + getFilter());
+  }
+
+  @Test
+  public void testMultipleGroupByColumns() {
+    String query = "SELECT COUNT(*), SUM(column1), MINMAXRANGE(column3) FROM testTable"
+        + " GROUP BY column11, column12, column7, daysSinceEpoch" + TOP;
+    compareResults(query);
+    compareResults(query + getFilter());
+  }
+
+  private void compareResults(String query) {
+    BrokerResponseNative expected = getBrokerResponseForQuery(query, _executorService);
+    BrokerResponseNative actual = getBrokerResponseForQuery(query, _dictIdBasedPlanMaker, _executorService);
+    Assert.assertTrue(expected.getProcessingExceptions().isEmpty());
+    Assert.assertTrue(actual.getProcessingExceptions().isEmpty());
+    Assert.assertEquals(actual.getNumDocsScanned(), expected.getNumDocsScanned());
+
+    // Groups with the same value might be ordered differently, so compare the groups as maps.
+    List<AggregationResult> expectedAggregationResults = expected.getAggregationResults();
+    List<AggregationResult> actualAggregationResults = actual.getAggregationResults();
+    Assert.assertEquals(actualAggregationResults.size(), expectedAggregationResults.size());
+    for (int i = 0; i < expectedAggregationResults.size(); i++) {
+      Map<List<String>, Serializable> expectedGroups = getGroups(expectedAggregationResults.get(i));
+      Assert.assertFalse(expectedGroups.isEmpty());
+      Assert.assertEquals(getGroups(actualAggregationResults.get(i)), expectedGroups);
+    }
+  }
+
+  private static Map<List<String>, Serializable> getGroups(AggregationResult aggregationResult) {
+    Map<List<String>, Serializable> groups = new HashMap<>();
+    for (GroupByResult groupByResult : aggregationResult.getGroupByResult()) {
+      Assert.assertNull(groups.put(groupByResult.getGroup(), groupByResult.getValue()));
+    }
+    return groups;
+  }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.queries;
+
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.core.data.manager.offline.OfflineSegmentDataManager;
+import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * The <code>ForkJoinCombineQueriesTest</code> class verifies that combining segments on a {@link ForkJoinPool} gives
+ * the same results as combining them on the default thread pool.
+ */
+public class ForkJoinCombineQueriesTest extends BaseSingleValueQueriesTest {
+  // Enough segments to be split into multiple batches on the fork-join pool.
+  private static final int NUM_SEGMENTS = 20;
+
+  private ForkJoinPool _forkJoinPool;
+  private List<SegmentDataManager> _segmentDataManagers;
+
+  @BeforeClass
+  public void setUp() {
+    _forkJoinPool = new ForkJoinPool(2);
+    _segmentDataManagers = new ArrayList<>(NUM_SEGMENTS);
+    for (int i = 0; i < NUM_SEGMENTS; i++) {
+      _segmentDataManagers.add(new OfflineSegmentDataManager(getIndexSegment()));
+    }
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _forkJoinPool.shutdown();
+  }
+
+  @Override
+  protected List<SegmentDataManager> getSegmentDataManagers() {
+    return _segmentDataManagers;
+  }
+
+  @Test
+  public void testAggregationOnly()
+      throws Exception {
+    String query = "SELECT COUNT(*), SUM(column1), MIN(column3), MAX(column6), AVG(column7) FROM testTable";
+    compareResults(query);
+    compareResults(query + getFilter());
+  }
+
+  @Test
+  public void testGroupBy()
+      throws Exception {
+    String query = "SELECT COUNT(*), SUM(column1), MAX(column3) FROM testTable GROUP BY column11, column12 TOP 100";
+    compareResults(query);
+    compareResults(query + getFilter());
+  }
+
+  @Test
+  public void testSelection()
+      throws Exception {
+    String query =
+        "SELECT column11, column12, column17 FROM testTable ORDER BY column17 DESC, column11, column12 LIMIT 50";
+    compareResults(query);
+    compareResults(query + getFilter());
+  }
+
+  private void compareResults(String query)
+      throws Exception {
+    BrokerResponseNative expected = getBrokerResponseForQuery(query);
+    BrokerResponseNative actual = getBrokerResponseForQuery(query, _forkJoinPool);
+    Assert.assertTrue(expected.getProcessingExceptions().isEmpty());
+    Assert.assertTrue(actual.getProcessingExceptions().isEmpty());
+    Assert.assertEquals(actual.getTotalDocs(), expected.getTotalDocs());
+    Assert.assertEquals(actual.getNumDocsScanned(), expected.getNumDocsScanned());
+
+    // Time used differs between the two runs.
+    expected.setTimeUsedMs(0L);
+    actual.setTimeUsedMs(0L);
+    Assert.assertEquals(actual.toJsonString(), expected.toJsonString());
+  }
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.queries;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.data.manager.offline.OfflineSegmentDataManager;
+import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.operator.query.AggregationOperator;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import java.io.File;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Queries on a segment with range indexes configured on both sorted and unsorted columns, at segment creation
+ * (column1, daysSinceEpoch) and at segment loading (column3, daysSinceEpoch). Sorted columns must not get a range
+ * index, as their forward index is not in the fixed bit format.
+ */
+public class RangeIndexQueriesTest extends BaseQueriesTest {
+  private static final String AVRO_DATA = "data/test_data-sv.avro";
+  private static final String SEGMENT_NAME = "testTable_126164076_167572854_";
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "RangeIndexQueriesTest");
+  private static final int NUM_DOCS = 30000;
+
+  private IndexSegment _indexSegment;
+  private List<SegmentDataManager> _segmentDataManagers;
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+
+    URL resource = getClass().getClassLoader().getResource(AVRO_DATA);
+    Assert.assertNotNull(resource);
+    String filePath = resource.getFile();
+
+    Schema schema = new Schema.SchemaBuilder().setSchemaName("testTable")
+        .addMetric("column1", FieldSpec.DataType.INT)
+        .addMetric("column3", FieldSpec.DataType.INT)
+        .addSingleValueDimension("column5", FieldSpec.DataType.STRING)
+        .addTime("daysSinceEpoch", TimeUnit.DAYS, FieldSpec.DataType.INT)
+        .build();
+
+    SegmentGeneratorConfig segmentGeneratorConfig = new SegmentGeneratorConfig(schema);
+    segmentGeneratorConfig.setInputFilePath(filePath);
+    segmentGeneratorConfig.setTableName("testTable");
+    segmentGeneratorConfig.setOutDir(INDEX_DIR.getAbsolutePath());
+    segmentGeneratorConfig.setRangeIndexCreationColumns(Arrays.asList("column1", "daysSinceEpoch"));
+
+    SegmentIndexCreationDriver driver = new SegmentIndexCreationDriverImpl();
+    driver.init(segmentGeneratorConfig);
+    driver.build();
+
+    IndexLoadingConfigMetadata indexLoadingConfig = new IndexLoadingConfigMetadata(new PropertiesConfiguration());
+    indexLoadingConfig.initLoadingRangeIndexColumnSet(new String[]{"column3", "daysSinceEpoch"});
+    _indexSegment =
+        ColumnarSegmentLoader.load(new File(INDEX_DIR, SEGMENT_NAME), ReadMode.heap, indexLoadingConfig);
+    _segmentDataManagers =
+        Collections.<SegmentDataManager>singletonList(new OfflineSegmentDataManager(_indexSegment));
+  }
+
+  @Test
+  public void testRangeIndexColumns() {
+    Assert.assertNotNull(_indexSegment.getDataSource("column1").getRangeIndex());
+    Assert.assertNotNull(_indexSegment.getDataSource("column3").getRangeIndex());
+    Assert.assertNull(_indexSegment.getDataSource("daysSinceEpoch").getRangeIndex());
+  }
+
+  @Test
+  public void testRangeOnSortedColumn() {
+    long numDocsFirstDay = getCount("daysSinceEpoch = 126164076");
+    Assert.assertTrue(numDocsFirstDay > 0 && numDocsFirstDay < NUM_DOCS);
+    Assert.assertEquals(getCount("daysSinceEpoch BETWEEN 126164076 AND 126164076"), numDocsFirstDay);
+    Assert.assertEquals(getCount("daysSinceEpoch < 167572854"), numDocsFirstDay);
+    Assert.assertEquals(getCount("daysSinceEpoch > 126164076"), NUM_DOCS - numDocsFirstDay);
+    Assert.assertEquals(getCount("daysSinceEpoch >= 126164076"), NUM_DOCS);
+  }
+
+  @Test
+  public void testRangeOnUnsortedColumns() {
+    Assert.assertEquals(getCount("column1 > 100000000") + getCount("column1 <= 100000000"), NUM_DOCS);
+    Assert.assertEquals(getCount("column3 BETWEEN 20000000 AND 1000000000") + getCount("column3 < 20000000")
+        + getCount("column3 > 1000000000"), NUM_DOCS);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _indexSegment.destroy();
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  private long getCount(String filter) {
+    AggregationOperator aggregationOperator = getOperatorForQuery("SELECT COUNT(*) FROM testTable WHERE " + filter);
+    IntermediateResultsBlock resultsBlock = (IntermediateResultsBlock) aggregationOperator.nextBlock();
+    return ((Number) resultsBlock.getAggregationResult().get(0)).longValue();
+  }
+
+  @Override
+  protected String getFilter() {
+    return "";
+  }
+
+  @Override
+  protected IndexSegment getIndexSegment() {
+    return _indexSegment;
+  }
+
+  @Override
+  protected List<SegmentDataManager> getSegmentDataManagers() {
+    return _segmentDataManagers;
+  }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.queries;
+
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.core.data.manager.offline.OfflineSegmentDataManager;
+import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
+import com.linkedin.pinot.core.indexsegment.utils.AvroUtils;
+import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
+import java.io.File;
+import java.io.Serializable;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.generic.GenericRecord;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * The <code>SelectionOrderByQueriesTest</code> class verifies the rows of selection queries with <code>ORDER BY</code>
+ * and <code>LIMIT</code> on offline and realtime segments against the rows sorted from the Avro file.
+ * <p>The segments have several projection blocks, so the top rows are picked across blocks. The dictionary ids of the
+ * realtime segment are in insertion order, so its values are compared through the dictionary.
+ * <p>Only the <code>ORDER BY</code> columns are selected, so that rows with the same order are identical.
+ */
+public class SelectionOrderByQueriesTest extends BaseSingleValueQueriesTest {
+  private static final String AVRO_DATA = "data/test_data-sv.avro";
+  // Each record is in 2 segments, and the instance response is reduced from 2 servers.
+  private static final int NUM_COPIES = 4;
+
+  private RealtimeSegmentImpl _realtimeSegment;
+  private List<SegmentDataManager> _realtimeSegmentDataManagers;
+  private List<SegmentDataManager> _segmentDataManagers;
+  private List<GenericRecord> _records;
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    _realtimeSegment = buildRealtimeSegment();
+    _realtimeSegmentDataManagers = Arrays.<SegmentDataManager>asList(new OfflineSegmentDataManager(_realtimeSegment),
+        new OfflineSegmentDataManager(_realtimeSegment));
+
+    URL resource = getClass().getClassLoader().getResource(AVRO_DATA);
+    Assert.assertNotNull(resource);
+    _records = new ArrayList<>();
+    try (DataFileStream<GenericRecord> avroReader = AvroUtils.getAvroReader(new File(resource.getFile()))) {
+      while (avroReader.hasNext()) {
+        _records.add(avroReader.next());
+      }
+    }
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _realtimeSegment.destroy();
+  }
+
+  @Override
+  protected List<SegmentDataManager> getSegmentDataManagers() {
+    return _segmentDataManagers;
+  }
+
+  @Test
+  public void testStringAndIntColumns()
+      throws Exception {
+    String query = "SELECT column11, column6 FROM testTable ORDER BY column11, column6 DESC LIMIT 100";
+    List<List<String>> expectedRows =
+        getExpectedRows(_records, new String[]{"column11", "column6"}, new boolean[]{true, false}, 0, 100);
+    compareRows(query, expectedRows, NUM_COPIES * _records.size());
+  }
+
+  @Test
+  public void testMetricColumnsWithOffset()
+      throws Exception {
+    String query =
+        "SELECT column17, column1, column12 FROM testTable ORDER BY column17 DESC, column1, column12 DESC LIMIT 5, 50";
+    List<List<String>> expectedRows = getExpectedRows(_records, new String[]{"column17", "column1", "column12"},
+        new boolean[]{false, true, false}, 5, 50);
+    compareRows(query, expectedRows, NUM_COPIES * _records.size());
+  }
+
+  @Test
+  public void testWithFilter()
+      throws Exception {
+    String query =
+        "SELECT column12, column9 FROM testTable WHERE column6 < 500000000 ORDER BY column12 DESC, column9 LIMIT 30";
+    List<GenericRecord> filteredRecords = new ArrayList<>();
+    for (GenericRecord record : _records) {
+      if ((Integer) record.get("column6") < 500000000) {
+        filteredRecords.add(record);
+      }
+    }
+    List<List<String>> expectedRows =
+        getExpectedRows(filteredRecords, new String[]{"column12", "column9"}, new boolean[]{false, true}, 0, 30);
+    compareRows(query, expectedRows, NUM_COPIES * filteredRecords.size());
+  }
+
+  /**
+   * Runs the query on the offline segments and on the realtime segments, and compares the rows with the expected ones.
+   */
+  private void compareRows(String query, List<List<String>> expectedRows, long expectedNumDocsScanned) {
+    for (List<SegmentDataManager> segmentDataManagers : Arrays.asList(super.getSegmentDataManagers(),
+        _realtimeSegmentDataManagers)) {
+      _segmentDataManagers = segmentDataManagers;
+      BrokerResponseNative brokerResponse = getBrokerResponseForQuery(query);
+      Assert.assertTrue(brokerResponse.getProcessingExceptions().isEmpty());
+      Assert.assertEquals(brokerResponse.getNumDocsScanned(), expectedNumDocsScanned);
+
+      List<List<String>> rows = new ArrayList<>();
+      for (Serializable[] row : brokerResponse.getSelectionResults().getRows()) {
+        List<String> values = new ArrayList<>(row.length);
+        for (Serializable value : row) {
+          values.add(value.toString());
+        }
+        rows.add(values);
+      }
+      Assert.assertEquals(rows, expectedRows);
+    }
+  }
+
+  /**
+   * Sorts the records on the given columns, and returns the values of the given columns for the rows within the offset
+   * and limit, with each record repeated {@link #NUM_COPIES} times.
+   */
+  private static List<List<String>> getExpectedRows(List<GenericRecord> records, String[] columns,
+      final boolean[] ascending, int offset, int limit) {
+    final int numColumns = columns.length;
+    List<Comparable[]> sortedRows = new ArrayList<>(records.size());
+    for (GenericRecord record : records) {
+      Comparable[] row = new Comparable[numColumns];
+      for (int i = 0; i < numColumns; i++) {
+        Object value = record.get(columns[i]);
+        // Avro strings are Utf8 instances.
+        row[i] = (value instanceof Integer) ? (Integer) value : value.toString();
+      }
+      sortedRows.add(row);
+    }
+    Collections.sort(sortedRows, new Comparator<Comparable[]>() {
+      @SuppressWarnings("unchecked")
+      @Override
+      public int compare(Comparable[] o1, Comparable[] o2) {
+        for (int i = 0; i < numColumns; i++) {
+          int result = o1[i].compareTo(o2[i]);
+          if (result != 0) {
+            return ascending[i] ? result : -result;
+          }
+        }
+        return 0;
+      }
+    });
+
+    List<List<String>> expectedRows = new ArrayList<>(limit);
+    int index = 0;
+    for (Comparable[] row : sortedRows) {
+      for (int i = 0; i < NUM_COPIES; i++) {
+        if (index >= offset + limit) {
+          return expectedRows;
+        }
+        if (index++ >= offset) {
+          List<String> values = new ArrayList<>(numColumns);
+          for (Comparable value : row) {
+            values.add(value.toString());
+          }
+          expectedRows.add(values);
+        }
+      }
+    }
+    return expectedRows;
+  }
+}
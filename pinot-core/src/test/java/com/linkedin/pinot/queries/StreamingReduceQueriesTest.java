@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.queries;
+
+import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.common.datatable.DataTableFactory;
+import com.linkedin.pinot.core.common.datatable.DataTableImplV2;
+import com.linkedin.pinot.core.query.reduce.BrokerReduceService;
+import com.linkedin.pinot.core.query.reduce.StreamingBrokerReducer;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * The <code>StreamingReduceQueriesTest</code> class verifies that reducing the server responses one at a time with
+ * {@link StreamingBrokerReducer} gives the same broker response as {@link BrokerReduceService}.
+ */
+public class StreamingReduceQueriesTest extends BaseSingleValueQueriesTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+
+  // Primitive merge path (COUNT, SUM, MIN, MAX) and object merge path.
+  private static final String PRIMITIVE_AGGREGATIONS =
+      "SELECT COUNT(*), SUM(column1), MIN(column3), MAX(column6) FROM testTable";
+  private static final String OBJECT_AGGREGATIONS =
+      "SELECT AVG(column1), DISTINCTCOUNT(column11), MINMAXRANGE(column17), PERCENTILE90(column18) FROM testTable";
+  private static final String GROUP_BY = " GROUP BY column11, column12 TOP 50";
+
+  // Time boundary splitting the data between the OFFLINE and REALTIME tables of the hybrid table.
+  private static final String OFFLINE_FILTER = " WHERE daysSinceEpoch < 167572854";
+  private static final String REALTIME_FILTER = " WHERE daysSinceEpoch >= 167572854";
+
+  private static final ServerInstance SERVER_1 = new ServerInstance("localhost", 1111);
+  private static final ServerInstance SERVER_2 = new ServerInstance("localhost", 2222);
+  // Responses for REALTIME table are keyed by a different sequence, same as in the broker.
+  private static final ServerInstance REALTIME_SERVER_1 = new ServerInstance("localhost", 1111, 1);
+
+  @Test
+  public void testAggregationOnly()
+      throws Exception {
+    for (String query : new String[]{PRIMITIVE_AGGREGATIONS, OBJECT_AGGREGATIONS}) {
+      compareResults(query, getServerResponses(query));
+      compareResults(query + getFilter(), getServerResponses(query + getFilter()));
+    }
+  }
+
+  @Test
+  public void testGroupBy()
+      throws Exception {
+    for (String query : new String[]{PRIMITIVE_AGGREGATIONS + GROUP_BY, OBJECT_AGGREGATIONS + GROUP_BY}) {
+      compareResults(query, getServerResponses(query));
+      String queryWithFilter = query.replace(GROUP_BY, getFilter() + GROUP_BY);
+      compareResults(queryWithFilter, getServerResponses(queryWithFilter));
+    }
+  }
+
+  @Test
+  public void testEmptyAndExceptionDataTables()
+      throws Exception {
+    for (String query : new String[]{PRIMITIVE_AGGREGATIONS, OBJECT_AGGREGATIONS, PRIMITIVE_AGGREGATIONS + GROUP_BY,
+        OBJECT_AGGREGATIONS + GROUP_BY}) {
+      // Only empty data tables.
+      Map<ServerInstance, DataTable> dataTableMap = new LinkedHashMap<>();
+      dataTableMap.put(SERVER_1, new DataTableImplV2());
+      compareResults(query, dataTableMap);
+
+      // Only data tables with exception.
+      DataTable exceptionDataTable = new DataTableImplV2();
+      exceptionDataTable.addException(QueryException.EXECUTION_TIMEOUT_ERROR);
+      dataTableMap.put(SERVER_2, exceptionDataTable);
+      compareResults(query, dataTableMap);
+
+      // Empty and exception data tables mixed with a data table with results.
+      dataTableMap.put(REALTIME_SERVER_1, getInstanceResponseForQuery(query));
+      compareResults(query, dataTableMap);
+    }
+  }
+
+  @Test
+  public void testHybridTable()
+      throws Exception {
+    for (String query : new String[]{PRIMITIVE_AGGREGATIONS, OBJECT_AGGREGATIONS, PRIMITIVE_AGGREGATIONS + GROUP_BY,
+        OBJECT_AGGREGATIONS + GROUP_BY}) {
+      Map<ServerInstance, DataTable> dataTableMap = new LinkedHashMap<>();
+      dataTableMap.put(SERVER_1, getInstanceResponseForQuery(addFilter(query, OFFLINE_FILTER)));
+      dataTableMap.put(SERVER_2, getInstanceResponseForQuery(addFilter(query, OFFLINE_FILTER)));
+      dataTableMap.put(REALTIME_SERVER_1, getInstanceResponseForQuery(addFilter(query, REALTIME_FILTER)));
+      compareResults(query, dataTableMap);
+    }
+  }
+
+  private static String addFilter(String query, String filter) {
+    if (query.contains(GROUP_BY)) {
+      return query.replace(GROUP_BY, filter + GROUP_BY);
+    } else {
+      return query + filter;
+    }
+  }
+
+  private Map<ServerInstance, DataTable> getServerResponses(String query) {
+    DataTable dataTable = getInstanceResponseForQuery(query);
+    Map<ServerInstance, DataTable> dataTableMap = new LinkedHashMap<>();
+    dataTableMap.put(SERVER_1, dataTable);
+    dataTableMap.put(SERVER_2, dataTable);
+    return dataTableMap;
+  }
+
+  /**
+   * Reduce the data tables with both reducers and compare the broker responses. The data tables are reduced in the
+   * same order, and each reducer gets its own deserialized copy (as in the broker) so that merges do not interfere.
+   */
+  private void compareResults(String query, Map<ServerInstance, DataTable> dataTableMap)
+      throws Exception {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(query);
+    Assert.assertTrue(StreamingBrokerReducer.isSupported(brokerRequest));
+
+    Map<ServerInstance, DataTable> expectedDataTableMap = new LinkedHashMap<>();
+    StreamingBrokerReducer streamingBrokerReducer = new StreamingBrokerReducer(brokerRequest, null);
+    for (Map.Entry<ServerInstance, DataTable> entry : dataTableMap.entrySet()) {
+      byte[] bytes = entry.getValue().toBytes();
+      expectedDataTableMap.put(entry.getKey(), DataTableFactory.getDataTable(bytes));
+      streamingBrokerReducer.reduce(entry.getKey(), DataTableFactory.getDataTable(bytes));
+    }
+    Assert.assertEquals(streamingBrokerReducer.getNumDataTablesReduced(), dataTableMap.size());
+    BrokerResponseNative expected = new BrokerReduceService().reduceOnDataTable(brokerRequest, expectedDataTableMap);
+    BrokerResponseNative actual = streamingBrokerReducer.getBrokerResponse();
+    Assert.assertEquals(actual.toJsonString(), expected.toJsonString(), query);
+  }
+}
@@ -0,0 +1,237 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.queries;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.data.manager.offline.OfflineSegmentDataManager;
+import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.operator.query.AggregationOperator;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.converter.StringDictionaryFormatConverter;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.segment.index.readers.VarLengthStringDictionary;
+import com.linkedin.pinot.core.segment.store.SegmentDirectoryPaths;
+import java.io.File;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Queries on a segment created with fixed-length string dictionaries, then converted to variable-length string
+ * dictionaries at load time (before the conversion to v3), against the same segment loaded without conversion.
+ */
+public class VarLengthDictionaryQueriesTest extends BaseQueriesTest {
+  private static final String AVRO_DATA = "data/test_data-sv.avro";
+  private static final String SEGMENT_NAME = "testTable_126164076_167572854_";
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "VarLengthDictionaryQueriesTest");
+  private static final File FIXED_LENGTH_DIR = new File(INDEX_DIR, "fixedLength");
+  private static final File VAR_LENGTH_DIR = new File(INDEX_DIR, "varLength");
+  private static final String STRING_COLUMN = "column5";
+
+  private IndexSegment _fixedLengthSegment;
+  private IndexSegment _varLengthSegment;
+  // Segment to run the queries on.
+  private IndexSegment _indexSegment;
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+
+    URL resource = getClass().getClassLoader().getResource(AVRO_DATA);
+    Assert.assertNotNull(resource);
+    String filePath = resource.getFile();
+
+    Schema schema = new Schema.SchemaBuilder().setSchemaName("testTable")
+        .addMetric("column1", FieldSpec.DataType.INT)
+        .addSingleValueDimension(STRING_COLUMN, FieldSpec.DataType.STRING)
+        .addTime("daysSinceEpoch", TimeUnit.DAYS, FieldSpec.DataType.INT)
+        .build();
+
+    SegmentGeneratorConfig segmentGeneratorConfig = new SegmentGeneratorConfig(schema);
+    segmentGeneratorConfig.setInputFilePath(filePath);
+    segmentGeneratorConfig.setTableName("testTable");
+    segmentGeneratorConfig.setOutDir(FIXED_LENGTH_DIR.getAbsolutePath());
+
+    SegmentIndexCreationDriver driver = new SegmentIndexCreationDriverImpl();
+    driver.init(segmentGeneratorConfig);
+    driver.build();
+    File fixedLengthSegmentDir = new File(FIXED_LENGTH_DIR, SEGMENT_NAME);
+    File varLengthSegmentDir = new File(VAR_LENGTH_DIR, SEGMENT_NAME);
+    FileUtils.copyDirectory(fixedLengthSegmentDir, varLengthSegmentDir);
+    // Copies of the segment whose conversion gets interrupted, made before the segment is converted to v3 on load.
+    for (boolean convertOnLoad : new boolean[]{false, true}) {
+      FileUtils.copyDirectory(fixedLengthSegmentDir, getInterruptedSegmentDir(convertOnLoad));
+    }
+
+    _fixedLengthSegment = ColumnarSegmentLoader.load(fixedLengthSegmentDir, ReadMode.heap);
+
+    PropertiesConfiguration tableDataManagerConfig = new PropertiesConfiguration();
+    tableDataManagerConfig.setProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_VAR_LENGTH_DICTIONARY,
+        STRING_COLUMN);
+    tableDataManagerConfig.setProperty(IndexLoadingConfigMetadata.KEY_OF_SEGMENT_FORMAT_VERSION, "v3");
+    _varLengthSegment = ColumnarSegmentLoader.load(varLengthSegmentDir, ReadMode.heap,
+        new IndexLoadingConfigMetadata(tableDataManagerConfig));
+    Assert.assertTrue(new File(varLengthSegmentDir, SegmentDirectoryPaths.V3_SUBDIRECTORY_NAME).exists());
+  }
+
+  @Test
+  public void testConvertedDictionary() {
+    Assert.assertFalse(((SegmentMetadataImpl) _fixedLengthSegment.getSegmentMetadata()).getColumnMetadataFor(
+        STRING_COLUMN).hasVarLengthDictionary());
+    Assert.assertTrue(((SegmentMetadataImpl) _varLengthSegment.getSegmentMetadata()).getColumnMetadataFor(
+        STRING_COLUMN).hasVarLengthDictionary());
+
+    Dictionary fixedLengthDictionary = _fixedLengthSegment.getDataSource(STRING_COLUMN).getDictionary();
+    Dictionary varLengthDictionary = _varLengthSegment.getDataSource(STRING_COLUMN).getDictionary();
+    Assert.assertFalse(fixedLengthDictionary instanceof VarLengthStringDictionary);
+    Assert.assertTrue(varLengthDictionary instanceof VarLengthStringDictionary);
+    Assert.assertEquals(varLengthDictionary.length(), fixedLengthDictionary.length());
+    for (int dictId = 0; dictId < fixedLengthDictionary.length(); dictId++) {
+      String value = fixedLengthDictionary.getStringValue(dictId);
+      Assert.assertEquals(varLengthDictionary.getStringValue(dictId), value);
+      Assert.assertEquals(varLengthDictionary.indexOf(value), dictId);
+    }
+  }
+
+  @Test
+  public void testQueries() {
+    Dictionary dictionary = _fixedLengthSegment.getDataSource(STRING_COLUMN).getDictionary();
+    int cardinality = dictionary.length();
+    String first = dictionary.getStringValue(0);
+    String middle = dictionary.getStringValue(cardinality / 2);
+    String last = dictionary.getStringValue(cardinality - 1);
+
+    String[] filters = new String[]{
+        STRING_COLUMN + " = '" + middle + "'",
+        STRING_COLUMN + " <> '" + middle + "'",
+        STRING_COLUMN + " IN ('" + first + "', '" + last + "', 'doesNotExist')",
+        STRING_COLUMN + " NOT IN ('" + first + "', '" + last + "')",
+        STRING_COLUMN + " BETWEEN '" + first + "' AND '" + middle + "'",
+        STRING_COLUMN + " > '" + middle + "'",
+        STRING_COLUMN + " < '" + middle + "a'",
+        STRING_COLUMN + " = 'doesNotExist'"
+    };
+    for (String filter : filters) {
+      Assert.assertEquals(getCount(_varLengthSegment, filter), getCount(_fixedLengthSegment, filter), filter);
+    }
+    Assert.assertTrue(getCount(_varLengthSegment, filters[0]) > 0);
+  }
+
+  /**
+   * Interrupts the conversion after the dictionary is replaced but before the metadata is updated, then checks that the
+   * next load restores the original dictionary, or converts it again if still configured.
+   */
+  @Test
+  public void testInterruptedConversion()
+      throws Exception {
+    Dictionary fixedLengthDictionary = _fixedLengthSegment.getDataSource(STRING_COLUMN).getDictionary();
+    for (boolean convertOnLoad : new boolean[]{false, true}) {
+      File segmentDir = getInterruptedSegmentDir(convertOnLoad);
+      StringDictionaryFormatConverter converter =
+          new StringDictionaryFormatConverter(Collections.singleton(STRING_COLUMN)) {
+            @Override
+            protected void markConverted(File indexSegmentDir, String column) {
+              throw new IllegalStateException("Interrupted");
+            }
+          };
+      try {
+        converter.convert(segmentDir);
+        Assert.fail("Conversion should have been interrupted");
+      } catch (IllegalStateException e) {
+        // Expected.
+      }
+      // The original dictionary is kept until the column is marked as converted.
+      Assert.assertTrue(new File(segmentDir, STRING_COLUMN + ".dict.backup").exists());
+
+      IndexSegment indexSegment;
+      if (convertOnLoad) {
+        PropertiesConfiguration tableDataManagerConfig = new PropertiesConfiguration();
+        tableDataManagerConfig.setProperty(IndexLoadingConfigMetadata.KEY_OF_LOADING_VAR_LENGTH_DICTIONARY,
+            STRING_COLUMN);
+        indexSegment = ColumnarSegmentLoader.load(segmentDir, ReadMode.heap,
+            new IndexLoadingConfigMetadata(tableDataManagerConfig));
+      } else {
+        indexSegment = ColumnarSegmentLoader.load(segmentDir, ReadMode.heap);
+      }
+      try {
+        Assert.assertEquals(((SegmentMetadataImpl) indexSegment.getSegmentMetadata()).getColumnMetadataFor(
+            STRING_COLUMN).hasVarLengthDictionary(), convertOnLoad);
+        Dictionary dictionary = indexSegment.getDataSource(STRING_COLUMN).getDictionary();
+        Assert.assertEquals(dictionary instanceof VarLengthStringDictionary, convertOnLoad);
+        Assert.assertEquals(dictionary.length(), fixedLengthDictionary.length());
+        for (int dictId = 0; dictId < fixedLengthDictionary.length(); dictId++) {
+          Assert.assertEquals(dictionary.getStringValue(dictId), fixedLengthDictionary.getStringValue(dictId));
+        }
+        for (String fileName : segmentDir.list()) {
+          Assert.assertFalse(fileName.endsWith(".backup") || fileName.endsWith(".tmp"), fileName);
+        }
+      } finally {
+        indexSegment.destroy();
+      }
+    }
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _fixedLengthSegment.destroy();
+    _varLengthSegment.destroy();
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  private static File getInterruptedSegmentDir(boolean convertOnLoad) {
+    return new File(new File(INDEX_DIR, "interrupted_" + convertOnLoad), SEGMENT_NAME);
+  }
+
+  private long getCount(IndexSegment indexSegment, String filter) {
+    _indexSegment = indexSegment;
+    AggregationOperator aggregationOperator = getOperatorForQuery("SELECT COUNT(*) FROM testTable WHERE " + filter);
+    IntermediateResultsBlock resultsBlock = (IntermediateResultsBlock) aggregationOperator.nextBlock();
+    return ((Number) resultsBlock.getAggregationResult().get(0)).longValue();
+  }
+
+  @Override
+  protected String getFilter() {
+    return "";
+  }
+
+  @Override
+  protected IndexSegment getIndexSegment() {
+    return _indexSegment;
+  }
+
+  @Override
+  protected List<SegmentDataManager> getSegmentDataManagers() {
+    return Collections.<SegmentDataManager>singletonList(new OfflineSegmentDataManager(_indexSegment));
+  }
+}
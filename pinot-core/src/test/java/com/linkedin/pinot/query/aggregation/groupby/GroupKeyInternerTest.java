@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.aggregation.groupby;
+
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByTrimmingService;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyInterner;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+/**
+ * Test for GroupKeyInterner class.
+ */
+@Test
+public class GroupKeyInternerTest {
+  private static final String DELIMITER = AggregationGroupByTrimmingService.GROUP_KEY_DELIMITER;
+
+  /**
+   * Same values from segments with different dictionaries should map to the same long key, and the long key should
+   * convert back to the expected string key.
+   */
+  @Test
+  public void testGetKey() {
+    for (int numGroupByColumns = 1; numGroupByColumns <= 4; numGroupByColumns++) {
+      GroupKeyInterner groupKeyInterner = new GroupKeyInterner(numGroupByColumns);
+
+      // Segment 1 has values [a, b, c] for each column, segment 2 has values [c, b, a] for each column.
+      Dictionary[] dictionaries1 = new Dictionary[numGroupByColumns];
+      Dictionary[] dictionaries2 = new Dictionary[numGroupByColumns];
+      for (int i = 0; i < numGroupByColumns; i++) {
+        dictionaries1[i] = mockDictionary("a" + i, "b" + i, "c" + i);
+        dictionaries2[i] = mockDictionary("c" + i, "b" + i, "a" + i);
+      }
+      GroupKeyInterner.SegmentKeyMapper keyMapper1 = groupKeyInterner.getSegmentKeyMapper(dictionaries1);
+      GroupKeyInterner.SegmentKeyMapper keyMapper2 = groupKeyInterner.getSegmentKeyMapper(dictionaries2);
+
+      int[] dictIds1 = new int[numGroupByColumns];
+      int[] dictIds2 = new int[numGroupByColumns];
+      StringBuilder expectedStringKey = new StringBuilder();
+      for (int i = 0; i < numGroupByColumns; i++) {
+        // Alternate between 'a' and 'c'.
+        int dictId = (i % 2 == 0) ? 0 : 2;
+        dictIds1[i] = dictId;
+        dictIds2[i] = 2 - dictId;
+        if (i > 0) {
+          expectedStringKey.append(DELIMITER);
+        }
+        expectedStringKey.append((dictId == 0) ? "a" : "c").append(i);
+      }
+
+      long key1 = keyMapper1.getKey(dictIds1);
+      long key2 = keyMapper2.getKey(dictIds2);
+      Assert.assertEquals(key1, key2);
+      Assert.assertEquals(groupKeyInterner.getStringKey(key1), expectedStringKey.toString());
+
+      // Different values should map to a different key.
+      dictIds1[numGroupByColumns - 1] = 1;
+      Assert.assertTrue(keyMapper1.getKey(dictIds1) != key1);
+    }
+  }
+
+  private static Dictionary mockDictionary(String... values) {
+    Dictionary dictionary = mock(Dictionary.class);
+    for (int i = 0; i < values.length; i++) {
+      when(dictionary.get(i)).thenReturn(values[i]);
+    }
+    when(dictionary.length()).thenReturn(values.length);
+    return dictionary;
+  }
+}
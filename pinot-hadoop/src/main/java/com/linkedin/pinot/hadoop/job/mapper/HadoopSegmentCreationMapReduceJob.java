@@ -49,6 +49,8 @@ public class HadoopSegmentCreationMapReduceJob {
     private String _outputPath;
     private String _tableName;
     private String _postfix;
+    private int _numIndexCreationThreads;
+    private long _starTreeSortMemoryBudgetBytes;
 
     private Path _currentHdfsWorkDir;
     private String _currentDiskWorkDir;
@@ -84,6 +86,8 @@ public class HadoopSegmentCreationMapReduceJob {
       _outputPath = _properties.get("path.to.output");
       _tableName = _properties.get("segment.table.name");
       _postfix = _properties.get("segment.name.postfix", null);
+      _numIndexCreationThreads = _properties.getInt("segment.index.creation.threads", 1);
+      _starTreeSortMemoryBudgetBytes = _properties.getLong("segment.star.tree.sort.memory.bytes", 0);
       if (_outputPath == null || _tableName == null) {
         throw new RuntimeException(
             "Missing configs: " +
@@ -169,6 +173,8 @@ public class HadoopSegmentCreationMapReduceJob {
       segmentGeneratorConfig.setReaderConfig(getReaderConfig(fileFormat));
 
       segmentGeneratorConfig.setOutDir(_localDiskSegmentDirectory);
+      segmentGeneratorConfig.setNumIndexCreationThreads(_numIndexCreationThreads);
+      segmentGeneratorConfig.setStarTreeSortMemoryBudgetBytes(_starTreeSortMemoryBudgetBytes);
 
       // Add the current java package version to the segment metadata
       // properties file.
@@ -29,10 +29,13 @@ import com.linkedin.pinot.core.data.manager.offline.InstanceDataManager;
 import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
 import com.linkedin.pinot.core.data.manager.offline.TableDataManager;
 import com.linkedin.pinot.core.data.manager.offline.TableDataManagerProvider;
+import com.linkedin.pinot.core.query.cache.SegmentKeyedCache;
 import java.io.File;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.commons.configuration.Configuration;
@@ -56,6 +59,8 @@ public class HelixInstanceDataManager implements InstanceDataManager {
   private boolean _isStarted = false;
   private SegmentMetadataLoader _segmentMetadataLoader;
   private final Object _globalLock = new Object();
+  // Shared with all the table data managers, which invalidate the entries of replaced or removed segments.
+  private final List<SegmentKeyedCache<?>> _segmentCaches = new CopyOnWriteArrayList<>();
 
   public HelixInstanceDataManager() {
   }
@@ -120,9 +125,15 @@ public class HelixInstanceDataManager implements InstanceDataManager {
   }
 
   public synchronized void addTableDataManager(String tableName, TableDataManager tableDataManager) {
+    tableDataManager.setSegmentCaches(_segmentCaches);
     _tableDataManagerMap.put(tableName, tableDataManager);
   }
 
+  @Override
+  public void registerSegmentCache(@Nonnull SegmentKeyedCache<?> segmentCache) {
+    _segmentCaches.add(segmentCache);
+  }
+
   @Override
   public @Nonnull Collection<TableDataManager> getTableDataManagers() {
     return _tableDataManagerMap.values();
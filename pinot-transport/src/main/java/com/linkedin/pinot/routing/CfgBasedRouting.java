@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.routing;
 
+import java.util.List;
 import java.util.Map;
 
 import com.linkedin.pinot.common.response.ServerInstance;
@@ -50,12 +51,23 @@ public class CfgBasedRouting implements RoutingTable {
     return cfg.buildRequestRoutingMap();
   }
 
+  @Override
+  public Map<String, List<ServerInstance>> getSegmentReplicas(String tableName) {
+    // Config based routing table has no replica information.
+    return null;
+  }
+
   @Override
   public boolean routingTableExists(String tableName) {
     Map<ServerInstance, SegmentIdSet> routingTableEntry = findServers(new RoutingTableLookupRequest(tableName, null));
     return routingTableEntry != null && !routingTableEntry.isEmpty();
   }
 
+  @Override
+  public void addRoutingTableChangeListener(RoutingTableChangeListener listener) {
+    // Config based routing table never changes.
+  }
+
   @Override
   public void start() {
     // Nothing to be done here
@@ -30,6 +30,7 @@ import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import org.apache.commons.configuration.Configuration;
 import org.apache.helix.AccessOption;
@@ -89,18 +90,23 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
   private final Map<String, List<ServerToSegmentSetMap>> _llcBrokerRoutingTable =
       new ConcurrentHashMap<String, List<ServerToSegmentSetMap>>();
 
+  // Servers hosting each segment, across all the routing tables of a table
+  private final Map<String, Map<String, List<ServerInstance>>> _segmentReplicasMap = new ConcurrentHashMap<>();
   private final Map<String, Integer> _lastKnownExternalViewVersionMap = new ConcurrentHashMap<>();
   private final Map<String, Map<String, InstanceConfig>> _lastKnownInstanceConfigsForTable = new ConcurrentHashMap<>();
   private final Map<String, InstanceConfig> _lastKnownInstanceConfigs = new ConcurrentHashMap<>();
   private final Map<String, Set<String>> _tablesForInstance = new ConcurrentHashMap<>();
+  private final List<RoutingTableChangeListener> _routingTableChangeListeners = new CopyOnWriteArrayList<>();
 
   private final Random _random = new Random(System.currentTimeMillis());
   private final HelixExternalViewBasedTimeBoundaryService _timeBoundaryService;
   private final RoutingTableSelector _routingTableSelector;
   private final HelixManager _helixManager;
+  private final ZkHelixPropertyStore<ZNRecord> _propertyStore;
   private static final int INVALID_EXTERNAL_VIEW_VERSION = Integer.MIN_VALUE;
 
   private BrokerMetrics _brokerMetrics;
+  private SegmentZKMetadataChangeNotifier _segmentZKMetadataChangeNotifier;
 
   /**
    * Changes the small cluster routing builder, only used by tests.
@@ -111,6 +117,7 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
 
   public HelixExternalViewBasedRouting(ZkHelixPropertyStore<ZNRecord> propertyStore,
       RoutingTableSelector routingTableSelector, HelixManager helixManager, Configuration configuration) {
+    _propertyStore = propertyStore;
     _timeBoundaryService = new HelixExternalViewBasedTimeBoundaryService(propertyStore);
     _largeClusterRoutingTableBuilder = new LargeClusterRoutingTableBuilder();
     _smallClusterRoutingTableBuilder = new BalancedRandomRoutingTableBuilder();
@@ -182,6 +189,11 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     return serverToSegmentSetMaps.get(_random.nextInt(serverToSegmentSetMaps.size())).getRouting();
   }
 
+  @Override
+  public Map<String, List<ServerInstance>> getSegmentReplicas(String tableName) {
+    return _segmentReplicasMap.get(tableName);
+  }
+
   @Override
   public boolean routingTableExists(String tableName) {
     return (_brokerRoutingTable.containsKey(tableName) && !_brokerRoutingTable.get(tableName).isEmpty()) || (
@@ -202,6 +214,37 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     return _brokerRoutingTable.get(tableName);
   }
 
+  @Override
+  public void addRoutingTableChangeListener(RoutingTableChangeListener listener) {
+    _routingTableChangeListeners.add(listener);
+  }
+
+  /**
+   * Add a listener of segment ZK metadata changes for OFFLINE tables. Segment ZK metadata is only watched after the
+   * first listener is added.
+   */
+  public synchronized void addSegmentZKMetadataChangeListener(SegmentZKMetadataChangeListener listener) {
+    if (_propertyStore == null) {
+      LOGGER.warn("No property store, cannot watch segment ZK metadata changes");
+      return;
+    }
+    if (_segmentZKMetadataChangeNotifier == null) {
+      _segmentZKMetadataChangeNotifier = new SegmentZKMetadataChangeNotifier(_propertyStore, this);
+      addRoutingTableChangeListener(_segmentZKMetadataChangeNotifier);
+    }
+    _segmentZKMetadataChangeNotifier.addListener(listener);
+  }
+
+  private void notifyRoutingTableChange(String tableName) {
+    for (RoutingTableChangeListener listener : _routingTableChangeListeners) {
+      try {
+        listener.onRoutingTableChange(tableName);
+      } catch (Exception e) {
+        LOGGER.error("Caught exception while notifying routing table change for table {}", tableName, e);
+      }
+    }
+  }
+
   public void setBrokerMetrics(BrokerMetrics brokerMetrics) {
     _brokerMetrics = brokerMetrics;
   }
@@ -214,6 +257,11 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
   @Override
   public void shutdown() {
     LOGGER.info("Shutting down HelixExternalViewBasedRouting!");
+    synchronized (this) {
+      if (_segmentZKMetadataChangeNotifier != null) {
+        _segmentZKMetadataChangeNotifier.shutDown();
+      }
+    }
   }
 
   public void markDataResourceOnline(String tableName, ExternalView externalView,
@@ -371,6 +419,8 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
         }
       }
 
+      updateSegmentReplicas(tableName);
+
       // Save the instance configs used so that we can avoid unnecessary routing table updates later
       _lastKnownInstanceConfigsForTable.put(tableName, relevantInstanceConfigs);
       for (InstanceConfig instanceConfig : relevantInstanceConfigs.values()) {
@@ -452,6 +502,7 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     }
 
     LOGGER.info("Routing table update for table {} completed in {} ms", tableName, updateTime);
+    notifyRoutingTableChange(tableName);
   }
 
   private boolean isLargeCluster(ExternalView externalView) {
@@ -511,9 +562,41 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     }
   }
 
+  /**
+   * Compute the servers hosting each segment of the table from the union of all its routing tables.
+   */
+  private void updateSegmentReplicas(String tableName) {
+    Map<String, List<ServerInstance>> segmentReplicas = new HashMap<>();
+    List<List<ServerToSegmentSetMap>> routingTableLists = new ArrayList<>(2);
+    routingTableLists.add(_brokerRoutingTable.get(tableName));
+    routingTableLists.add(_llcBrokerRoutingTable.get(tableName));
+    for (List<ServerToSegmentSetMap> routingTables : routingTableLists) {
+      if (routingTables == null) {
+        continue;
+      }
+      for (ServerToSegmentSetMap routingTable : routingTables) {
+        for (Map.Entry<ServerInstance, SegmentIdSet> entry : routingTable.getRouting().entrySet()) {
+          ServerInstance server = entry.getKey();
+          for (String segmentName : entry.getValue().getSegmentsNameList()) {
+            List<ServerInstance> servers = segmentReplicas.get(segmentName);
+            if (servers == null) {
+              servers = new ArrayList<>();
+              segmentReplicas.put(segmentName, servers);
+            }
+            if (!servers.contains(server)) {
+              servers.add(server);
+            }
+          }
+        }
+      }
+    }
+    _segmentReplicasMap.put(tableName, segmentReplicas);
+  }
+
   public void markDataResourceOffline(String tableName) {
     LOGGER.info("Trying to remove data table from broker for {}", tableName);
     _brokerRoutingTable.remove(tableName);
+    _segmentReplicasMap.remove(tableName);
     _lastKnownExternalViewVersionMap.remove(tableName);
     _lastKnownInstanceConfigsForTable.remove(tableName);
     _timeBoundaryService.remove(tableName);
@@ -531,6 +614,7 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
       }
 
     }
+    notifyRoutingTableChange(tableName);
   }
 
   public void processExternalViewChange() {
@@ -696,6 +780,10 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     return _timeBoundaryService;
   }
 
+  public ZkHelixPropertyStore<ZNRecord> getPropertyStore() {
+    return _propertyStore;
+  }
+
   @Override
   public String dumpSnapshot(String tableName)
       throws Exception {
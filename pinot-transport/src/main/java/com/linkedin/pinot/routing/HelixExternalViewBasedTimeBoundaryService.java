@@ -115,7 +115,13 @@ public class HelixExternalViewBasedTimeBoundaryService implements TimeBoundarySe
     return maxTimeValue;
   }
 
-  private TimeUnit getTimeUnitFromString(String timeTypeString) {
+  /**
+   * Get the time unit for the given time type of the table, including the legacy time types such as daysSinceEpoch.
+   *
+   * @param timeTypeString time type of the table.
+   * @return time unit, or null if the time type is not set.
+   */
+  public static TimeUnit getTimeUnitFromString(String timeTypeString) {
     // If input data does not have a time column, no need to fire an exception.
     if ((timeTypeString == null) || timeTypeString.isEmpty()) {
       return null;
@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.routing;
 
+import java.util.List;
 import java.util.Map;
 
 import com.linkedin.pinot.common.response.ServerInstance;
@@ -31,6 +32,15 @@ public interface RoutingTable {
    */
   Map<ServerInstance, SegmentIdSet> findServers(RoutingTableLookupRequest request);
 
+  /**
+   * Return all the servers hosting each segment of a table (keyed by segment name), which can be used to send the
+   * segments to another replica than the one returned by {@link #findServers(RoutingTableLookupRequest)}.
+   *
+   * @param tableName The table name for which to return the segment replicas
+   * @return Segment name to servers map, or null if not available
+   */
+  Map<String, List<ServerInstance>> getSegmentReplicas(String tableName);
+
   /**
    * Returns whether or not a routing table exists and is not empty for a given table.
    *
@@ -39,6 +49,13 @@ public interface RoutingTable {
    */
   boolean routingTableExists(String tableName);
 
+  /**
+   * Register a listener to be notified when the routing table of a table changes.
+   *
+   * @param listener routing table change listener
+   */
+  void addRoutingTableChangeListener(RoutingTableChangeListener listener);
+
   /**
    * Initialize and start the Routing table population
    */
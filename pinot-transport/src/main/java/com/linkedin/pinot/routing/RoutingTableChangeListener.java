@@ -0,0 +1,29 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.routing;
+
+/**
+ * Listener of routing table changes, notified after the routing table of a table is rebuilt (e.g. after an external
+ * view change) or removed.
+ */
+public interface RoutingTableChangeListener {
+  /**
+   * Called after the routing table for the given table has changed.
+   *
+   * @param tableName table name with type suffix.
+   */
+  void onRoutingTableChange(String tableName);
+}
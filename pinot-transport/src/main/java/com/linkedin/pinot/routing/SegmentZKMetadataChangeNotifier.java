@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.routing;
+
+import com.google.common.base.Splitter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.linkedin.pinot.common.config.TableNameBuilder;
+import com.linkedin.pinot.common.metadata.ZKMetadataProvider;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.utils.CommonConstants.Helix.TableType;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import org.I0Itec.zkclient.IZkDataListener;
+import org.apache.helix.ZNRecord;
+import org.apache.helix.store.zk.ZkHelixPropertyStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>SegmentZKMetadataChangeNotifier</code> class watches the ZK metadata of the segments in the routing table
+ * of OFFLINE tables, and notifies the {@link SegmentZKMetadataChangeListener}s when it changes.
+ * <ul>
+ *   <li>The watched segments are updated each time the routing table of a table changes. Subscribing to ZK is done on
+ *   a single background thread so that the routing callback thread is not blocked.</li>
+ *   <li>Listeners are notified on the same background thread.</li>
+ *   <li>Segment deletions are not notified, they are followed by a routing table change.</li>
+ * </ul>
+ */
+@ThreadSafe
+public class SegmentZKMetadataChangeNotifier implements RoutingTableChangeListener, IZkDataListener {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentZKMetadataChangeNotifier.class);
+
+  private final ZkHelixPropertyStore<ZNRecord> _propertyStore;
+  private final RoutingTable _routingTable;
+  private final List<SegmentZKMetadataChangeListener> _listeners = new CopyOnWriteArrayList<>();
+  // Only accessed from the executor thread.
+  private final Map<String, Set<String>> _watchedSegmentsMap = new HashMap<>();
+  private final ExecutorService _executorService = Executors.newSingleThreadExecutor(
+      new ThreadFactoryBuilder().setNameFormat("segment-zk-metadata-notifier").setDaemon(true).build());
+  // Tables with a pending update of the watched segments, so that bursts of routing table changes are coalesced.
+  private final ConcurrentMap<String, Boolean> _pendingTables = new ConcurrentHashMap<>();
+
+  public SegmentZKMetadataChangeNotifier(@Nonnull ZkHelixPropertyStore<ZNRecord> propertyStore,
+      @Nonnull RoutingTable routingTable) {
+    _propertyStore = propertyStore;
+    _routingTable = routingTable;
+  }
+
+  public void addListener(@Nonnull SegmentZKMetadataChangeListener listener) {
+    _listeners.add(listener);
+  }
+
+  @Override
+  public void onRoutingTableChange(final String tableName) {
+    if (TableNameBuilder.getTableTypeFromTableName(tableName) != TableType.OFFLINE) {
+      return;
+    }
+    if (_pendingTables.putIfAbsent(tableName, Boolean.TRUE) != null) {
+      return;
+    }
+    _executorService.execute(new Runnable() {
+      @Override
+      public void run() {
+        _pendingTables.remove(tableName);
+        try {
+          updateWatchedSegments(tableName);
+        } catch (Exception e) {
+          LOGGER.error("Caught exception while updating the watched segments for table: {}", tableName, e);
+        }
+      }
+    });
+  }
+
+  /**
+   * Subscribe to the ZK metadata of the segments added to the routing table, and unsubscribe from the ZK metadata of
+   * the segments removed from it.
+   */
+  private void updateWatchedSegments(String tableName) {
+    Map<String, List<ServerInstance>> segmentReplicas = _routingTable.getSegmentReplicas(tableName);
+    Set<String> segments;
+    if (segmentReplicas == null) {
+      segments = Collections.emptySet();
+    } else {
+      segments = new HashSet<>(segmentReplicas.keySet());
+    }
+    Set<String> watchedSegments = _watchedSegmentsMap.get(tableName);
+    if (watchedSegments == null) {
+      watchedSegments = Collections.emptySet();
+    }
+    for (String segment : watchedSegments) {
+      if (!segments.contains(segment)) {
+        _propertyStore.unsubscribeDataChanges(
+            ZKMetadataProvider.constructPropertyStorePathForSegment(tableName, segment), this);
+      }
+    }
+    for (String segment : segments) {
+      if (!watchedSegments.contains(segment)) {
+        _propertyStore.subscribeDataChanges(
+            ZKMetadataProvider.constructPropertyStorePathForSegment(tableName, segment), this);
+      }
+    }
+    if (segments.isEmpty()) {
+      _watchedSegmentsMap.remove(tableName);
+    } else {
+      _watchedSegmentsMap.put(tableName, segments);
+    }
+  }
+
+  @Override
+  public void handleDataChange(String dataPath, Object data) throws Exception {
+    // Path is /SEGMENTS/<tableName>/<segmentName>
+    List<String> zkPathParts = Splitter.on('/').splitToList(dataPath);
+    final String tableName = zkPathParts.get(zkPathParts.size() - 2);
+    final String segmentName = zkPathParts.get(zkPathParts.size() - 1);
+    _executorService.execute(new Runnable() {
+      @Override
+      public void run() {
+        for (SegmentZKMetadataChangeListener listener : _listeners) {
+          try {
+            listener.onSegmentZKMetadataChange(tableName, segmentName);
+          } catch (Exception e) {
+            LOGGER.error("Caught exception while notifying segment ZK metadata change for segment: {} of table: {}",
+                segmentName, tableName, e);
+          }
+        }
+      }
+    });
+  }
+
+  @Override
+  public void handleDataDeleted(String dataPath) throws Exception {
+    // Ignore, segment deletion is followed by a routing table change
+  }
+
+  public void shutDown() {
+    _executorService.shutdownNow();
+  }
+}
@@ -0,0 +1,231 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.common;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.response.ServerInstance;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.concurrent.ThreadSafe;
+
+
+/**
+ * Latency-aware replica selection. Keeps an exponentially decayed average of the response time and the number of
+ * in-flight requests for each server, and selects the replica with the lowest expected wait, i.e.
+ * <code>(averageLatency + 1) * (numInFlightRequests + 1)</code>. Servers without any response yet are considered the
+ * fastest so that they get probed.
+ *
+ * The average response time of a server decays towards 0 (the score of a server without any response) with the time
+ * since its last response, so that a server which got avoided after a slow period gets probed again and can recover.
+ *
+ * Also tracks a window of the latest response times across all servers, from which the delay before sending a
+ * speculative (hedged) request is derived.
+ */
+@ThreadSafe
+public class AdaptiveReplicaSelection extends ReplicaSelection {
+  // Weight of the latest response time in the decayed average
+  private static final double DECAY_ALPHA = 0.2;
+  // Time after which the average response time of a server without new response is halved
+  public static final long DEFAULT_LATENCY_HALF_LIFE_MS = 10_000L;
+  // Response time recorded for failed requests, so that failing servers get avoided
+  private static final long ERROR_LATENCY_MS = 1000L;
+  private static final int LATENCY_WINDOW_SIZE = 1024;
+  // Number of new response times before the hedge delay gets re-computed
+  private static final int HEDGE_DELAY_REFRESH_INTERVAL = 64;
+
+  private final ConcurrentHashMap<ServerInstance, ServerStats> _serverStatsMap = new ConcurrentHashMap<>();
+  private final AtomicInteger _nextStartIndex = new AtomicInteger();
+
+  private final double _hedgeLatencyPercentile;
+  private final long _minHedgeDelayMs;
+  private final long _latencyHalfLifeMs;
+  private final long[] _latencyWindow = new long[LATENCY_WINDOW_SIZE];
+  private long _numLatencies = 0;
+  private volatile long _hedgeDelayMs;
+
+  /**
+   * @param hedgeLatencyPercentile percentile of the response times after which a hedged request is sent
+   * @param minHedgeDelayMs lower bound of the delay before sending a hedged request
+   */
+  public AdaptiveReplicaSelection(double hedgeLatencyPercentile, long minHedgeDelayMs) {
+    this(hedgeLatencyPercentile, minHedgeDelayMs, DEFAULT_LATENCY_HALF_LIFE_MS);
+  }
+
+  /**
+   * @param hedgeLatencyPercentile percentile of the response times after which a hedged request is sent
+   * @param minHedgeDelayMs lower bound of the delay before sending a hedged request
+   * @param latencyHalfLifeMs time after which the average response time of a server without new response is halved
+   */
+  public AdaptiveReplicaSelection(double hedgeLatencyPercentile, long minHedgeDelayMs, long latencyHalfLifeMs) {
+    Preconditions.checkArgument(hedgeLatencyPercentile > 0 && hedgeLatencyPercentile <= 100,
+        "Invalid hedge latency percentile: %s", hedgeLatencyPercentile);
+    Preconditions.checkArgument(latencyHalfLifeMs > 0, "Invalid latency half life: %s", latencyHalfLifeMs);
+    _hedgeLatencyPercentile = hedgeLatencyPercentile;
+    _minHedgeDelayMs = minHedgeDelayMs;
+    _latencyHalfLifeMs = latencyHalfLifeMs;
+    _hedgeDelayMs = minHedgeDelayMs;
+  }
+
+  @Override
+  public void reset(SegmentId p) {
+    // Nothing to be done here, the stats are per server
+  }
+
+  @Override
+  public void reset(SegmentIdSet p) {
+    // Nothing to be done here, the stats are per server
+  }
+
+  @Override
+  public ServerInstance selectServer(SegmentId p, List<ServerInstance> orderedServers, Object hashKey) {
+    return selectBestServer(orderedServers, null);
+  }
+
+  @Override
+  public ServerInstance selectSpeculativeServer(SegmentId p, List<ServerInstance> orderedServers,
+      ServerInstance selectedServer, Object hashKey) {
+    return selectBestServer(orderedServers, selectedServer);
+  }
+
+  /**
+   * Start the scan at a rotating position so that servers with the same score share the load.
+   */
+  private ServerInstance selectBestServer(List<ServerInstance> orderedServers, ServerInstance excludedServer) {
+    int size = orderedServers.size();
+    if (size <= 0) {
+      return null;
+    }
+    int startIndex = (_nextStartIndex.getAndIncrement() & Integer.MAX_VALUE) % size;
+    long currentTimeMs = System.currentTimeMillis();
+    ServerInstance bestServer = null;
+    double bestScore = Double.MAX_VALUE;
+    for (int i = 0; i < size; i++) {
+      ServerInstance server = orderedServers.get((startIndex + i) % size);
+      if (server.equals(excludedServer)) {
+        continue;
+      }
+      ServerStats serverStats = _serverStatsMap.get(server);
+      double score = (serverStats == null) ? 0 : serverStats.getScore(currentTimeMs, _latencyHalfLifeMs);
+      if (score < bestScore) {
+        bestServer = server;
+        bestScore = score;
+      }
+    }
+    return bestServer;
+  }
+
+  /**
+   * Notification that a request is being sent to the server.
+   */
+  public void onRequestSent(ServerInstance server) {
+    getServerStats(server)._numInFlightRequests.incrementAndGet();
+  }
+
+  /**
+   * Notification that the response (or error) for a request sent to the server is received.
+   *
+   * @param server Server the request was sent to
+   * @param latencyMs Response time in milliseconds
+   * @param isError Whether the request failed
+   */
+  public void onResponse(ServerInstance server, long latencyMs, boolean isError) {
+    ServerStats serverStats = getServerStats(server);
+    serverStats._numInFlightRequests.decrementAndGet();
+    if (isError) {
+      latencyMs = Math.max(latencyMs, ERROR_LATENCY_MS);
+    }
+    serverStats.addLatency(latencyMs, System.currentTimeMillis(), _latencyHalfLifeMs);
+    addToLatencyWindow(latencyMs);
+  }
+
+  /**
+   * Returns the delay in milliseconds after which a hedged request should be sent to another replica.
+   */
+  public long getHedgeDelayMs() {
+    return _hedgeDelayMs;
+  }
+
+  /**
+   * Returns the decayed average response time of the server, or -1 if the server has no response yet.
+   */
+  public double getAverageLatencyMs(ServerInstance server) {
+    ServerStats serverStats = _serverStatsMap.get(server);
+    if (serverStats == null || !serverStats._hasLatency) {
+      return -1;
+    }
+    return serverStats.getAverageLatencyMs(System.currentTimeMillis(), _latencyHalfLifeMs);
+  }
+
+  private synchronized void addToLatencyWindow(long latencyMs) {
+    _latencyWindow[(int) (_numLatencies % LATENCY_WINDOW_SIZE)] = latencyMs;
+    _numLatencies++;
+    if (_numLatencies % HEDGE_DELAY_REFRESH_INTERVAL == 0) {
+      int numValues = (int) Math.min(_numLatencies, LATENCY_WINDOW_SIZE);
+      long[] values = Arrays.copyOf(_latencyWindow, numValues);
+      Arrays.sort(values);
+      int index = Math.min((int) Math.ceil(numValues * _hedgeLatencyPercentile / 100) - 1, numValues - 1);
+      _hedgeDelayMs = Math.max(values[Math.max(index, 0)], _minHedgeDelayMs);
+    }
+  }
+
+  private ServerStats getServerStats(ServerInstance server) {
+    ServerStats serverStats = _serverStatsMap.get(server);
+    if (serverStats == null) {
+      ServerStats newServerStats = new ServerStats();
+      serverStats = _serverStatsMap.putIfAbsent(server, newServerStats);
+      if (serverStats == null) {
+        serverStats = newServerStats;
+      }
+    }
+    return serverStats;
+  }
+
+  private static class ServerStats {
+    private final AtomicInteger _numInFlightRequests = new AtomicInteger();
+    private volatile double _averageLatencyMs;
+    private volatile long _lastUpdateTimeMs;
+    private volatile boolean _hasLatency;
+
+    private synchronized void addLatency(long latencyMs, long currentTimeMs, long latencyHalfLifeMs) {
+      if (_hasLatency) {
+        _averageLatencyMs = DECAY_ALPHA * latencyMs
+            + (1 - DECAY_ALPHA) * getAverageLatencyMs(currentTimeMs, latencyHalfLifeMs);
+      } else {
+        _averageLatencyMs = latencyMs;
+        _hasLatency = true;
+      }
+      _lastUpdateTimeMs = currentTimeMs;
+    }
+
+    /**
+     * Returns the average response time decayed by the time since the last response.
+     */
+    private double getAverageLatencyMs(long currentTimeMs, long latencyHalfLifeMs) {
+      long elapsedTimeMs = currentTimeMs - _lastUpdateTimeMs;
+      if (elapsedTimeMs <= 0) {
+        return _averageLatencyMs;
+      }
+      return _averageLatencyMs * Math.pow(0.5, (double) elapsedTimeMs / latencyHalfLifeMs);
+    }
+
+    private double getScore(long currentTimeMs, long latencyHalfLifeMs) {
+      return (getAverageLatencyMs(currentTimeMs, latencyHalfLifeMs) + 1)
+          * (Math.max(_numInFlightRequests.get(), 0) + 1);
+    }
+  }
+}
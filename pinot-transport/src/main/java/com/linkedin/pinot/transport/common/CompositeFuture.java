@@ -18,6 +18,7 @@ package com.linkedin.pinot.transport.common;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -49,6 +50,19 @@ import org.slf4j.LoggerFactory;
 public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K, V> {
   protected static Logger LOGGER = LoggerFactory.getLogger(CompositeFuture.class);
 
+  /**
+   * Listener of the individual responses of the underlying futures.
+   */
+  public interface ResponseListener<K, V> {
+    /**
+     * Called once for each response, in the thread completing the underlying future. Should not block.
+     *
+     * @param key key of the underlying future.
+     * @param response response of the underlying future.
+     */
+    void onResponse(K key, V response);
+  }
+
   public static enum GatherModeOnError {
     /* Future completes only when all underlying futures complete or any one underlying future fails */
     SHORTCIRCUIT_AND,
@@ -68,6 +82,9 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
 
   private final GatherModeOnError _gatherMode;
 
+  // Listeners notified of each response as soon as it arrives, also used as the lock to deliver responses in order.
+  private final List<ResponseListener<K, V>> _responseListeners = new ArrayList<>();
+
   // Descriptive name of the future
   private final String _name;
 
@@ -106,6 +123,21 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
     }
   }
 
+  /**
+   * Add a listener to be notified of each response as soon as it arrives, without waiting for the other underlying
+   * futures. Responses already received before the listener is added are delivered immediately in the current thread.
+   *
+   * @param responseListener response listener.
+   */
+  public void addResponseListener(ResponseListener<K, V> responseListener) {
+    synchronized (_responseListeners) {
+      _responseListeners.add(responseListener);
+      for (Map.Entry<K, V> entry : _delayedResponseMap.entrySet()) {
+        responseListener.onResponse(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
   /**
    * Call cancel on underlying futures. Dont worry if they are completed.
    * If they are already completed, cancel will be discarded. THis is best-effort only !!.
@@ -188,7 +220,14 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
     boolean ret = false;
     if (null != response) {
       LOGGER.debug("Response from {} is {}", name, response);
-      _delayedResponseMap.putAll(response);
+      synchronized (_responseListeners) {
+        _delayedResponseMap.putAll(response);
+        for (ResponseListener<K, V> responseListener : _responseListeners) {
+          for (Map.Entry<K, V> entry : response.entrySet()) {
+            responseListener.onResponse(entry.getKey(), entry.getValue());
+          }
+        }
+      }
     } else if (null != error) {
       LOGGER.debug("Error from {} is : {}", name, error);
       _errorMap.putAll(error);
@@ -85,4 +85,24 @@ public abstract class ReplicaSelection {
    */
   public abstract ServerInstance selectServer(SegmentId p, List<ServerInstance> orderedServers, Object hashKey);
 
+  /**
+   * Selects a server, distinct from the already selected one, to send a speculative (duplicate) request to.
+   * By default, the first other server in the list is selected.
+   *
+   * @param p The segmentId for which server selection needs to happen
+   * @param orderedServers Ordered list of servers from which a server has to be selected
+   * @param selectedServer Server already selected for the request
+   * @param hashKey bucketKey whose {@link Object#hashCode()} provides hash-based selection
+   * @return server for the speculative request, or null if there is no other server
+   */
+  public ServerInstance selectSpeculativeServer(SegmentId p, List<ServerInstance> orderedServers,
+      ServerInstance selectedServer, Object hashKey) {
+    for (ServerInstance server : orderedServers) {
+      if (!server.equals(selectedServer)) {
+        return server;
+      }
+    }
+    return null;
+  }
+
 }
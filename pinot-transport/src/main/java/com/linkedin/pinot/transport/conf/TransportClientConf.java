@@ -34,17 +34,27 @@ public class TransportClientConf {
   public static final String HELIX_CONFIG = "helix";
   public static final String CONNECTION_POOL_CONFIG = "connPool";
 
+  // Send requests on a small fixed set of multiplexed connections per server instead of the connection pool
+  public static final String MULTIPLEXED_ENABLED_KEY = "multiplexed.enabled";
+  public static final String MULTIPLEXED_CONNECTIONS_PER_SERVER_KEY = "multiplexed.connectionsPerServer";
+
   // TODO: Revisit defaults
   private static final String DEFAULT_ROUTING_MODE = "CONFIG";
+  private static final boolean DEFAULT_MULTIPLEXED_ENABLED = false;
+  private static final int DEFAULT_MULTIPLEXED_CONNECTIONS_PER_SERVER = 2;
 
   private RoutingMode _routingMode;
   private RoutingTableConfig _cfgBasedRouting;
   private ConnectionPoolConfig _connPool;
+  private boolean _multiplexedEnabled;
+  private int _multiplexedConnectionsPerServer;
 
   public TransportClientConf() {
     _routingMode = RoutingMode.valueOf(DEFAULT_ROUTING_MODE);
     _cfgBasedRouting = new RoutingTableConfig();
     _connPool = new ConnectionPoolConfig();
+    _multiplexedEnabled = DEFAULT_MULTIPLEXED_ENABLED;
+    _multiplexedConnectionsPerServer = DEFAULT_MULTIPLEXED_CONNECTIONS_PER_SERVER;
   }
 
   public void init(Configuration cfg) throws ConfigurationException {
@@ -59,6 +69,14 @@ public class TransportClientConf {
     if (connPoolCfg != null) {
       _connPool.init(connPoolCfg);
     }
+
+    _multiplexedEnabled = cfg.getBoolean(MULTIPLEXED_ENABLED_KEY, DEFAULT_MULTIPLEXED_ENABLED);
+    _multiplexedConnectionsPerServer =
+        cfg.getInt(MULTIPLEXED_CONNECTIONS_PER_SERVER_KEY, DEFAULT_MULTIPLEXED_CONNECTIONS_PER_SERVER);
+    if (_multiplexedConnectionsPerServer <= 0) {
+      throw new ConfigurationException(
+          "Invalid value for " + MULTIPLEXED_CONNECTIONS_PER_SERVER_KEY + ": " + _multiplexedConnectionsPerServer);
+    }
   }
 
   public RoutingMode getRoutingMode() {
@@ -72,4 +90,12 @@ public class TransportClientConf {
   public ConnectionPoolConfig getConnPool() {
     return _connPool;
   }
+
+  public boolean isMultiplexedEnabled() {
+    return _multiplexedEnabled;
+  }
+
+  public int getMultiplexedConnectionsPerServer() {
+    return _multiplexedConnectionsPerServer;
+  }
 }
@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.netty;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.transport.metrics.NettyClientMetrics;
+import com.linkedin.pinot.transport.netty.NettyClientConnection.ResponseFuture;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.Timer;
+import java.net.ConnectException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Fixed set of {@link MultiplexedNettyClientConnection}s per server, shared by all the in-flight requests.
+ *
+ * Requests to a server are spread over its connections in a round-robin fashion. Connections are created lazily on
+ * first use, and re-created on the next request once they become invalid (e.g. server restarted).
+ *
+ * This class is thread-safe.
+ */
+public class MultiplexedConnectionPool {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MultiplexedConnectionPool.class);
+
+  private final EventLoopGroup _eventLoopGroup;
+  private final Timer _timer;
+  private final NettyClientMetrics _clientMetrics;
+  private final int _numConnectionsPerServer;
+  private final ConcurrentHashMap<ServerInstance, ServerConnections> _serverConnectionsMap = new ConcurrentHashMap<>();
+
+  public MultiplexedConnectionPool(EventLoopGroup eventLoopGroup, Timer timer, NettyClientMetrics clientMetrics,
+      int numConnectionsPerServer) {
+    Preconditions.checkArgument(numConnectionsPerServer > 0, "Number of connections per server must be positive");
+    _eventLoopGroup = eventLoopGroup;
+    _timer = timer;
+    _clientMetrics = clientMetrics;
+    _numConnectionsPerServer = numConnectionsPerServer;
+  }
+
+  /**
+   * Send a request to the server on one of its connections.
+   *
+   * @param server Server to send the request to
+   * @param serializedRequest serialized payload to send the request
+   * @param requestId Request Id
+   * @param timeoutMs Timeout in milli-seconds. If timeout &lt; 0, then no timeout
+   * @return Future to return the response returned from the server, or an error future if not able to connect.
+   */
+  public ResponseFuture sendRequest(ServerInstance server, ByteBuf serializedRequest, long requestId, long timeoutMs) {
+    MultiplexedNettyClientConnection connection = getConnection(server);
+    if (connection == null) {
+      return new ResponseFuture(server, new ConnectException("Could not connect to server " + server),
+          "Error Future for request " + requestId);
+    }
+    return connection.sendRequest(serializedRequest, requestId, timeoutMs);
+  }
+
+  /**
+   * Returns a valid connection to the server, or null if not able to connect.
+   */
+  MultiplexedNettyClientConnection getConnection(ServerInstance server) {
+    ServerConnections serverConnections = _serverConnectionsMap.get(server);
+    if (serverConnections == null) {
+      ServerConnections newServerConnections = new ServerConnections(_numConnectionsPerServer);
+      serverConnections = _serverConnectionsMap.putIfAbsent(server, newServerConnections);
+      if (serverConnections == null) {
+        serverConnections = newServerConnections;
+      }
+    }
+
+    int index = (serverConnections._nextIndex.getAndIncrement() & Integer.MAX_VALUE) % _numConnectionsPerServer;
+    MultiplexedNettyClientConnection connection = serverConnections._connections.get(index);
+    if (connection != null && connection.validate()) {
+      return connection;
+    }
+
+    // Only one thread (re-)creates the connection in the slot, others wait for it.
+    synchronized (serverConnections) {
+      connection = serverConnections._connections.get(index);
+      if (connection != null && connection.validate()) {
+        return connection;
+      }
+      if (connection != null) {
+        LOGGER.info("Replacing invalid connection {}", connection);
+        closeQuietly(connection);
+      }
+      connection = new MultiplexedNettyClientConnection(server, _eventLoopGroup, _timer, _clientMetrics);
+      if (!connection.connect()) {
+        closeQuietly(connection);
+        serverConnections._connections.set(index, null);
+        return null;
+      }
+      serverConnections._connections.set(index, connection);
+      return connection;
+    }
+  }
+
+  /**
+   * Close all the connections.
+   */
+  public void shutdown() {
+    for (ServerConnections serverConnections : _serverConnectionsMap.values()) {
+      for (int i = 0; i < _numConnectionsPerServer; i++) {
+        MultiplexedNettyClientConnection connection = serverConnections._connections.getAndSet(i, null);
+        if (connection != null) {
+          closeQuietly(connection);
+        }
+      }
+    }
+    _serverConnectionsMap.clear();
+  }
+
+  private static void closeQuietly(MultiplexedNettyClientConnection connection) {
+    try {
+      connection.close();
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while closing connection {}", connection, e);
+    }
+  }
+
+  private static class ServerConnections {
+    private final AtomicReferenceArray<MultiplexedNettyClientConnection> _connections;
+    private final AtomicInteger _nextIndex = new AtomicInteger();
+
+    private ServerConnections(int numConnections) {
+      _connections = new AtomicReferenceArray<>(numConnections);
+    }
+  }
+}
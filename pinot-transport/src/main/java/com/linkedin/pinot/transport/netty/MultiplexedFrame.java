@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+
+/**
+ * Frame header used by multiplexed connections, on which many requests can be in flight at the same time.
+ *
+ * Request and Response have the following format (the length field is added/removed by the frame codec)
+ *
+ * 0                                                         31
+ * ------------------------------------------------------------
+ * |                  Length ( 32 bits)                       |
+ * |                  Magic ( 32 bits)                        |
+ * |                  Request Id ( 64 bits)                   |
+ * |                                                          |
+ * |                 Payload (Request/Response)               |
+ * |                    ...............                       |
+ * ------------------------------------------------------------
+ *
+ * The first byte of the magic is not a valid first byte of a Thrift compact protocol struct, so the server can tell
+ * multiplexed frames apart from the legacy (one request per connection at a time) frames, and serve both.
+ */
+public class MultiplexedFrame {
+  private MultiplexedFrame() {
+  }
+
+  // "PNMX"
+  public static final int MAGIC = 0x504E4D58;
+  public static final int HEADER_SIZE = 12;
+
+  /**
+   * Returns whether the readable bytes of the given frame start with the multiplexed frame header.
+   */
+  public static boolean isMultiplexed(ByteBuf frame) {
+    return frame.readableBytes() >= HEADER_SIZE && frame.getInt(frame.readerIndex()) == MAGIC;
+  }
+
+  /**
+   * Consume the header of a multiplexed frame and return its request id. Afterwards, the readable bytes of the frame
+   * are the payload.
+   */
+  public static long readRequestId(ByteBuf frame) {
+    frame.skipBytes(4);
+    return frame.readLong();
+  }
+
+  /**
+   * Prepend the multiplexed frame header to the payload without copying it.
+   */
+  public static ByteBuf encode(long requestId, ByteBuf payload) {
+    ByteBuf header = Unpooled.buffer(HEADER_SIZE);
+    header.writeInt(MAGIC);
+    header.writeLong(requestId);
+    return Unpooled.wrappedBuffer(header, payload);
+  }
+}
@@ -0,0 +1,312 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.netty;
+
+import com.linkedin.pinot.common.metrics.MetricsHelper;
+import com.linkedin.pinot.common.metrics.MetricsHelper.TimerContext;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.transport.metrics.NettyClientMetrics;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import java.net.ConnectException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * TCP based Netty Client Connection on which many requests can be in flight at the same time.
+ *
+ * Each request is sent in {@link MultiplexedFrame} format with a request id unique within the connection, and the
+ * response (which carries back the same id) is dispatched to the matching {@link ResponseFuture} on the Netty event
+ * loop. Unlike {@link NettyTCPClientConnection}, a request timing out only fails its own future, and does not close
+ * the connection. Any channel error fails all the outstanding requests and invalidates the connection.
+ *
+ * This class is thread-safe.
+ */
+public class MultiplexedNettyClientConnection extends NettyClientConnection {
+  // Connection Id generator
+  private static final AtomicLong _connIdGen = new AtomicLong(0);
+
+  private final NettyClientMetrics _clientMetric;
+
+  // Request id (unique within the connection) generator
+  private final AtomicLong _requestIdGen = new AtomicLong(0);
+
+  // Outstanding requests keyed by request id within the connection
+  private final Map<Long, OutstandingRequest> _outstandingRequests = new ConcurrentHashMap<>();
+
+  // Channel Setting notification
+  private final CountDownLatch _channelSet = new CountDownLatch(1);
+
+  public MultiplexedNettyClientConnection(ServerInstance server, EventLoopGroup eventGroup, Timer timer,
+      NettyClientMetrics metric) {
+    super(server, eventGroup, timer, _connIdGen.incrementAndGet());
+    _clientMetric = metric;
+    _bootstrap = new Bootstrap();
+    _bootstrap.group(_eventGroup)
+        .channel(NioSocketChannel.class)
+        .handler(new ChannelHandlerInitializer(new MultiplexedClientConnectionHandler()));
+  }
+
+  @Override
+  public boolean connect() {
+    try {
+      // Connect synchronously, and wait for channelActive() to set the channel
+      TimerContext t = MetricsHelper.startTimer();
+      ChannelFuture f = _bootstrap.connect(_server.getHostname(), _server.getPort()).sync();
+      f.get();
+      _channelSet.await();
+      t.stop();
+
+      _connState = State.CONNECTED;
+      _clientMetric.addConnectStats(t.getLatencyMs());
+      return true;
+    } catch (Exception e) {
+      if (e instanceof ConnectException && e.getMessage() != null && e.getMessage().startsWith("Connection refused")) {
+        // Most common case when a server is down. Don't print the entire stack and fill the logs.
+        LOGGER.error("Could not connect to server {}:{} connId:{}", _server, e.getMessage(), getConnId());
+      } else {
+        LOGGER.error("Got exception when connecting to server {} connId {}", _server, getConnId(), e);
+      }
+    }
+    _connState = State.ERROR;
+    return false;
+  }
+
+  @Override
+  public boolean validate() {
+    return _connState == State.CONNECTED && super.validate();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Can be called concurrently from multiple threads.
+   */
+  @Override
+  public ResponseFuture sendRequest(ByteBuf serializedRequest, long requestId, long timeoutMs) {
+    final long connRequestId = _requestIdGen.incrementAndGet();
+    final OutstandingRequest outstandingRequest = new OutstandingRequest(
+        new ResponseFuture(_server, "Response Future for request " + requestId + " to server " + _server + " connId "
+            + getConnId()), requestId, serializedRequest.readableBytes());
+    if (!validate()) {
+      outstandingRequest._responseFuture.onError(
+          new IllegalStateException("Connection to server " + _server + " connId " + getConnId() + " is not valid"));
+      return outstandingRequest._responseFuture;
+    }
+
+    _outstandingRequests.put(connRequestId, outstandingRequest);
+    if (timeoutMs >= 0) {
+      // If the response already arrived, the timer task will be a no-op
+      outstandingRequest._timeout =
+          _timer.newTimeout(new RequestTimeoutHandler(connRequestId), timeoutMs, TimeUnit.MILLISECONDS);
+    }
+    _channel.writeAndFlush(MultiplexedFrame.encode(connRequestId, serializedRequest))
+        .addListener(new ChannelFutureListener() {
+          @Override
+          public void operationComplete(ChannelFuture future)
+              throws Exception {
+            outstandingRequest._sendRequestLatency.stop();
+            if (!future.isSuccess()) {
+              LOGGER.error("Got exception sending the request ({}) to server ({}) id {}", outstandingRequest._requestId,
+                  _server, getConnId(), future.cause());
+              failRequest(connRequestId, future.cause());
+            }
+          }
+        });
+    return outstandingRequest._responseFuture;
+  }
+
+  /**
+   * Returns the number of requests waiting for response on this connection.
+   */
+  public int getNumOutstandingRequests() {
+    return _outstandingRequests.size();
+  }
+
+  @Override
+  public void close()
+      throws InterruptedException {
+    LOGGER.info("Closing multiplexed client channel to {} connId {}", _server, getConnId());
+    _connState = State.ERROR;
+    if (null != _channel) {
+      _channel.close().sync();
+    }
+    failAllRequests(new Exception("Connection to server " + _server + " connId " + getConnId() + " is closed"));
+  }
+
+  private void failRequest(long connRequestId, Throwable cause) {
+    OutstandingRequest outstandingRequest = _outstandingRequests.remove(connRequestId);
+    if (outstandingRequest != null) {
+      outstandingRequest.cancelTimeout();
+      outstandingRequest._responseFuture.onError(cause);
+      _clientMetric.addRequestResponseStats(outstandingRequest._requestSizeInBytes, 1, 0, true,
+          outstandingRequest._sendRequestLatency.getLatencyMs(), outstandingRequest._responseLatency.getLatencyMs());
+    }
+  }
+
+  private void failAllRequests(Throwable cause) {
+    Iterator<Long> iterator = _outstandingRequests.keySet().iterator();
+    while (iterator.hasNext()) {
+      failRequest(iterator.next(), cause);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "Server:" + _server + ",State:" + _connState + ",connId:" + getConnId() + ",outstandingRequests:"
+        + _outstandingRequests.size();
+  }
+
+  private static class OutstandingRequest {
+    private final ResponseFuture _responseFuture;
+    private final long _requestId;
+    private final long _requestSizeInBytes;
+    private final TimerContext _sendRequestLatency = MetricsHelper.startTimer();
+    private final TimerContext _responseLatency = MetricsHelper.startTimer();
+    private volatile Timeout _timeout;
+
+    private OutstandingRequest(ResponseFuture responseFuture, long requestId, long requestSizeInBytes) {
+      _responseFuture = responseFuture;
+      _requestId = requestId;
+      _requestSizeInBytes = requestSizeInBytes;
+    }
+
+    private void cancelTimeout() {
+      Timeout timeout = _timeout;
+      if (timeout != null) {
+        timeout.cancel();
+      }
+      _responseLatency.stop();
+    }
+  }
+
+  /**
+   * Channel Handler for incoming responses, executed on the Netty event loop.
+   */
+  private class MultiplexedClientConnectionHandler extends ChannelInboundHandlerAdapter {
+    @Override
+    public void channelActive(ChannelHandlerContext ctx)
+        throws Exception {
+      LOGGER.info("Multiplexed client channel to server ({}) (id = {}) is active.", _server, getConnId());
+      _channel = ctx.channel();
+      _channelSet.countDown();
+      super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx)
+        throws Exception {
+      LOGGER.info("Multiplexed client channel to server ({}) (id = {}) in inactive state (closed).", _server,
+          getConnId());
+      _connState = State.ERROR;
+      failAllRequests(new Exception("Client Channel to server (" + _server + ") is in inactive state (closed) !!"));
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+      ByteBuf response = (ByteBuf) msg;
+      if (!MultiplexedFrame.isMultiplexed(response)) {
+        // The server does not support multiplexed frames, no response can be matched with its request
+        response.release();
+        exceptionCaught(ctx, new IllegalStateException("Got non-multiplexed response from server " + _server));
+        return;
+      }
+      long connRequestId = MultiplexedFrame.readRequestId(response);
+      OutstandingRequest outstandingRequest = _outstandingRequests.remove(connRequestId);
+      if (outstandingRequest == null) {
+        LOGGER.warn("Dropping response for timed-out request id {} from server {} connId {}", connRequestId, _server,
+            getConnId());
+        response.release();
+        return;
+      }
+      outstandingRequest.cancelTimeout();
+      long responseSizeInBytes = response.readableBytes();
+      outstandingRequest._responseFuture.onSuccess(response);
+      _clientMetric.addRequestResponseStats(outstandingRequest._requestSizeInBytes, 1, responseSizeInBytes, false,
+          outstandingRequest._sendRequestLatency.getLatencyMs(), outstandingRequest._responseLatency.getLatencyMs());
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+      LOGGER.error("Got exception in the multiplexed channel to {}, connId {}", _server, getConnId(), cause);
+      _connState = State.ERROR;
+      failAllRequests(cause);
+      ctx.close();
+    }
+  }
+
+  /**
+   * Netty Client Channel Initializer responsible for setting the pipeline
+   */
+  private static class ChannelHandlerInitializer extends ChannelInitializer<SocketChannel> {
+    private final MultiplexedClientConnectionHandler _handler;
+
+    private ChannelHandlerInitializer(MultiplexedClientConnectionHandler handler) {
+      _handler = handler;
+    }
+
+    @Override
+    protected void initChannel(SocketChannel ch)
+        throws Exception {
+      ChannelPipeline pipeline = ch.pipeline();
+      pipeline.addLast("decoder", new LengthFieldBasedFrameDecoder(Integer.MAX_VALUE, 0, 4, 0, 4));
+      pipeline.addLast("encoder", new LengthFieldPrepender(4));
+      pipeline.addLast("handler", _handler);
+    }
+  }
+
+  /**
+   * Timer task responsible for failing a single request on timeout
+   */
+  private class RequestTimeoutHandler implements TimerTask {
+    private final long _connRequestId;
+
+    private RequestTimeoutHandler(long connRequestId) {
+      _connRequestId = connRequestId;
+    }
+
+    @Override
+    public void run(Timeout timeout)
+        throws Exception {
+      OutstandingRequest outstandingRequest = _outstandingRequests.get(_connRequestId);
+      if (outstandingRequest != null) {
+        String message = "Request (" + outstandingRequest._requestId + ") to server " + _server + " connId "
+            + getConnId() + " timed-out waiting for response";
+        LOGGER.error(message);
+        failRequest(_connRequestId, new Exception(message));
+      }
+    }
+  }
+}
@@ -175,6 +175,9 @@ public abstract class NettyServer implements Runnable {
    * |                    ...............                       |
    * |                    ...............                       |
    * ------------------------------------------------------------
+   *
+   * Requests can also come in {@link MultiplexedFrame} format, in which case the response is sent back with the same
+   * request id, so that the client can match it with the request.
    */
   public static class NettyChannelInboundHandler extends ChannelInboundHandlerAdapter {
     private final long _defaultLargeQueryLatencyMs;
@@ -198,6 +201,8 @@ public abstract class NettyServer implements Runnable {
 
       final ByteBuf request = (ByteBuf) msg;
       final long requestSizeInBytes = request.readableBytes();
+      final boolean isMultiplexed = MultiplexedFrame.isMultiplexed(request);
+      final long multiplexedRequestId = isMultiplexed ? MultiplexedFrame.readRequestId(request) : 0L;
 
       //Call processing handler
       final TimerContext requestProcessingLatency = MetricsHelper.startTimer();
@@ -208,7 +213,10 @@ public abstract class NettyServer implements Runnable {
           requestProcessingLatency.stop();
 
           // Send Response
-          final ByteBuf responseBuf = Unpooled.wrappedBuffer(result);
+          ByteBuf responseBuf = Unpooled.wrappedBuffer(result);
+          if (isMultiplexed) {
+            responseBuf = MultiplexedFrame.encode(multiplexedRequestId, responseBuf);
+          }
           final TimerContext responseSendLatency = MetricsHelper.startTimer();
           ChannelFuture f = requestChannelHandlerContext.writeAndFlush(responseBuf);
           f.addListener(new ChannelFutureListener() {
@@ -22,6 +22,7 @@ import com.linkedin.pinot.common.metrics.MetricsHelper;
 import com.linkedin.pinot.common.metrics.MetricsHelper.TimerContext;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.transport.common.AdaptiveReplicaSelection;
 import com.linkedin.pinot.transport.common.CompositeFuture;
 import com.linkedin.pinot.transport.common.CompositeFuture.GatherModeOnError;
 import com.linkedin.pinot.transport.common.KeyedFuture;
@@ -29,6 +30,7 @@ import com.linkedin.pinot.transport.common.ReplicaSelection;
 import com.linkedin.pinot.transport.common.ReplicaSelectionGranularity;
 import com.linkedin.pinot.transport.common.SegmentId;
 import com.linkedin.pinot.transport.common.SegmentIdSet;
+import com.linkedin.pinot.transport.netty.MultiplexedConnectionPool;
 import com.linkedin.pinot.transport.netty.NettyClientConnection;
 import com.linkedin.pinot.transport.netty.NettyClientConnection.ResponseFuture;
 import com.linkedin.pinot.transport.pool.KeyedPool;
@@ -44,6 +46,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -72,9 +75,40 @@ public class ScatterGatherImpl implements ScatterGather {
    */
   private final KeyedPool<ServerInstance, NettyClientConnection> _connPool;
 
+  /**
+   * Multiplexed connections for sending scatter-gather requests, null if not enabled
+   */
+  private final MultiplexedConnectionPool _multiplexedConnPool;
+
+  /**
+   * Scheduler for sending speculative requests, null if not enabled
+   */
+  private final ScheduledExecutorService _speculativeRequestScheduler;
+
   public ScatterGatherImpl(KeyedPool<ServerInstance, NettyClientConnection> pool, ExecutorService service) {
+    this(pool, null, service);
+  }
+
+  /**
+   * If the multiplexed connection pool is provided, requests are sent on the multiplexed connections instead of
+   * checking out a connection from the keyed pool for each request.
+   */
+  public ScatterGatherImpl(KeyedPool<ServerInstance, NettyClientConnection> pool,
+      @Nullable MultiplexedConnectionPool multiplexedPool, ExecutorService service) {
+    this(pool, multiplexedPool, service, null);
+  }
+
+  /**
+   * If the speculative request scheduler is provided, speculative requests are sent for the requests asking for them
+   * (see {@link ScatterGatherRequest#getNumSpeculativeRequests()}).
+   */
+  public ScatterGatherImpl(KeyedPool<ServerInstance, NettyClientConnection> pool,
+      @Nullable MultiplexedConnectionPool multiplexedPool, ExecutorService service,
+      @Nullable ScheduledExecutorService speculativeRequestScheduler) {
     _connPool = pool;
+    _multiplexedConnPool = multiplexedPool;
     _executorService = service;
+    _speculativeRequestScheduler = speculativeRequestScheduler;
   }
 
   @Nonnull
@@ -140,8 +174,8 @@ public class ScatterGatherImpl implements ScatterGather {
       }
       scatterGatherStats.initServer(serverName);
       SingleRequestHandler handler =
-          new SingleRequestHandler(_connPool, server, ctxt.getRequest(), e.getValue(), ctxt.getTimeRemaining(),
-              requestDispatchLatch, brokerMetrics);
+          new SingleRequestHandler(_connPool, _multiplexedConnPool, server, ctxt.getRequest(), e.getValue(),
+              ctxt.getTimeRemaining(), requestDispatchLatch, brokerMetrics);
       // Submit to thread-pool for checking-out and sending request
       _executorService.submit(handler);
       handlers.add(handler);
@@ -159,7 +193,7 @@ public class ScatterGatherImpl implements ScatterGather {
       List<KeyedFuture<ServerInstance, ByteBuf>> responseFutures =
           new ArrayList<KeyedFuture<ServerInstance, ByteBuf>>();
       for (SingleRequestHandler h : handlers) {
-        responseFutures.add(h.getResponseFuture());
+        responseFutures.add(getResponseFuture(ctxt, h, brokerMetrics));
         String serverName = h.getServer().toString();
         if (isOfflineTable != null) {
           if (isOfflineTable) {
@@ -190,6 +224,31 @@ public class ScatterGatherImpl implements ScatterGather {
     return response;
   }
 
+  /**
+   * Returns the response future for the request sent by the handler, wrapped in a {@link SpeculativeResponseFuture}
+   * if a speculative server is selected for the request.
+   */
+  private KeyedFuture<ServerInstance, ByteBuf> getResponseFuture(ScatterGatherRequestContext ctxt,
+      SingleRequestHandler handler, BrokerMetrics brokerMetrics) {
+    ResponseFuture responseFuture = handler.getResponseFuture();
+    ServerInstance speculativeServer = ctxt.getSpeculativeServers().get(handler.getServer());
+    ReplicaSelection replicaSelection = ctxt.getRequest().getReplicaSelection();
+    if (speculativeServer == null || _speculativeRequestScheduler == null
+        || !(replicaSelection instanceof AdaptiveReplicaSelection) || responseFuture.isDone()) {
+      return responseFuture;
+    }
+    SingleRequestHandler speculativeRequestHandler =
+        new SingleRequestHandler(_connPool, _multiplexedConnPool, speculativeServer, ctxt.getRequest(),
+            ctxt.getSelectedServers().get(handler.getServer()), ctxt.getTimeRemaining(), new CountDownLatch(1),
+            brokerMetrics);
+    SpeculativeResponseFuture speculativeResponseFuture =
+        new SpeculativeResponseFuture(handler.getServer(), responseFuture, speculativeRequestHandler,
+            _executorService);
+    speculativeResponseFuture.start(_speculativeRequestScheduler,
+        ((AdaptiveReplicaSelection) replicaSelection).getHedgeDelayMs());
+    return speculativeResponseFuture;
+  }
+
   /**
    * Merge segment-sets which have the same set of servers. If 2 segmentIds have overlapping
    * set of servers, they are not merged. If there is predefined-selection for a segmentId,
@@ -199,15 +258,55 @@ public class ScatterGatherImpl implements ScatterGather {
   protected void buildInvertedMap(ScatterGatherRequestContext requestContext) {
     ScatterGatherRequest request = requestContext.getRequest();
     Map<ServerInstance, SegmentIdSet> segmentIdToInstanceMap = request.getSegmentsServicesMap();
+    Map<String, List<ServerInstance>> segmentReplicasMap = request.getSegmentReplicasMap();
 
     Map<List<ServerInstance>, SegmentIdSet> instanceToSegmentMap = new HashMap<List<ServerInstance>, SegmentIdSet>();
 
     for (ServerInstance serverInstance : segmentIdToInstanceMap.keySet()) {
-      instanceToSegmentMap.put(Arrays.asList(serverInstance), segmentIdToInstanceMap.get(serverInstance));
+      SegmentIdSet segmentIdSet = segmentIdToInstanceMap.get(serverInstance);
+      if (segmentReplicasMap == null) {
+        instanceToSegmentMap.put(Arrays.asList(serverInstance), segmentIdSet);
+      } else {
+        mergePartitionGroup(instanceToSegmentMap, getReplicas(serverInstance, segmentIdSet, segmentReplicasMap),
+            segmentIdSet);
+      }
     }
     requestContext.setInvertedMap(instanceToSegmentMap);
   }
 
+  /**
+   * Returns the servers hosting all the segments in the segment-set, starting with the server it is mapped to.
+   */
+  private static List<ServerInstance> getReplicas(ServerInstance serverInstance, SegmentIdSet segmentIdSet,
+      Map<String, List<ServerInstance>> segmentReplicasMap) {
+    List<ServerInstance> replicas = null;
+    for (SegmentId segmentId : segmentIdSet.getSegments()) {
+      List<ServerInstance> segmentReplicas = segmentReplicasMap.get(segmentId.getSegmentId());
+      if (segmentReplicas == null) {
+        return Arrays.asList(serverInstance);
+      }
+      if (replicas == null) {
+        replicas = new ArrayList<ServerInstance>(segmentReplicas.size());
+        replicas.add(serverInstance);
+        for (ServerInstance replica : segmentReplicas) {
+          if (!replica.equals(serverInstance)) {
+            replicas.add(replica);
+          }
+        }
+      } else {
+        replicas.retainAll(segmentReplicas);
+      }
+      if (!replicas.contains(serverInstance)) {
+        // Inconsistent replica info, stick to the mapped server
+        return Arrays.asList(serverInstance);
+      }
+      if (replicas.size() == 1) {
+        return replicas;
+      }
+    }
+    return replicas != null ? replicas : Arrays.asList(serverInstance);
+  }
+
   private <T> void mergePartitionGroup(Map<T, SegmentIdSet> instanceToSegmentMap, T instances, SegmentIdSet pg) {
 
     SegmentIdSet pg2 = instanceToSegmentMap.get(instances);
@@ -248,35 +347,33 @@ public class ScatterGatherImpl implements ScatterGather {
     Map<ServerInstance, SegmentIdSet> selectedServers = new HashMap<ServerInstance, SegmentIdSet>();
     ScatterGatherRequest request = requestContext.getRequest();
     Map<List<ServerInstance>, SegmentIdSet> instanceToSegmentMap = requestContext.getInvertedMap();
-    //int numDuplicateRequests = request.getNumSpeculativeRequests();
     ReplicaSelection selection = request.getReplicaSelection();
+    boolean sendSpeculativeRequests = request.getNumSpeculativeRequests() > 0;
+    Map<ServerInstance, ServerInstance> speculativeServers = new HashMap<ServerInstance, ServerInstance>();
     for (Entry<List<ServerInstance>, SegmentIdSet> e : instanceToSegmentMap.entrySet()) {
-      ServerInstance s = selection.selectServer(e.getValue().getOneSegment(), e.getKey(), request.getHashKey());
+      SegmentId segmentId = e.getValue().getOneSegment();
+      ServerInstance s = selection.selectServer(segmentId, e.getKey(), request.getHashKey());
+      boolean isNewServer = !selectedServers.containsKey(s);
       mergePartitionGroup(selectedServers, s, e.getValue());
 
       /**
-       * TODO:
-       * We can easily add speculative execution here. The below code will pick a distinct server
-       * for the segmentId, This entry needs to be maintained in a separate container in ScatterGatherRequestContext
-       * Then in sndRequest, we need to construct SelectingFuture for the pairs of Future corresponding to original
-       * and speculative(duplicate) request.
-       *
-       int numServers = e.getKey().size();
-
-      // Pick Unique servers for speculative request
-      int numIterations = Math.min(numServers - 1, numDuplicateRequests);
-      for (int i = 0, c = 0; i < numIterations; i++, c++)
-      {
-        ServerInstance s1 = e.getKey().get(c);
-        if ( s.equals(s1))
-        {
-          c++;
-          s1 = e.getKey().get(c);
+       * Pick a distinct server for the speculative request. When several segment-sets are merged into the same
+       * selected server, the speculative request can only be sent if they picked the same speculative server.
+       */
+      if (sendSpeculativeRequests) {
+        ServerInstance s1 = (e.getKey().size() > 1) ? selection.selectSpeculativeServer(segmentId, e.getKey(), s,
+            request.getHashKey()) : null;
+        if (isNewServer) {
+          speculativeServers.put(s, s1);
+        } else if (s1 == null || !s1.equals(speculativeServers.get(s))) {
+          speculativeServers.put(s, null);
         }
-        mergePartitionGroup(selectedServers, s1, e.getValue());
-        //TODO: speculative servers need to be maintained in a separate entry in ScatterGatherRequestContext
       }
-       **/
+    }
+    for (Entry<ServerInstance, ServerInstance> entry : speculativeServers.entrySet()) {
+      if (entry.getValue() != null) {
+        requestContext.getSpeculativeServers().put(entry.getKey(), entry.getValue());
+      }
     }
     requestContext.setSelectedServers(selectedServers);
   }
@@ -319,6 +416,10 @@ public class ScatterGatherImpl implements ScatterGather {
 
     private Map<ServerInstance, SegmentIdSet> _selectedServers;
 
+    // Selected server to speculative server map
+    private final Map<ServerInstance, ServerInstance> _speculativeServers =
+        new HashMap<ServerInstance, ServerInstance>();
+
     protected ScatterGatherRequestContext(ScatterGatherRequest request) {
       _request = request;
       _startTimeMs = System.currentTimeMillis();
@@ -344,6 +445,10 @@ public class ScatterGatherImpl implements ScatterGather {
       _selectedServers = selectedServers;
     }
 
+    public Map<ServerInstance, ServerInstance> getSpeculativeServers() {
+      return _speculativeServers;
+    }
+
     @Override
     public String toString() {
       return "ScatterGatherRequestContext [_request=" + _request + ", _invertedMap=" + _invertedMap
@@ -386,6 +491,9 @@ public class ScatterGatherImpl implements ScatterGather {
     // Connection Pool: Used if we need to checkin/destroy object in case of timeout
     private final KeyedPool<ServerInstance, NettyClientConnection> _connPool;
 
+    // Multiplexed connections: If not null, used instead of checking out a connection from the pool
+    private final MultiplexedConnectionPool _multiplexedConnPool;
+
     // Track if request has been dispatched
     private final AtomicBoolean _isSent = new AtomicBoolean(false);
 
@@ -403,7 +511,14 @@ public class ScatterGatherImpl implements ScatterGather {
     public SingleRequestHandler(KeyedPool<ServerInstance, NettyClientConnection> connPool, ServerInstance server,
         ScatterGatherRequest request, SegmentIdSet segmentIds, long timeoutMS, CountDownLatch latch,
         final BrokerMetrics brokerMetrics) {
+      this(connPool, null, server, request, segmentIds, timeoutMS, latch, brokerMetrics);
+    }
+
+    public SingleRequestHandler(KeyedPool<ServerInstance, NettyClientConnection> connPool,
+        @Nullable MultiplexedConnectionPool multiplexedConnPool, ServerInstance server, ScatterGatherRequest request,
+        SegmentIdSet segmentIds, long timeoutMS, CountDownLatch latch, final BrokerMetrics brokerMetrics) {
       _connPool = connPool;
+      _multiplexedConnPool = multiplexedConnPool;
       _server = server;
       _request = request;
       _segmentIds = segmentIds;
@@ -415,12 +530,40 @@ public class ScatterGatherImpl implements ScatterGather {
 
     @Override
     public synchronized void run() {
+      ReplicaSelection replicaSelection = _request.getReplicaSelection();
+      AdaptiveReplicaSelection adaptiveReplicaSelection = null;
+      if (replicaSelection instanceof AdaptiveReplicaSelection) {
+        adaptiveReplicaSelection = (AdaptiveReplicaSelection) replicaSelection;
+        adaptiveReplicaSelection.onRequestSent(_server);
+      }
       try {
         _startTime = System.currentTimeMillis();
         runInternal();
       } finally {
         _endTime = System.currentTimeMillis();
+        if (adaptiveReplicaSelection != null) {
+          addResponseStatsListener(adaptiveReplicaSelection);
+        }
+      }
+    }
+
+    /**
+     * Feed the response time of the server back to the adaptive replica selection once the response arrives.
+     */
+    private void addResponseStatsListener(final AdaptiveReplicaSelection adaptiveReplicaSelection) {
+      final ResponseFuture responseFuture = _responseFuture;
+      if (responseFuture == null) {
+        adaptiveReplicaSelection.onResponse(_server, 0L, true);
+        return;
       }
+      responseFuture.addListener(new Runnable() {
+        @Override
+        public void run() {
+          boolean isError = responseFuture.isCancelled() || (responseFuture.getError() != null && !responseFuture
+              .getError().isEmpty());
+          adaptiveReplicaSelection.onResponse(_server, Math.max(responseFuture.getDurationMillis(), 0L), isError);
+        }
+      }, null);
     }
 
     public long getConnStartTimeMillis() {
@@ -444,6 +587,11 @@ public class ScatterGatherImpl implements ScatterGather {
         return;
       }
 
+      if (_multiplexedConnPool != null) {
+        sendMultiplexedRequest();
+        return;
+      }
+
       NettyClientConnection conn = null;
       KeyedFuture<ServerInstance, NettyClientConnection> keyedFuture = null;
       boolean gotConnection = false;
@@ -524,6 +672,33 @@ public class ScatterGatherImpl implements ScatterGather {
       }
     }
 
+    /**
+     * Send the request on one of the shared multiplexed connections to the server. No connection is checked out, so
+     * there is no wait for a free connection.
+     */
+    private void sendMultiplexedRequest() {
+      boolean error = true;
+      try {
+        byte[] serializedRequest = _request.getRequestForService(_server, _segmentIds);
+        long timeRemainingMillis = _timeoutMS - (System.currentTimeMillis() - _startTime);
+        _responseFuture = _multiplexedConnPool.sendRequest(_server, Unpooled.wrappedBuffer(serializedRequest),
+            _request.getRequestId(), timeRemainingMillis);
+        _isSent.set(true);
+        LOGGER.debug("Response Future is : {}", _responseFuture);
+        error = false;
+      } catch (Exception e) {
+        LOGGER.error("Got exception sending multiplexed request ({}) to server ({}). Setting error future",
+            _request.getRequestId(), _server, e);
+        _responseFuture = new ResponseFuture(_server, e, "Error Future for request " + _request.getRequestId());
+      } finally {
+        _requestDispatchLatch.countDown();
+        if (error) {
+          BrokerRequest brokerRequest = (BrokerRequest) _request.getBrokerRequest();
+          _brokerMetrics.addMeteredQueryValue(brokerRequest, BrokerMeter.REQUEST_DROPPED_DUE_TO_SEND_ERROR, 1);
+        }
+      }
+    }
+
     /**
      * Cancel checking-out request if possible. If in unsafe state (request already sent),
      * discard the connection from the pool.
@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.transport.scattergather;
 
+import java.util.List;
 import java.util.Map;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.response.ServerInstance;
@@ -40,6 +41,15 @@ public interface ScatterGatherRequest {
    */
   public Map<ServerInstance, SegmentIdSet> getSegmentsServicesMap();
 
+  /**
+   * Return all the servers hosting each segment (keyed by segment name). Used to find the replicas that can serve a
+   * segment-set in place of the server it is mapped to in {@link #getSegmentsServicesMap()}, for replica selection
+   * and speculative requests. Can return null, in which case each segment-set is sent to the server it is mapped to.
+   *
+   * @return Segment name to servers map, or null.
+   */
+  public Map<String, List<ServerInstance>> getSegmentReplicasMap();
+
   /**
    * Return the requests that will be sent to the service which is hosting a group of interested segments
    * @param service Service to which segments will be sent.
@@ -74,7 +84,9 @@ public interface ScatterGatherRequest {
    * to be sent foe each scattered request. To turn off speculative requests, this method should
    * return 0.
    *
-   * TODO: Currently Not implemented
+   * Currently at most one speculative request is sent, and only if the replica selection is an
+   * {@link com.linkedin.pinot.transport.common.AdaptiveReplicaSelection}, which provides the delay after which the
+   * speculative request is sent if the response is not back yet.
    */
   public int getNumSpeculativeRequests();
 
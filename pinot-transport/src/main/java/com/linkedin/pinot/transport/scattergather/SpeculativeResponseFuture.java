@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.scattergather;
+
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.transport.common.Cancellable;
+import com.linkedin.pinot.transport.netty.NettyClientConnection.ResponseFuture;
+import com.linkedin.pinot.transport.scattergather.ScatterGatherImpl.SingleRequestHandler;
+import io.netty.buffer.ByteBuf;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Response future for a request which gets duplicated to a speculative server if the response from the selected
+ * server is not back after a delay (hedged request), or if the request to the selected server fails. Completes with
+ * the first successful response, or with the error from the selected server if both requests fail.
+ *
+ * The future is keyed by the selected server so that the gathered responses stay keyed by the selected servers.
+ */
+public class SpeculativeResponseFuture extends ResponseFuture {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SpeculativeResponseFuture.class);
+
+  private final ResponseFuture _selectedServerFuture;
+  private final SingleRequestHandler _speculativeRequestHandler;
+  private final ExecutorService _executorService;
+
+  private final AtomicBoolean _isSpeculativeRequestSent = new AtomicBoolean(false);
+  // Number of underlying futures sent and not completed yet
+  private final AtomicInteger _numPendingFutures = new AtomicInteger(1);
+  private volatile Throwable _selectedServerError;
+
+  /**
+   * @param selectedServer Server the request was sent to
+   * @param selectedServerFuture Response future for the request sent to the selected server
+   * @param speculativeRequestHandler Handler to send the request to the speculative server
+   * @param executorService Executor to send the speculative request
+   */
+  public SpeculativeResponseFuture(ServerInstance selectedServer, ResponseFuture selectedServerFuture,
+      SingleRequestHandler speculativeRequestHandler, ExecutorService executorService) {
+    super(selectedServer, "Speculative Response Future for server " + selectedServer);
+    _selectedServerFuture = selectedServerFuture;
+    _speculativeRequestHandler = speculativeRequestHandler;
+    _executorService = executorService;
+    setCancellable(new Cancellable() {
+      @Override
+      public boolean cancel() {
+        _selectedServerFuture.cancel(true);
+        _speculativeRequestHandler.cancel();
+        return true;
+      }
+    });
+  }
+
+  /**
+   * Start listening to the response from the selected server, and schedule the speculative request after the delay.
+   */
+  public void start(ScheduledExecutorService scheduler, long speculativeRequestDelayMs) {
+    addUnderlyingFutureListener(_selectedServerFuture, true);
+    scheduler.schedule(new Runnable() {
+      @Override
+      public void run() {
+        sendSpeculativeRequest();
+      }
+    }, speculativeRequestDelayMs, TimeUnit.MILLISECONDS);
+  }
+
+  private void sendSpeculativeRequest() {
+    if (isDone() || !_isSpeculativeRequestSent.compareAndSet(false, true)) {
+      return;
+    }
+    LOGGER.debug("Sending speculative request to server {}", _speculativeRequestHandler.getServer());
+    _numPendingFutures.incrementAndGet();
+    _executorService.submit(new Runnable() {
+      @Override
+      public void run() {
+        _speculativeRequestHandler.run();
+        ResponseFuture speculativeFuture = _speculativeRequestHandler.getResponseFuture();
+        if (speculativeFuture == null) {
+          // Cancelled before the request got sent
+          speculativeFuture = new ResponseFuture(_speculativeRequestHandler.getServer(),
+              new Exception("Speculative request cancelled"), "Error Future for speculative request");
+        }
+        addUnderlyingFutureListener(speculativeFuture, false);
+      }
+    });
+  }
+
+  private void addUnderlyingFutureListener(final ResponseFuture underlyingFuture, final boolean isSelectedServer) {
+    underlyingFuture.addListener(new Runnable() {
+      @Override
+      public void run() {
+        onUnderlyingFutureDone(underlyingFuture, isSelectedServer);
+      }
+    }, null);
+  }
+
+  private void onUnderlyingFutureDone(ResponseFuture underlyingFuture, boolean isSelectedServer) {
+    ByteBuf response = null;
+    try {
+      // Non-blocking as the future is already done
+      response = underlyingFuture.getOne();
+    } catch (Exception e) {
+      // Handled as an error below
+    }
+
+    if (response != null) {
+      synchronized (this) {
+        if (!isDone()) {
+          onSuccess(response);
+          return;
+        }
+      }
+      // The other request already won the race, the response is not handed out
+      response.release();
+      return;
+    }
+
+    if (isSelectedServer) {
+      _selectedServerError = getError(underlyingFuture);
+      // Fail over to the speculative server right away
+      sendSpeculativeRequest();
+    }
+    if (_numPendingFutures.decrementAndGet() == 0) {
+      Throwable error = _selectedServerError != null ? _selectedServerError : getError(underlyingFuture);
+      onError(error);
+    }
+  }
+
+  private static Throwable getError(ResponseFuture future) {
+    Map<ServerInstance, Throwable> errorMap = future.getError();
+    if (errorMap != null && !errorMap.isEmpty()) {
+      return errorMap.values().iterator().next();
+    }
+    return new Exception("Request to " + future.getName() + " got cancelled or returned no response");
+  }
+}
@@ -328,6 +328,46 @@ public class CompositeFutureTest {
     executor.shutdown();
   }
 
+  @Test
+  /**
+   * Response listeners get each response as soon as it arrives, including responses received before the listener is
+   * added, and before the composite future is done.
+   * @throws Exception
+   */
+  public void testResponseListener() throws Exception {
+    int numFutures = 10;
+    Map<String, KeyedFuture<String, String>> futureMap = new HashMap<String, KeyedFuture<String, String>>();
+    for (int i = 0; i < numFutures; i++) {
+      String key = "key_" + i;
+      futureMap.put(key, new AsyncResponseFuture<String, String>(key, ""));
+    }
+    CompositeFuture<String, String> compositeFuture =
+        new CompositeFuture<String, String>("test", GatherModeOnError.SHORTCIRCUIT_AND);
+    compositeFuture.start(futureMap.values());
+
+    // Response arrived before the listener is added.
+    ((AsyncResponseFuture<String, String>) futureMap.get("key_0")).onSuccess("message_0");
+
+    final Map<String, String> receivedResponses = new HashMap<String, String>();
+    compositeFuture.addResponseListener(new CompositeFuture.ResponseListener<String, String>() {
+      @Override
+      public void onResponse(String key, String response) {
+        receivedResponses.put(key, response);
+      }
+    });
+    Assert.assertEquals(receivedResponses.size(), 1);
+    Assert.assertEquals(receivedResponses.get("key_0"), "message_0");
+
+    for (int i = 1; i < numFutures; i++) {
+      String key = "key_" + i;
+      ((AsyncResponseFuture<String, String>) futureMap.get(key)).onSuccess("message_" + i);
+      Assert.assertEquals(receivedResponses.size(), i + 1);
+      Assert.assertEquals(receivedResponses.get(key), "message_" + i);
+      Assert.assertEquals(compositeFuture.isDone(), i == numFutures - 1);
+    }
+    Assert.assertEquals(compositeFuture.get(), receivedResponses);
+  }
+
   @Test
   /**
    * Tests Composite future with one underlying future.
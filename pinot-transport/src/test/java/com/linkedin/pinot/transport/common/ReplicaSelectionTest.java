@@ -90,6 +90,83 @@ public class ReplicaSelectionTest {
 
   }
 
+  @Test
+  public void testAdaptiveSelection() {
+    // Disable the decay of the response times so that the test does not depend on timing
+    AdaptiveReplicaSelection sel1 = new AdaptiveReplicaSelection(50, 5L, Long.MAX_VALUE);
+
+    ServerInstance s1 = new ServerInstance("localhost", 8080);
+    ServerInstance s2 = new ServerInstance("localhost", 8081);
+    ServerInstance s3 = new ServerInstance("localhost", 8082);
+    List<ServerInstance> candidates = new ArrayList<ServerInstance>();
+    Assert.assertNull(sel1.selectServer(new SegmentId("1"), candidates, null));
+    candidates.addAll(Arrays.asList(s1, s2, s3));
+
+    // s1 is slow, s2 is fast, s3 has no response yet
+    for (int i = 0; i < 64; i++) {
+      sel1.onRequestSent(s1);
+      sel1.onResponse(s1, 100L, false);
+      sel1.onRequestSent(s2);
+      sel1.onResponse(s2, 10L, false);
+    }
+    Assert.assertEquals(sel1.getAverageLatencyMs(s1), 100.0, 0.001);
+    Assert.assertEquals(sel1.getAverageLatencyMs(s3), -1.0, 0.001);
+    // Median of the response times
+    Assert.assertEquals(sel1.getHedgeDelayMs(), 10L);
+    Assert.assertEquals(sel1.selectServer(new SegmentId("1"), candidates, null), s3);
+
+    // s3 becomes slow
+    sel1.onRequestSent(s3);
+    sel1.onResponse(s3, 1000L, false);
+    Assert.assertEquals(sel1.selectServer(new SegmentId("1"), candidates, null), s2);
+    Assert.assertEquals(sel1.selectSpeculativeServer(new SegmentId("1"), candidates, s2, null), s1);
+
+    // In-flight requests on s2 make it less attractive than s1
+    for (int i = 0; i < 20; i++) {
+      sel1.onRequestSent(s2);
+    }
+    Assert.assertEquals(sel1.selectServer(new SegmentId("1"), candidates, null), s1);
+
+    // Errors count as slow responses
+    for (int i = 0; i < 20; i++) {
+      sel1.onResponse(s2, 1L, true);
+    }
+    Assert.assertTrue(sel1.getAverageLatencyMs(s2) > 900.0);
+    Assert.assertEquals(sel1.selectServer(new SegmentId("1"), candidates, null), s1);
+  }
+
+  @Test
+  public void testAdaptiveSelectionRecovery()
+      throws Exception {
+    AdaptiveReplicaSelection sel1 = new AdaptiveReplicaSelection(50, 5L, 20L);
+
+    ServerInstance s1 = new ServerInstance("localhost", 8080);
+    ServerInstance s2 = new ServerInstance("localhost", 8081);
+    List<ServerInstance> candidates = Arrays.asList(s1, s2);
+
+    // s1 has a slow period and gets avoided
+    sel1.onRequestSent(s1);
+    sel1.onResponse(s1, 1000L, false);
+    sel1.onRequestSent(s2);
+    sel1.onResponse(s2, 10L, false);
+    Assert.assertEquals(sel1.selectServer(new SegmentId("1"), candidates, null), s2);
+
+    // Without new response, the average response time of s1 decays (1000ms halved every 20ms)
+    Thread.sleep(300L);
+    Assert.assertTrue(sel1.getAverageLatencyMs(s1) < 1.0);
+
+    // s2 keeps serving with a fresh average, s1 gets probed again
+    sel1.onRequestSent(s2);
+    sel1.onResponse(s2, 10L, false);
+    Assert.assertEquals(sel1.selectServer(new SegmentId("1"), candidates, null), s1);
+
+    // s1 is fast again and keeps being selected
+    sel1.onRequestSent(s1);
+    sel1.onResponse(s1, 1L, false);
+    Assert.assertTrue(sel1.getAverageLatencyMs(s1) < 1.0);
+    Assert.assertEquals(sel1.selectServer(new SegmentId("1"), candidates, null), s1);
+  }
+
   public static class BucketKey {
     private final int _key;
 
@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.netty;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningScheduledExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.transport.metrics.NettyClientMetrics;
+import com.linkedin.pinot.transport.netty.NettyClientConnection.ResponseFuture;
+import com.linkedin.pinot.transport.netty.NettyServer.RequestHandler;
+import com.linkedin.pinot.transport.netty.NettyServer.RequestHandlerFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.HashedWheelTimer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+public class MultiplexedConnectionIntegrationTest {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int PORT = 9091;
+  private static final String SLOW_REQUEST = "slow";
+
+  private NettyTCPServer _server;
+  private ServerInstance _serverInstance;
+  private ListeningScheduledExecutorService _responseExecutor;
+  private EventLoopGroup _eventLoopGroup;
+  private HashedWheelTimer _timer;
+  private MultiplexedConnectionPool _connPool;
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    _responseExecutor = MoreExecutors.listeningDecorator(Executors.newScheduledThreadPool(4));
+    // Echo the request back, with a delay decreasing with the request number so that responses come out of order.
+    _server = new NettyTCPServer(PORT, new RequestHandlerFactory() {
+      @Override
+      public RequestHandler createNewRequestHandler() {
+        return new RequestHandler() {
+          @Override
+          public ListenableFuture<byte[]> processRequest(ChannelHandlerContext channelHandlerContext,
+              ByteBuf request) {
+            byte[] bytes = new byte[request.readableBytes()];
+            request.readBytes(bytes);
+            final String requestString = new String(bytes, UTF_8);
+            long delayMs = requestString.equals(SLOW_REQUEST) ? 2000L : 100L - Integer.parseInt(requestString);
+            return _responseExecutor.schedule(new Callable<byte[]>() {
+              @Override
+              public byte[] call()
+                  throws Exception {
+                return ("response_" + requestString).getBytes(UTF_8);
+              }
+            }, delayMs, TimeUnit.MILLISECONDS);
+          }
+        };
+      }
+    }, null);
+    new Thread(_server, "MultiplexedServerMain").start();
+    _serverInstance = new ServerInstance("localhost", PORT);
+    Thread.sleep(1000);
+
+    _eventLoopGroup = new NioEventLoopGroup();
+    _timer = new HashedWheelTimer();
+    _connPool = new MultiplexedConnectionPool(_eventLoopGroup, _timer, new NettyClientMetrics(null, "multiplexed"), 1);
+  }
+
+  @Test
+  public void testConcurrentRequestsOnSingleConnection()
+      throws Exception {
+    List<ResponseFuture> responseFutures = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      responseFutures.add(
+          _connPool.sendRequest(_serverInstance, Unpooled.wrappedBuffer(Integer.toString(i).getBytes(UTF_8)), i,
+              10000L));
+    }
+    MultiplexedNettyClientConnection connection = _connPool.getConnection(_serverInstance);
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals(getResponse(responseFutures.get(i)), "response_" + i);
+    }
+    Assert.assertEquals(connection.getNumOutstandingRequests(), 0);
+    // All requests shared the single connection
+    Assert.assertSame(_connPool.getConnection(_serverInstance), connection);
+  }
+
+  @Test
+  public void testRequestTimeoutDoesNotCloseConnection()
+      throws Exception {
+    MultiplexedNettyClientConnection connection = _connPool.getConnection(_serverInstance);
+    ResponseFuture slowResponseFuture =
+        _connPool.sendRequest(_serverInstance, Unpooled.wrappedBuffer(SLOW_REQUEST.getBytes(UTF_8)), 1L, 100L);
+    ResponseFuture responseFuture =
+        _connPool.sendRequest(_serverInstance, Unpooled.wrappedBuffer("1".getBytes(UTF_8)), 2L, 10000L);
+
+    Assert.assertNull(slowResponseFuture.getOne());
+    Assert.assertNotNull(slowResponseFuture.getError());
+    Assert.assertEquals(getResponse(responseFuture), "response_1");
+    Assert.assertTrue(connection.validate());
+    Assert.assertSame(_connPool.getConnection(_serverInstance), connection);
+  }
+
+  private static String getResponse(ResponseFuture responseFuture)
+      throws Exception {
+    ByteBuf response = responseFuture.getOne();
+    Assert.assertNotNull(response, "Got error: " + responseFuture.getError());
+    byte[] bytes = new byte[response.readableBytes()];
+    response.readBytes(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _connPool.shutdown();
+    _server.shutdownGracefully();
+    _eventLoopGroup.shutdownGracefully();
+    _timer.stop();
+    _responseExecutor.shutdownNow();
+  }
+}
@@ -454,6 +454,11 @@ public class ScatterGatherPerfClient implements Runnable {
       return _pgToServersMap;
     }
 
+    @Override
+    public Map<String, List<ServerInstance>> getSegmentReplicasMap() {
+      return null;
+    }
+
     @Override
     public byte[] getRequestForService(ServerInstance service, SegmentIdSet queryPartitions) {
       return _brokerRequest;
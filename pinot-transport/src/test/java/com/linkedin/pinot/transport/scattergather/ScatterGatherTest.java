@@ -19,6 +19,7 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.netty.channel.ChannelHandlerContext;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +38,7 @@ import com.google.common.util.concurrent.MoreExecutors;
 import com.linkedin.pinot.common.metrics.BrokerMetrics;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.transport.common.AdaptiveReplicaSelection;
 import com.linkedin.pinot.transport.common.BucketingSelection;
 import com.linkedin.pinot.transport.common.CompositeFuture;
 import com.linkedin.pinot.transport.common.ReplicaSelection;
@@ -214,6 +216,53 @@ public class ScatterGatherTest {
     }
   }
 
+  @Test
+  public void testSelectServersWithReplicas() throws Exception {
+    ScatterGatherImpl scImpl = new ScatterGatherImpl(null, MoreExecutors.sameThreadExecutor());
+    ServerInstance serverInstance1 = new ServerInstance("localhost", 1011);
+    ServerInstance serverInstance2 = new ServerInstance("localhost", 1012);
+    ServerInstance serverInstance3 = new ServerInstance("localhost", 1013);
+
+    // Server 1 is routed segments 0 and 1 which are also hosted by server 3, server 2 is routed segment 2
+    SegmentIdSet pg = new SegmentIdSet();
+    pg.addSegment(new SegmentId("0"));
+    pg.addSegment(new SegmentId("1"));
+    SegmentIdSet pg2 = new SegmentIdSet();
+    pg2.addSegment(new SegmentId("2"));
+    Map<ServerInstance, SegmentIdSet> pgMap = new HashMap<ServerInstance, SegmentIdSet>();
+    pgMap.put(serverInstance1, pg);
+    pgMap.put(serverInstance2, pg2);
+    Map<String, List<ServerInstance>> segmentReplicasMap = new HashMap<String, List<ServerInstance>>();
+    segmentReplicasMap.put("0", Arrays.asList(serverInstance1, serverInstance3));
+    segmentReplicasMap.put("1", Arrays.asList(serverInstance3, serverInstance1, serverInstance2));
+    segmentReplicasMap.put("2", Arrays.asList(serverInstance2));
+
+    // Server 1 is slower than server 3
+    AdaptiveReplicaSelection replicaSelection = new AdaptiveReplicaSelection(95, 10L);
+    replicaSelection.onRequestSent(serverInstance1);
+    replicaSelection.onResponse(serverInstance1, 500L, false);
+    replicaSelection.onRequestSent(serverInstance3);
+    replicaSelection.onResponse(serverInstance3, 10L, false);
+
+    TestScatterGatherRequest req =
+        new TestScatterGatherRequest(pgMap, new HashMap<SegmentIdSet, String>(), replicaSelection,
+            ReplicaSelectionGranularity.SEGMENT_ID_SET, 1, 10000);
+    req.setSegmentReplicasMap(segmentReplicasMap);
+    ScatterGatherRequestContext ctxt = new ScatterGatherRequestContext(req);
+    scImpl.buildInvertedMap(ctxt);
+    Assert.assertEquals(ctxt.getInvertedMap().get(Arrays.asList(serverInstance1, serverInstance3)), pg);
+    Assert.assertEquals(ctxt.getInvertedMap().get(Arrays.asList(serverInstance2)), pg2);
+
+    scImpl.selectServices(ctxt);
+    Map<ServerInstance, SegmentIdSet> resultMap = ctxt.getSelectedServers();
+    Assert.assertEquals(resultMap.size(), 2);
+    Assert.assertEquals(resultMap.get(serverInstance3), pg);
+    Assert.assertEquals(resultMap.get(serverInstance2), pg2);
+    // Speculative request for segments 0 and 1 goes to server 1, segment 2 has no other replica
+    Assert.assertEquals(ctxt.getSpeculativeServers().size(), 1);
+    Assert.assertEquals(ctxt.getSpeculativeServers().get(serverInstance3), serverInstance1);
+  }
+
   @Test
   public void testSingleServer() throws Exception {
 
@@ -687,6 +736,7 @@ public class ScatterGatherTest {
     private final ReplicaSelectionGranularity _granularity;
     private final int _numSpeculativeRequests;
     private final int _timeoutMS;
+    private Map<String, List<ServerInstance>> _segmentReplicasMap;
 
     public TestScatterGatherRequest(Map<ServerInstance, SegmentIdSet> partitionServicesMap,
         Map<SegmentIdSet, String> responsesMap) {
@@ -714,6 +764,15 @@ public class ScatterGatherTest {
       return _partitionServicesMap;
     }
 
+    @Override
+    public Map<String, List<ServerInstance>> getSegmentReplicasMap() {
+      return _segmentReplicasMap;
+    }
+
+    public void setSegmentReplicasMap(Map<String, List<ServerInstance>> segmentReplicasMap) {
+      _segmentReplicasMap = segmentReplicasMap;
+    }
+
     @Override
     public byte[] getRequestForService(ServerInstance service, SegmentIdSet queryPartitions) {
       String s = _responsesMap.get(queryPartitions);